@@ -0,0 +1,90 @@
+package com.grasp.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Replaces the single auto-configured pool with a primary pool and one pool per read replica once
+ * {@code grasp.datasource.replica-urls} is set; see {@link ReadWriteRoutingDataSource}. Every pool takes the
+ * {@code spring.datasource} credentials and {@code spring.datasource.hikari} settings, and reports its own
+ * {@code hikaricp_*} meters tagged with its pool name.
+ */
+@Configuration
+@ConditionalOnExpression("!'${grasp.datasource.replica-urls:}'.isBlank()")
+public class DataSourceRoutingConfig {
+
+    @Bean
+    public ReadWriteRoutingDataSource readWriteRoutingDataSource(
+            DataSourceProperties properties,
+            Environment environment,
+            ObjectProvider<MeterRegistry> meterRegistry,
+            @Value("${grasp.datasource.replica-urls}") List<String> replicaUrls,
+            @Value("${grasp.datasource.replica-pool-size:10}") int replicaPoolSize,
+            @Value("${grasp.datasource.replica-connection-timeout:1s}") Duration replicaConnectionTimeout,
+            @Value("${grasp.datasource.max-replica-lag:5s}") Duration maxLag,
+            @Value("${grasp.datasource.lag-check-interval:1s}") Duration checkInterval) {
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        HikariConfig primaryConfig = poolConfig(properties, environment, "grasp-primary", properties.determineUrl(), registry);
+
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (String url : replicaUrls) {
+            if (url.isBlank()) {
+                continue;
+            }
+            HikariConfig config = poolConfig(properties, environment, "grasp-replica-" + (replicas.size() + 1),
+                url.trim(), registry);
+            config.setMaximumPoolSize(replicaPoolSize);
+            config.setConnectionTimeout(replicaConnectionTimeout.toMillis());
+            config.setReadOnly(true);
+            config.setInitializationFailTimeout(-1); // a replica that is down must not stop the application
+            replicas.add(new HikariDataSource(config));
+        }
+        ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource(
+            new HikariDataSource(primaryConfig), replicas, maxLag, checkInterval);
+        routing.start();
+        return routing;
+    }
+
+    /**
+     * The application's data source: the physical connection, and with it the pool, is picked at the first
+     * statement, when the transaction's read-only flag is known
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(ReadWriteRoutingDataSource readWriteRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(readWriteRoutingDataSource);
+    }
+
+    private static HikariConfig poolConfig(DataSourceProperties properties, Environment environment, String name,
+                                           String url, MeterRegistry registry) {
+        HikariConfig config = new HikariConfig();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(config));
+        config.setPoolName(name);
+        config.setJdbcUrl(url);
+        config.setUsername(properties.determineUsername());
+        config.setPassword(properties.determinePassword());
+        config.setDriverClassName(properties.determineDriverClassName());
+        if (registry != null) {
+            config.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+        }
+        return config;
+    }
+}
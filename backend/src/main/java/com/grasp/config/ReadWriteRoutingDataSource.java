@@ -0,0 +1,266 @@
+package com.grasp.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hands out primary connections, except inside {@code @Transactional(readOnly = true)} where it hands out
+ * connections of a streaming replica, round robin over the replicas that are currently usable. Must sit
+ * behind a {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}: the transaction
+ * manager asks for the connection before it marks the transaction read-only, and the proxy delays that
+ * request until the first statement.
+ *
+ * Every {@code lag-check-interval} each replica reports how far its replay trails the primary. A replica
+ * that is unreachable, not streaming from the primary, or more than {@code max-lag} behind gets no reads until
+ * it has caught up, and a read that cannot get a replica connection is served by the primary, so replicas only
+ * ever add capacity. A replica whose pool is merely exhausted keeps taking reads; only other connection failures
+ * take it out.
+ * Reads on a replica may miss the last {@code max-lag} of writes; read-write transactions never see a replica.
+ */
+public class ReadWriteRoutingDataSource extends AbstractDataSource implements MeterBinder, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ReadWriteRoutingDataSource.class);
+
+    private static final String PRIMARY_LSN_SQL = "SELECT pg_current_wal_lsn()::text";
+
+    /**
+     * Replay delay in seconds given the primary's WAL position read just before: 0 once that position is
+     * replayed (the last replayed commit may be old on an idle primary), infinite without a WAL receiver. Only
+     * roles with pg_read_all_stats see the receiver's status; others see a running receiver with a null status.
+     */
+    private static final String LAG_SQL =
+        "SELECT CASE WHEN NOT pg_is_in_recovery() THEN 0::float8 " +
+        "WHEN NOT EXISTS (SELECT 1 FROM pg_stat_wal_receiver WHERE status IS NULL OR status = 'streaming') " +
+        "THEN 'Infinity'::float8 " +
+        "WHEN pg_last_wal_replay_lsn() >= ?::pg_lsn THEN 0::float8 " +
+        "ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp())::float8, 'Infinity'::float8) END";
+
+    private final HikariDataSource primary;
+    private final List<Replica> replicas;
+    private final Duration maxLag;
+    private final Duration checkInterval;
+    private final ScheduledExecutorService lagChecker;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+
+    private final LongAdder writes = new LongAdder();
+    private final LongAdder primaryReads = new LongAdder();
+
+    public ReadWriteRoutingDataSource(HikariDataSource primary, List<HikariDataSource> replicaPools,
+                                      Duration maxLag, Duration checkInterval) {
+        this.primary = primary;
+        this.replicas = replicaPools.stream().map(Replica::new).toList();
+        this.maxLag = maxLag;
+        this.checkInterval = checkInterval;
+        this.lagChecker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-lag-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Checks every replica once, so the first reads already know which replicas are usable, then keeps
+     * checking in the background
+     */
+    public void start() {
+        checkReplicas();
+        lagChecker.scheduleWithFixedDelay(this::checkReplicas,
+            checkInterval.toMillis(), checkInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            writes.increment();
+            return primary.getConnection();
+        }
+        int count = replicas.size();
+        int first = count > 0 ? Math.floorMod(nextReplica.getAndIncrement(), count) : 0;
+        for (int i = 0; i < count; i++) {
+            Replica replica = replicas.get((first + i) % count);
+            if (!replica.usable) {
+                continue;
+            }
+            try {
+                Connection connection = replica.pool.getConnection();
+                replica.reads.increment();
+                return connection;
+            } catch (SQLTransientConnectionException e) {
+                // A pool timeout without a connection failure behind it: the replica is busy, not down
+                if (e.getCause() == null) {
+                    replica.busy.increment();
+                } else {
+                    replica.markDown(e);
+                }
+            } catch (SQLException | RuntimeException e) {
+                replica.markDown(e);
+            }
+        }
+        primaryReads.increment();
+        return primary.getConnection();
+    }
+
+    /**
+     * A primary connection with other credentials; the pools only hold connections of the configured ones
+     */
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        writes.increment();
+        return primary.getConnection(username, password);
+    }
+
+    /**
+     * The primary pool; also what {@link #unwrap} returns, for pool health and metadata
+     */
+    public HikariDataSource getPrimary() {
+        return primary;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return (T) this;
+        }
+        return primary.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || primary.isWrapperFor(iface);
+    }
+
+    /**
+     * Pool state, lag and routed connections by replica
+     */
+    public Map<String, Object> replicaStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        for (Replica replica : replicas) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("usable", replica.usable);
+            entry.put("lagSeconds", replica.lagSeconds);
+            entry.put("reads", replica.reads.sum());
+            entry.put("busy", replica.busy.sum());
+            if (replica.pool.getHikariPoolMXBean() != null) {
+                entry.put("active", replica.pool.getHikariPoolMXBean().getActiveConnections());
+                entry.put("waiting", replica.pool.getHikariPoolMXBean().getThreadsAwaitingConnection());
+            }
+            stats.put(replica.pool.getPoolName(), entry);
+        }
+        return stats;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("grasp.datasource.connections", writes, LongAdder::sum)
+            .description("Connections handed out, by pool and transaction kind")
+            .tag("pool", primary.getPoolName()).tag("kind", "read-write").register(registry);
+        FunctionCounter.builder("grasp.datasource.connections", primaryReads, LongAdder::sum)
+            .tag("pool", primary.getPoolName()).tag("kind", "read-only").register(registry);
+        for (Replica replica : replicas) {
+            FunctionCounter.builder("grasp.datasource.connections", replica.reads, LongAdder::sum)
+                .tag("pool", replica.pool.getPoolName()).tag("kind", "read-only").register(registry);
+            Gauge.builder("grasp.datasource.replica.lag", replica, r -> r.lagSeconds)
+                .description("Replay delay behind the primary; NaN while unreachable")
+                .baseUnit("seconds")
+                .tag("pool", replica.pool.getPoolName()).register(registry);
+            FunctionCounter.builder("grasp.datasource.replica.busy", replica.busy, LongAdder::sum)
+                .description("Reads sent to the primary because the replica's pool had no free connection in time")
+                .tag("pool", replica.pool.getPoolName()).register(registry);
+            Gauge.builder("grasp.datasource.replica.usable", replica, r -> r.usable ? 1 : 0)
+                .tag("pool", replica.pool.getPoolName()).register(registry);
+        }
+    }
+
+    @Override
+    public void close() {
+        lagChecker.shutdownNow();
+        for (Replica replica : replicas) {
+            replica.pool.close();
+        }
+        primary.close();
+    }
+
+    private void checkReplicas() {
+        if (replicas.isEmpty()) {
+            return;
+        }
+        int timeoutSeconds = (int) Math.max(1, checkInterval.toSeconds());
+        String primaryLsn;
+        try (Connection connection = primary.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.setQueryTimeout(timeoutSeconds);
+            try (ResultSet rs = statement.executeQuery(PRIMARY_LSN_SQL)) {
+                rs.next();
+                primaryLsn = rs.getString(1);
+            }
+        } catch (SQLException | RuntimeException e) {
+            // Without the primary's position no lag can be told apart from a lost connection; keep the last state
+            log.warn("Could not read the primary's WAL position; replica states are unchanged", e);
+            return;
+        }
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.pool.getConnection();
+                 PreparedStatement statement = connection.prepareStatement(LAG_SQL)) {
+                statement.setQueryTimeout(timeoutSeconds);
+                statement.setString(1, primaryLsn);
+                try (ResultSet rs = statement.executeQuery()) {
+                    rs.next();
+                    replica.lagSeconds = rs.getDouble(1);
+                }
+                boolean usable = replica.lagSeconds <= maxLag.toMillis() / 1000.0;
+                if (usable != replica.usable) {
+                    log.info("Replica {} {} (lag {}s)", replica.pool.getPoolName(),
+                        usable ? "takes reads" : "is too far behind; reads go to the primary", replica.lagSeconds);
+                }
+                replica.usable = usable;
+            } catch (SQLException | RuntimeException e) {
+                replica.markDown(e);
+            }
+        }
+    }
+
+    private static final class Replica {
+        private final HikariDataSource pool;
+        private final LongAdder reads = new LongAdder();
+        private final LongAdder busy = new LongAdder();
+        private volatile boolean usable;
+        private volatile double lagSeconds = Double.NaN;
+
+        private Replica(HikariDataSource pool) {
+            this.pool = pool;
+        }
+
+        private void markDown(Exception e) {
+            if (usable) {
+                log.warn("Replica {} is unreachable; reads go to the primary until it answers again",
+                    pool.getPoolName(), e);
+            }
+            usable = false;
+            lagSeconds = Double.NaN;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.grasp.config;
+
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Configuration
+public class RecommendationExecutorConfig {
+
+    /**
+     * Bounded pool that batch requests fan plans out to; 0 means one worker per available processor
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService recommendationBatchExecutor(
+            @Value("${grasp.recommendations.batch.parallelism:0}") int parallelism) {
+        int workers = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        return new ForkJoinPool(workers, ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true);
+    }
+
+    /**
+     * Runs the debounced per-plan recomputes of the recommendation pipeline
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ScheduledExecutorService recommendationPipelineScheduler(
+            @Value("${grasp.recommendations.pipeline.threads:2}") int threads) {
+        AtomicInteger counter = new AtomicInteger();
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(Math.max(1, threads), runnable -> {
+            Thread thread = new Thread(runnable, "recommendation-pipeline-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.setRemoveOnCancelPolicy(true);
+        return scheduler;
+    }
+
+    /**
+     * Runs the claim loops of the distributed scoring worker; threads are only started when the worker is enabled
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ScheduledExecutorService scoringWorkerScheduler(@Value("${grasp.scoring.worker.threads:2}") int threads) {
+        AtomicInteger counter = new AtomicInteger();
+        return new ScheduledThreadPoolExecutor(Math.max(1, threads), runnable -> {
+            Thread thread = new Thread(runnable, "scoring-worker-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Queue depth, active workers and completed tasks of both pools ({@code executor.*} meters)
+     */
+    @Bean
+    public MeterBinder recommendationExecutorMetrics(
+            @Qualifier("recommendationBatchExecutor") ExecutorService batchExecutor,
+            @Qualifier("recommendationPipelineScheduler") ScheduledExecutorService pipelineScheduler) {
+        return registry -> {
+            new ExecutorServiceMetrics(batchExecutor, "recommendationBatch", Tags.empty()).bindTo(registry);
+            new ExecutorServiceMetrics(pipelineScheduler, "recommendationPipeline", Tags.empty()).bindTo(registry);
+        };
+    }
+}
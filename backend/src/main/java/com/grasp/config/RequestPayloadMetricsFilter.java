@@ -0,0 +1,120 @@
+package com.grasp.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Records the size of request bodies as {@code grasp.http.request.payload}, tagged with the matched
+ * route. Bytes are counted as the handler reads them, so chunked uploads without a Content-Length
+ * (batch and bulk endpoints) are measured too.
+ */
+@Component
+public class RequestPayloadMetricsFilter extends OncePerRequestFilter {
+
+    private final MeterRegistry registry;
+
+    public RequestPayloadMetricsFilter(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String method = request.getMethod();
+        return !("POST".equals(method) || "PUT".equals(method) || "PATCH".equals(method));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        CountingRequest counting = new CountingRequest(request);
+        try {
+            chain.doFilter(counting, response);
+        } finally {
+            Object route = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            if (route != null) {
+                DistributionSummary.builder("grasp.http.request.payload")
+                    .description("Request body size")
+                    .baseUnit("bytes")
+                    .tag("method", request.getMethod())
+                    .tag("uri", route.toString())
+                    .publishPercentileHistogram()
+                    .register(registry)
+                    .record(counting.bytesRead());
+            }
+        }
+    }
+
+    private static final class CountingRequest extends HttpServletRequestWrapper {
+        private CountingInputStream stream;
+
+        private CountingRequest(HttpServletRequest request) {
+            super(request);
+        }
+
+        @Override
+        public ServletInputStream getInputStream() throws IOException {
+            if (stream == null) {
+                stream = new CountingInputStream(super.getInputStream());
+            }
+            return stream;
+        }
+
+        private long bytesRead() {
+            return stream != null ? stream.count : 0;
+        }
+    }
+
+    private static final class CountingInputStream extends ServletInputStream {
+        private final ServletInputStream delegate;
+        private long count;
+
+        private CountingInputStream(ServletInputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = delegate.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = delegate.read(buffer, offset, length);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+
+        @Override
+        public boolean isFinished() {
+            return delegate.isFinished();
+        }
+
+        @Override
+        public boolean isReady() {
+            return delegate.isReady();
+        }
+
+        @Override
+        public void setReadListener(ReadListener listener) {
+            delegate.setReadListener(listener);
+        }
+    }
+}
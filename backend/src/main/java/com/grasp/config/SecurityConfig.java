@@ -1,29 +1,61 @@
 package com.grasp.config;
 
+import com.grasp.security.JwtAuthenticationFilter;
+import com.grasp.security.VerifiedTokenCache;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.security.config.Customizer;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.HttpStatusEntryPoint;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
+/**
+ * Stateless bearer-token security. No session or basic-auth state is kept; each request is authenticated by
+ * {@link JwtAuthenticationFilter} from its own token. Until the frontend sends tokens everywhere,
+ * {@code grasp.security.require-auth} leaves the API open to anonymous callers, while still rejecting
+ * invalid tokens. The rebuild endpoints always need an admin token, and of the actuator only health is
+ * public.
+ */
 @Configuration
 @EnableWebSecurity
 public class SecurityConfig {
 
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http, VerifiedTokenCache tokenCache,
+                                           @Value("${grasp.security.require-auth:false}") boolean requireAuth)
+            throws Exception {
         http
             .csrf(csrf -> csrf.disable())
-            .authorizeHttpRequests(auth -> auth
-                .requestMatchers("/api/health", "/api/recommendations/**", "/swagger-ui.html", "/swagger-ui/**", "/v3/api-docs/**", "/api-docs/**").permitAll()
-                .anyRequest().permitAll()
-            )
-            .httpBasic(Customizer.withDefaults());
+            .httpBasic(basic -> basic.disable())
+            .formLogin(form -> form.disable())
+            .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+            .authorizeHttpRequests(auth -> {
+                auth.requestMatchers("/api/auth/login", "/api/auth/register", "/api/health", "/actuator/health/**",
+                    "/error", "/swagger-ui.html", "/swagger-ui/**", "/v3/api-docs/**", "/api-docs/**").permitAll();
+                auth.requestMatchers(HttpMethod.POST, "/api/cohorts/rebuild", "/api/dashboard/*/rebuild",
+                    "/api/sessions/aggregates/*/rebuild", "/api/recommendations/rules/reload", "/api/scoring/runs",
+                    "/api/schedule/due").hasRole("ADMIN");
+                auth.requestMatchers("/actuator/**").authenticated();
+                if (requireAuth) {
+                    auth.anyRequest().authenticated();
+                } else {
+                    auth.anyRequest().permitAll();
+                }
+            })
+            .exceptionHandling(ex -> ex.authenticationEntryPoint(new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED)))
+            .addFilterBefore(new JwtAuthenticationFilter(tokenCache), UsernamePasswordAuthenticationFilter.class);
         return http.build();
     }
-}
-
-
-
 
+    @Bean
+    public PasswordEncoder passwordEncoder() {
+        return new BCryptPasswordEncoder();
+    }
+}
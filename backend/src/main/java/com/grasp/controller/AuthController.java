@@ -0,0 +1,65 @@
+package com.grasp.controller;
+
+import com.grasp.dto.AuthResponse;
+import com.grasp.dto.LoginRequest;
+import com.grasp.dto.RegisterRequest;
+import com.grasp.security.AuthenticatedUser;
+import com.grasp.security.VerifiedTokenCache;
+import com.grasp.service.AuthService;
+import jakarta.validation.Valid;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Instant;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/auth")
+public class AuthController {
+
+    private final AuthService authService;
+    private final VerifiedTokenCache tokenCache;
+
+    public AuthController(AuthService authService, VerifiedTokenCache tokenCache) {
+        this.authService = authService;
+        this.tokenCache = tokenCache;
+    }
+
+    @PostMapping("/register")
+    public ResponseEntity<?> register(@Valid @RequestBody RegisterRequest request) {
+        return authService.register(request)
+            .<ResponseEntity<?>>map(response -> ResponseEntity.status(HttpStatus.CREATED).body(response))
+            .orElseGet(() -> ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(Map.of("error", "Email is already registered")));
+    }
+
+    @PostMapping("/login")
+    public ResponseEntity<?> login(@Valid @RequestBody LoginRequest request) {
+        return authService.login(request)
+            .<ResponseEntity<?>>map(ResponseEntity::ok)
+            .orElseGet(() -> ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                .body(Map.of("error", "Invalid email or password")));
+    }
+
+    /**
+     * The caller as identified by their token's claims; answered without a database read
+     */
+    @GetMapping("/me")
+    public ResponseEntity<Map<String, Object>> me(@AuthenticationPrincipal AuthenticatedUser user) {
+        if (user == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        return ResponseEntity.ok(Map.of(
+            "id", user.getId(),
+            "email", user.getEmail(),
+            "expiresAt", Instant.ofEpochMilli(user.getExpiresAtMillis())
+        ));
+    }
+
+    @GetMapping("/token-cache/stats")
+    public ResponseEntity<Map<String, Object>> tokenCacheStats() {
+        return ResponseEntity.ok(tokenCache.stats());
+    }
+}
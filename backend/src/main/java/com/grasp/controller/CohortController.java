@@ -0,0 +1,64 @@
+package com.grasp.controller;
+
+import com.grasp.service.metrics.CohortSketchStore;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/cohorts")
+public class CohortController {
+
+    private final CohortSketchStore cohortSketchStore;
+
+    public CohortController(CohortSketchStore cohortSketchStore) {
+        this.cohortSketchStore = cohortSketchStore;
+    }
+
+    /**
+     * Percentiles of the recent performance and average session duration of every scored subject with this
+     * name, and with {@code score} or {@code durationMinutes} where that value ranks among them
+     */
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getCohort(@RequestParam String subject,
+                                                         @RequestParam(required = false) Double score,
+                                                         @RequestParam(required = false) Double durationMinutes) {
+        CohortSketchStore.Cohort cohort = cohortSketchStore.lookup(subject);
+        if (cohort == null) {
+            return ResponseEntity.notFound().build();
+        }
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("cohort", cohort.getKey());
+        body.put("sessions", cohort.getSessions());
+        body.put("subjects", cohort.getSubjects());
+        body.put("performanceScore", CohortSketchStore.Cohort.summary(cohort.getPerformance()));
+        body.put("durationMinutes", CohortSketchStore.Cohort.summary(cohort.getDuration()));
+        if (score != null) {
+            body.put("scorePercentile", cohort.getPerformance().rank(score));
+        }
+        if (durationMinutes != null) {
+            body.put("durationPercentile", cohort.getDuration().rank(durationMinutes));
+        }
+        return ResponseEntity.ok(body);
+    }
+
+    /**
+     * Recomputes every cohort from the stored subject aggregates, e.g. once after upgrading or after
+     * aggregates were rebuilt
+     */
+    @PostMapping("/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuild() {
+        long start = System.nanoTime();
+        int cohorts = cohortSketchStore.rebuild();
+        return ResponseEntity.ok(Map.of(
+            "cohorts", cohorts,
+            "rebuildMillis", (System.nanoTime() - start) / 1_000_000));
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> stats() {
+        return ResponseEntity.ok(cohortSketchStore.stats());
+    }
+}
@@ -0,0 +1,37 @@
+package com.grasp.controller;
+
+import com.grasp.dto.PlanDashboard;
+import com.grasp.service.DashboardStatsService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/dashboard")
+public class DashboardController {
+
+    private final DashboardStatsService dashboardStatsService;
+
+    public DashboardController(DashboardStatsService dashboardStatsService) {
+        this.dashboardStatsService = dashboardStatsService;
+    }
+
+    /**
+     * Progress, totals, streaks and per-subject metrics of a plan, served from the materialized statistics
+     */
+    @GetMapping("/{planId}")
+    public ResponseEntity<PlanDashboard> getDashboard(@PathVariable Long planId) {
+        return dashboardStatsService.dashboard(planId)
+            .map(ResponseEntity::ok)
+            .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Recomputes the plan's statistics from its sessions, e.g. after sessions were written outside the API
+     */
+    @PostMapping("/{planId}/rebuild")
+    public ResponseEntity<PlanDashboard> rebuild(@PathVariable Long planId) {
+        return dashboardStatsService.rebuildPlan(planId)
+            .map(ResponseEntity::ok)
+            .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+}
@@ -1,30 +1,179 @@
 package com.grasp.controller;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.grasp.dto.CompactRecommendation;
 import com.grasp.dto.GenerateRecommendationsRequest;
 import com.grasp.model.Recommendation;
+import com.grasp.security.AuthenticatedUser;
+import com.grasp.service.BatchRecommendationService;
+import com.grasp.service.RecommendationCache;
 import com.grasp.service.RecommendationEngineService;
+import com.grasp.service.RecommendationPipeline;
+import com.grasp.service.StreamingRecommendationService;
+import com.grasp.service.rules.RecommendationRules;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/recommendations")
 public class RecommendationController {
 
+    private static final String NDJSON = "application/x-ndjson";
+
+    /** Media type of the compact form, also selected with {@code ?format=compact} */
+    static final String COMPACT_JSON = "application/vnd.grasp.compact+json";
+
     private final RecommendationEngineService recommendationEngineService;
+    private final BatchRecommendationService batchRecommendationService;
+    private final RecommendationCache recommendationCache;
+    private final StreamingRecommendationService streamingRecommendationService;
+    private final RecommendationPipeline recommendationPipeline;
+    private final RecommendationRules recommendationRules;
 
-    public RecommendationController(RecommendationEngineService recommendationEngineService) {
+    public RecommendationController(RecommendationEngineService recommendationEngineService,
+                                    BatchRecommendationService batchRecommendationService,
+                                    RecommendationCache recommendationCache,
+                                    StreamingRecommendationService streamingRecommendationService,
+                                    RecommendationPipeline recommendationPipeline,
+                                    RecommendationRules recommendationRules) {
         this.recommendationEngineService = recommendationEngineService;
+        this.batchRecommendationService = batchRecommendationService;
+        this.recommendationCache = recommendationCache;
+        this.streamingRecommendationService = streamingRecommendationService;
+        this.recommendationPipeline = recommendationPipeline;
+        this.recommendationRules = recommendationRules;
+    }
+
+    @GetMapping("/{planId}")
+    public ResponseEntity<List<?>> getForPlan(@PathVariable Long planId,
+                                              @RequestParam(required = false) String format,
+                                              @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        // A cache hit needs no database read; a miss serves the stored rows if current, else computes inline
+        return recommendationCache.getOrCompute(planId, id -> recommendationPipeline.findCurrent(id)
+                .or(() -> recommendationEngineService.generateRecommendationsForPlan(id)))
+            .map(recommendations -> respond(recommendations, format, accept))
+            .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/cache/stats")
+    public ResponseEntity<Map<String, Object>> cacheStats() {
+        return ResponseEntity.ok(recommendationCache.stats());
+    }
+
+    @GetMapping("/pipeline/stats")
+    public ResponseEntity<Map<String, Object>> pipelineStats() {
+        return ResponseEntity.ok(recommendationPipeline.stats());
+    }
+
+    @GetMapping("/rules")
+    public ResponseEntity<Map<String, Object>> rules() {
+        return ResponseEntity.ok(recommendationRules.describe());
+    }
+
+    /**
+     * Reasoning templates of the active rules and the time reallocation by rule id, for rendering compact
+     * responses client-side
+     */
+    @GetMapping("/rules/templates")
+    public ResponseEntity<Map<String, String>> ruleTemplates() {
+        return ResponseEntity.ok(recommendationEngineService.reasoningTemplates());
+    }
+
+    /**
+     * Re-reads the rule file; a file that does not compile is rejected with 400 and the current rules stay active
+     */
+    @PostMapping("/rules/reload")
+    public ResponseEntity<Map<String, Object>> reloadRules() throws IOException {
+        try {
+            return ResponseEntity.ok(recommendationRules.reload());
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
     }
 
     @PostMapping("/generate")
-    public ResponseEntity<List<Recommendation>> generate(@Valid @RequestBody GenerateRecommendationsRequest request) {
+    public ResponseEntity<List<?>> generate(@Valid @RequestBody GenerateRecommendationsRequest request,
+                                            @RequestParam(required = false) String format,
+                                            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
         List<Recommendation> recommendations = recommendationEngineService.generateRecommendations(
             request.getSessions(), request.getPlan()
         );
-        return ResponseEntity.ok(recommendations);
+        return respond(recommendations, format, accept);
+    }
+
+    /**
+     * Same contract as {@code /generate}, but the sessions are folded into per-subject totals while the
+     * body is parsed instead of being bound into a list first. Meant for very large uploads; as with
+     * {@code /generate}, sessions of subjects outside the plan are ignored.
+     */
+    @PostMapping("/generate/stream")
+    public ResponseEntity<List<?>> generateStreaming(HttpServletRequest request,
+                                                     @RequestParam(required = false) String format,
+                                                     @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept)
+            throws IOException {
+        try {
+            return respond(streamingRecommendationService.generate(request.getInputStream()), format, accept);
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * The response is always NDJSON, so the compact form is only selected with {@code ?format=compact}
+     */
+    @PostMapping(path = "/generate/batch", consumes = NDJSON, produces = NDJSON)
+    public void generateBatch(HttpServletRequest request, HttpServletResponse response,
+                              @RequestParam(required = false) String format) throws IOException {
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(NDJSON);
+        batchRecommendationService.process(request.getInputStream(), response.getOutputStream(),
+            isCompact(format, null));
+    }
+
+    /**
+     * Recomputes from the plan's stored aggregates. The plan and its subjects are loaded here, never taken from
+     * the client; a signed-in caller only gets their own plans (admins any), and someone else's plan is a 404.
+     */
+    @PostMapping("/generate/aggregated/{planId}")
+    public ResponseEntity<List<?>> generateFromAggregates(@PathVariable Long planId,
+                                                         @AuthenticationPrincipal AuthenticatedUser user,
+                                                         @RequestParam(required = false) String format,
+                                                         @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        Long ownerId = user == null || user.isAdmin() ? null : user.getId();
+        return recommendationEngineService.generateRecommendationsFromAggregates(planId, ownerId)
+            .map(recommendations -> respond(recommendations, format, accept))
+            .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    private static boolean isCompact(String format, String accept) {
+        return "compact".equalsIgnoreCase(format) || (accept != null && accept.contains(COMPACT_JSON));
+    }
+
+    /**
+     * Full recommendations by default; the compact form when asked for by {@code Accept} or {@code ?format},
+     * labelled with its own media type only when the client asked for that type
+     */
+    private static ResponseEntity<List<?>> respond(List<Recommendation> recommendations, String format, String accept) {
+        if (!isCompact(format, accept)) {
+            return ResponseEntity.ok(recommendations);
+        }
+        ResponseEntity.BodyBuilder ok = ResponseEntity.ok();
+        if (accept != null && accept.contains(COMPACT_JSON)) {
+            ok.contentType(MediaType.parseMediaType(COMPACT_JSON));
+        }
+        return ok.body(CompactRecommendation.fromAll(recommendations));
     }
 }
 
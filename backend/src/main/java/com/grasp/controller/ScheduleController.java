@@ -0,0 +1,52 @@
+package com.grasp.controller;
+
+import com.grasp.dto.DueSubject;
+import com.grasp.service.schedule.StudyScheduler;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/schedule")
+public class ScheduleController {
+
+    private static final int MAX_POLL = 5000;
+
+    private final StudyScheduler studyScheduler;
+
+    public ScheduleController(StudyScheduler studyScheduler) {
+        this.studyScheduler = studyScheduler;
+    }
+
+    /**
+     * Next due session of every subject of an active plan, soonest first
+     */
+    @GetMapping("/plans/{planId}")
+    public ResponseEntity<List<DueSubject>> getPlanSchedule(@PathVariable Long planId) {
+        return ResponseEntity.ok(studyScheduler.planSchedule(planId));
+    }
+
+    /**
+     * Pages out subjects that are due now, for sending reminders; each comes due again after
+     * {@code grasp.schedule.remind-again} unless a session re-plans it
+     */
+    @PostMapping("/due")
+    public ResponseEntity<List<DueSubject>> pollDue(@RequestParam(defaultValue = "500") int limit) {
+        if (limit < 1 || limit > MAX_POLL) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be between 1 and " + MAX_POLL);
+        }
+        if (!studyScheduler.isEnabled()) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "The study scheduler is disabled on this node");
+        }
+        return ResponseEntity.ok(studyScheduler.pollDue(limit));
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> stats() {
+        return ResponseEntity.ok(studyScheduler.stats());
+    }
+}
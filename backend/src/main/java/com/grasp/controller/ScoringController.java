@@ -0,0 +1,50 @@
+package com.grasp.controller;
+
+import com.grasp.service.scoring.ScoringWorker;
+import com.grasp.service.scoring.ShardedScoringService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/scoring")
+public class ScoringController {
+
+    private final ShardedScoringService shardedScoringService;
+    private final ScoringWorker scoringWorker;
+
+    public ScoringController(ShardedScoringService shardedScoringService, ScoringWorker scoringWorker) {
+        this.shardedScoringService = shardedScoringService;
+        this.scoringWorker = scoringWorker;
+    }
+
+    /**
+     * Opens a run over all active plans; workers on any node pick up its partitions
+     */
+    @PostMapping("/runs")
+    public ResponseEntity<Map<String, Object>> startRun(@RequestParam(required = false) Integer partitions) {
+        try {
+            return ResponseEntity.status(HttpStatus.CREATED).body(shardedScoringService.startRun(partitions));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+
+    @GetMapping("/runs/{runId}")
+    public ResponseEntity<Map<String, Object>> getRun(@PathVariable Long runId) {
+        return shardedScoringService.describeRun(runId)
+            .map(ResponseEntity::ok)
+            .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Counters of this node's worker
+     */
+    @GetMapping("/worker")
+    public ResponseEntity<Map<String, Object>> workerStats() {
+        return ResponseEntity.ok(scoringWorker.stats());
+    }
+}
@@ -0,0 +1,112 @@
+package com.grasp.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.grasp.dto.BulkSessionResult;
+import com.grasp.dto.LogSessionRequest;
+import com.grasp.dto.SessionHistoryPage;
+import com.grasp.model.StudySession;
+import com.grasp.service.BulkSessionService;
+import com.grasp.service.SessionHistoryService;
+import com.grasp.service.StudySessionService;
+import com.grasp.service.SubjectAggregateService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.Valid;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/sessions")
+public class StudySessionController {
+
+    private final StudySessionService studySessionService;
+    private final SubjectAggregateService subjectAggregateService;
+    private final BulkSessionService bulkSessionService;
+    private final SessionHistoryService sessionHistoryService;
+
+    public StudySessionController(StudySessionService studySessionService,
+                                  SubjectAggregateService subjectAggregateService,
+                                  BulkSessionService bulkSessionService,
+                                  SessionHistoryService sessionHistoryService) {
+        this.studySessionService = studySessionService;
+        this.subjectAggregateService = subjectAggregateService;
+        this.bulkSessionService = bulkSessionService;
+        this.sessionHistoryService = sessionHistoryService;
+    }
+
+    @PostMapping
+    public ResponseEntity<Map<String, Object>> log(@Valid @RequestBody LogSessionRequest request) {
+        StudySession session;
+        try {
+            session = studySessionService.logSession(request.toSession());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+        return ResponseEntity.status(HttpStatus.CREATED).body(Map.of(
+            "sessionId", session.getId(),
+            "message", "Session logged successfully"
+        ));
+    }
+
+    @PostMapping(path = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<BulkSessionResult> logBulk(HttpServletRequest request) throws IOException {
+        try {
+            return ResponseEntity.ok(bulkSessionService.ingest(request.getInputStream()));
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * A page of the plan's session history, newest first; pass {@code nextCursor} back as {@code cursor}
+     */
+    @GetMapping("/{planId}")
+    public ResponseEntity<SessionHistoryPage> history(@PathVariable Long planId,
+                                                      @RequestParam(required = false) Long subjectId,
+                                                      @RequestParam(required = false) String cursor,
+                                                      @RequestParam(required = false) Integer limit) {
+        if (!sessionHistoryService.planExists(planId)) {
+            return ResponseEntity.notFound().build();
+        }
+        try {
+            return ResponseEntity.ok(sessionHistoryService.page(planId, subjectId, cursor, limit));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * The whole history (or everything after {@code cursor}) as NDJSON, written while it is read
+     */
+    @GetMapping(path = "/{planId}/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void streamHistory(@PathVariable Long planId,
+                              @RequestParam(required = false) Long subjectId,
+                              @RequestParam(required = false) String cursor,
+                              HttpServletResponse response) throws IOException {
+        if (!sessionHistoryService.planExists(planId)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Plan " + planId + " not found");
+        }
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        try {
+            sessionHistoryService.stream(planId, subjectId, cursor, response.getOutputStream());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+
+    @PostMapping("/aggregates/{planId}/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildAggregates(@PathVariable Long planId) {
+        int repaired = subjectAggregateService.rebuildPlan(planId);
+        return ResponseEntity.ok(Map.of(
+            "planId", planId,
+            "repairedSubjects", repaired
+        ));
+    }
+}
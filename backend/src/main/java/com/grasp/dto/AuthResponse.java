@@ -0,0 +1,31 @@
+package com.grasp.dto;
+
+import java.time.Instant;
+
+/**
+ * Issued token and its user; send the token back as {@code Authorization: Bearer <token>}
+ */
+public class AuthResponse {
+    private String token;
+    private Instant expiresAt;
+    private UserDto user;
+
+    // Constructors
+    public AuthResponse() {}
+
+    public AuthResponse(String token, Instant expiresAt, UserDto user) {
+        this.token = token;
+        this.expiresAt = expiresAt;
+        this.user = user;
+    }
+
+    // Getters and Setters
+    public String getToken() { return token; }
+    public void setToken(String token) { this.token = token; }
+
+    public Instant getExpiresAt() { return expiresAt; }
+    public void setExpiresAt(Instant expiresAt) { this.expiresAt = expiresAt; }
+
+    public UserDto getUser() { return user; }
+    public void setUser(UserDto user) { this.user = user; }
+}
@@ -0,0 +1,12 @@
+package com.grasp.dto;
+
+/**
+ * One line of an NDJSON batch request: a plan and its sessions, plus an optional caller-chosen id
+ * that is echoed back on the matching result line.
+ */
+public class BatchRecommendationItem extends GenerateRecommendationsRequest {
+    private String id;
+
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+}
@@ -0,0 +1,42 @@
+package com.grasp.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+/**
+ * One line of an NDJSON batch response. Results are written in completion order, so {@code index}
+ * (the zero-based position of the input line) and {@code id} identify which plan they belong to.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchRecommendationResult {
+    private long index;
+    private String id;
+    private Long planId;
+    private List<?> recommendations; // Recommendation, or CompactRecommendation when requested
+    private String error;
+
+    // Constructors
+    public BatchRecommendationResult() {}
+
+    public BatchRecommendationResult(long index, String id, Long planId) {
+        this.index = index;
+        this.id = id;
+        this.planId = planId;
+    }
+
+    public long getIndex() { return index; }
+    public void setIndex(long index) { this.index = index; }
+
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public Long getPlanId() { return planId; }
+    public void setPlanId(Long planId) { this.planId = planId; }
+
+    public List<?> getRecommendations() { return recommendations; }
+    public void setRecommendations(List<?> recommendations) { this.recommendations = recommendations; }
+
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+}
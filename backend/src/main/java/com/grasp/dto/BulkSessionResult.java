@@ -0,0 +1,60 @@
+package com.grasp.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of a bulk session upload. Only rejected rows are listed; every other row was inserted.
+ */
+public class BulkSessionResult {
+    private int received;
+    private int inserted;
+    private int rejected;
+    private String method;
+    private long elapsedMillis;
+    private double sessionsPerSecond;
+    private List<RowRejection> rejections = new ArrayList<>();
+
+    /**
+     * A row that failed validation, by zero-based position in the upload
+     */
+    public static class RowRejection {
+        private int index;
+        private List<String> errors;
+
+        public RowRejection() {}
+
+        public RowRejection(int index, List<String> errors) {
+            this.index = index;
+            this.errors = errors;
+        }
+
+        public int getIndex() { return index; }
+        public void setIndex(int index) { this.index = index; }
+
+        public List<String> getErrors() { return errors; }
+        public void setErrors(List<String> errors) { this.errors = errors; }
+    }
+
+    // Getters and Setters
+    public int getReceived() { return received; }
+    public void setReceived(int received) { this.received = received; }
+
+    public int getInserted() { return inserted; }
+    public void setInserted(int inserted) { this.inserted = inserted; }
+
+    public int getRejected() { return rejected; }
+    public void setRejected(int rejected) { this.rejected = rejected; }
+
+    public String getMethod() { return method; }
+    public void setMethod(String method) { this.method = method; }
+
+    public long getElapsedMillis() { return elapsedMillis; }
+    public void setElapsedMillis(long elapsedMillis) { this.elapsedMillis = elapsedMillis; }
+
+    public double getSessionsPerSecond() { return sessionsPerSecond; }
+    public void setSessionsPerSecond(double sessionsPerSecond) { this.sessionsPerSecond = sessionsPerSecond; }
+
+    public List<RowRejection> getRejections() { return rejections; }
+    public void setRejections(List<RowRejection> rejections) { this.rejections = rejections; }
+}
@@ -0,0 +1,88 @@
+package com.grasp.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.grasp.model.Recommendation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Wire form of a {@link Recommendation} for machine consumers: the value is typed (minutes as a number for
+ * {@code TIME_ADJUSTMENT}) and the reasoning is the id of the rule that fired plus the values of its
+ * template's placeholders, so no text is rendered. The templates are served by
+ * {@code GET /api/recommendations/rules/templates}.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CompactRecommendation {
+    private Long id;
+    private Long subjectId;
+    private Recommendation.RecommendationType type;
+    private Object value;
+    private Recommendation.RecommendationStatus status;
+    private String rule;
+    private Map<String, Double> params;
+
+    // Constructors
+    public CompactRecommendation() {}
+
+    public static CompactRecommendation from(Recommendation recommendation) {
+        CompactRecommendation compact = new CompactRecommendation();
+        compact.id = recommendation.getId();
+        compact.subjectId = recommendation.getSubjectId();
+        compact.type = recommendation.getType();
+        compact.value = typedValue(recommendation);
+        compact.status = recommendation.getStatus();
+        compact.rule = recommendation.getRuleId();
+        compact.params = recommendation.getReasoningParams();
+        return compact;
+    }
+
+    public static List<CompactRecommendation> fromAll(List<Recommendation> recommendations) {
+        List<CompactRecommendation> compact = new ArrayList<>(recommendations.size());
+        for (Recommendation recommendation : recommendations) {
+            compact.add(from(recommendation));
+        }
+        return compact;
+    }
+
+    /**
+     * Stored rows only keep the string value, so time adjustments read back from the database are parsed
+     */
+    private static Object typedValue(Recommendation recommendation) {
+        if (recommendation.getNumericValue() != null) {
+            return recommendation.getNumericValue();
+        }
+        String value = recommendation.getValue();
+        if (recommendation.getType() == Recommendation.RecommendationType.TIME_ADJUSTMENT && value != null) {
+            try {
+                return Integer.valueOf(value);
+            } catch (NumberFormatException e) {
+                return value;
+            }
+        }
+        return value;
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getSubjectId() { return subjectId; }
+    public void setSubjectId(Long subjectId) { this.subjectId = subjectId; }
+
+    public Recommendation.RecommendationType getType() { return type; }
+    public void setType(Recommendation.RecommendationType type) { this.type = type; }
+
+    public Object getValue() { return value; }
+    public void setValue(Object value) { this.value = value; }
+
+    public Recommendation.RecommendationStatus getStatus() { return status; }
+    public void setStatus(Recommendation.RecommendationStatus status) { this.status = status; }
+
+    public String getRule() { return rule; }
+    public void setRule(String rule) { this.rule = rule; }
+
+    public Map<String, Double> getParams() { return params; }
+    public void setParams(Map<String, Double> params) { this.params = params; }
+}
@@ -0,0 +1,31 @@
+package com.grasp.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * A subject and when its next study session is due (UTC)
+ */
+public class DueSubject {
+    private Long subjectId;
+    private Long planId;
+    private LocalDateTime dueAt;
+
+    // Constructors
+    public DueSubject() {}
+
+    public DueSubject(Long subjectId, Long planId, LocalDateTime dueAt) {
+        this.subjectId = subjectId;
+        this.planId = planId;
+        this.dueAt = dueAt;
+    }
+
+    // Getters and Setters
+    public Long getSubjectId() { return subjectId; }
+    public void setSubjectId(Long subjectId) { this.subjectId = subjectId; }
+
+    public Long getPlanId() { return planId; }
+    public void setPlanId(Long planId) { this.planId = planId; }
+
+    public LocalDateTime getDueAt() { return dueAt; }
+    public void setDueAt(LocalDateTime dueAt) { this.dueAt = dueAt; }
+}
@@ -0,0 +1,61 @@
+package com.grasp.dto;
+
+import com.grasp.model.StudySession;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Digits;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.PastOrPresent;
+
+import java.time.LocalDateTime;
+
+public class LogSessionRequest {
+    @NotNull
+    private Long planId;
+    @NotNull
+    private Long subjectId;
+    @NotNull
+    @Min(0)
+    private Integer durationMinutes;
+    @NotNull
+    @DecimalMin("0.0")
+    @DecimalMax("100.0")
+    @Digits(integer = 3, fraction = 2) // NUMERIC(5,2): aggregates must add what a rebuild reads back
+    private Double completionPercent;
+    @Min(1)
+    @Max(10)
+    private Integer performanceScore;
+    private String notes;
+    @PastOrPresent
+    private LocalDateTime createdAt; // optional; clients replaying offline sessions send the original time
+
+    public StudySession toSession() {
+        StudySession session = new StudySession(planId, subjectId, durationMinutes, completionPercent, performanceScore, notes);
+        session.setCreatedAt(createdAt);
+        return session;
+    }
+
+    public Long getPlanId() { return planId; }
+    public void setPlanId(Long planId) { this.planId = planId; }
+
+    public Long getSubjectId() { return subjectId; }
+    public void setSubjectId(Long subjectId) { this.subjectId = subjectId; }
+
+    public Integer getDurationMinutes() { return durationMinutes; }
+    public void setDurationMinutes(Integer durationMinutes) { this.durationMinutes = durationMinutes; }
+
+    public Double getCompletionPercent() { return completionPercent; }
+    public void setCompletionPercent(Double completionPercent) { this.completionPercent = completionPercent; }
+
+    public Integer getPerformanceScore() { return performanceScore; }
+    public void setPerformanceScore(Integer performanceScore) { this.performanceScore = performanceScore; }
+
+    public String getNotes() { return notes; }
+    public void setNotes(String notes) { this.notes = notes; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+}
@@ -0,0 +1,80 @@
+package com.grasp.dto;
+
+import com.grasp.model.StudyPlan;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Dashboard of one plan, read from the materialized statistics rather than from {@code study_sessions}.
+ * Averages are null until there is a session to average; {@code averageScore} is on the 1-10 scale.
+ */
+public class PlanDashboard {
+    private Long planId;
+    private String title;
+    private StudyPlan.StudyPlanStatus status;
+    private LocalDate deadline;
+    private long sessionCount;
+    private long totalMinutes;
+    private Double averageCompletion;
+    private Double averageScore;
+    private Double progressPercent;
+    private LocalDateTime firstSessionAt;
+    private LocalDateTime lastSessionAt;
+    private int studyDays;
+    private int currentStreakDays;
+    private int longestStreakDays;
+    private List<SubjectDashboard> subjects = new ArrayList<>();
+
+    // Constructors
+    public PlanDashboard() {}
+
+    // Getters and Setters
+    public Long getPlanId() { return planId; }
+    public void setPlanId(Long planId) { this.planId = planId; }
+
+    public String getTitle() { return title; }
+    public void setTitle(String title) { this.title = title; }
+
+    public StudyPlan.StudyPlanStatus getStatus() { return status; }
+    public void setStatus(StudyPlan.StudyPlanStatus status) { this.status = status; }
+
+    public LocalDate getDeadline() { return deadline; }
+    public void setDeadline(LocalDate deadline) { this.deadline = deadline; }
+
+    public long getSessionCount() { return sessionCount; }
+    public void setSessionCount(long sessionCount) { this.sessionCount = sessionCount; }
+
+    public long getTotalMinutes() { return totalMinutes; }
+    public void setTotalMinutes(long totalMinutes) { this.totalMinutes = totalMinutes; }
+
+    public Double getAverageCompletion() { return averageCompletion; }
+    public void setAverageCompletion(Double averageCompletion) { this.averageCompletion = averageCompletion; }
+
+    public Double getAverageScore() { return averageScore; }
+    public void setAverageScore(Double averageScore) { this.averageScore = averageScore; }
+
+    /** Subjects' progress weighted by their time allocation */
+    public Double getProgressPercent() { return progressPercent; }
+    public void setProgressPercent(Double progressPercent) { this.progressPercent = progressPercent; }
+
+    public LocalDateTime getFirstSessionAt() { return firstSessionAt; }
+    public void setFirstSessionAt(LocalDateTime firstSessionAt) { this.firstSessionAt = firstSessionAt; }
+
+    public LocalDateTime getLastSessionAt() { return lastSessionAt; }
+    public void setLastSessionAt(LocalDateTime lastSessionAt) { this.lastSessionAt = lastSessionAt; }
+
+    public int getStudyDays() { return studyDays; }
+    public void setStudyDays(int studyDays) { this.studyDays = studyDays; }
+
+    public int getCurrentStreakDays() { return currentStreakDays; }
+    public void setCurrentStreakDays(int currentStreakDays) { this.currentStreakDays = currentStreakDays; }
+
+    public int getLongestStreakDays() { return longestStreakDays; }
+    public void setLongestStreakDays(int longestStreakDays) { this.longestStreakDays = longestStreakDays; }
+
+    public List<SubjectDashboard> getSubjects() { return subjects; }
+    public void setSubjects(List<SubjectDashboard> subjects) { this.subjects = subjects; }
+}
@@ -0,0 +1,45 @@
+package com.grasp.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * One row of a plan's session history
+ */
+public class SessionHistoryEntry {
+    private Long id;
+    private Long subjectId;
+    private String subjectName;
+    private Integer durationMinutes;
+    private Double completionPercent;
+    private Integer performanceScore;
+    private String notes;
+    private LocalDateTime createdAt;
+
+    // Constructors
+    public SessionHistoryEntry() {}
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getSubjectId() { return subjectId; }
+    public void setSubjectId(Long subjectId) { this.subjectId = subjectId; }
+
+    public String getSubjectName() { return subjectName; }
+    public void setSubjectName(String subjectName) { this.subjectName = subjectName; }
+
+    public Integer getDurationMinutes() { return durationMinutes; }
+    public void setDurationMinutes(Integer durationMinutes) { this.durationMinutes = durationMinutes; }
+
+    public Double getCompletionPercent() { return completionPercent; }
+    public void setCompletionPercent(Double completionPercent) { this.completionPercent = completionPercent; }
+
+    public Integer getPerformanceScore() { return performanceScore; }
+    public void setPerformanceScore(Integer performanceScore) { this.performanceScore = performanceScore; }
+
+    public String getNotes() { return notes; }
+    public void setNotes(String notes) { this.notes = notes; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+}
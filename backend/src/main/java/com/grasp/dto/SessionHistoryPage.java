@@ -0,0 +1,25 @@
+package com.grasp.dto;
+
+import java.util.List;
+
+/**
+ * One page of session history, newest first. {@code nextCursor} is null on the last page.
+ */
+public class SessionHistoryPage {
+    private List<SessionHistoryEntry> sessions;
+    private String nextCursor;
+
+    // Constructors
+    public SessionHistoryPage() {}
+
+    public SessionHistoryPage(List<SessionHistoryEntry> sessions, String nextCursor) {
+        this.sessions = sessions;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<SessionHistoryEntry> getSessions() { return sessions; }
+    public void setSessions(List<SessionHistoryEntry> sessions) { this.sessions = sessions; }
+
+    public String getNextCursor() { return nextCursor; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+}
@@ -0,0 +1,43 @@
+package com.grasp.dto;
+
+import com.grasp.model.Subject;
+import com.grasp.service.metrics.SubjectPerformanceMetrics;
+
+/**
+ * One subject of a {@link PlanDashboard}. Minutes and metrics cover the subject's scored sessions, as
+ * the recommendation engine sees them; {@code metrics} is null before the first scored session.
+ */
+public class SubjectDashboard {
+    private Long subjectId;
+    private String name;
+    private Subject.DifficultyLevel difficultyLevel;
+    private Integer timeAllocationMinutes;
+    private Double progressPercent;
+    private long studiedMinutes;
+    private SubjectPerformanceMetrics metrics;
+
+    // Constructors
+    public SubjectDashboard() {}
+
+    // Getters and Setters
+    public Long getSubjectId() { return subjectId; }
+    public void setSubjectId(Long subjectId) { this.subjectId = subjectId; }
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public Subject.DifficultyLevel getDifficultyLevel() { return difficultyLevel; }
+    public void setDifficultyLevel(Subject.DifficultyLevel difficultyLevel) { this.difficultyLevel = difficultyLevel; }
+
+    public Integer getTimeAllocationMinutes() { return timeAllocationMinutes; }
+    public void setTimeAllocationMinutes(Integer timeAllocationMinutes) { this.timeAllocationMinutes = timeAllocationMinutes; }
+
+    public Double getProgressPercent() { return progressPercent; }
+    public void setProgressPercent(Double progressPercent) { this.progressPercent = progressPercent; }
+
+    public long getStudiedMinutes() { return studiedMinutes; }
+    public void setStudiedMinutes(long studiedMinutes) { this.studiedMinutes = studiedMinutes; }
+
+    public SubjectPerformanceMetrics getMetrics() { return metrics; }
+    public void setMetrics(SubjectPerformanceMetrics metrics) { this.metrics = metrics; }
+}
@@ -0,0 +1,38 @@
+package com.grasp.dto;
+
+import com.grasp.model.User;
+
+/**
+ * A user as returned to clients, without the password hash
+ */
+public class UserDto {
+    private Long id;
+    private String email;
+    private String firstName;
+    private String lastName;
+
+    // Constructors
+    public UserDto() {}
+
+    public static UserDto from(User user) {
+        UserDto dto = new UserDto();
+        dto.setId(user.getId());
+        dto.setEmail(user.getEmail());
+        dto.setFirstName(user.getFirstName());
+        dto.setLastName(user.getLastName());
+        return dto;
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getEmail() { return email; }
+    public void setEmail(String email) { this.email = email; }
+
+    public String getFirstName() { return firstName; }
+    public void setFirstName(String firstName) { this.firstName = firstName; }
+
+    public String getLastName() { return lastName; }
+    public void setLastName(String lastName) { this.lastName = lastName; }
+}
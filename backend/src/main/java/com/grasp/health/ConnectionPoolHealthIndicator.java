@@ -0,0 +1,66 @@
+package com.grasp.health;
+
+import com.grasp.config.ReadWriteRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+/**
+ * Reports the Hikari pool's saturation. The instance is out of service while at least
+ * {@code grasp.health.pool.max-waiting} threads are blocked waiting for a connection. With read replicas
+ * this is the primary's pool; the replicas are listed for information only, since reads fall back to the
+ * primary when a replica is unusable.
+ */
+@Component
+public class ConnectionPoolHealthIndicator implements HealthIndicator {
+
+    private final DataSource dataSource;
+    private final ObjectProvider<ReadWriteRoutingDataSource> routingDataSource;
+    private final int maxWaiting;
+
+    public ConnectionPoolHealthIndicator(DataSource dataSource,
+                                         ObjectProvider<ReadWriteRoutingDataSource> routingDataSource,
+                                         @Value("${grasp.health.pool.max-waiting:10}") int maxWaiting) {
+        this.dataSource = dataSource;
+        this.routingDataSource = routingDataSource;
+        this.maxWaiting = maxWaiting;
+    }
+
+    @Override
+    public Health health() {
+        HikariDataSource hikari;
+        try {
+            if (!dataSource.isWrapperFor(HikariDataSource.class)) {
+                return Health.unknown().withDetail("reason", "not a Hikari pool").build();
+            }
+            hikari = dataSource.unwrap(HikariDataSource.class);
+        } catch (SQLException e) {
+            return Health.unknown().withException(e).build();
+        }
+        HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+        if (pool == null) {
+            return Health.unknown().withDetail("reason", "pool not started").build();
+        }
+
+        int active = pool.getActiveConnections();
+        int max = hikari.getMaximumPoolSize();
+        int waiting = pool.getThreadsAwaitingConnection();
+        Health.Builder builder = waiting >= maxWaiting ? Health.outOfService() : Health.up();
+        routingDataSource.ifAvailable(routing -> builder.withDetail("replicas", routing.replicaStats()));
+        return builder
+            .withDetail("active", active)
+            .withDetail("idle", pool.getIdleConnections())
+            .withDetail("total", pool.getTotalConnections())
+            .withDetail("max", max)
+            .withDetail("waiting", waiting)
+            .withDetail("saturation", max > 0 ? (double) active / max : 0.0)
+            .build();
+    }
+}
@@ -0,0 +1,41 @@
+package com.grasp.health;
+
+import com.grasp.service.RecommendationPipeline;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Reports the engine's queue depth. The instance is out of service while the recompute pipeline is
+ * full, since further session changes are then rejected.
+ */
+@Component
+public class RecommendationEngineHealthIndicator implements HealthIndicator {
+
+    private final RecommendationPipeline recommendationPipeline;
+    private final ExecutorService batchExecutor;
+
+    public RecommendationEngineHealthIndicator(RecommendationPipeline recommendationPipeline,
+                                               @Qualifier("recommendationBatchExecutor") ExecutorService batchExecutor) {
+        this.recommendationPipeline = recommendationPipeline;
+        this.batchExecutor = batchExecutor;
+    }
+
+    @Override
+    public Health health() {
+        int pending = recommendationPipeline.pendingCount();
+        int capacity = recommendationPipeline.getCapacity();
+        Health.Builder builder = pending >= capacity ? Health.outOfService() : Health.up();
+        builder.withDetail("pipelinePending", pending)
+            .withDetail("pipelineCapacity", capacity);
+        if (batchExecutor instanceof ForkJoinPool pool) {
+            builder.withDetail("batchQueued", pool.getQueuedSubmissionCount() + pool.getQueuedTaskCount())
+                .withDetail("batchActive", pool.getActiveThreadCount());
+        }
+        return builder.build();
+    }
+}
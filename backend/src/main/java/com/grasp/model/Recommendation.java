@@ -1,18 +1,26 @@
 package com.grasp.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import java.time.LocalDateTime;
+import java.util.Map;
 
 public class Recommendation {
     private Long id;
     private Long planId;
     private Long subjectId;
     private RecommendationType type;
-    private String value;
+    private volatile String value;
     private Double confidenceScore;
-    private String reasoning;
+    private volatile String reasoning;
     private RecommendationStatus status;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
+    private String ruleId;
+    private volatile Map<String, Double> reasoningParams;
+    private Integer numericValue;
+    private ReasoningSource reasoningSource;
 
     public enum RecommendationType {
         TIME_ADJUSTMENT,
@@ -26,6 +34,17 @@ public class Recommendation {
         DISMISSED
     }
 
+    /**
+     * Deferred reasoning of a freshly generated recommendation: the text is rendered on first access, so
+     * responses that only carry the rule id and parameters never build it.
+     */
+    public interface ReasoningSource {
+        String render();
+
+        /** Values of the template's placeholders, keyed by placeholder name */
+        Map<String, Double> params();
+    }
+
     // Constructors
     public Recommendation() {}
 
@@ -51,13 +70,28 @@ public class Recommendation {
     public RecommendationType getType() { return type; }
     public void setType(RecommendationType type) { this.type = type; }
 
-    public String getValue() { return value; }
+    /**
+     * Rendered from {@link #getNumericValue()} on first access when only that was set. Like the reasoning,
+     * the lazy fields are volatile because cached instances are shared across requests: two threads may
+     * both compute a field, but always to equal values, and each sees a fully built one.
+     */
+    public String getValue() {
+        if (value == null && numericValue != null) {
+            value = numericValue.toString();
+        }
+        return value;
+    }
     public void setValue(String value) { this.value = value; }
 
     public Double getConfidenceScore() { return confidenceScore; }
     public void setConfidenceScore(Double confidenceScore) { this.confidenceScore = confidenceScore; }
 
-    public String getReasoning() { return reasoning; }
+    public String getReasoning() {
+        if (reasoning == null && reasoningSource != null) {
+            reasoning = reasoningSource.render();
+        }
+        return reasoning;
+    }
     public void setReasoning(String reasoning) { this.reasoning = reasoning; }
 
     public RecommendationStatus getStatus() { return status; }
@@ -68,4 +102,27 @@ public class Recommendation {
 
     public LocalDateTime getUpdatedAt() { return updatedAt; }
     public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+
+    /** Id of the rule that produced this recommendation; {@code null} for rows stored before rules had ids */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public String getRuleId() { return ruleId; }
+    public void setRuleId(String ruleId) { this.ruleId = ruleId; }
+
+    @JsonIgnore
+    public Map<String, Double> getReasoningParams() {
+        if (reasoningParams == null && reasoningSource != null) {
+            reasoningParams = reasoningSource.params();
+        }
+        return reasoningParams;
+    }
+    public void setReasoningParams(Map<String, Double> reasoningParams) { this.reasoningParams = reasoningParams; }
+
+    /** Value as a number when the rule computes one (minutes for {@code TIME_ADJUSTMENT}) */
+    @JsonIgnore
+    public Integer getNumericValue() { return numericValue; }
+    public void setNumericValue(Integer numericValue) { this.numericValue = numericValue; }
+
+    @JsonIgnore
+    public ReasoningSource getReasoningSource() { return reasoningSource; }
+    public void setReasoningSource(ReasoningSource reasoningSource) { this.reasoningSource = reasoningSource; }
 }
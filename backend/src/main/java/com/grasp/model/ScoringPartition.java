@@ -0,0 +1,64 @@
+package com.grasp.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * One partition of a distributed scoring run: the active plans whose user falls into
+ * {@code partitionNo} of {@code partitions} hash buckets. Worker nodes claim partitions under a lease.
+ */
+public class ScoringPartition {
+    private Long runId;
+    private int partitionNo;
+    private int partitions;
+    private PartitionStatus status;
+    private String claimedBy;
+    private LocalDateTime claimedAt;
+    private LocalDateTime leaseUntil;
+    private int attempts;
+    private Integer plansScored;
+    private Integer failedPlans;
+    private LocalDateTime completedAt;
+
+    public enum PartitionStatus {
+        PENDING,
+        RUNNING,
+        DONE
+    }
+
+    // Constructors
+    public ScoringPartition() {}
+
+    // Getters and Setters
+    public Long getRunId() { return runId; }
+    public void setRunId(Long runId) { this.runId = runId; }
+
+    public int getPartitionNo() { return partitionNo; }
+    public void setPartitionNo(int partitionNo) { this.partitionNo = partitionNo; }
+
+    public int getPartitions() { return partitions; }
+    public void setPartitions(int partitions) { this.partitions = partitions; }
+
+    public PartitionStatus getStatus() { return status; }
+    public void setStatus(PartitionStatus status) { this.status = status; }
+
+    public String getClaimedBy() { return claimedBy; }
+    public void setClaimedBy(String claimedBy) { this.claimedBy = claimedBy; }
+
+    public LocalDateTime getClaimedAt() { return claimedAt; }
+    public void setClaimedAt(LocalDateTime claimedAt) { this.claimedAt = claimedAt; }
+
+    public LocalDateTime getLeaseUntil() { return leaseUntil; }
+    public void setLeaseUntil(LocalDateTime leaseUntil) { this.leaseUntil = leaseUntil; }
+
+    public int getAttempts() { return attempts; }
+    public void setAttempts(int attempts) { this.attempts = attempts; }
+
+    public Integer getPlansScored() { return plansScored; }
+    public void setPlansScored(Integer plansScored) { this.plansScored = plansScored; }
+
+    public Integer getFailedPlans() { return failedPlans; }
+    public void setFailedPlans(Integer failedPlans) { this.failedPlans = failedPlans; }
+
+    public LocalDateTime getCompletedAt() { return completedAt; }
+    public void setCompletedAt(LocalDateTime completedAt) { this.completedAt = completedAt; }
+}
@@ -0,0 +1,190 @@
+package com.grasp.repository;
+
+import com.grasp.service.metrics.CohortSketch;
+import com.grasp.service.metrics.QuantileSketch;
+import com.grasp.service.metrics.SubjectAggregate;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+@Repository
+public class CohortSketchRepository {
+
+    private static final String COLUMNS = "cohort_key, session_count, performance_sketch, duration_sketch, updated_at";
+
+    private static final RowMapper<CohortSketch> ROW_MAPPER = CohortSketchRepository::mapRow;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public CohortSketchRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Returns the rows of the given cohorts locked for update, keyed by cohort key, creating empty ones first
+     * where needed. Keys are inserted and locked in sorted order so concurrent callers cannot deadlock.
+     * Must be called inside a transaction.
+     */
+    public Map<String, CohortSketch> lockForUpdate(Collection<String> cohortKeys) {
+        Map<String, CohortSketch> locked = new LinkedHashMap<>();
+        if (cohortKeys.isEmpty()) {
+            return locked;
+        }
+        Object[] keys = cohortKeys.stream().sorted().toArray();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(
+                "INSERT INTO subject_cohort_sketches (cohort_key) SELECT k FROM unnest(?) AS k ORDER BY k " +
+                "ON CONFLICT (cohort_key) DO NOTHING");
+            ps.setArray(1, connection.createArrayOf("varchar", keys));
+            return ps;
+        });
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(
+                "SELECT " + COLUMNS + " FROM subject_cohort_sketches WHERE cohort_key = ANY(?) " +
+                "ORDER BY cohort_key FOR UPDATE");
+            ps.setArray(1, connection.createArrayOf("varchar", keys));
+            return ps;
+        }, (RowCallbackHandler) rs -> {
+            CohortSketch sketch = mapRow(rs, 0);
+            locked.put(sketch.getCohortKey(), sketch);
+        });
+        return locked;
+    }
+
+    /**
+     * Overwrites the stored sketches of existing cohorts
+     */
+    public void updateAll(List<CohortSketch> sketches) {
+        jdbcTemplate.batchUpdate(
+            "UPDATE subject_cohort_sketches SET session_count = ?, performance_sketch = ?, duration_sketch = ?, " +
+            "updated_at = CURRENT_TIMESTAMP WHERE cohort_key = ?",
+            new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    CohortSketch sketch = sketches.get(i);
+                    ps.setLong(1, sketch.sessionCount());
+                    ps.setBytes(2, sketch.getPerformance().toBytes());
+                    ps.setBytes(3, sketch.getDuration().toBytes());
+                    ps.setString(4, sketch.getCohortKey());
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return sketches.size();
+                }
+            });
+    }
+
+    /**
+     * Cohorts written at or after {@code since}, or all of them if it is null
+     */
+    public List<CohortSketch> findUpdatedSince(Instant since) {
+        if (since == null) {
+            return jdbcTemplate.query("SELECT " + COLUMNS + " FROM subject_cohort_sketches", ROW_MAPPER);
+        }
+        return jdbcTemplate.query(
+            "SELECT " + COLUMNS + " FROM subject_cohort_sketches WHERE updated_at >= ?",
+            ROW_MAPPER, Timestamp.from(since));
+    }
+
+    /**
+     * Blocks every merge until the current transaction ends; reads go on
+     */
+    public void lockTable() {
+        jdbcTemplate.execute("LOCK TABLE subject_cohort_sketches IN SHARE ROW EXCLUSIVE MODE");
+    }
+
+    /**
+     * Waits for every transaction that changed a subject aggregate, and blocks new changes until the current
+     * transaction ends; reads go on
+     */
+    public void lockAggregates() {
+        jdbcTemplate.execute("LOCK TABLE subject_session_aggregates IN SHARE MODE");
+    }
+
+    /**
+     * Current rebuild epoch; see {@code subject_cohort_epoch}
+     */
+    public long findEpoch() {
+        return jdbcTemplate.queryForObject("SELECT epoch FROM subject_cohort_epoch", Long.class);
+    }
+
+    /**
+     * Current rebuild epoch, which then cannot change until the current transaction ends
+     */
+    public long findEpochForShare() {
+        return jdbcTemplate.queryForObject("SELECT epoch FROM subject_cohort_epoch FOR SHARE", Long.class);
+    }
+
+    /**
+     * Starts a new rebuild epoch, holding its row until the current transaction ends
+     */
+    public void incrementEpoch() {
+        jdbcTemplate.update("UPDATE subject_cohort_epoch SET epoch = epoch + 1");
+    }
+
+    /**
+     * Replaces every stored cohort
+     */
+    public void replaceAll(Collection<CohortSketch> sketches) {
+        jdbcTemplate.update("DELETE FROM subject_cohort_sketches");
+        List<CohortSketch> rows = new ArrayList<>(sketches);
+        jdbcTemplate.batchUpdate(
+            "INSERT INTO subject_cohort_sketches (cohort_key, session_count, performance_sketch, duration_sketch) " +
+            "VALUES (?, ?, ?, ?)",
+            new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    CohortSketch sketch = rows.get(i);
+                    ps.setString(1, sketch.getCohortKey());
+                    ps.setLong(2, sketch.sessionCount());
+                    ps.setBytes(3, sketch.getPerformance().toBytes());
+                    ps.setBytes(4, sketch.getDuration().toBytes());
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return rows.size();
+                }
+            });
+    }
+
+    /**
+     * Reads every subject aggregate with sessions and its subject's name, {@code fetchSize} rows at a time when
+     * called inside a transaction
+     */
+    public void forEachSubjectAggregate(int fetchSize, BiConsumer<String, SubjectAggregate> consumer) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(
+                "SELECT s.name, a.* FROM subject_session_aggregates a JOIN subjects s ON s.id = a.subject_id " +
+                "WHERE a.session_count > 0");
+            ps.setFetchSize(fetchSize);
+            return ps;
+        }, (RowCallbackHandler) rs ->
+            consumer.accept(rs.getString("name"), SubjectAggregateRepository.mapRow(rs, 0)));
+    }
+
+    private static CohortSketch mapRow(ResultSet rs, int rowNum) throws SQLException {
+        CohortSketch sketch = new CohortSketch(rs.getString("cohort_key"));
+        sketch.setSessionCount(rs.getLong("session_count"));
+        sketch.setPerformance(QuantileSketch.fromBytes(rs.getBytes("performance_sketch")));
+        sketch.setDuration(QuantileSketch.fromBytes(rs.getBytes("duration_sketch")));
+        Timestamp updatedAt = rs.getTimestamp("updated_at");
+        sketch.setUpdatedAt(updatedAt != null ? updatedAt.toInstant() : null);
+        return sketch;
+    }
+}
@@ -0,0 +1,219 @@
+package com.grasp.repository;
+
+import com.grasp.model.StudyPlan;
+import com.grasp.model.Subject;
+import com.grasp.service.metrics.PlanSessionStats;
+import com.grasp.service.metrics.SubjectAggregate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static com.grasp.repository.StudyPlanRepository.toLocalDateTime;
+
+@Repository
+public class PlanSessionStatsRepository {
+
+    private static final String COLUMNS =
+        "plan_id, session_count, total_minutes, completion_sum, scored_count, score_sum, first_session_at, " +
+        "last_session_at, study_days, last_study_day, current_streak_days, longest_streak_days";
+
+    private static final RowMapper<PlanSessionStats> ROW_MAPPER = (rs, rowNum) -> mapStats(rs, "");
+
+    /**
+     * Plan header, plan statistics and every subject with its aggregate in one round trip: a primary-key
+     * lookup per table plus the plan's subjects, however many sessions the plan has
+     */
+    private static final String DASHBOARD_SQL =
+        "SELECT sp.id AS dashboard_plan_id, sp.title, sp.status, sp.deadline, " +
+        "ps.plan_id AS stats_plan_id, ps.session_count AS stats_session_count, ps.total_minutes AS stats_total_minutes, " +
+        "ps.completion_sum AS stats_completion_sum, ps.scored_count AS stats_scored_count, " +
+        "ps.score_sum AS stats_score_sum, ps.first_session_at AS stats_first_session_at, " +
+        "ps.last_session_at AS stats_last_session_at, ps.study_days AS stats_study_days, " +
+        "ps.last_study_day AS stats_last_study_day, ps.current_streak_days AS stats_current_streak_days, " +
+        "ps.longest_streak_days AS stats_longest_streak_days, " +
+        "s.id AS subject_row_id, s.name AS subject_name, s.difficulty_level, s.time_allocation_minutes, " +
+        "s.current_progress_percent, " +
+        "a." + SubjectAggregateRepository.COLUMNS.replace(", ", ", a.") + " " +
+        "FROM study_plans sp " +
+        "LEFT JOIN plan_session_stats ps ON ps.plan_id = sp.id " +
+        "LEFT JOIN subjects s ON s.plan_id = sp.id " +
+        "LEFT JOIN subject_session_aggregates a ON a.subject_id = s.id " +
+        "WHERE sp.id = ? ORDER BY s.id";
+
+    /**
+     * Runs of consecutive study days, oldest first: days minus their rank is constant within a run
+     */
+    private static final String STUDY_RUNS_SQL =
+        "SELECT MAX(day) AS last_day, COUNT(*) AS days FROM (" +
+        "SELECT day, day - CAST(ROW_NUMBER() OVER (ORDER BY day) AS INT) AS run FROM (" +
+        "SELECT DISTINCT CAST(created_at AS DATE) AS day FROM study_sessions WHERE plan_id = ?) d) r " +
+        "GROUP BY run ORDER BY last_day";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public PlanSessionStatsRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Returns the plan's statistics row locked for update, creating an empty one first if needed.
+     * Must be called inside a transaction.
+     */
+    public PlanSessionStats lockForUpdate(Long planId) {
+        jdbcTemplate.update(
+            "INSERT INTO plan_session_stats (plan_id) VALUES (?) ON CONFLICT (plan_id) DO NOTHING", planId);
+        return jdbcTemplate.queryForObject(
+            "SELECT " + COLUMNS + " FROM plan_session_stats WHERE plan_id = ? FOR UPDATE", ROW_MAPPER, planId);
+    }
+
+    /**
+     * Inserts or overwrites the plan's statistics row
+     */
+    public void save(PlanSessionStats stats) {
+        jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(
+                "INSERT INTO plan_session_stats (" + COLUMNS + ", updated_at) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, CURRENT_TIMESTAMP) " +
+                "ON CONFLICT (plan_id) DO UPDATE SET session_count = EXCLUDED.session_count, " +
+                "total_minutes = EXCLUDED.total_minutes, completion_sum = EXCLUDED.completion_sum, " +
+                "scored_count = EXCLUDED.scored_count, score_sum = EXCLUDED.score_sum, " +
+                "first_session_at = EXCLUDED.first_session_at, last_session_at = EXCLUDED.last_session_at, " +
+                "study_days = EXCLUDED.study_days, last_study_day = EXCLUDED.last_study_day, " +
+                "current_streak_days = EXCLUDED.current_streak_days, " +
+                "longest_streak_days = EXCLUDED.longest_streak_days, updated_at = CURRENT_TIMESTAMP");
+            ps.setLong(1, stats.getPlanId());
+            ps.setLong(2, stats.getSessionCount());
+            ps.setLong(3, stats.getTotalMinutes());
+            ps.setDouble(4, stats.getCompletionSum());
+            ps.setLong(5, stats.getScoredCount());
+            ps.setLong(6, stats.getScoreSum());
+            ps.setTimestamp(7, stats.getFirstSessionAt() != null ? Timestamp.valueOf(stats.getFirstSessionAt()) : null);
+            ps.setTimestamp(8, stats.getLastSessionAt() != null ? Timestamp.valueOf(stats.getLastSessionAt()) : null);
+            ps.setInt(9, stats.getStudyDays());
+            ps.setDate(10, stats.getLastStudyDay() != null ? Date.valueOf(stats.getLastStudyDay()) : null);
+            ps.setInt(11, stats.getCurrentStreakDays());
+            ps.setInt(12, stats.getLongestStreakDays());
+            return ps;
+        });
+    }
+
+    /**
+     * Recomputes the totals of a plan from {@code study_sessions}; streaks are left to {@link #recountStudyDays}
+     */
+    public PlanSessionStats computeTotals(Long planId) {
+        return jdbcTemplate.queryForObject(
+            "SELECT COUNT(*), COALESCE(SUM(duration_minutes), 0), COALESCE(SUM(completion_percent), 0), " +
+            "COUNT(performance_score), COALESCE(SUM(performance_score), 0), MIN(created_at), MAX(created_at) " +
+            "FROM study_sessions WHERE plan_id = ?",
+            (rs, rowNum) -> {
+                PlanSessionStats stats = new PlanSessionStats(planId);
+                stats.setSessionCount(rs.getLong(1));
+                stats.setTotalMinutes(rs.getLong(2));
+                stats.setCompletionSum(rs.getDouble(3));
+                stats.setScoredCount(rs.getLong(4));
+                stats.setScoreSum(rs.getLong(5));
+                stats.setFirstSessionAt(toLocalDateTime(rs.getTimestamp(6)));
+                stats.setLastSessionAt(toLocalDateTime(rs.getTimestamp(7)));
+                return stats;
+            }, planId);
+    }
+
+    /**
+     * Replaces the study-day count and streaks of {@code stats} with ones counted from {@code study_sessions}.
+     * Reads one row per run of consecutive days, so it is only used when sessions arrive out of date order
+     * and on rebuilds.
+     */
+    public void recountStudyDays(PlanSessionStats stats) {
+        stats.resetStudyDays();
+        jdbcTemplate.query(STUDY_RUNS_SQL,
+            (RowCallbackHandler) rs -> stats.addStudyRun(rs.getDate("last_day").toLocalDate(), rs.getInt("days")),
+            stats.getPlanId());
+    }
+
+    public Optional<PlanDashboardRows> findDashboard(Long planId) {
+        PlanDashboardRows[] result = new PlanDashboardRows[1];
+        jdbcTemplate.query(DASHBOARD_SQL, (RowCallbackHandler) rs -> {
+            PlanDashboardRows rows = result[0];
+            if (rows == null) {
+                rows = new PlanDashboardRows();
+                StudyPlan plan = new StudyPlan();
+                plan.setId(rs.getLong("dashboard_plan_id"));
+                plan.setTitle(rs.getString("title"));
+                plan.setStatus(StudyPlan.StudyPlanStatus.valueOf(rs.getString("status")));
+                Date deadline = rs.getDate("deadline");
+                plan.setDeadline(deadline != null ? deadline.toLocalDate() : null);
+                rows.plan = plan;
+                rs.getLong("stats_plan_id");
+                rows.stats = rs.wasNull() ? new PlanSessionStats(planId) : mapStats(rs, "stats_");
+                result[0] = rows;
+            }
+            long subjectId = rs.getLong("subject_row_id");
+            if (rs.wasNull()) {
+                return; // Plan without subjects
+            }
+            Subject subject = new Subject();
+            subject.setId(subjectId);
+            subject.setPlanId(planId);
+            subject.setName(rs.getString("subject_name"));
+            subject.setDifficultyLevel(Subject.DifficultyLevel.valueOf(rs.getString("difficulty_level")));
+            subject.setTimeAllocationMinutes(rs.getInt("time_allocation_minutes"));
+            BigDecimal progress = rs.getBigDecimal("current_progress_percent");
+            subject.setCurrentProgressPercent(progress != null ? progress.doubleValue() : null);
+            rows.subjects.add(subject);
+            rs.getLong("subject_id");
+            if (!rs.wasNull()) {
+                rows.aggregates.put(subjectId, SubjectAggregateRepository.mapRow(rs, 0));
+            }
+        }, planId);
+        return Optional.ofNullable(result[0]);
+    }
+
+    private static PlanSessionStats mapStats(ResultSet rs, String prefix) throws SQLException {
+        PlanSessionStats stats = new PlanSessionStats(rs.getLong(prefix + "plan_id"));
+        stats.setSessionCount(rs.getLong(prefix + "session_count"));
+        stats.setTotalMinutes(rs.getLong(prefix + "total_minutes"));
+        stats.setCompletionSum(rs.getDouble(prefix + "completion_sum"));
+        stats.setScoredCount(rs.getLong(prefix + "scored_count"));
+        stats.setScoreSum(rs.getLong(prefix + "score_sum"));
+        stats.setFirstSessionAt(toLocalDateTime(rs.getTimestamp(prefix + "first_session_at")));
+        stats.setLastSessionAt(toLocalDateTime(rs.getTimestamp(prefix + "last_session_at")));
+        stats.setStudyDays(rs.getInt(prefix + "study_days"));
+        Date lastStudyDay = rs.getDate(prefix + "last_study_day");
+        stats.setLastStudyDay(lastStudyDay != null ? lastStudyDay.toLocalDate() : null);
+        stats.setCurrentStreakDays(rs.getInt(prefix + "current_streak_days"));
+        stats.setLongestStreakDays(rs.getInt(prefix + "longest_streak_days"));
+        return stats;
+    }
+
+    /**
+     * Everything the dashboard of one plan is built from
+     */
+    public static class PlanDashboardRows {
+        private StudyPlan plan;
+        private PlanSessionStats stats;
+        private final List<Subject> subjects = new ArrayList<>();
+        private final Map<Long, SubjectAggregate> aggregates = new HashMap<>();
+
+        public StudyPlan getPlan() { return plan; }
+
+        public PlanSessionStats getStats() { return stats; }
+
+        public List<Subject> getSubjects() { return subjects; }
+
+        /** Aggregates by subject id; subjects without scored sessions have none */
+        public Map<Long, SubjectAggregate> getAggregates() { return aggregates; }
+    }
+}
@@ -0,0 +1,124 @@
+package com.grasp.repository;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.grasp.model.Recommendation;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static com.grasp.repository.StudyPlanRepository.toLocalDateTime;
+
+@Repository
+public class RecommendationRepository {
+
+    static final String COLUMNS =
+        "id, plan_id, subject_id, type, value, confidence_score, reasoning, status, created_at, updated_at, " +
+        "rule_id, reasoning_params";
+
+    private static final TypeReference<Map<String, Double>> PARAMS_TYPE = new TypeReference<>() {};
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final RowMapper<Recommendation> rowMapper = this::mapRow;
+
+    public RecommendationRepository(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Open recommendations of a plan, in generation order (served by idx_recommendations_plan_id)
+     */
+    public List<Recommendation> findPendingByPlanId(Long planId) {
+        return jdbcTemplate.query(
+            "SELECT " + COLUMNS + " FROM recommendations WHERE plan_id = ? AND status = 'PENDING' ORDER BY id",
+            rowMapper, planId);
+    }
+
+    public int deletePendingByPlanId(Long planId) {
+        return jdbcTemplate.update("DELETE FROM recommendations WHERE plan_id = ? AND status = 'PENDING'", planId);
+    }
+
+    /**
+     * Inserts recommendations for a plan with one JDBC batch; ids are not read back
+     */
+    public void insertAll(Long planId, List<Recommendation> recommendations) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(
+            "INSERT INTO recommendations (plan_id, subject_id, type, value, confidence_score, reasoning, status, " +
+            "created_at, updated_at, rule_id, reasoning_params) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+            new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    Recommendation recommendation = recommendations.get(i);
+                    ps.setLong(1, planId);
+                    ps.setObject(2, recommendation.getSubjectId(), Types.BIGINT);
+                    ps.setString(3, recommendation.getType().name());
+                    ps.setString(4, recommendation.getValue());
+                    ps.setObject(5, recommendation.getConfidenceScore(), Types.NUMERIC);
+                    ps.setString(6, recommendation.getReasoning());
+                    ps.setString(7, recommendation.getStatus() != null
+                        ? recommendation.getStatus().name() : Recommendation.RecommendationStatus.PENDING.name());
+                    ps.setTimestamp(8, now);
+                    ps.setTimestamp(9, now);
+                    ps.setString(10, recommendation.getRuleId());
+                    ps.setObject(11, paramsJson(recommendation.getReasoningParams()), Types.OTHER);
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return recommendations.size();
+                }
+            });
+    }
+
+    private String paramsJson(Map<String, Double> params) throws SQLException {
+        if (params == null) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(params);
+        } catch (JsonProcessingException e) {
+            throw new SQLException("Cannot serialize reasoning parameters", e);
+        }
+    }
+
+    private Recommendation mapRow(ResultSet rs, int rowNum) throws SQLException {
+        Recommendation recommendation = new Recommendation();
+        recommendation.setId(rs.getLong("id"));
+        recommendation.setPlanId(rs.getLong("plan_id"));
+        long subjectId = rs.getLong("subject_id");
+        recommendation.setSubjectId(rs.wasNull() ? null : subjectId);
+        recommendation.setType(Recommendation.RecommendationType.valueOf(rs.getString("type")));
+        recommendation.setValue(rs.getString("value"));
+        BigDecimal confidence = rs.getBigDecimal("confidence_score");
+        recommendation.setConfidenceScore(confidence != null ? confidence.doubleValue() : null);
+        recommendation.setReasoning(rs.getString("reasoning"));
+        recommendation.setStatus(Recommendation.RecommendationStatus.valueOf(rs.getString("status")));
+        recommendation.setCreatedAt(toLocalDateTime(rs.getTimestamp("created_at")));
+        recommendation.setUpdatedAt(toLocalDateTime(rs.getTimestamp("updated_at")));
+        recommendation.setRuleId(rs.getString("rule_id"));
+        String params = rs.getString("reasoning_params");
+        if (params != null) {
+            try {
+                recommendation.setReasoningParams(objectMapper.readValue(params, PARAMS_TYPE));
+            } catch (JsonProcessingException e) {
+                throw new SQLException("Malformed reasoning_params of recommendation " + recommendation.getId(), e);
+            }
+        }
+        return recommendation;
+    }
+}
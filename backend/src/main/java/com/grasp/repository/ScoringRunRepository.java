@@ -0,0 +1,114 @@
+package com.grasp.repository;
+
+import com.grasp.model.ScoringPartition;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static com.grasp.repository.StudyPlanRepository.toLocalDateTime;
+
+/**
+ * Work table of distributed scoring runs. All lease arithmetic uses the database clock, so worker
+ * nodes with skewed clocks still agree on when a lease has run out.
+ */
+@Repository
+public class ScoringRunRepository {
+
+    static final String COLUMNS =
+        "p.run_id, p.partition_no, r.partitions, p.status, p.claimed_by, p.claimed_at, p.lease_until, " +
+        "p.attempts, p.plans_scored, p.failed_plans, p.completed_at";
+
+    static final RowMapper<ScoringPartition> ROW_MAPPER = ScoringRunRepository::mapRow;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ScoringRunRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Creates a run with all of its partitions PENDING. Must be called inside a transaction, so workers
+     * never see a run with only some of its partitions.
+     *
+     * @return id of the new run
+     */
+    public long createRun(int partitions) {
+        Long runId = jdbcTemplate.queryForObject(
+            "INSERT INTO scoring_runs (partitions) VALUES (?) RETURNING id", Long.class, partitions);
+        jdbcTemplate.update(
+            "INSERT INTO scoring_partitions (run_id, partition_no) SELECT ?, generate_series(0, ? - 1)",
+            runId, partitions);
+        return runId;
+    }
+
+    /**
+     * Claims the first partition of the oldest open run that is PENDING or whose lease has expired.
+     * {@code SKIP LOCKED} lets concurrent workers pass over the row another worker is claiming instead of
+     * queueing behind it, so each call costs one short statement regardless of the number of workers.
+     */
+    public Optional<ScoringPartition> claim(String workerId, Duration lease) {
+        return jdbcTemplate.query(
+            "WITH claimed AS (" +
+            "  UPDATE scoring_partitions SET status = 'RUNNING', claimed_by = ?, claimed_at = CURRENT_TIMESTAMP, " +
+            "    lease_until = CURRENT_TIMESTAMP + ? * INTERVAL '1 millisecond', attempts = attempts + 1 " +
+            "  WHERE (run_id, partition_no) = (" +
+            "    SELECT run_id, partition_no FROM scoring_partitions " +
+            "    WHERE status = 'PENDING' OR (status = 'RUNNING' AND lease_until < CURRENT_TIMESTAMP) " +
+            "    ORDER BY run_id, partition_no LIMIT 1 FOR UPDATE SKIP LOCKED) " +
+            "  RETURNING *) " +
+            "SELECT " + COLUMNS + " FROM claimed p JOIN scoring_runs r ON r.id = p.run_id",
+            ROW_MAPPER, workerId, lease.toMillis()).stream().findFirst();
+    }
+
+    /**
+     * Extends the worker's lease on a partition
+     *
+     * @return false if the partition is no longer held by this worker (the lease ran out and it was reclaimed)
+     */
+    public boolean renew(ScoringPartition partition, String workerId, Duration lease) {
+        return jdbcTemplate.update(
+            "UPDATE scoring_partitions SET lease_until = CURRENT_TIMESTAMP + ? * INTERVAL '1 millisecond' " +
+            "WHERE run_id = ? AND partition_no = ? AND claimed_by = ? AND status = 'RUNNING'",
+            lease.toMillis(), partition.getRunId(), partition.getPartitionNo(), workerId) == 1;
+    }
+
+    /**
+     * Marks a partition done, unless another worker has reclaimed it in the meantime
+     */
+    public boolean complete(ScoringPartition partition, String workerId, int plansScored, int failedPlans) {
+        return jdbcTemplate.update(
+            "UPDATE scoring_partitions SET status = 'DONE', completed_at = CURRENT_TIMESTAMP, lease_until = NULL, " +
+            "plans_scored = ?, failed_plans = ? " +
+            "WHERE run_id = ? AND partition_no = ? AND claimed_by = ? AND status = 'RUNNING'",
+            plansScored, failedPlans, partition.getRunId(), partition.getPartitionNo(), workerId) == 1;
+    }
+
+    public List<ScoringPartition> findPartitions(long runId) {
+        return jdbcTemplate.query(
+            "SELECT " + COLUMNS + " FROM scoring_partitions p JOIN scoring_runs r ON r.id = p.run_id " +
+            "WHERE p.run_id = ? ORDER BY p.partition_no",
+            ROW_MAPPER, runId);
+    }
+
+    private static ScoringPartition mapRow(ResultSet rs, int rowNum) throws SQLException {
+        ScoringPartition partition = new ScoringPartition();
+        partition.setRunId(rs.getLong("run_id"));
+        partition.setPartitionNo(rs.getInt("partition_no"));
+        partition.setPartitions(rs.getInt("partitions"));
+        partition.setStatus(ScoringPartition.PartitionStatus.valueOf(rs.getString("status")));
+        partition.setClaimedBy(rs.getString("claimed_by"));
+        partition.setClaimedAt(toLocalDateTime(rs.getTimestamp("claimed_at")));
+        partition.setLeaseUntil(toLocalDateTime(rs.getTimestamp("lease_until")));
+        partition.setAttempts(rs.getInt("attempts"));
+        partition.setPlansScored((Integer) rs.getObject("plans_scored"));
+        partition.setFailedPlans((Integer) rs.getObject("failed_plans"));
+        partition.setCompletedAt(toLocalDateTime(rs.getTimestamp("completed_at")));
+        return partition;
+    }
+}
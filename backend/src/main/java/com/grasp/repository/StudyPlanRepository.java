@@ -0,0 +1,109 @@
+package com.grasp.repository;
+
+import com.grasp.model.StudyPlan;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public class StudyPlanRepository {
+
+    static final String COLUMNS = "id, user_id, title, description, deadline, status, created_at, updated_at";
+
+    static final RowMapper<StudyPlan> ROW_MAPPER = StudyPlanRepository::mapRow;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public StudyPlanRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Loads a plan without its subjects
+     */
+    public Optional<StudyPlan> findById(Long planId) {
+        return jdbcTemplate.query(
+            "SELECT " + COLUMNS + " FROM study_plans WHERE id = ?",
+            ROW_MAPPER, planId).stream().findFirst();
+    }
+
+    /**
+     * Version of the plan's recommendation inputs, or empty if the plan does not exist
+     */
+    public Optional<Long> findDataVersion(Long planId) {
+        return jdbcTemplate.queryForList("SELECT data_version FROM study_plans WHERE id = ?", Long.class, planId)
+            .stream().findFirst();
+    }
+
+    /**
+     * Bumps the data version of each plan, in id order so concurrent writers lock the rows in the same order
+     */
+    public void incrementDataVersions(Collection<Long> planIds) {
+        List<Long> sorted = planIds.stream().distinct().sorted().toList();
+        jdbcTemplate.batchUpdate("UPDATE study_plans SET data_version = data_version + 1 WHERE id = ?",
+            sorted, sorted.size(), (ps, planId) -> ps.setLong(1, planId));
+    }
+
+    /**
+     * Whether the plan's PENDING recommendations were generated for its current data version with the rules
+     * of version {@code rulesVersion}
+     */
+    public boolean hasCurrentRecommendations(Long planId, String rulesVersion) {
+        return jdbcTemplate.queryForList(
+            "SELECT 1 FROM study_plans WHERE id = ? AND recommendations_version = data_version " +
+            "AND recommendations_rules = ?",
+            Integer.class, planId, rulesVersion).size() == 1;
+    }
+
+    /**
+     * Records the data version and rules version the plan's PENDING recommendations were generated for; null
+     * when there are none
+     */
+    public void updateRecommendationsVersion(Long planId, Long version, String rulesVersion) {
+        jdbcTemplate.update(
+            "UPDATE study_plans SET recommendations_version = ?, recommendations_rules = ? WHERE id = ?",
+            version, rulesVersion, planId);
+    }
+
+    public List<Long> findActiveIds() {
+        return jdbcTemplate.queryForList("SELECT id FROM study_plans WHERE status = 'ACTIVE' ORDER BY id", Long.class);
+    }
+
+    /**
+     * Ids of the active plans of users in hash partition {@code partitionNo} of {@code partitions}. All plans
+     * of a user land in the same partition, and {@code hashint8} spreads sequential user ids evenly.
+     */
+    public List<Long> findActiveIdsInUserPartition(int partitionNo, int partitions) {
+        return jdbcTemplate.queryForList(
+            "SELECT id FROM study_plans WHERE status = 'ACTIVE' AND (hashint8(user_id) & 2147483647) % ? = ? " +
+            "ORDER BY id",
+            Long.class, partitions, partitionNo);
+    }
+
+    private static StudyPlan mapRow(ResultSet rs, int rowNum) throws SQLException {
+        StudyPlan plan = new StudyPlan();
+        plan.setId(rs.getLong("id"));
+        plan.setUserId(rs.getLong("user_id"));
+        plan.setTitle(rs.getString("title"));
+        plan.setDescription(rs.getString("description"));
+        Date deadline = rs.getDate("deadline");
+        plan.setDeadline(deadline != null ? deadline.toLocalDate() : null);
+        plan.setStatus(StudyPlan.StudyPlanStatus.valueOf(rs.getString("status")));
+        plan.setCreatedAt(toLocalDateTime(rs.getTimestamp("created_at")));
+        plan.setUpdatedAt(toLocalDateTime(rs.getTimestamp("updated_at")));
+        return plan;
+    }
+
+    static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+}
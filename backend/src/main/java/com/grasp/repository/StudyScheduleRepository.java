@@ -0,0 +1,68 @@
+package com.grasp.repository;
+
+import com.grasp.service.schedule.SubjectSchedule;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public class StudyScheduleRepository {
+
+    /**
+     * Subjects of active plans with their plan's deadline and their aggregate, if any
+     */
+    private static final String SELECT_SQL =
+        "SELECT s.id AS schedule_subject_id, s.plan_id AS schedule_plan_id, sp.deadline, " +
+        "a." + SubjectAggregateRepository.COLUMNS.replace(", ", ", a.") + " " +
+        "FROM subjects s " +
+        "JOIN study_plans sp ON sp.id = s.plan_id AND sp.status = 'ACTIVE' " +
+        "LEFT JOIN subject_session_aggregates a ON a.subject_id = s.id ";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public StudyScheduleRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Every subject of the given plans that are still active
+     */
+    public List<SubjectSchedule> findByPlanIds(Collection<Long> planIds) {
+        return findWhere("WHERE s.plan_id = ANY(?)", planIds);
+    }
+
+    /**
+     * The given subjects that exist and belong to an active plan
+     */
+    public List<SubjectSchedule> findBySubjectIds(Collection<Long> subjectIds) {
+        return findWhere("WHERE s.id = ANY(?)", subjectIds);
+    }
+
+    private List<SubjectSchedule> findWhere(String where, Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(SELECT_SQL + where);
+            ps.setArray(1, connection.createArrayOf("bigint", ids.toArray()));
+            return ps;
+        }, StudyScheduleRepository::mapRow);
+    }
+
+    private static SubjectSchedule mapRow(ResultSet rs, int rowNum) throws SQLException {
+        Date deadline = rs.getDate("deadline");
+        SubjectSchedule schedule = new SubjectSchedule(rs.getLong("schedule_subject_id"),
+            rs.getLong("schedule_plan_id"), deadline != null ? deadline.toLocalDate() : null, null);
+        rs.getLong("subject_id");
+        if (!rs.wasNull()) {
+            schedule.setAggregate(SubjectAggregateRepository.mapRow(rs, rowNum));
+        }
+        return schedule;
+    }
+}
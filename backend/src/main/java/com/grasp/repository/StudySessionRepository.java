@@ -0,0 +1,234 @@
+package com.grasp.repository;
+
+import com.grasp.model.StudySession;
+import com.grasp.service.metrics.SessionColumns;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+@Repository
+public class StudySessionRepository {
+
+    private static final String INSERT_COLUMNS =
+        "plan_id, subject_id, duration_minutes, completion_percent, performance_score, notes, created_at";
+
+    private static final int COPY_CHUNK_BYTES = 64 * 1024;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public StudySessionRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Inserts a session and fills in its generated id and creation time
+     */
+    public StudySession insert(StudySession session) {
+        if (session.getCreatedAt() == null) {
+            session.setCreatedAt(LocalDateTime.now());
+        }
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(
+                "INSERT INTO study_sessions (" + INSERT_COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?)",
+                new String[] {"id"});
+            bind(ps, session);
+            return ps;
+        }, keyHolder);
+        session.setId(keyHolder.getKey().longValue());
+        return session;
+    }
+
+    /**
+     * Inserts sessions with one JDBC batch; ids are not read back. Sessions without a creation time
+     * get the current time.
+     *
+     * @return number of rows inserted
+     */
+    public int insertBatch(List<StudySession> sessions) {
+        LocalDateTime now = LocalDateTime.now();
+        for (StudySession session : sessions) {
+            if (session.getCreatedAt() == null) {
+                session.setCreatedAt(now);
+            }
+        }
+        jdbcTemplate.batchUpdate(
+            "INSERT INTO study_sessions (" + INSERT_COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?)",
+            new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    bind(ps, sessions.get(i));
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return sessions.size();
+                }
+            });
+        return sessions.size();
+    }
+
+    /**
+     * Inserts sessions with PostgreSQL {@code COPY ... FROM STDIN}, streamed as CSV in fixed-size chunks.
+     * Runs on the current transaction's connection; ids are not read back.
+     *
+     * @return number of rows inserted
+     */
+    public long copyIn(List<StudySession> sessions) {
+        LocalDateTime now = LocalDateTime.now();
+        return jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+            CopyIn copy = connection.unwrap(PGConnection.class).getCopyAPI()
+                .copyIn("COPY study_sessions (" + INSERT_COLUMNS + ") FROM STDIN WITH (FORMAT csv)");
+            try {
+                StringBuilder csv = new StringBuilder(COPY_CHUNK_BYTES + 1024);
+                for (StudySession session : sessions) {
+                    if (session.getCreatedAt() == null) {
+                        session.setCreatedAt(now);
+                    }
+                    appendCsv(csv, session);
+                    if (csv.length() >= COPY_CHUNK_BYTES) {
+                        writeChunk(copy, csv);
+                    }
+                }
+                writeChunk(copy, csv);
+                return copy.endCopy();
+            } finally {
+                if (copy.isActive()) {
+                    copy.cancelCopy();
+                }
+            }
+        });
+    }
+
+    /**
+     * Reads only the columns the engine uses for every scored session of a plan, in one set-based query,
+     * straight into primitive columns. The metrics kernel does not depend on row order, so the query
+     * needs no sort.
+     */
+    public SessionColumns loadEngineColumns(Long planId) {
+        SessionColumns.Builder builder = new SessionColumns.Builder(256);
+        jdbcTemplate.query(
+            "SELECT subject_id, performance_score, duration_minutes, completion_percent, created_at " +
+            "FROM study_sessions WHERE plan_id = ? AND performance_score IS NOT NULL",
+            rs -> {
+                Timestamp createdAt = rs.getTimestamp(5);
+                builder.add(rs.getLong(1), rs.getInt(2), rs.getInt(3), rs.getDouble(4),
+                    createdAt != null ? SessionColumns.toTimestamp(createdAt.toLocalDateTime()) : Long.MIN_VALUE);
+            },
+            planId);
+        return builder.build();
+    }
+
+    /**
+     * Streams the aggregate-relevant columns of a plan's scored sessions, in no particular order
+     */
+    public void forEachScoredSession(Long planId, RowCallbackHandler handler) {
+        jdbcTemplate.query(
+            "SELECT subject_id, performance_score, duration_minutes, completion_percent, created_at " +
+            "FROM study_sessions WHERE plan_id = ? AND performance_score IS NOT NULL",
+            handler, planId);
+    }
+
+    /**
+     * Reads a plan's sessions newest first, ordered by {@code (created_at, id)}, optionally for one subject
+     * and starting strictly after a keyset position. Rows are handed over as they are fetched, so with a
+     * fetch size inside a transaction (where the driver uses a cursor) only one fetch is held in memory.
+     *
+     * @param beforeCreatedAt together with {@code beforeId} the last row of the previous page, or null
+     * @param limit maximum number of rows, 0 for all
+     */
+    public void forEachHistorySession(Long planId, Long subjectId, LocalDateTime beforeCreatedAt, Long beforeId,
+                                      int limit, int fetchSize, Consumer<StudySession> consumer) {
+        StringBuilder sql = new StringBuilder(
+            "SELECT id, plan_id, subject_id, duration_minutes, completion_percent, performance_score, notes, " +
+            "created_at FROM study_sessions WHERE plan_id = ?");
+        List<Object> args = new ArrayList<>(5);
+        args.add(planId);
+        if (subjectId != null) {
+            sql.append(" AND subject_id = ?");
+            args.add(subjectId);
+        }
+        if (beforeCreatedAt != null) {
+            sql.append(" AND (created_at, id) < (?, ?)");
+            args.add(Timestamp.valueOf(beforeCreatedAt));
+            args.add(beforeId);
+        }
+        sql.append(" ORDER BY created_at DESC, id DESC");
+        if (limit > 0) {
+            sql.append(" LIMIT ?");
+            args.add(limit);
+        }
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql.toString());
+            ps.setFetchSize(fetchSize);
+            for (int i = 0; i < args.size(); i++) {
+                ps.setObject(i + 1, args.get(i));
+            }
+            return ps;
+        }, (RowCallbackHandler) rs -> {
+            StudySession session = new StudySession();
+            session.setId(rs.getLong(1));
+            session.setPlanId(rs.getLong(2));
+            session.setSubjectId(rs.getLong(3));
+            session.setDurationMinutes(rs.getInt(4));
+            session.setCompletionPercent(rs.getDouble(5));
+            session.setPerformanceScore((Integer) rs.getObject(6));
+            session.setNotes(rs.getString(7));
+            session.setCreatedAt(rs.getTimestamp(8).toLocalDateTime());
+            consumer.accept(session);
+        });
+    }
+
+    private static void bind(PreparedStatement ps, StudySession session) throws SQLException {
+        ps.setLong(1, session.getPlanId());
+        ps.setLong(2, session.getSubjectId());
+        ps.setInt(3, session.getDurationMinutes());
+        ps.setDouble(4, session.getCompletionPercent());
+        ps.setObject(5, session.getPerformanceScore(), Types.INTEGER);
+        ps.setString(6, session.getNotes());
+        ps.setTimestamp(7, Timestamp.valueOf(session.getCreatedAt()));
+    }
+
+    /**
+     * One CSV line in INSERT_COLUMNS order. Unquoted empty fields are NULL, so notes are always quoted.
+     */
+    static void appendCsv(StringBuilder csv, StudySession session) {
+        csv.append(session.getPlanId()).append(',')
+            .append(session.getSubjectId()).append(',')
+            .append(session.getDurationMinutes()).append(',')
+            .append(session.getCompletionPercent()).append(',');
+        if (session.getPerformanceScore() != null) {
+            csv.append(session.getPerformanceScore());
+        }
+        csv.append(',');
+        String notes = session.getNotes();
+        if (notes != null) {
+            csv.append('"').append(notes.replace("\"", "\"\"")).append('"');
+        }
+        csv.append(',').append(Timestamp.valueOf(session.getCreatedAt())).append('\n');
+    }
+
+    private static void writeChunk(CopyIn copy, StringBuilder csv) throws SQLException {
+        if (csv.length() > 0) {
+            byte[] bytes = csv.toString().getBytes(StandardCharsets.UTF_8);
+            copy.writeToCopy(bytes, 0, bytes.length);
+            csv.setLength(0);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.grasp.repository;
+
+import com.grasp.service.metrics.DecayedPerformance;
+import com.grasp.service.metrics.SubjectAggregate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.List;
+
+@Repository
+public class SubjectAggregateRepository {
+
+    static final String COLUMNS =
+        "subject_id, plan_id, session_count, score_sum, score_square_sum, duration_sum, completion_sum, " +
+        "decay_anchor_day, decay_weight, decay_score_sum, decay_score_square_sum, " +
+        "decay_time_sum, decay_time_square_sum, decay_time_score_sum";
+
+    private static final RowMapper<SubjectAggregate> ROW_MAPPER = SubjectAggregateRepository::mapRow;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public SubjectAggregateRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public List<SubjectAggregate> findByPlanId(Long planId) {
+        return jdbcTemplate.query(
+            "SELECT " + COLUMNS + " FROM subject_session_aggregates WHERE plan_id = ?",
+            ROW_MAPPER, planId);
+    }
+
+    /**
+     * Returns the subject's aggregate row locked for update, creating an empty one first if needed.
+     * Must be called inside a transaction.
+     */
+    public SubjectAggregate lockForUpdate(Long subjectId, Long planId) {
+        jdbcTemplate.update(
+            "INSERT INTO subject_session_aggregates (subject_id, plan_id) VALUES (?, ?) " +
+            "ON CONFLICT (subject_id) DO NOTHING",
+            subjectId, planId);
+        return jdbcTemplate.queryForObject(
+            "SELECT " + COLUMNS + " FROM subject_session_aggregates WHERE subject_id = ? FOR UPDATE",
+            ROW_MAPPER, subjectId);
+    }
+
+    /**
+     * Locks every aggregate row of a plan; used while rebuilding so concurrent session logging waits
+     */
+    public List<SubjectAggregate> findByPlanIdForUpdate(Long planId) {
+        return jdbcTemplate.query(
+            "SELECT " + COLUMNS + " FROM subject_session_aggregates WHERE plan_id = ? FOR UPDATE",
+            ROW_MAPPER, planId);
+    }
+
+    /**
+     * Inserts or overwrites the aggregate row for the aggregate's subject
+     */
+    public void save(SubjectAggregate aggregate) {
+        jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(
+                "INSERT INTO subject_session_aggregates (" + COLUMNS + ", updated_at) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, CURRENT_TIMESTAMP) " +
+                "ON CONFLICT (subject_id) DO UPDATE SET plan_id = EXCLUDED.plan_id, " +
+                "session_count = EXCLUDED.session_count, score_sum = EXCLUDED.score_sum, " +
+                "score_square_sum = EXCLUDED.score_square_sum, duration_sum = EXCLUDED.duration_sum, " +
+                "completion_sum = EXCLUDED.completion_sum, decay_anchor_day = EXCLUDED.decay_anchor_day, " +
+                "decay_weight = EXCLUDED.decay_weight, decay_score_sum = EXCLUDED.decay_score_sum, " +
+                "decay_score_square_sum = EXCLUDED.decay_score_square_sum, decay_time_sum = EXCLUDED.decay_time_sum, " +
+                "decay_time_square_sum = EXCLUDED.decay_time_square_sum, " +
+                "decay_time_score_sum = EXCLUDED.decay_time_score_sum, updated_at = CURRENT_TIMESTAMP");
+            ps.setLong(1, aggregate.getSubjectId());
+            ps.setLong(2, aggregate.getPlanId());
+            ps.setLong(3, aggregate.getSessionCount());
+            ps.setLong(4, aggregate.getScoreSum());
+            ps.setLong(5, aggregate.getScoreSquareSum());
+            ps.setLong(6, aggregate.getDurationSum());
+            ps.setDouble(7, aggregate.getCompletionSum());
+            DecayedPerformance decayed = aggregate.getDecayed();
+            // No dated session yet: the anchor is NULL rather than NaN
+            if (Double.isNaN(decayed.getAnchorDay())) {
+                ps.setNull(8, Types.DOUBLE);
+            } else {
+                ps.setDouble(8, decayed.getAnchorDay());
+            }
+            ps.setDouble(9, decayed.getWeight());
+            ps.setDouble(10, decayed.getScoreSum());
+            ps.setDouble(11, decayed.getScoreSquareSum());
+            ps.setDouble(12, decayed.getTimeSum());
+            ps.setDouble(13, decayed.getTimeSquareSum());
+            ps.setDouble(14, decayed.getTimeScoreSum());
+            return ps;
+        });
+    }
+
+    public void deleteBySubjectId(Long subjectId) {
+        jdbcTemplate.update("DELETE FROM subject_session_aggregates WHERE subject_id = ?", subjectId);
+    }
+
+    static SubjectAggregate mapRow(ResultSet rs, int rowNum) throws SQLException {
+        SubjectAggregate aggregate = new SubjectAggregate(rs.getLong("subject_id"), rs.getLong("plan_id"));
+        aggregate.setSessionCount(rs.getLong("session_count"));
+        aggregate.setScoreSum(rs.getLong("score_sum"));
+        aggregate.setScoreSquareSum(rs.getLong("score_square_sum"));
+        aggregate.setDurationSum(rs.getLong("duration_sum"));
+        aggregate.setCompletionSum(rs.getDouble("completion_sum"));
+        double anchorDay = rs.getDouble("decay_anchor_day");
+        if (rs.wasNull()) {
+            anchorDay = Double.NaN;
+        }
+        aggregate.setDecayed(DecayedPerformance.ofSums(anchorDay,
+            rs.getDouble("decay_weight"), rs.getDouble("decay_score_sum"), rs.getDouble("decay_score_square_sum"),
+            rs.getDouble("decay_time_sum"), rs.getDouble("decay_time_square_sum"), rs.getDouble("decay_time_score_sum")));
+        return aggregate;
+    }
+}
@@ -0,0 +1,85 @@
+package com.grasp.repository;
+
+import com.grasp.model.Subject;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.grasp.repository.StudyPlanRepository.toLocalDateTime;
+
+@Repository
+public class SubjectRepository {
+
+    static final String COLUMNS =
+        "id, plan_id, name, difficulty_level, time_allocation_minutes, current_progress_percent, created_at, updated_at";
+
+    static final RowMapper<Subject> ROW_MAPPER = SubjectRepository::mapRow;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public SubjectRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public List<Subject> findByPlanId(Long planId) {
+        return jdbcTemplate.query(
+            "SELECT " + COLUMNS + " FROM subjects WHERE plan_id = ? ORDER BY id",
+            ROW_MAPPER, planId);
+    }
+
+    /**
+     * Maps each of the given subject ids that exists to its plan id
+     */
+    public Map<Long, Long> findPlanIdsByIds(Collection<Long> subjectIds) {
+        Map<Long, Long> planIds = new HashMap<>();
+        if (subjectIds.isEmpty()) {
+            return planIds;
+        }
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement("SELECT id, plan_id FROM subjects WHERE id = ANY(?)");
+            ps.setArray(1, connection.createArrayOf("bigint", subjectIds.toArray()));
+            return ps;
+        }, (RowCallbackHandler) rs -> planIds.put(rs.getLong(1), rs.getLong(2)));
+        return planIds;
+    }
+
+    /**
+     * Maps each of the given subject ids that exists to its name
+     */
+    public Map<Long, String> findNamesByIds(Collection<Long> subjectIds) {
+        Map<Long, String> names = new HashMap<>();
+        if (subjectIds.isEmpty()) {
+            return names;
+        }
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement("SELECT id, name FROM subjects WHERE id = ANY(?)");
+            ps.setArray(1, connection.createArrayOf("bigint", subjectIds.toArray()));
+            return ps;
+        }, (RowCallbackHandler) rs -> names.put(rs.getLong(1), rs.getString(2)));
+        return names;
+    }
+
+    private static Subject mapRow(ResultSet rs, int rowNum) throws SQLException {
+        Subject subject = new Subject();
+        subject.setId(rs.getLong("id"));
+        subject.setPlanId(rs.getLong("plan_id"));
+        subject.setName(rs.getString("name"));
+        subject.setDifficultyLevel(Subject.DifficultyLevel.valueOf(rs.getString("difficulty_level")));
+        subject.setTimeAllocationMinutes(rs.getInt("time_allocation_minutes"));
+        BigDecimal progress = rs.getBigDecimal("current_progress_percent");
+        subject.setCurrentProgressPercent(progress != null ? progress.doubleValue() : null);
+        subject.setCreatedAt(toLocalDateTime(rs.getTimestamp("created_at")));
+        subject.setUpdatedAt(toLocalDateTime(rs.getTimestamp("updated_at")));
+        return subject;
+    }
+}
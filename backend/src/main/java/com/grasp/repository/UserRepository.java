@@ -0,0 +1,57 @@
+package com.grasp.repository;
+
+import com.grasp.model.User;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Optional;
+
+import static com.grasp.repository.StudyPlanRepository.toLocalDateTime;
+
+@Repository
+public class UserRepository {
+
+    private static final String COLUMNS = "id, email, password_hash, first_name, last_name, created_at, updated_at";
+
+    private static final RowMapper<User> ROW_MAPPER = UserRepository::mapRow;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public UserRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public Optional<User> findByEmail(String email) {
+        return jdbcTemplate.query(
+            "SELECT " + COLUMNS + " FROM users WHERE email = ?",
+            ROW_MAPPER, email).stream().findFirst();
+    }
+
+    /**
+     * Inserts the user unless the email is taken
+     *
+     * @return the stored user, or empty if another user has the email
+     */
+    public Optional<User> insertIfAbsent(User user) {
+        return jdbcTemplate.query(
+            "INSERT INTO users (email, password_hash, first_name, last_name) VALUES (?, ?, ?, ?) " +
+            "ON CONFLICT (email) DO NOTHING RETURNING " + COLUMNS,
+            ROW_MAPPER, user.getEmail(), user.getPasswordHash(), user.getFirstName(), user.getLastName())
+            .stream().findFirst();
+    }
+
+    private static User mapRow(ResultSet rs, int rowNum) throws SQLException {
+        User user = new User();
+        user.setId(rs.getLong("id"));
+        user.setEmail(rs.getString("email"));
+        user.setPasswordHash(rs.getString("password_hash"));
+        user.setFirstName(rs.getString("first_name"));
+        user.setLastName(rs.getString("last_name"));
+        user.setCreatedAt(toLocalDateTime(rs.getTimestamp("created_at")));
+        user.setUpdatedAt(toLocalDateTime(rs.getTimestamp("updated_at")));
+        return user;
+    }
+}
@@ -0,0 +1,34 @@
+package com.grasp.security;
+
+/**
+ * Principal of a request authenticated by a bearer token, built from the token's claims alone
+ */
+public final class AuthenticatedUser {
+
+    private final long id;
+    private final String email;
+    private final long expiresAtMillis;
+    private final boolean admin;
+
+    public AuthenticatedUser(long id, String email, long expiresAtMillis, boolean admin) {
+        this.id = id;
+        this.email = email;
+        this.expiresAtMillis = expiresAtMillis;
+        this.admin = admin;
+    }
+
+    public long getId() { return id; }
+
+    public String getEmail() { return email; }
+
+    /** Expiry of the token this principal came from, in epoch milliseconds */
+    public long getExpiresAtMillis() { return expiresAtMillis; }
+
+    /** Whether the email is one of {@code grasp.security.admin-emails}, which grants {@code ROLE_ADMIN} */
+    public boolean isAdmin() { return admin; }
+
+    @Override
+    public String toString() {
+        return email;
+    }
+}
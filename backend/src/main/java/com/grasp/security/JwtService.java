@@ -0,0 +1,101 @@
+package com.grasp.security;
+
+import com.grasp.model.User;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Issues and verifies HS256 tokens carrying the user id ({@code sub}) and email. Verification checks the
+ * signature and expiry only; it never reads the {@code users} table, so a token stays valid until it
+ * expires even if the user changes their password. A verified token whose email is listed in
+ * {@code grasp.security.admin-emails} belongs to an admin.
+ */
+@Component
+public class JwtService {
+
+    private static final String EMAIL_CLAIM = "email";
+
+    private final SecretKey key;
+    private final JwtParser parser;
+    private final Duration expiration;
+    private final Set<String> adminEmails;
+
+    /**
+     * @throws io.jsonwebtoken.security.WeakKeyException if the secret is shorter than 32 bytes
+     */
+    public JwtService(@Value("${spring.security.jwt.secret}") String secret,
+                      @Value("${spring.security.jwt.expiration:86400000}") long expirationMillis,
+                      @Value("${grasp.security.admin-emails:}") List<String> adminEmails) {
+        this.key = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        this.parser = Jwts.parserBuilder().setSigningKey(key).build(); // immutable, shared by all threads
+        this.expiration = Duration.ofMillis(expirationMillis);
+        this.adminEmails = adminEmails.stream()
+            .map(email -> email.trim().toLowerCase(Locale.ROOT))
+            .filter(email -> !email.isEmpty())
+            .collect(Collectors.toUnmodifiableSet());
+    }
+
+    public IssuedToken issue(User user) {
+        Instant now = Instant.now();
+        // Whole seconds, since that is all the exp claim keeps
+        Instant expiresAt = now.plus(expiration).minusNanos(now.getNano());
+        String token = Jwts.builder()
+            .setSubject(String.valueOf(user.getId()))
+            .claim(EMAIL_CLAIM, user.getEmail())
+            .setIssuedAt(Date.from(now))
+            .setExpiration(Date.from(expiresAt))
+            .signWith(key, SignatureAlgorithm.HS256)
+            .compact();
+        return new IssuedToken(token, expiresAt);
+    }
+
+    /**
+     * @throws JwtException if the token is malformed, not signed with our key or expired
+     */
+    public AuthenticatedUser verify(String token) {
+        Claims claims = parser.parseClaimsJws(token).getBody();
+        Date expiresAt = claims.getExpiration();
+        if (expiresAt == null || claims.getSubject() == null) {
+            throw new JwtException("Token lacks a subject or an expiry");
+        }
+        long id;
+        try {
+            id = Long.parseLong(claims.getSubject());
+        } catch (NumberFormatException e) {
+            throw new JwtException("Token subject is not a user id", e);
+        }
+        String email = claims.get(EMAIL_CLAIM, String.class);
+        boolean admin = email != null && adminEmails.contains(email.toLowerCase(Locale.ROOT));
+        return new AuthenticatedUser(id, email, expiresAt.getTime(), admin);
+    }
+
+    public static final class IssuedToken {
+        private final String token;
+        private final Instant expiresAt;
+
+        private IssuedToken(String token, Instant expiresAt) {
+            this.token = token;
+            this.expiresAt = expiresAt;
+        }
+
+        public String getToken() { return token; }
+
+        public Instant getExpiresAt() { return expiresAt; }
+    }
+}
@@ -0,0 +1,159 @@
+package com.grasp.security;
+
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Bounded cache of tokens whose signature has already been checked, keyed by the exact token text.
+ *
+ * A hit costs a map lookup instead of a base64 decode, an HMAC and a JSON parse. An entry is dropped at the
+ * token's own expiry, so a cached token is never accepted for longer than verifying it again would allow.
+ * Rejected tokens are not cached. Lookups take no lock. When the cache overflows, one thread drops the
+ * expired entries and, if that is not enough, the ones expiring soonest, down to 90% of {@code max-size}.
+ */
+@Component
+public class VerifiedTokenCache implements MeterBinder {
+
+    private final Function<String, AuthenticatedUser> verifier;
+    private final LongSupplier clock;
+    private final int maxSize;
+    private final ConcurrentHashMap<String, AuthenticatedUser> entries = new ConcurrentHashMap<>();
+    private final AtomicBoolean evicting = new AtomicBoolean();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder verified = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder sizeEvictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    @Autowired
+    public VerifiedTokenCache(JwtService jwtService,
+                              @Value("${grasp.security.token-cache.max-size:100000}") int maxSize) {
+        this(jwtService::verify, maxSize, System::currentTimeMillis);
+    }
+
+    VerifiedTokenCache(Function<String, AuthenticatedUser> verifier, int maxSize, LongSupplier clock) {
+        this.verifier = verifier;
+        this.maxSize = Math.max(1, maxSize);
+        this.clock = clock;
+    }
+
+    /**
+     * Principal of the token, from the cache or by verifying it
+     *
+     * @throws JwtException if the token does not verify
+     */
+    public AuthenticatedUser verify(String token) {
+        long now = clock.getAsLong();
+        AuthenticatedUser user = entries.get(token);
+        if (user != null) {
+            if (now < user.getExpiresAtMillis()) {
+                hits.increment();
+                return user;
+            }
+            if (entries.remove(token, user)) {
+                expirations.increment();
+            }
+        }
+
+        try {
+            user = verifier.apply(token);
+        } catch (JwtException e) {
+            rejected.increment();
+            throw e;
+        }
+        verified.increment();
+        entries.put(token, user);
+        if (entries.size() > maxSize) {
+            evict(now);
+        }
+        return user;
+    }
+
+    /**
+     * Drops expired entries, then the entries expiring soonest until 90% of {@code max-size} remain. Threads
+     * that find an eviction running skip it; the map may exceed its bound by their entries meanwhile.
+     */
+    private void evict(long now) {
+        if (!evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            entries.forEach((token, user) -> {
+                if (now >= user.getExpiresAtMillis() && entries.remove(token, user)) {
+                    expirations.increment();
+                }
+            });
+            int excess = entries.size() - maxSize * 9 / 10;
+            if (excess <= 0) {
+                return;
+            }
+            long[] expiries = entries.values().stream().mapToLong(AuthenticatedUser::getExpiresAtMillis).toArray();
+            Arrays.sort(expiries);
+            long cutoff = expiries[Math.min(excess, expiries.length) - 1];
+            for (Map.Entry<String, AuthenticatedUser> entry : entries.entrySet()) {
+                if (excess <= 0) {
+                    break;
+                }
+                AuthenticatedUser user = entry.getValue();
+                if (user.getExpiresAtMillis() <= cutoff && entries.remove(entry.getKey(), user)) {
+                    sizeEvictions.increment();
+                    excess--;
+                }
+            }
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    public Map<String, Object> stats() {
+        long hitCount = hits.sum();
+        long verifiedCount = verified.sum();
+        long lookups = hitCount + verifiedCount;
+        return Map.of(
+            "size", size(),
+            "maxSize", maxSize,
+            "hits", hitCount,
+            "verified", verifiedCount,
+            "rejected", rejected.sum(),
+            "hitRate", lookups == 0 ? 0.0 : (double) hitCount / lookups,
+            "sizeEvictions", sizeEvictions.sum(),
+            "expirations", expirations.sum()
+        );
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("grasp.auth.token.cache.size", this, VerifiedTokenCache::size)
+            .description("Verified tokens held in the cache")
+            .register(registry);
+        FunctionCounter.builder("grasp.auth.tokens", hits, LongAdder::sum)
+            .tag("result", "cached").register(registry);
+        FunctionCounter.builder("grasp.auth.tokens", verified, LongAdder::sum)
+            .tag("result", "verified").register(registry);
+        FunctionCounter.builder("grasp.auth.tokens", rejected, LongAdder::sum)
+            .tag("result", "rejected").register(registry);
+        FunctionCounter.builder("grasp.auth.token.cache.removals", sizeEvictions, LongAdder::sum)
+            .tag("cause", "size").register(registry);
+        FunctionCounter.builder("grasp.auth.token.cache.removals", expirations, LongAdder::sum)
+            .tag("cause", "expired").register(registry);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+}
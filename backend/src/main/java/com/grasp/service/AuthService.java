@@ -0,0 +1,63 @@
+package com.grasp.service;
+
+import com.grasp.dto.AuthResponse;
+import com.grasp.dto.LoginRequest;
+import com.grasp.dto.RegisterRequest;
+import com.grasp.dto.UserDto;
+import com.grasp.model.User;
+import com.grasp.repository.UserRepository;
+import com.grasp.security.JwtService;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * Registration and login. These are the only requests that read {@code users}; every other request is
+ * authenticated from the token it carries.
+ */
+@Service
+public class AuthService {
+
+    private final UserRepository userRepository;
+    private final PasswordEncoder passwordEncoder;
+    private final JwtService jwtService;
+    private final String unknownUserHash;
+
+    public AuthService(UserRepository userRepository, PasswordEncoder passwordEncoder, JwtService jwtService) {
+        this.userRepository = userRepository;
+        this.passwordEncoder = passwordEncoder;
+        this.jwtService = jwtService;
+        // Checked against when the email is unknown, so a login takes as long whether or not the user exists
+        this.unknownUserHash = passwordEncoder.encode("unknown-user");
+    }
+
+    /**
+     * @return a token for the new user, or empty if the email is already registered
+     */
+    public Optional<AuthResponse> register(RegisterRequest request) {
+        User user = new User(normalize(request.getEmail()), passwordEncoder.encode(request.getPassword()),
+            request.getFirstName(), request.getLastName());
+        return userRepository.insertIfAbsent(user).map(this::issue);
+    }
+
+    /**
+     * @return a token, or empty if the email is unknown or the password does not match
+     */
+    public Optional<AuthResponse> login(LoginRequest request) {
+        Optional<User> user = userRepository.findByEmail(normalize(request.getEmail()));
+        String hash = user.map(User::getPasswordHash).orElse(unknownUserHash);
+        boolean matches = passwordEncoder.matches(request.getPassword(), hash);
+        return matches ? user.map(this::issue) : Optional.empty();
+    }
+
+    private AuthResponse issue(User user) {
+        JwtService.IssuedToken token = jwtService.issue(user);
+        return new AuthResponse(token.getToken(), token.getExpiresAt(), UserDto.from(user));
+    }
+
+    private static String normalize(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,150 @@
+package com.grasp.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.grasp.dto.BatchRecommendationItem;
+import com.grasp.dto.BatchRecommendationResult;
+import com.grasp.dto.CompactRecommendation;
+import com.grasp.model.Recommendation;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Scores NDJSON batches of plans on the shared recommendation pool.
+ *
+ * Input lines are parsed one at a time and at most {@code max-in-flight} plans are held in memory at
+ * once, so memory use does not grow with the size of the batch. Results are written as plans finish.
+ */
+@Service
+public class BatchRecommendationService {
+
+    private final RecommendationEngineService recommendationEngineService;
+    private final ExecutorService executor;
+    private final ObjectMapper objectMapper;
+    private final ObjectReader itemReader;
+    private final int maxInFlight;
+
+    public BatchRecommendationService(RecommendationEngineService recommendationEngineService,
+                                      @Qualifier("recommendationBatchExecutor") ExecutorService executor,
+                                      ObjectMapper objectMapper,
+                                      @Value("${grasp.recommendations.batch.max-in-flight:64}") int maxInFlight) {
+        this.recommendationEngineService = recommendationEngineService;
+        this.executor = executor;
+        this.objectMapper = objectMapper;
+        this.itemReader = objectMapper.readerFor(BatchRecommendationItem.class);
+        this.maxInFlight = Math.max(1, maxInFlight);
+    }
+
+    /**
+     * Reads plan bundles from {@code in} and writes one result line per bundle to {@code out}
+     *
+     * @param compact write {@link CompactRecommendation}s, which skips rendering the reasoning text
+     * @return number of bundles processed
+     */
+    public long process(InputStream in, OutputStream out, boolean compact) throws IOException {
+        BlockingQueue<BatchRecommendationResult> completed = new LinkedBlockingQueue<>();
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        generator.setRootValueSeparator(null); // lines are separated by '\n' only
+        long index = 0;
+        int inFlight = 0;
+
+        try (MappingIterator<BatchRecommendationItem> items = itemReader.readValues(in)) {
+            while (items.hasNextValue()) {
+                BatchRecommendationItem item = items.nextValue();
+                while (inFlight >= maxInFlight) {
+                    write(generator, take(completed));
+                    inFlight--;
+                }
+                long itemIndex = index++;
+                executor.execute(() -> scoreInto(completed, itemIndex, item, compact));
+                inFlight++;
+
+                BatchRecommendationResult ready;
+                while ((ready = completed.poll()) != null) {
+                    write(generator, ready);
+                    inFlight--;
+                }
+            }
+        } catch (JsonProcessingException e) {
+            // Malformed input: report it after the plans already accepted
+            BatchRecommendationResult failure = new BatchRecommendationResult(index, null, null);
+            failure.setError("Invalid batch input: " + e.getOriginalMessage());
+            drain(generator, completed, inFlight);
+            write(generator, failure);
+            return index;
+        }
+
+        drain(generator, completed, inFlight);
+        return index;
+    }
+
+    /**
+     * Every task must queue exactly one result, or {@link #process} waits for it forever: an {@link Error}
+     * thrown while scoring still answers its line before it reaches the pool
+     */
+    private void scoreInto(BlockingQueue<BatchRecommendationResult> completed, long index,
+                           BatchRecommendationItem item, boolean compact) {
+        try {
+            completed.add(score(index, item, compact));
+        } catch (Throwable e) {
+            Long planId = item.getPlan() != null ? item.getPlan().getId() : null;
+            BatchRecommendationResult failure = new BatchRecommendationResult(index, item.getId(), planId);
+            failure.setError(e.getClass().getSimpleName() + ": " + e.getMessage());
+            completed.add(failure);
+            throw e;
+        }
+    }
+
+    private BatchRecommendationResult score(long index, BatchRecommendationItem item, boolean compact) {
+        Long planId = item.getPlan() != null ? item.getPlan().getId() : null;
+        BatchRecommendationResult result = new BatchRecommendationResult(index, item.getId(), planId);
+        try {
+            if (item.getPlan() == null || item.getSessions() == null) {
+                result.setError("plan and sessions are required");
+            } else {
+                List<Recommendation> recommendations =
+                    recommendationEngineService.generateRecommendations(item.getSessions(), item.getPlan());
+                result.setRecommendations(compact ? CompactRecommendation.fromAll(recommendations) : recommendations);
+            }
+        } catch (RuntimeException e) {
+            result.setError(e.getClass().getSimpleName() + ": " + e.getMessage());
+        }
+        return result;
+    }
+
+    private void drain(JsonGenerator generator, BlockingQueue<BatchRecommendationResult> completed, int inFlight)
+            throws IOException {
+        for (; inFlight > 0; inFlight--) {
+            write(generator, take(completed));
+        }
+    }
+
+    private void write(JsonGenerator generator, BatchRecommendationResult result) throws IOException {
+        objectMapper.writeValue(generator, result);
+        generator.writeRaw('\n');
+        generator.flush();
+    }
+
+    private static BatchRecommendationResult take(BlockingQueue<BatchRecommendationResult> completed)
+            throws InterruptedIOException {
+        try {
+            return completed.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for batch results");
+        }
+    }
+}
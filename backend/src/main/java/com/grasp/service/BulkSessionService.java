@@ -0,0 +1,137 @@
+package com.grasp.service;
+
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.grasp.dto.BulkSessionResult;
+import com.grasp.dto.LogSessionRequest;
+import com.grasp.model.StudySession;
+import com.grasp.repository.SubjectRepository;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Bulk session upload, as sent by clients syncing after being offline.
+ *
+ * Accepts a JSON array or NDJSON of {@link LogSessionRequest}s. Every row is checked against the
+ * {@code study_sessions} constraints (and that its subject belongs to its plan) before anything is
+ * written, so a bad row is reported instead of aborting the batch. Valid rows are then written in a
+ * single transaction with a JDBC batch, or with {@code COPY} from {@code copy-threshold} rows up.
+ */
+@Service
+public class BulkSessionService {
+
+    private final StudySessionService studySessionService;
+    private final SubjectRepository subjectRepository;
+    private final Validator validator;
+    private final ObjectReader rowReader;
+    private final int copyThreshold;
+    private final int maxRows;
+
+    public BulkSessionService(StudySessionService studySessionService,
+                              SubjectRepository subjectRepository,
+                              Validator validator,
+                              ObjectMapper objectMapper,
+                              @Value("${grasp.sessions.bulk.copy-threshold:500}") int copyThreshold,
+                              @Value("${grasp.sessions.bulk.max-rows:10000}") int maxRows) {
+        this.studySessionService = studySessionService;
+        this.subjectRepository = subjectRepository;
+        this.validator = validator;
+        this.rowReader = objectMapper.readerFor(LogSessionRequest.class);
+        this.copyThreshold = copyThreshold;
+        this.maxRows = maxRows;
+    }
+
+    /**
+     * @throws IOException if the body is not well-formed JSON
+     * @throws IllegalArgumentException if the upload has more than {@code max-rows} rows
+     */
+    public BulkSessionResult ingest(InputStream body) throws IOException {
+        long started = System.nanoTime();
+        BulkSessionResult result = new BulkSessionResult();
+        List<LogSessionRequest> rows = new ArrayList<>();
+        List<Integer> rowIndexes = new ArrayList<>();
+
+        // readValues iterates the elements of a top-level array, or the values of an NDJSON stream
+        int index = 0;
+        try (MappingIterator<LogSessionRequest> it = rowReader.readValues(body)) {
+            while (it.hasNextValue()) {
+                if (index >= maxRows) {
+                    throw new IllegalArgumentException("At most " + maxRows + " sessions per upload");
+                }
+                try {
+                    LogSessionRequest row = it.nextValue();
+                    List<String> errors = validate(row);
+                    if (errors.isEmpty()) {
+                        rows.add(row);
+                        rowIndexes.add(index);
+                    } else {
+                        reject(result, index, errors);
+                    }
+                } catch (JsonMappingException e) {
+                    // Well-formed but wrongly typed row; the iterator resyncs to the next one
+                    reject(result, index, List.of(e.getOriginalMessage()));
+                }
+                index++;
+            }
+        }
+
+        Set<Long> subjectIds = new HashSet<>();
+        for (LogSessionRequest row : rows) {
+            subjectIds.add(row.getSubjectId());
+        }
+        Map<Long, Long> subjectPlans = subjectRepository.findPlanIdsByIds(subjectIds);
+        List<StudySession> sessions = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            LogSessionRequest row = rows.get(i);
+            Long planId = subjectPlans.get(row.getSubjectId());
+            if (planId == null) {
+                reject(result, rowIndexes.get(i), List.of("subjectId: subject does not exist"));
+            } else if (!planId.equals(row.getPlanId())) {
+                reject(result, rowIndexes.get(i), List.of("subjectId: subject does not belong to plan " + row.getPlanId()));
+            } else {
+                sessions.add(row.toSession());
+            }
+        }
+        result.getRejections().sort((a, b) -> Integer.compare(a.getIndex(), b.getIndex()));
+
+        boolean useCopy = sessions.size() >= copyThreshold;
+        long inserted = studySessionService.logSessions(sessions, useCopy);
+
+        long elapsedNanos = System.nanoTime() - started;
+        result.setReceived(index);
+        result.setInserted((int) inserted);
+        result.setRejected(result.getRejections().size());
+        result.setMethod(useCopy ? "copy" : "batch");
+        result.setElapsedMillis(elapsedNanos / 1_000_000);
+        result.setSessionsPerSecond(elapsedNanos > 0 ? inserted * 1e9 / elapsedNanos : 0.0);
+        return result;
+    }
+
+    private List<String> validate(LogSessionRequest row) {
+        if (row == null) {
+            return List.of("session must be an object");
+        }
+        List<String> errors = new ArrayList<>();
+        for (ConstraintViolation<LogSessionRequest> violation : validator.validate(row)) {
+            errors.add(violation.getPropertyPath() + ": " + violation.getMessage());
+        }
+        errors.sort(null);
+        return errors;
+    }
+
+    private static void reject(BulkSessionResult result, int index, List<String> errors) {
+        result.getRejections().add(new BulkSessionResult.RowRejection(index, errors));
+    }
+}
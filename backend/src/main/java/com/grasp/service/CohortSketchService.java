@@ -0,0 +1,99 @@
+package com.grasp.service;
+
+import com.grasp.repository.CohortSketchRepository;
+import com.grasp.service.metrics.CohortSketch;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes of {@code subject_cohort_sketches}. Every node merges the sketch deltas of the subject aggregates it
+ * changed into the stored rows, so the rows hold the subjects of all nodes; see
+ * {@link com.grasp.service.metrics.CohortSketchStore} for the read side.
+ *
+ * A rebuild starts a new epoch ({@code subject_cohort_epoch}). Each delta carries the epoch its transaction
+ * read after writing the aggregates, and a merge drops deltas of an older epoch: their transaction committed
+ * before the rebuild read the aggregates, so the rebuilt rows hold them already.
+ */
+@Service
+public class CohortSketchService {
+
+    private final CohortSketchRepository cohortSketchRepository;
+    private final int fetchSize;
+
+    public CohortSketchService(CohortSketchRepository cohortSketchRepository,
+                               @Value("${grasp.cohorts.rebuild-fetch-size:5000}") int fetchSize) {
+        this.cohortSketchRepository = cohortSketchRepository;
+        this.fetchSize = Math.max(1, fetchSize);
+    }
+
+    /**
+     * The current epoch, read inside the transaction that changed the aggregates
+     */
+    @Transactional
+    public long currentEpoch() {
+        return cohortSketchRepository.findEpoch();
+    }
+
+    /**
+     * Adds the given per-cohort deltas to the stored sketches, locking each cohort row once, unless a rebuild
+     * has started a newer epoch than {@code epoch} since
+     *
+     * @return false if the deltas were dropped because a rebuild already counted them
+     */
+    @Transactional
+    public boolean merge(Map<String, CohortSketch> deltas, long epoch) {
+        if (deltas.isEmpty()) {
+            return true;
+        }
+        // Epoch row first, as in rebuild, so the two cannot deadlock
+        if (cohortSketchRepository.findEpochForShare() != epoch) {
+            return false;
+        }
+        Map<String, CohortSketch> stored = cohortSketchRepository.lockForUpdate(deltas.keySet());
+        List<CohortSketch> merged = new ArrayList<>(stored.size());
+        for (CohortSketch sketch : stored.values()) {
+            sketch.merge(deltas.get(sketch.getCohortKey()));
+            merged.add(sketch);
+        }
+        cohortSketchRepository.updateAll(merged);
+        return true;
+    }
+
+    /**
+     * Cohorts written at or after {@code since}, or all of them if it is null
+     */
+    @Transactional(readOnly = true)
+    public List<CohortSketch> findUpdatedSince(Instant since) {
+        return cohortSketchRepository.findUpdatedSince(since);
+    }
+
+    /**
+     * Recomputes every cohort from {@code subject_session_aggregates} and replaces the stored rows under a new
+     * epoch. Merges and aggregate changes wait for it; deltas still pending on any node from before it are
+     * dropped at their merge instead of being counted twice.
+     *
+     * @return number of cohorts written
+     */
+    @Transactional
+    public int rebuild() {
+        cohortSketchRepository.incrementEpoch();
+        cohortSketchRepository.lockTable();
+        cohortSketchRepository.lockAggregates();
+        Map<String, CohortSketch> rebuilt = new HashMap<>();
+        cohortSketchRepository.forEachSubjectAggregate(fetchSize, (name, aggregate) -> {
+            String key = CohortSketch.keyOf(name);
+            if (key != null) {
+                rebuilt.computeIfAbsent(key, CohortSketch::new).add(aggregate.toMetrics());
+            }
+        });
+        cohortSketchRepository.replaceAll(rebuilt.values());
+        return rebuilt.size();
+    }
+}
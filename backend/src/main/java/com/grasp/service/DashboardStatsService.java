@@ -0,0 +1,145 @@
+package com.grasp.service;
+
+import com.grasp.dto.PlanDashboard;
+import com.grasp.dto.SubjectDashboard;
+import com.grasp.model.StudySession;
+import com.grasp.model.Subject;
+import com.grasp.repository.PlanSessionStatsRepository;
+import com.grasp.repository.StudyPlanRepository;
+import com.grasp.service.metrics.PlanSessionStats;
+import com.grasp.service.metrics.SubjectAggregate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * Materialized dashboard statistics. Every session write folds into its plan's {@code plan_session_stats}
+ * row in the writer's transaction, next to the per-subject aggregates, so reading a dashboard is one query
+ * over primary keys and the plan's subjects instead of a scan of {@code study_sessions}. Per-subject
+ * numbers are the engine's own {@link com.grasp.service.metrics.SubjectPerformanceMetrics}, derived from the
+ * same aggregates.
+ */
+@Service
+public class DashboardStatsService {
+
+    private static final Comparator<StudySession> BY_CREATED_AT = Comparator.comparing(StudySession::getCreatedAt);
+
+    private final PlanSessionStatsRepository statsRepository;
+    private final StudyPlanRepository studyPlanRepository;
+    private final SubjectAggregateService subjectAggregateService;
+
+    public DashboardStatsService(PlanSessionStatsRepository statsRepository,
+                                 StudyPlanRepository studyPlanRepository,
+                                 SubjectAggregateService subjectAggregateService) {
+        this.statsRepository = statsRepository;
+        this.studyPlanRepository = studyPlanRepository;
+        this.subjectAggregateService = subjectAggregateService;
+    }
+
+    /**
+     * Folds newly logged sessions into their plans' statistics, locking and writing each plan's row once.
+     * Call after the subject aggregates are updated, so rows are always locked subjects first, then plans,
+     * and in plan id order, so concurrent writers cannot deadlock.
+     */
+    @Transactional
+    public void applyAll(List<StudySession> sessions) {
+        Map<Long, List<StudySession>> byPlan = new TreeMap<>();
+        for (StudySession session : sessions) {
+            byPlan.computeIfAbsent(session.getPlanId(), id -> new ArrayList<>()).add(session);
+        }
+        for (Map.Entry<Long, List<StudySession>> plan : byPlan.entrySet()) {
+            List<StudySession> planSessions = plan.getValue();
+            planSessions.sort(BY_CREATED_AT); // oldest first, so a batch extends the streak in O(1) per session
+            PlanSessionStats stats = statsRepository.lockForUpdate(plan.getKey());
+            boolean inOrder = true;
+            for (StudySession session : planSessions) {
+                inOrder &= stats.add(session);
+            }
+            if (!inOrder) {
+                statsRepository.recountStudyDays(stats); // backfilled history; the new rows are visible here
+            }
+            statsRepository.save(stats);
+        }
+    }
+
+    /**
+     * Dashboard of a plan as of today, or empty if the plan does not exist
+     */
+    @Transactional(readOnly = true)
+    public Optional<PlanDashboard> dashboard(Long planId) {
+        return statsRepository.findDashboard(planId).map(rows -> toDashboard(rows, LocalDate.now()));
+    }
+
+    /**
+     * Recomputes the plan's statistics and subject aggregates from {@code study_sessions}
+     *
+     * @return the rebuilt dashboard, or empty if the plan does not exist
+     */
+    @Transactional
+    public Optional<PlanDashboard> rebuildPlan(Long planId) {
+        if (studyPlanRepository.findById(planId).isEmpty()) {
+            return Optional.empty();
+        }
+        subjectAggregateService.rebuildPlan(planId);
+        statsRepository.lockForUpdate(planId);
+        PlanSessionStats stats = statsRepository.computeTotals(planId);
+        statsRepository.recountStudyDays(stats);
+        statsRepository.save(stats);
+        return statsRepository.findDashboard(planId).map(rows -> toDashboard(rows, LocalDate.now()));
+    }
+
+    static PlanDashboard toDashboard(PlanSessionStatsRepository.PlanDashboardRows rows, LocalDate today) {
+        PlanSessionStats stats = rows.getStats();
+        PlanDashboard dashboard = new PlanDashboard();
+        dashboard.setPlanId(rows.getPlan().getId());
+        dashboard.setTitle(rows.getPlan().getTitle());
+        dashboard.setStatus(rows.getPlan().getStatus());
+        dashboard.setDeadline(rows.getPlan().getDeadline());
+        dashboard.setSessionCount(stats.getSessionCount());
+        dashboard.setTotalMinutes(stats.getTotalMinutes());
+        if (stats.getSessionCount() > 0) {
+            dashboard.setAverageCompletion(stats.getCompletionSum() / stats.getSessionCount());
+        }
+        if (stats.getScoredCount() > 0) {
+            dashboard.setAverageScore((double) stats.getScoreSum() / stats.getScoredCount());
+        }
+        dashboard.setFirstSessionAt(stats.getFirstSessionAt());
+        dashboard.setLastSessionAt(stats.getLastSessionAt());
+        dashboard.setStudyDays(stats.getStudyDays());
+        dashboard.setCurrentStreakDays(stats.currentStreakOn(today));
+        dashboard.setLongestStreakDays(stats.getLongestStreakDays());
+
+        double allocated = 0;
+        double progressMinutes = 0;
+        for (Subject subject : rows.getSubjects()) {
+            SubjectDashboard entry = new SubjectDashboard();
+            entry.setSubjectId(subject.getId());
+            entry.setName(subject.getName());
+            entry.setDifficultyLevel(subject.getDifficultyLevel());
+            entry.setTimeAllocationMinutes(subject.getTimeAllocationMinutes());
+            entry.setProgressPercent(subject.getCurrentProgressPercent());
+            SubjectAggregate aggregate = rows.getAggregates().get(subject.getId());
+            if (aggregate != null && aggregate.getSessionCount() > 0) {
+                entry.setStudiedMinutes(aggregate.getDurationSum());
+                entry.setMetrics(aggregate.toMetrics());
+            }
+            dashboard.getSubjects().add(entry);
+
+            int minutes = subject.getTimeAllocationMinutes() != null ? subject.getTimeAllocationMinutes() : 0;
+            double progress = subject.getCurrentProgressPercent() != null ? subject.getCurrentProgressPercent() : 0;
+            allocated += minutes;
+            progressMinutes += minutes * progress;
+        }
+        if (allocated > 0) {
+            dashboard.setProgressPercent(progressMinutes / allocated);
+        }
+        return dashboard;
+    }
+}
@@ -0,0 +1,15 @@
+package com.grasp.service;
+
+/**
+ * Published inside the writing transaction whenever data that feeds a plan's recommendations changes
+ * ({@code study_sessions}, {@code subjects} or {@code study_plans} rows of that plan).
+ */
+public class PlanChangedEvent {
+    private final Long planId;
+
+    public PlanChangedEvent(Long planId) {
+        this.planId = planId;
+    }
+
+    public Long getPlanId() { return planId; }
+}
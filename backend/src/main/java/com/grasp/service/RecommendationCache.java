@@ -0,0 +1,224 @@
+package com.grasp.service;
+
+import com.grasp.model.Recommendation;
+import com.grasp.repository.StudyPlanRepository;
+import com.grasp.service.rules.RulesReloadedEvent;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Bounded LRU cache of generated recommendations keyed by plan id and plan data version.
+ *
+ * The version is {@code study_plans.data_version}, which every write to a plan's data bumps in the writing
+ * transaction. A miss looks the version up first and computes in the same read-only transaction, so an entry
+ * is tagged with a version no newer than its data. Committed writes on this node drop the plan's entry at once,
+ * so hits are served from memory; only an entry last checked more than {@code version-check-interval} ago
+ * compares its version with the plan's again, which is how changes made through other nodes are seen. Entries
+ * expire after the TTL. Reloading the recommendation rules drops every entry of this node.
+ */
+@Component
+public class RecommendationCache implements MeterBinder {
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final long versionCheckNanos;
+    private final Map<Long, Entry> entries;
+    private final StudyPlanRepository studyPlanRepository;
+    private volatile long rulesGeneration;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder sizeEvictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private final LongAdder versionChecks = new LongAdder();
+
+    public RecommendationCache(StudyPlanRepository studyPlanRepository,
+                               @Value("${grasp.recommendations.cache.max-size:10000}") int maxSize,
+                               @Value("${grasp.recommendations.cache.ttl:10m}") Duration ttl,
+                               @Value("${grasp.recommendations.cache.version-check-interval:5s}")
+                               Duration versionCheckInterval) {
+        this.studyPlanRepository = studyPlanRepository;
+        this.maxSize = Math.max(1, maxSize);
+        this.ttlNanos = ttl.toNanos();
+        this.versionCheckNanos = versionCheckInterval.toNanos();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                if (size() > RecommendationCache.this.maxSize) {
+                    sizeEvictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached recommendations of the plan, computing and caching them on a miss. Empty results
+     * (unknown plan) are not cached. The loader runs in this method's read-only transaction.
+     */
+    @Transactional(readOnly = true)
+    public Optional<List<Recommendation>> getOrCompute(Long planId,
+                                                       Function<Long, Optional<List<Recommendation>>> loader) {
+        long generation = rulesGeneration;
+        long now = System.nanoTime();
+        Entry cached;
+        synchronized (entries) {
+            cached = entries.get(planId);
+            if (cached != null && now - cached.createdAtNanos > ttlNanos) {
+                entries.remove(planId);
+                expirations.increment();
+                cached = null;
+            }
+        }
+        boolean checked = cached != null && now - cached.checkedAtNanos < versionCheckNanos;
+        if (checked && cached.rulesGeneration == generation) {
+            hits.increment();
+            return Optional.of(cached.recommendations);
+        }
+
+        Optional<Long> dataVersion = studyPlanRepository.findDataVersion(planId);
+        if (dataVersion.isEmpty()) {
+            if (cached != null) {
+                invalidate(planId); // deleted meanwhile
+            }
+            return loader.apply(planId);
+        }
+        long version = dataVersion.get();
+        if (cached != null) {
+            versionChecks.increment();
+            if (cached.version == version && cached.rulesGeneration == generation) {
+                cached.checkedAtNanos = now;
+                hits.increment();
+                return Optional.of(cached.recommendations);
+            }
+        }
+        misses.increment();
+
+        Optional<List<Recommendation>> loaded = loader.apply(planId);
+        loaded.ifPresent(recommendations -> {
+            Entry entry = new Entry(version, generation, List.copyOf(recommendations), System.nanoTime());
+            synchronized (entries) {
+                Entry existing = entries.get(planId);
+                // Computed with rules replaced meanwhile, or older than what another request stored
+                if (generation == rulesGeneration && (existing == null || existing.version <= version)) {
+                    entries.put(planId, entry);
+                }
+            }
+        });
+        return loaded;
+    }
+
+    /**
+     * Drops the plan's entry once the writing transaction has committed, so hits never need to look the
+     * version up for writes made through this node
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPlanChanged(PlanChangedEvent event) {
+        invalidate(event.getPlanId());
+    }
+
+    public void invalidate(Long planId) {
+        synchronized (entries) {
+            if (entries.remove(planId) != null) {
+                invalidations.increment();
+            }
+        }
+    }
+
+    @EventListener
+    public void onRulesReloaded(RulesReloadedEvent event) {
+        invalidateAll();
+    }
+
+    /**
+     * Drops all entries, including those being computed with the previous rules
+     */
+    public void invalidateAll() {
+        synchronized (entries) {
+            rulesGeneration++;
+            invalidations.add(entries.size());
+            entries.clear();
+        }
+    }
+
+    public Map<String, Object> stats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long requests = hitCount + missCount;
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+        return Map.of(
+            "size", size,
+            "maxSize", maxSize,
+            "hits", hitCount,
+            "misses", missCount,
+            "hitRate", requests == 0 ? 0.0 : (double) hitCount / requests,
+            "sizeEvictions", sizeEvictions.sum(),
+            "expirations", expirations.sum(),
+            "invalidations", invalidations.sum(),
+            "versionChecks", versionChecks.sum()
+        );
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("grasp.recommendations.cache.size", this, RecommendationCache::size)
+            .description("Plans with cached recommendations")
+            .register(registry);
+        FunctionCounter.builder("grasp.recommendations.cache.requests", hits, LongAdder::sum)
+            .tag("result", "hit").register(registry);
+        FunctionCounter.builder("grasp.recommendations.cache.requests", misses, LongAdder::sum)
+            .tag("result", "miss").register(registry);
+        FunctionCounter.builder("grasp.recommendations.cache.removals", sizeEvictions, LongAdder::sum)
+            .tag("cause", "size").register(registry);
+        FunctionCounter.builder("grasp.recommendations.cache.removals", expirations, LongAdder::sum)
+            .tag("cause", "expired").register(registry);
+        FunctionCounter.builder("grasp.recommendations.cache.removals", invalidations, LongAdder::sum)
+            .tag("cause", "invalidated").register(registry);
+        FunctionCounter.builder("grasp.recommendations.cache.version.checks", versionChecks, LongAdder::sum)
+            .description("Hits that looked the plan's data version up again because their last check was too old")
+            .register(registry);
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private static final class Entry {
+        private final long version;
+        private final long rulesGeneration;
+        private final List<Recommendation> recommendations;
+        private final long createdAtNanos;
+        private volatile long checkedAtNanos;
+
+        private Entry(long version, long rulesGeneration, List<Recommendation> recommendations,
+                      long createdAtNanos) {
+            this.version = version;
+            this.rulesGeneration = rulesGeneration;
+            this.recommendations = recommendations;
+            this.createdAtNanos = createdAtNanos;
+            this.checkedAtNanos = createdAtNanos;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.grasp.service;
+
+import com.grasp.model.Recommendation;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Meters of the recommendation engine hot path. Every meter is registered up front, so recording is a
+ * field access plus the meter update, with no tag lookups per call.
+ *
+ * Decayed performance, trend and consistency are computed in the same pass as the other subject metrics
+ * (see {@code SubjectMetricsKernel}), so they are part of the {@code metrics} phase rather than phases of
+ * their own.
+ */
+@Component
+public class RecommendationEngineMetrics {
+
+    public enum Phase {
+        /** Grouping request sessions into per-subject columns */
+        GROUPING,
+        /** Computing per-subject metrics from the grouped sessions */
+        METRICS,
+        /** Loading per-subject metrics from the configured provider */
+        LOAD,
+        /** Applying the rules to the subject metrics */
+        RULES,
+        /** Redistributing the plan's minutes across its subjects */
+        REALLOCATION
+    }
+
+    private final Map<Phase, Timer> phaseTimers = new EnumMap<>(Phase.class);
+    private final Map<Recommendation.RecommendationType, Counter> emitted =
+        new EnumMap<>(Recommendation.RecommendationType.class);
+    private final DistributionSummary sessionsPerCall;
+    private final DistributionSummary subjectsPerCall;
+
+    public RecommendationEngineMetrics(MeterRegistry registry) {
+        for (Phase phase : Phase.values()) {
+            phaseTimers.put(phase, Timer.builder("grasp.recommendations.phase")
+                .description("Time spent in one phase of a recommendation call")
+                .tag("phase", phase.name().toLowerCase())
+                .publishPercentileHistogram()
+                .register(registry));
+        }
+        for (Recommendation.RecommendationType type : Recommendation.RecommendationType.values()) {
+            emitted.put(type, Counter.builder("grasp.recommendations.emitted")
+                .description("Recommendations generated, by type")
+                .tag("type", type.name())
+                .register(registry));
+        }
+        this.sessionsPerCall = DistributionSummary.builder("grasp.recommendations.sessions")
+            .description("Sessions analysed per recommendation call")
+            .publishPercentileHistogram()
+            .register(registry);
+        this.subjectsPerCall = DistributionSummary.builder("grasp.recommendations.subjects")
+            .description("Plan subjects evaluated per recommendation call")
+            .publishPercentileHistogram()
+            .register(registry);
+    }
+
+    public void recordPhase(Phase phase, long nanos) {
+        phaseTimers.get(phase).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordSessions(int sessions) {
+        sessionsPerCall.record(sessions);
+    }
+
+    /**
+     * Records the subjects evaluated by one rules pass and the recommendations it produced
+     */
+    public void recordRules(int subjects, List<Recommendation> recommendations) {
+        subjectsPerCall.record(subjects);
+        for (Recommendation recommendation : recommendations) {
+            emitted.get(recommendation.getType()).increment();
+        }
+    }
+}
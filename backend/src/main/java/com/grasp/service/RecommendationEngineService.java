@@ -1,17 +1,51 @@
 package com.grasp.service;
 
 import com.grasp.model.*;
+import com.grasp.repository.StudyPlanRepository;
+import com.grasp.repository.SubjectRepository;
+import com.grasp.service.metrics.CohortSketchStore;
+import com.grasp.service.metrics.SessionColumns;
+import com.grasp.service.metrics.SubjectMetricsKernel;
+import com.grasp.service.metrics.SubjectMetricsProvider;
+import com.grasp.service.metrics.SubjectPerformanceMetrics;
+import com.grasp.service.planning.TimeReallocationOptimizer;
+import com.grasp.service.rules.CompiledRuleSet;
+import com.grasp.service.rules.RecommendationRules;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
 import java.util.*;
-import java.util.stream.Collectors;
 
 @Service
 public class RecommendationEngineService {
 
-    private static final double PERFORMANCE_THRESHOLD = 0.6;
-    private static final double TIME_ADJUSTMENT_FACTOR = 1.2;
-    private static final double CONFIDENCE_BASE = 0.7;
+    private final SubjectAggregateService subjectAggregateService;
+    private final StudyPlanRepository studyPlanRepository;
+    private final SubjectRepository subjectRepository;
+    private final SubjectMetricsProvider subjectMetricsProvider;
+    private final RecommendationEngineMetrics engineMetrics;
+    private final RecommendationRules recommendationRules;
+    private final TimeReallocationOptimizer timeReallocationOptimizer;
+    private final CohortSketchStore cohortSketchStore;
+
+    public RecommendationEngineService(SubjectAggregateService subjectAggregateService,
+                                       StudyPlanRepository studyPlanRepository,
+                                       SubjectRepository subjectRepository,
+                                       SubjectMetricsProvider subjectMetricsProvider,
+                                       RecommendationEngineMetrics engineMetrics,
+                                       RecommendationRules recommendationRules,
+                                       TimeReallocationOptimizer timeReallocationOptimizer,
+                                       CohortSketchStore cohortSketchStore) {
+        this.subjectAggregateService = subjectAggregateService;
+        this.studyPlanRepository = studyPlanRepository;
+        this.subjectRepository = subjectRepository;
+        this.subjectMetricsProvider = subjectMetricsProvider;
+        this.engineMetrics = engineMetrics;
+        this.recommendationRules = recommendationRules;
+        this.timeReallocationOptimizer = timeReallocationOptimizer;
+        this.cohortSketchStore = cohortSketchStore;
+    }
 
     /**
      * Generates AI recommendations based on study session data and plan information
@@ -21,240 +55,126 @@ public class RecommendationEngineService {
      * @return List of recommendations or empty list if no adjustments needed
      */
     public List<Recommendation> generateRecommendations(List<StudySession> sessions, StudyPlan plan) {
-        List<Recommendation> recommendations = new ArrayList<>();
-        
         if (sessions.isEmpty() || plan.getSubjects() == null) {
-            return recommendations;
+            return new ArrayList<>();
         }
 
         // Calculate performance metrics per subject
         Map<Long, SubjectPerformanceMetrics> subjectMetrics = calculateSubjectPerformanceMetrics(sessions, plan);
-        
-        // Generate recommendations for each subject
-        for (Subject subject : plan.getSubjects()) {
-            SubjectPerformanceMetrics metrics = subjectMetrics.get(subject.getId());
-            
-            if (metrics != null) {
-                Recommendation recommendation = analyzeSubjectPerformance(subject, metrics);
-                if (recommendation != null) {
-                    recommendation.setPlanId(plan.getId());
-                    recommendations.add(recommendation);
-                }
-            }
-        }
-        
-        return recommendations;
+        return generateRecommendations(plan, subjectMetrics);
     }
 
     /**
-     * Analyzes individual subject performance and generates specific recommendations
+     * Loads the plan and its subjects from the database and generates recommendations from the metrics
+     * of the configured {@link SubjectMetricsProvider}, so clients only send the plan id
+     *
+     * @param planId Id of the study plan
+     * @return recommendations, or empty if the plan does not exist
      */
-    private Recommendation analyzeSubjectPerformance(Subject subject, SubjectPerformanceMetrics metrics) {
-        
-        // Check for low performance requiring time adjustment
-        if (metrics.getAveragePerformance() < PERFORMANCE_THRESHOLD) {
-            int currentTime = subject.getTimeAllocationMinutes();
-            int recommendedTime = (int) (currentTime * TIME_ADJUSTMENT_FACTOR);
-            
-            double confidence = calculateConfidence(metrics.getSessionCount(), metrics.getAveragePerformance());
-            
-            return new Recommendation(
-                Recommendation.RecommendationType.TIME_ADJUSTMENT,
-                subject.getId(),
-                String.valueOf(recommendedTime),
-                String.format("Performance below %.0f%% threshold (%.1f%%). Increase study time by %.0f%% to improve learning outcomes.",
-                    PERFORMANCE_THRESHOLD * 100, metrics.getAveragePerformance() * 100, (TIME_ADJUSTMENT_FACTOR - 1) * 100)
-            );
-        }
-        
-        // Check for consistently high performance suggesting difficulty increase
-        if (metrics.getAveragePerformance() > 0.85 && metrics.getSessionCount() >= 3) {
-            String newDifficulty = suggestDifficultyIncrease(subject.getDifficultyLevel());
-            
-            if (newDifficulty != null) {
-                double confidence = calculateConfidence(metrics.getSessionCount(), metrics.getAveragePerformance());
-                
-                return new Recommendation(
-                    Recommendation.RecommendationType.DIFFICULTY_CHANGE,
-                    subject.getId(),
-                    newDifficulty,
-                    String.format("Consistently high performance (%.1f%%) suggests ready for increased difficulty level.",
-                        metrics.getAveragePerformance() * 100)
-                );
-            }
-        }
-        
-        // Check for scheduling optimization opportunities
-        if (metrics.getAverageSessionDuration() < 30 && metrics.getSessionCount() >= 2) {
-            double confidence = calculateConfidence(metrics.getSessionCount(), metrics.getAveragePerformance());
-            
-            return new Recommendation(
-                Recommendation.RecommendationType.SCHEDULE_MODIFICATION,
-                subject.getId(),
-                "EXTEND_SESSIONS",
-                String.format("Short session durations (avg %.1f min) may impact learning effectiveness. Consider longer, focused sessions.",
-                    metrics.getAverageSessionDuration())
-            );
+    @Transactional(readOnly = true)
+    public Optional<List<Recommendation>> generateRecommendationsForPlan(Long planId) {
+        Optional<StudyPlan> loaded = studyPlanRepository.findById(planId);
+        if (loaded.isEmpty()) {
+            return Optional.empty();
         }
-        
-        return null; // No recommendations needed
+        StudyPlan plan = loaded.get();
+        plan.setSubjects(subjectRepository.findByPlanId(planId));
+        long start = System.nanoTime();
+        Map<Long, SubjectPerformanceMetrics> subjectMetrics = subjectMetricsProvider.metricsForPlan(planId);
+        engineMetrics.recordPhase(RecommendationEngineMetrics.Phase.LOAD, System.nanoTime() - start);
+        return Optional.of(generateRecommendations(plan, subjectMetrics));
     }
 
     /**
-     * Calculates comprehensive performance metrics for each subject
+     * Loads the plan and its subjects from the database and generates recommendations from the persisted
+     * per-subject aggregates instead of raw sessions, so the cost depends on the number of subjects rather
+     * than the length of the history
+     *
+     * @param planId Id of the study plan
+     * @param ownerId the plan must belong to this user; null for any owner
+     * @return recommendations, or empty if the plan does not exist or belongs to someone else
      */
-    private Map<Long, SubjectPerformanceMetrics> calculateSubjectPerformanceMetrics(
-            List<StudySession> sessions, StudyPlan plan) {
-        
-        Map<Long, SubjectPerformanceMetrics> metricsMap = new HashMap<>();
-        
-        // Group sessions by subject
-        Map<Long, List<StudySession>> sessionsBySubject = sessions.stream()
-            .collect(Collectors.groupingBy(StudySession::getSubjectId));
-        
-        // Calculate metrics for each subject
-        for (Map.Entry<Long, List<StudySession>> entry : sessionsBySubject.entrySet()) {
-            Long subjectId = entry.getKey();
-            List<StudySession> subjectSessions = entry.getValue();
-            
-            if (!subjectSessions.isEmpty()) {
-                SubjectPerformanceMetrics metrics = new SubjectPerformanceMetrics();
-                
-                // Basic metrics
-                metrics.setSessionCount(subjectSessions.size());
-                metrics.setAveragePerformance(
-                    subjectSessions.stream()
-                        .mapToDouble(s -> s.getPerformanceScore() / 10.0) // Normalize to 0-1
-                        .average()
-                        .orElse(0.0)
-                );
-                metrics.setAverageSessionDuration(
-                    subjectSessions.stream()
-                        .mapToInt(StudySession::getDurationMinutes)
-                        .average()
-                        .orElse(0.0)
-                );
-                metrics.setAverageCompletion(
-                    subjectSessions.stream()
-                        .mapToDouble(StudySession::getCompletionPercent)
-                        .average()
-                        .orElse(0.0)
-                );
-                
-                // Trend analysis
-                metrics.setPerformanceTrend(calculatePerformanceTrend(subjectSessions));
-                metrics.setConsistencyScore(calculateConsistencyScore(subjectSessions));
-                
-                metricsMap.put(subjectId, metrics);
-            }
+    @Transactional(readOnly = true)
+    public Optional<List<Recommendation>> generateRecommendationsFromAggregates(Long planId, Long ownerId) {
+        Optional<StudyPlan> loaded = studyPlanRepository.findById(planId);
+        if (loaded.isEmpty() || (ownerId != null && !ownerId.equals(loaded.get().getUserId()))) {
+            return Optional.empty();
         }
-        
-        return metricsMap;
+        StudyPlan plan = loaded.get();
+        plan.setSubjects(subjectRepository.findByPlanId(planId));
+        return Optional.of(generateRecommendations(plan, subjectAggregateService.metricsForPlan(planId)));
     }
 
     /**
-     * Calculates performance trend over time (positive/negative/stable)
+     * Applies the active {@link RecommendationRules} to precomputed subject metrics, after placing each
+     * subject in its cohort ({@link CohortSketchStore#annotate}) so rules can test cohort percentiles.
+     * With reallocation enabled, time adjustments come from the plan-wide {@link TimeReallocationOptimizer}
+     * instead of the rules' per-subject scaling; the rules still decide every other recommendation.
+     *
+     * @param plan The study plan containing subjects and time allocations
+     * @param subjectMetrics Metrics keyed by subject id; subjects without an entry are skipped
+     * @return List of recommendations or empty list if no adjustments needed
      */
-    private double calculatePerformanceTrend(List<StudySession> sessions) {
-        if (sessions.size() < 2) return 0.0;
-        
-        // Sort by creation time
-        List<StudySession> sortedSessions = sessions.stream()
-            .sorted(Comparator.comparing(StudySession::getCreatedAt))
-            .collect(Collectors.toList());
-        
-        double firstHalf = sortedSessions.subList(0, sortedSessions.size() / 2)
-            .stream()
-            .mapToDouble(s -> s.getPerformanceScore() / 10.0)
-            .average()
-            .orElse(0.0);
-        
-        double secondHalf = sortedSessions.subList(sortedSessions.size() / 2, sortedSessions.size())
-            .stream()
-            .mapToDouble(s -> s.getPerformanceScore() / 10.0)
-            .average()
-            .orElse(0.0);
-        
-        return secondHalf - firstHalf; // Positive = improving, Negative = declining
-    }
+    public List<Recommendation> generateRecommendations(StudyPlan plan, Map<Long, SubjectPerformanceMetrics> subjectMetrics) {
+        List<Recommendation> recommendations = new ArrayList<>();
 
-    /**
-     * Calculates consistency score based on performance variance
-     */
-    private double calculateConsistencyScore(List<StudySession> sessions) {
-        if (sessions.size() < 2) return 1.0;
-        
-        double mean = sessions.stream()
-            .mapToDouble(s -> s.getPerformanceScore() / 10.0)
-            .average()
-            .orElse(0.0);
-        
-        double variance = sessions.stream()
-            .mapToDouble(s -> Math.pow(s.getPerformanceScore() / 10.0 - mean, 2))
-            .average()
-            .orElse(0.0);
-        
-        // Convert variance to consistency score (lower variance = higher consistency)
-        return Math.max(0.0, 1.0 - Math.sqrt(variance));
-    }
+        if (plan.getSubjects() == null) {
+            return recommendations;
+        }
 
-    /**
-     * Suggests next difficulty level based on current performance
-     */
-    private String suggestDifficultyIncrease(Subject.DifficultyLevel currentLevel) {
-        switch (currentLevel) {
-            case BEGINNER:
-                return "INTERMEDIATE";
-            case INTERMEDIATE:
-                return "ADVANCED";
-            case ADVANCED:
-                return null; // Already at highest level
-            default:
-                return null;
+        long start = System.nanoTime();
+        // One rule set for the whole call, even if a reload swaps it meanwhile
+        CompiledRuleSet rules = recommendationRules.active();
+        double[] scratch = CompiledRuleSet.newScratch();
+        for (Subject subject : plan.getSubjects()) {
+            SubjectPerformanceMetrics metrics = subjectMetrics.get(subject.getId());
+            if (metrics != null) {
+                cohortSketchStore.annotate(subject.getName(), metrics);
+                rules.evaluate(subject, metrics, scratch, recommendations);
+            }
+        }
+        long rulesDone = System.nanoTime();
+        engineMetrics.recordPhase(RecommendationEngineMetrics.Phase.RULES, rulesDone - start);
+
+        if (timeReallocationOptimizer.isEnabled()) {
+            recommendations.removeIf(r -> r.getType() == Recommendation.RecommendationType.TIME_ADJUSTMENT);
+            timeReallocationOptimizer.optimize(plan, subjectMetrics, LocalDate.now(), recommendations);
+            engineMetrics.recordPhase(RecommendationEngineMetrics.Phase.REALLOCATION, System.nanoTime() - rulesDone);
+        }
+        for (Recommendation recommendation : recommendations) {
+            recommendation.setPlanId(plan.getId());
         }
+
+        engineMetrics.recordRules(plan.getSubjects().size(), recommendations);
+        return recommendations;
     }
 
     /**
-     * Calculates confidence score for recommendations
+     * Reasoning templates by rule id of everything that can produce a recommendation: the active rules
+     * and, when enabled, the time reallocation
      */
-    private double calculateConfidence(int sessionCount, double averagePerformance) {
-        // Base confidence increases with more data points
-        double sessionConfidence = Math.min(1.0, sessionCount / 5.0);
-        
-        // Performance confidence based on how far from threshold
-        double performanceConfidence = Math.abs(averagePerformance - PERFORMANCE_THRESHOLD) * 2;
-        
-        return Math.min(1.0, CONFIDENCE_BASE + (sessionConfidence * 0.2) + (performanceConfidence * 0.1));
+    public Map<String, String> reasoningTemplates() {
+        Map<String, String> templates = new LinkedHashMap<>(recommendationRules.templates());
+        if (timeReallocationOptimizer.isEnabled()) {
+            templates.putAll(timeReallocationOptimizer.templates());
+        }
+        return templates;
     }
 
     /**
-     * Inner class to hold performance metrics for a subject
+     * Calculates comprehensive performance metrics for each subject
      */
-    private static class SubjectPerformanceMetrics {
-        private int sessionCount;
-        private double averagePerformance;
-        private double averageSessionDuration;
-        private double averageCompletion;
-        private double performanceTrend;
-        private double consistencyScore;
-
-        // Getters and Setters
-        public int getSessionCount() { return sessionCount; }
-        public void setSessionCount(int sessionCount) { this.sessionCount = sessionCount; }
-
-        public double getAveragePerformance() { return averagePerformance; }
-        public void setAveragePerformance(double averagePerformance) { this.averagePerformance = averagePerformance; }
-
-        public double getAverageSessionDuration() { return averageSessionDuration; }
-        public void setAverageSessionDuration(double averageSessionDuration) { this.averageSessionDuration = averageSessionDuration; }
-
-        public double getAverageCompletion() { return averageCompletion; }
-        public void setAverageCompletion(double averageCompletion) { this.averageCompletion = averageCompletion; }
-
-        public double getPerformanceTrend() { return performanceTrend; }
-        public void setPerformanceTrend(double performanceTrend) { this.performanceTrend = performanceTrend; }
+    private Map<Long, SubjectPerformanceMetrics> calculateSubjectPerformanceMetrics(
+            List<StudySession> sessions, StudyPlan plan) {
 
-        public double getConsistencyScore() { return consistencyScore; }
-        public void setConsistencyScore(double consistencyScore) { this.consistencyScore = consistencyScore; }
+        // Group sessions into primitive columns, then derive every metric in one pass per subject
+        long start = System.nanoTime();
+        SessionColumns columns = SessionColumns.fromSessions(sessions);
+        long grouped = System.nanoTime();
+        Map<Long, SubjectPerformanceMetrics> metrics = SubjectMetricsKernel.compute(columns);
+        engineMetrics.recordPhase(RecommendationEngineMetrics.Phase.GROUPING, grouped - start);
+        engineMetrics.recordPhase(RecommendationEngineMetrics.Phase.METRICS, System.nanoTime() - grouped);
+        engineMetrics.recordSessions(sessions.size());
+        return metrics;
     }
 }
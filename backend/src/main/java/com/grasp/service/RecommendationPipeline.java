@@ -0,0 +1,249 @@
+package com.grasp.service;
+
+import com.grasp.model.Recommendation;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Recomputes a plan's recommendations in the background after its sessions change and stores them in
+ * the {@code recommendations} table, so reads are an indexed lookup instead of an engine run.
+ *
+ * Changes are coalesced per plan: the first change schedules a recompute {@code debounce} later, and
+ * further changes only push it back (for at most {@code max-delay}), so a burst of sessions costs one
+ * recompute. At most {@code capacity} plans wait at once; changes beyond that are rejected, and reads of the
+ * plan are computed inline by the caller until its next change is queued. The store records the plan data version
+ * ({@code study_plans.data_version}) the rows were computed for, and they are served only while that is
+ * still the plan's version, so any node can serve rows another node computed. Rows are also tagged with the
+ * version of the rules they were computed with, and a node serves only rows of its own active rules, so after
+ * a reload reads are computed inline until the plan's next change stores rows of the new rules.
+ */
+@Component
+public class RecommendationPipeline implements MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(RecommendationPipeline.class);
+
+    private final RecommendationEngineService recommendationEngineService;
+    private final RecommendationStore recommendationStore;
+    private final ScheduledExecutorService scheduler;
+    private final boolean enabled;
+    private final long debounceNanos;
+    private final long maxDelayNanos;
+    private final int capacity;
+
+    private final Map<Long, Pending> pending = new ConcurrentHashMap<>();
+    private final Semaphore slots;
+    private final Set<Long> running = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder recomputed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder storedReads = new LongAdder();
+    private final LongAdder staleReads = new LongAdder();
+
+    public RecommendationPipeline(RecommendationEngineService recommendationEngineService,
+                                  RecommendationStore recommendationStore,
+                                  @Qualifier("recommendationPipelineScheduler") ScheduledExecutorService scheduler,
+                                  @Value("${grasp.recommendations.pipeline.enabled:false}") boolean enabled,
+                                  @Value("${grasp.recommendations.pipeline.debounce:500ms}") Duration debounce,
+                                  @Value("${grasp.recommendations.pipeline.max-delay:5s}") Duration maxDelay,
+                                  @Value("${grasp.recommendations.pipeline.capacity:10000}") int capacity) {
+        this.recommendationEngineService = recommendationEngineService;
+        this.recommendationStore = recommendationStore;
+        this.scheduler = scheduler;
+        this.enabled = enabled;
+        this.debounceNanos = debounce.toNanos();
+        this.maxDelayNanos = Math.max(debounceNanos, maxDelay.toNanos());
+        this.capacity = Math.max(1, capacity);
+        this.slots = new Semaphore(this.capacity);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPlanChanged(PlanChangedEvent event) {
+        submit(event.getPlanId());
+    }
+
+    /**
+     * Schedules a recompute of the plan, or folds into the one already waiting
+     *
+     * @return false if the queue was full and the change was dropped
+     */
+    public boolean submit(Long planId) {
+        if (!enabled) {
+            return false;
+        }
+        submitted.increment();
+        long now = System.nanoTime();
+        boolean[] created = {false};
+        Pending entry = pending.compute(planId, (id, existing) -> {
+            if (existing != null) {
+                existing.lastChangeNanos = now;
+                return existing;
+            }
+            if (!slots.tryAcquire()) {
+                return null;
+            }
+            created[0] = true;
+            return new Pending(now);
+        });
+
+        if (entry == null) {
+            rejected.increment();
+            return false;
+        }
+        if (!created[0]) {
+            coalesced.increment();
+            return true;
+        }
+        try {
+            scheduler.schedule(() -> fire(planId), debounceNanos, TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException e) {
+            // Shutting down
+            pending.remove(planId);
+            slots.release();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Stored recommendations of the plan if they are current; otherwise empty, and the caller computes them.
+     * Nothing is queued here: the caller's result answers this read, and the plan's next change queues the
+     * recompute that stores rows again, so a stale read never costs two engine runs and an unknown plan id
+     * never reaches the queue.
+     */
+    public Optional<List<Recommendation>> findCurrent(Long planId) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        Optional<List<Recommendation>> stored = recommendationStore.findCurrent(planId);
+        if (stored.isPresent()) {
+            storedReads.increment();
+            return stored;
+        }
+        staleReads.increment();
+        return Optional.empty();
+    }
+
+    private void fire(Long planId) {
+        Pending entry = pending.get(planId);
+        if (entry == null) {
+            return;
+        }
+        long now = System.nanoTime();
+        long quiet = now - entry.lastChangeNanos;
+        long waited = now - entry.firstChangeNanos;
+        boolean settled = quiet >= debounceNanos || waited >= maxDelayNanos;
+        // One recompute per plan at a time, so an older result can never overwrite a newer one
+        if (!settled || !running.add(planId)) {
+            long delay = settled ? debounceNanos : Math.min(debounceNanos - quiet, maxDelayNanos - waited);
+            reschedule(planId, delay);
+            return;
+        }
+        try {
+            pending.remove(planId);
+            slots.release();
+            recompute(planId);
+        } finally {
+            running.remove(planId);
+        }
+    }
+
+    private void recompute(Long planId) {
+        try {
+            recommendationStore.regenerate(planId, recommendationEngineService::generateRecommendationsForPlan);
+            recomputed.increment();
+        } catch (RuntimeException e) {
+            // Rows stored earlier keep their older version, so they are not served
+            failed.increment();
+            log.warn("Recommendation recompute failed for plan {}", planId, e);
+        }
+    }
+
+    private void reschedule(Long planId, long delayNanos) {
+        try {
+            scheduler.schedule(() -> fire(planId), Math.max(0, delayNanos), TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException e) {
+            if (pending.remove(planId) != null) {
+                slots.release();
+            }
+        }
+    }
+
+    public Map<String, Object> stats() {
+        return Map.of(
+            "enabled", enabled,
+            "pending", pending.size(),
+            "capacity", capacity,
+            "submitted", submitted.sum(),
+            "coalesced", coalesced.sum(),
+            "rejected", rejected.sum(),
+            "recomputed", recomputed.sum(),
+            "failed", failed.sum(),
+            "storedReads", storedReads.sum(),
+            "staleReads", staleReads.sum()
+        );
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("grasp.recommendations.pipeline.pending", this, RecommendationPipeline::pendingCount)
+            .description("Plans waiting for a background recompute")
+            .register(registry);
+        Gauge.builder("grasp.recommendations.pipeline.capacity", this, RecommendationPipeline::getCapacity)
+            .register(registry);
+        bindCounter(registry, "submitted", submitted);
+        bindCounter(registry, "coalesced", coalesced);
+        bindCounter(registry, "rejected", rejected);
+        bindCounter(registry, "recomputed", recomputed);
+        bindCounter(registry, "failed", failed);
+        FunctionCounter.builder("grasp.recommendations.pipeline.reads", storedReads, LongAdder::sum)
+            .tag("source", "stored").register(registry);
+        FunctionCounter.builder("grasp.recommendations.pipeline.reads", staleReads, LongAdder::sum)
+            .tag("source", "fallback").register(registry);
+    }
+
+    private static void bindCounter(MeterRegistry registry, String outcome, LongAdder counter) {
+        FunctionCounter.builder("grasp.recommendations.pipeline.changes", counter, LongAdder::sum)
+            .tag("outcome", outcome).register(registry);
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int pendingCount() {
+        return pending.size();
+    }
+
+    private static final class Pending {
+        private final long firstChangeNanos;
+        private volatile long lastChangeNanos;
+
+        private Pending(long now) {
+            this.firstChangeNanos = now;
+            this.lastChangeNanos = now;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.grasp.service;
+
+import com.grasp.model.Recommendation;
+import com.grasp.repository.RecommendationRepository;
+import com.grasp.repository.StudyPlanRepository;
+import com.grasp.service.rules.RecommendationRules;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Persisted recommendations. Regenerating a plan replaces its PENDING rows; applied and dismissed
+ * recommendations are history and are kept. {@code study_plans.recommendations_version} records the plan
+ * data version the PENDING rows were generated for, and {@code recommendations_rules} the
+ * {@link RecommendationRules#version()}, so every node can tell whether they are current for its own rules.
+ */
+@Service
+public class RecommendationStore {
+
+    private final RecommendationRepository recommendationRepository;
+    private final StudyPlanRepository studyPlanRepository;
+    private final RecommendationRules recommendationRules;
+
+    public RecommendationStore(RecommendationRepository recommendationRepository,
+                               StudyPlanRepository studyPlanRepository,
+                               RecommendationRules recommendationRules) {
+        this.recommendationRepository = recommendationRepository;
+        this.studyPlanRepository = studyPlanRepository;
+        this.recommendationRules = recommendationRules;
+    }
+
+    /**
+     * Replaces the plan's PENDING rows with what {@code generator} returns for the plan now, or deletes them
+     * if the plan is gone. One read-write transaction, so the generator's read-only queries join it and run
+     * on the primary: a replica may not yet have replayed the change the plan is recomputed for, and rows
+     * generated from its older data would be stored under the newer version.
+     */
+    @Transactional
+    public void regenerate(Long planId, Function<Long, Optional<List<Recommendation>>> generator) {
+        // Read the versions before the data: a change committed after this point bumps it and queues again
+        Optional<Long> version = studyPlanRepository.findDataVersion(planId);
+        String rulesVersion = recommendationRules.version();
+        Optional<List<Recommendation>> recommendations = generator.apply(planId);
+        if (version.isPresent() && recommendations.isPresent()) {
+            // Rules reloaded meanwhile: the rows may come from either set, so store them as outdated
+            String generatedWith = rulesVersion.equals(recommendationRules.version()) ? rulesVersion : null;
+            replacePending(planId, recommendations.get(), version.get(), generatedWith);
+        } else {
+            deletePending(planId);
+        }
+    }
+
+    /**
+     * Replaces the plan's PENDING rows with recommendations generated for data version {@code version} with the
+     * rules of version {@code rulesVersion}
+     */
+    @Transactional
+    public void replacePending(Long planId, List<Recommendation> recommendations, long version,
+                               String rulesVersion) {
+        recommendationRepository.deletePendingByPlanId(planId);
+        if (!recommendations.isEmpty()) {
+            recommendationRepository.insertAll(planId, recommendations);
+        }
+        studyPlanRepository.updateRecommendationsVersion(planId, version, rulesVersion);
+    }
+
+    @Transactional
+    public void deletePending(Long planId) {
+        recommendationRepository.deletePendingByPlanId(planId);
+        studyPlanRepository.updateRecommendationsVersion(planId, null, null);
+    }
+
+    /**
+     * The plan's PENDING recommendations if they were generated for its current data version with this node's
+     * active rules
+     */
+    @Transactional(readOnly = true)
+    public Optional<List<Recommendation>> findCurrent(Long planId) {
+        if (!studyPlanRepository.hasCurrentRecommendations(planId, recommendationRules.version())) {
+            return Optional.empty();
+        }
+        return Optional.of(recommendationRepository.findPendingByPlanId(planId));
+    }
+}
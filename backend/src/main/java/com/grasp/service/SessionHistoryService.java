@@ -0,0 +1,191 @@
+package com.grasp.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.grasp.dto.SessionHistoryEntry;
+import com.grasp.dto.SessionHistoryPage;
+import com.grasp.model.StudySession;
+import com.grasp.model.Subject;
+import com.grasp.repository.StudyPlanRepository;
+import com.grasp.repository.StudySessionRepository;
+import com.grasp.repository.SubjectRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read path for session history, newest first, in one of two forms:
+ * - pages of at most {@code max-page-size} rows with keyset pagination on {@code (created_at, id)}. The
+ *   cursor is the position of a page's last row, so every page is one index range scan no matter how deep
+ *   it is, and pages stay stable while new sessions are logged.
+ * - one NDJSON stream of the whole history, read with the same keyset {@code fetch-size} rows at a time,
+ *   each batch in its own short read-only transaction and written after it commits. Neither side holds the
+ *   history in memory, and a slow client never keeps a connection or a transaction open.
+ */
+@Service
+public class SessionHistoryService {
+
+    private static final Base64.Encoder CURSOR_ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder CURSOR_DECODER = Base64.getUrlDecoder();
+
+    private final StudyPlanRepository studyPlanRepository;
+    private final StudySessionRepository sessionRepository;
+    private final SubjectRepository subjectRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTransaction;
+    private final int defaultPageSize;
+    private final int maxPageSize;
+    private final int fetchSize;
+
+    public SessionHistoryService(StudyPlanRepository studyPlanRepository,
+                                 StudySessionRepository sessionRepository,
+                                 SubjectRepository subjectRepository,
+                                 ObjectMapper objectMapper,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${grasp.sessions.history.default-page-size:50}") int defaultPageSize,
+                                 @Value("${grasp.sessions.history.max-page-size:500}") int maxPageSize,
+                                 @Value("${grasp.sessions.history.fetch-size:500}") int fetchSize) {
+        this.studyPlanRepository = studyPlanRepository;
+        this.sessionRepository = sessionRepository;
+        this.subjectRepository = subjectRepository;
+        this.objectMapper = objectMapper;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.maxPageSize = Math.max(1, maxPageSize);
+        this.defaultPageSize = Math.min(Math.max(1, defaultPageSize), this.maxPageSize);
+        this.fetchSize = Math.max(1, fetchSize);
+    }
+
+    public boolean planExists(Long planId) {
+        return studyPlanRepository.findById(planId).isPresent();
+    }
+
+    /**
+     * One page of history starting after {@code cursor} (null for the newest sessions)
+     *
+     * @throws IllegalArgumentException if the cursor is malformed or the limit is not positive
+     */
+    @Transactional(readOnly = true)
+    public SessionHistoryPage page(Long planId, Long subjectId, String cursor, Integer limit) {
+        int size = limit != null ? limit : defaultPageSize;
+        if (size < 1) {
+            throw new IllegalArgumentException("limit must be positive");
+        }
+        size = Math.min(size, maxPageSize);
+        Position after = cursor != null ? decodeCursor(cursor) : null;
+        Map<Long, String> subjectNames = subjectNames(planId);
+
+        // One extra row tells whether there is a next page without a count query
+        List<SessionHistoryEntry> sessions = new ArrayList<>(size + 1);
+        sessionRepository.forEachHistorySession(planId, subjectId,
+            after != null ? after.createdAt : null, after != null ? after.id : null, size + 1, size + 1,
+            session -> sessions.add(toEntry(session, subjectNames)));
+
+        String nextCursor = null;
+        if (sessions.size() > size) {
+            sessions.remove(size);
+            SessionHistoryEntry last = sessions.get(size - 1);
+            nextCursor = encodeCursor(last.getCreatedAt(), last.getId());
+        }
+        return new SessionHistoryPage(sessions, nextCursor);
+    }
+
+    /**
+     * Writes the history as NDJSON, one session per line, flushing after every batch. Not transactional
+     * itself: each batch of {@code fetch-size} rows is read in its own read-only transaction, which has ended
+     * before the batch is written, so the connection goes back to the pool while the client reads.
+     *
+     * @return number of sessions written
+     */
+    public long stream(Long planId, Long subjectId, String cursor, OutputStream out) throws IOException {
+        Position after = cursor != null ? decodeCursor(cursor) : null;
+        Map<Long, String> subjectNames = readOnlyTransaction.execute(status -> subjectNames(planId));
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        generator.setRootValueSeparator(null); // lines are separated by '\n' only
+        List<StudySession> batch = new ArrayList<>(fetchSize);
+        long written = 0;
+        do {
+            batch.clear();
+            Position from = after;
+            readOnlyTransaction.executeWithoutResult(status -> sessionRepository.forEachHistorySession(planId,
+                subjectId, from != null ? from.createdAt : null, from != null ? from.id : null, fetchSize,
+                fetchSize, batch::add));
+            for (StudySession session : batch) {
+                objectMapper.writeValue(generator, toEntry(session, subjectNames));
+                generator.writeRaw('\n');
+            }
+            generator.flush();
+            written += batch.size();
+            if (!batch.isEmpty()) {
+                StudySession last = batch.get(batch.size() - 1);
+                after = new Position(last.getCreatedAt(), last.getId());
+            }
+        } while (batch.size() == fetchSize);
+        return written;
+    }
+
+    private Map<Long, String> subjectNames(Long planId) {
+        Map<Long, String> names = new HashMap<>();
+        for (Subject subject : subjectRepository.findByPlanId(planId)) {
+            names.put(subject.getId(), subject.getName());
+        }
+        return names;
+    }
+
+    private static SessionHistoryEntry toEntry(StudySession session, Map<Long, String> subjectNames) {
+        SessionHistoryEntry entry = new SessionHistoryEntry();
+        entry.setId(session.getId());
+        entry.setSubjectId(session.getSubjectId());
+        entry.setSubjectName(subjectNames.get(session.getSubjectId()));
+        entry.setDurationMinutes(session.getDurationMinutes());
+        entry.setCompletionPercent(session.getCompletionPercent());
+        entry.setPerformanceScore(session.getPerformanceScore());
+        entry.setNotes(session.getNotes());
+        entry.setCreatedAt(session.getCreatedAt());
+        return entry;
+    }
+
+    /**
+     * Opaque to clients: base64url of the row's creation time and id
+     */
+    static String encodeCursor(LocalDateTime createdAt, Long id) {
+        return CURSOR_ENCODER.encodeToString((createdAt + "|" + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    static Position decodeCursor(String cursor) {
+        try {
+            String decoded = new String(CURSOR_DECODER.decode(cursor), StandardCharsets.UTF_8);
+            int separator = decoded.indexOf('|');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return new Position(LocalDateTime.parse(decoded.substring(0, separator)),
+                Long.parseLong(decoded.substring(separator + 1)));
+        } catch (DateTimeParseException | IllegalArgumentException e) { // NumberFormatException included
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+
+    static final class Position {
+        private final LocalDateTime createdAt;
+        private final long id;
+
+        private Position(LocalDateTime createdAt, long id) {
+            this.createdAt = createdAt;
+            this.id = id;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.grasp.service;
+
+import com.grasp.model.StudySession;
+
+import java.util.List;
+
+/**
+ * Published inside the writing transaction with the sessions it inserts, for consumers that keep their
+ * own copy of session data; {@link PlanChangedEvent} is published alongside for each affected plan.
+ */
+public class SessionsLoggedEvent {
+    private final List<StudySession> sessions;
+
+    public SessionsLoggedEvent(List<StudySession> sessions) {
+        this.sessions = sessions;
+    }
+
+    public List<StudySession> getSessions() { return sessions; }
+}
@@ -0,0 +1,167 @@
+package com.grasp.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.grasp.dto.GenerateRecommendationsRequest;
+import com.grasp.model.Recommendation;
+import com.grasp.model.StudyPlan;
+import com.grasp.model.Subject;
+import com.grasp.service.metrics.DecayedPerformance;
+import com.grasp.service.metrics.SubjectAggregate;
+import com.grasp.service.metrics.SubjectPerformanceMetrics;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Generates recommendations from a {@code GenerateRecommendationsRequest} body without binding it.
+ *
+ * The {@code plan} object is bound normally, but the {@code sessions} array is read token by token and
+ * each session is folded into a per-subject {@link SubjectAggregate}, so heap use depends on the number of
+ * subjects, not sessions. The aggregates sum in the same order and the same way as
+ * {@link com.grasp.service.metrics.SubjectMetricsKernel} does for the bound request, so the response is the
+ * same. The two fields may come in either order: sessions are folded for every subject they name, and only
+ * the plan's subjects are kept once both have been read, so sessions of other subjects are ignored as they are
+ * by {@code /generate}.
+ */
+@Service
+public class StreamingRecommendationService {
+
+    private final RecommendationEngineService recommendationEngineService;
+    private final ObjectMapper objectMapper;
+    private final RecommendationEngineMetrics engineMetrics;
+    private final Validator validator;
+
+    public StreamingRecommendationService(RecommendationEngineService recommendationEngineService,
+                                          ObjectMapper objectMapper,
+                                          RecommendationEngineMetrics engineMetrics,
+                                          Validator validator) {
+        this.recommendationEngineService = recommendationEngineService;
+        this.objectMapper = objectMapper;
+        this.engineMetrics = engineMetrics;
+        this.validator = validator;
+    }
+
+    /**
+     * @throws IOException if the body is not valid JSON
+     * @throws IllegalArgumentException if the body is valid JSON but not a valid request
+     */
+    public List<Recommendation> generate(InputStream body) throws IOException {
+        StudyPlan plan = null;
+        Map<Long, SubjectAggregate> aggregates = null;
+
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IllegalArgumentException("Request body must be a JSON object");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if ("plan".equals(field) && value == JsonToken.START_OBJECT) {
+                    plan = objectMapper.readValue(parser, StudyPlan.class);
+                } else if ("sessions".equals(field) && value == JsonToken.START_ARRAY) {
+                    aggregates = foldSessions(parser);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+
+        validate(plan, aggregates);
+        if (aggregates.isEmpty() || plan.getSubjects() == null) {
+            return new ArrayList<>();
+        }
+        Map<Long, SubjectPerformanceMetrics> metrics = new HashMap<>(Math.max(16, plan.getSubjects().size() * 2));
+        for (Subject subject : plan.getSubjects()) {
+            SubjectAggregate aggregate = aggregates.get(subject.getId());
+            if (aggregate != null) {
+                metrics.computeIfAbsent(subject.getId(), id -> aggregate.toMetrics());
+            }
+        }
+        long sessions = 0;
+        for (SubjectAggregate aggregate : aggregates.values()) {
+            sessions += aggregate.getSessionCount();
+        }
+        engineMetrics.recordSessions((int) Math.min(Integer.MAX_VALUE, sessions));
+        return recommendationEngineService.generateRecommendations(plan, metrics);
+    }
+
+    /**
+     * Applies the constraints of {@link GenerateRecommendationsRequest}; the sessions were checked as they
+     * were read
+     */
+    private void validate(StudyPlan plan, Map<Long, SubjectAggregate> aggregates) {
+        GenerateRecommendationsRequest request = new GenerateRecommendationsRequest();
+        request.setPlan(plan);
+        request.setSessions(aggregates != null ? List.of() : null);
+        List<String> errors = new ArrayList<>();
+        for (ConstraintViolation<GenerateRecommendationsRequest> violation : validator.validate(request)) {
+            errors.add(violation.getPropertyPath() + ": " + violation.getMessage());
+        }
+        if (!errors.isEmpty()) {
+            throw new IllegalArgumentException(String.join("; ", errors));
+        }
+    }
+
+    /**
+     * Consumes the sessions array (parser positioned on START_ARRAY) into aggregates by subject id
+     *
+     * @throws IllegalArgumentException if an element is not an object or lacks a required field
+     */
+    private Map<Long, SubjectAggregate> foldSessions(JsonParser parser) throws IOException {
+        Map<Long, SubjectAggregate> aggregates = new HashMap<>();
+        SubjectAggregate last = null;
+
+        JsonToken element;
+        while ((element = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (element != JsonToken.START_OBJECT) {
+                throw new IllegalArgumentException("sessions must be an array of objects");
+            }
+            long subjectId = 0;
+            boolean hasSubject = false;
+            int score = 0;
+            boolean hasScore = false;
+            int duration = 0;
+            boolean hasDuration = false;
+            double completion = 0.0;
+            boolean hasCompletion = false;
+            double day = Double.NaN;
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if (value == JsonToken.VALUE_NULL) {
+                    continue;
+                }
+                switch (field) {
+                    case "subjectId" -> { subjectId = parser.getLongValue(); hasSubject = true; }
+                    case "performanceScore" -> { score = parser.getIntValue(); hasScore = true; }
+                    case "durationMinutes" -> { duration = parser.getIntValue(); hasDuration = true; }
+                    case "completionPercent" -> { completion = parser.getDoubleValue(); hasCompletion = true; }
+                    case "createdAt" -> day = DecayedPerformance.toDay(objectMapper.readValue(parser, LocalDateTime.class));
+                    default -> parser.skipChildren();
+                }
+            }
+            if (!hasSubject || !hasScore || !hasDuration || !hasCompletion) {
+                throw new IllegalArgumentException(
+                    "Each session needs subjectId, performanceScore, durationMinutes and completionPercent");
+            }
+
+            // Sessions usually arrive grouped or in runs per subject; skip the map lookup for runs
+            if (last == null || last.getSubjectId() != subjectId) {
+                last = aggregates.computeIfAbsent(subjectId, id -> new SubjectAggregate(id, null));
+            }
+            last.add(score, duration, completion, day);
+        }
+        return aggregates;
+    }
+}
@@ -0,0 +1,87 @@
+package com.grasp.service;
+
+import com.grasp.model.StudySession;
+import com.grasp.repository.StudyPlanRepository;
+import com.grasp.repository.StudySessionRepository;
+import com.grasp.repository.SubjectRepository;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+@Service
+public class StudySessionService {
+
+    private final StudySessionRepository sessionRepository;
+    private final SubjectRepository subjectRepository;
+    private final StudyPlanRepository studyPlanRepository;
+    private final SubjectAggregateService aggregateService;
+    private final DashboardStatsService dashboardStatsService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public StudySessionService(StudySessionRepository sessionRepository, SubjectRepository subjectRepository,
+                               StudyPlanRepository studyPlanRepository, SubjectAggregateService aggregateService,
+                               DashboardStatsService dashboardStatsService, ApplicationEventPublisher eventPublisher) {
+        this.sessionRepository = sessionRepository;
+        this.subjectRepository = subjectRepository;
+        this.studyPlanRepository = studyPlanRepository;
+        this.aggregateService = aggregateService;
+        this.dashboardStatsService = dashboardStatsService;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Persists a study session and updates its subject aggregate, plan statistics and plan data version in
+     * the same transaction
+     *
+     * @throws IllegalArgumentException if the subject does not exist or belongs to another plan
+     */
+    @Transactional
+    public StudySession logSession(StudySession session) {
+        Long planId = subjectRepository.findPlanIdsByIds(List.of(session.getSubjectId())).get(session.getSubjectId());
+        if (planId == null) {
+            throw new IllegalArgumentException("subjectId: subject does not exist");
+        }
+        if (!planId.equals(session.getPlanId())) {
+            throw new IllegalArgumentException("subjectId: subject does not belong to plan " + session.getPlanId());
+        }
+        StudySession saved = sessionRepository.insert(session);
+        aggregateService.apply(saved);
+        dashboardStatsService.applyAll(List.of(saved));
+        studyPlanRepository.incrementDataVersions(List.of(saved.getPlanId()));
+        eventPublisher.publishEvent(new SessionsLoggedEvent(List.of(saved)));
+        eventPublisher.publishEvent(new PlanChangedEvent(saved.getPlanId()));
+        return saved;
+    }
+
+    /**
+     * Persists a batch of validated sessions, whose subjects the caller has checked against their plans, and
+     * updates their aggregates, plan statistics and plan data versions in one transaction, using {@code COPY}
+     * instead of a JDBC batch when {@code useCopy} is set
+     *
+     * @return number of sessions inserted
+     */
+    @Transactional
+    public long logSessions(List<StudySession> sessions, boolean useCopy) {
+        if (sessions.isEmpty()) {
+            return 0;
+        }
+        long inserted = useCopy ? sessionRepository.copyIn(sessions) : sessionRepository.insertBatch(sessions);
+        aggregateService.applyAll(sessions);
+        dashboardStatsService.applyAll(sessions);
+        eventPublisher.publishEvent(new SessionsLoggedEvent(sessions));
+
+        Set<Long> planIds = new LinkedHashSet<>();
+        for (StudySession session : sessions) {
+            planIds.add(session.getPlanId());
+        }
+        studyPlanRepository.incrementDataVersions(planIds);
+        for (Long planId : planIds) {
+            eventPublisher.publishEvent(new PlanChangedEvent(planId));
+        }
+        return inserted;
+    }
+}
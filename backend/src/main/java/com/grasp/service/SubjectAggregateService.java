@@ -0,0 +1,149 @@
+package com.grasp.service;
+
+import com.grasp.model.StudySession;
+import com.grasp.repository.StudyPlanRepository;
+import com.grasp.repository.StudySessionRepository;
+import com.grasp.repository.SubjectAggregateRepository;
+import com.grasp.service.metrics.DecayedPerformance;
+import com.grasp.service.metrics.SubjectAggregate;
+import com.grasp.service.metrics.SubjectPerformanceMetrics;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+@Service
+public class SubjectAggregateService {
+
+    private final SubjectAggregateRepository aggregateRepository;
+    private final StudySessionRepository sessionRepository;
+    private final StudyPlanRepository studyPlanRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public SubjectAggregateService(SubjectAggregateRepository aggregateRepository,
+                                   StudySessionRepository sessionRepository,
+                                   StudyPlanRepository studyPlanRepository,
+                                   ApplicationEventPublisher eventPublisher) {
+        this.aggregateRepository = aggregateRepository;
+        this.sessionRepository = sessionRepository;
+        this.studyPlanRepository = studyPlanRepository;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Folds a newly logged session into its subject's aggregate. Runs in the caller's transaction
+     * so the session row and the aggregate can never diverge.
+     */
+    @Transactional
+    public void apply(StudySession session) {
+        if (session.getPerformanceScore() == null) {
+            return; // Unscored sessions carry no signal for the engine
+        }
+        SubjectAggregate aggregate = aggregateRepository.lockForUpdate(session.getSubjectId(), session.getPlanId());
+        SubjectPerformanceMetrics previous = metricsOf(aggregate);
+        aggregate.add(session.getPerformanceScore(), session.getDurationMinutes(), session.getCompletionPercent(),
+            DecayedPerformance.toDay(session.getCreatedAt()));
+        aggregateRepository.save(aggregate);
+        eventPublisher.publishEvent(new SubjectAggregatesChangedEvent(List.of(
+            new SubjectAggregatesChangedEvent.Change(aggregate.getSubjectId(), previous, metricsOf(aggregate)))));
+    }
+
+    /**
+     * Folds a batch of newly logged sessions into their aggregates, locking and writing each subject's
+     * row once. Subjects are locked in id order so concurrent batches cannot deadlock.
+     */
+    @Transactional
+    public void applyAll(List<StudySession> sessions) {
+        Map<Long, List<StudySession>> bySubject = new TreeMap<>();
+        for (StudySession session : sessions) {
+            if (session.getPerformanceScore() != null) {
+                bySubject.computeIfAbsent(session.getSubjectId(), id -> new ArrayList<>()).add(session);
+            }
+        }
+        List<SubjectAggregatesChangedEvent.Change> changes = new ArrayList<>(bySubject.size());
+        for (List<StudySession> subjectSessions : bySubject.values()) {
+            StudySession first = subjectSessions.get(0);
+            SubjectAggregate aggregate = aggregateRepository.lockForUpdate(first.getSubjectId(), first.getPlanId());
+            SubjectPerformanceMetrics previous = metricsOf(aggregate);
+            for (StudySession session : subjectSessions) {
+                aggregate.add(session.getPerformanceScore(), session.getDurationMinutes(), session.getCompletionPercent(),
+                    DecayedPerformance.toDay(session.getCreatedAt()));
+            }
+            aggregateRepository.save(aggregate);
+            changes.add(new SubjectAggregatesChangedEvent.Change(aggregate.getSubjectId(), previous,
+                metricsOf(aggregate)));
+        }
+        if (!changes.isEmpty()) {
+            eventPublisher.publishEvent(new SubjectAggregatesChangedEvent(changes));
+        }
+    }
+
+    /**
+     * Reads the precomputed metrics of every subject in a plan, keyed by subject id
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, SubjectPerformanceMetrics> metricsForPlan(Long planId) {
+        List<SubjectAggregate> aggregates = aggregateRepository.findByPlanId(planId);
+        Map<Long, SubjectPerformanceMetrics> metrics = new HashMap<>(Math.max(16, aggregates.size() * 2));
+        for (SubjectAggregate aggregate : aggregates) {
+            if (aggregate.getSessionCount() > 0) {
+                metrics.put(aggregate.getSubjectId(), aggregate.toMetrics());
+            }
+        }
+        return metrics;
+    }
+
+    /**
+     * Recomputes a plan's aggregates from {@code study_sessions} and overwrites the stored rows.
+     *
+     * @return number of subjects whose stored aggregate had drifted and was repaired
+     */
+    @Transactional
+    public int rebuildPlan(Long planId) {
+        Map<Long, SubjectAggregate> stored = new HashMap<>();
+        for (SubjectAggregate aggregate : aggregateRepository.findByPlanIdForUpdate(planId)) {
+            stored.put(aggregate.getSubjectId(), aggregate);
+        }
+
+        Map<Long, SubjectAggregate> rebuilt = new HashMap<>();
+        sessionRepository.forEachScoredSession(planId, rs -> {
+            Timestamp createdAt = rs.getTimestamp("created_at");
+            rebuilt.computeIfAbsent(rs.getLong("subject_id"), subjectId -> new SubjectAggregate(subjectId, planId))
+                .add(rs.getInt("performance_score"), rs.getInt("duration_minutes"), rs.getDouble("completion_percent"),
+                    DecayedPerformance.toDay(createdAt != null ? createdAt.toLocalDateTime() : null));
+        });
+
+        List<SubjectAggregatesChangedEvent.Change> changes = new ArrayList<>();
+        for (SubjectAggregate aggregate : rebuilt.values()) {
+            SubjectAggregate previous = stored.remove(aggregate.getSubjectId());
+            if (previous == null || !previous.sameTotals(aggregate)) {
+                changes.add(new SubjectAggregatesChangedEvent.Change(aggregate.getSubjectId(),
+                    previous != null ? metricsOf(previous) : null, metricsOf(aggregate)));
+            }
+            aggregateRepository.save(aggregate);
+        }
+        // Whatever is left has no scored sessions any more
+        for (SubjectAggregate orphan : stored.values()) {
+            aggregateRepository.deleteBySubjectId(orphan.getSubjectId());
+            changes.add(new SubjectAggregatesChangedEvent.Change(orphan.getSubjectId(), metricsOf(orphan), null));
+        }
+        int repaired = changes.size();
+        if (repaired > 0) {
+            eventPublisher.publishEvent(new SubjectAggregatesChangedEvent(changes));
+            studyPlanRepository.incrementDataVersions(List.of(planId));
+            eventPublisher.publishEvent(new PlanChangedEvent(planId));
+        }
+        return repaired;
+    }
+
+    /** Metrics of a stored aggregate; null while it holds no session */
+    private static SubjectPerformanceMetrics metricsOf(SubjectAggregate aggregate) {
+        return aggregate.getSessionCount() > 0 ? aggregate.toMetrics() : null;
+    }
+}
@@ -0,0 +1,40 @@
+package com.grasp.service;
+
+import com.grasp.service.metrics.SubjectPerformanceMetrics;
+
+import java.util.List;
+
+/**
+ * Published inside the writing transaction with the metrics of every subject aggregate it changed, before and
+ * after, for consumers that keep statistics over subjects rather than sessions. The aggregate rows are
+ * locked until the transaction ends, so the changes of one subject never overlap.
+ */
+public class SubjectAggregatesChangedEvent {
+    private final List<Change> changes;
+
+    public SubjectAggregatesChangedEvent(List<Change> changes) {
+        this.changes = changes;
+    }
+
+    public List<Change> getChanges() { return changes; }
+
+    public static final class Change {
+        private final Long subjectId;
+        private final SubjectPerformanceMetrics previous;
+        private final SubjectPerformanceMetrics current;
+
+        /**
+         * @param previous metrics before the change; null if the subject had no scored session
+         * @param current metrics after it; null if the subject has no scored session any more
+         */
+        public Change(Long subjectId, SubjectPerformanceMetrics previous, SubjectPerformanceMetrics current) {
+            this.subjectId = subjectId;
+            this.previous = previous;
+            this.current = current;
+        }
+
+        public Long getSubjectId() { return subjectId; }
+        public SubjectPerformanceMetrics getPrevious() { return previous; }
+        public SubjectPerformanceMetrics getCurrent() { return current; }
+    }
+}
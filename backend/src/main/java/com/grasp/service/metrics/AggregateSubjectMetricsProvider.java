@@ -0,0 +1,26 @@
+package com.grasp.service.metrics;
+
+import com.grasp.service.SubjectAggregateService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Reads the incrementally maintained {@code subject_session_aggregates}; cost depends only on the subject count.
+ */
+@Component
+@ConditionalOnProperty(name = "grasp.recommendations.metrics-provider", havingValue = "aggregate")
+public class AggregateSubjectMetricsProvider implements SubjectMetricsProvider {
+
+    private final SubjectAggregateService subjectAggregateService;
+
+    public AggregateSubjectMetricsProvider(SubjectAggregateService subjectAggregateService) {
+        this.subjectAggregateService = subjectAggregateService;
+    }
+
+    @Override
+    public Map<Long, SubjectPerformanceMetrics> metricsForPlan(Long planId) {
+        return subjectAggregateService.metricsForPlan(planId);
+    }
+}
@@ -0,0 +1,110 @@
+package com.grasp.service.metrics;
+
+import java.time.Instant;
+import java.util.Locale;
+
+/**
+ * Distributions of the recent performance and average session duration of every subject of one name, one
+ * value per subject with scored sessions, persisted in {@code subject_cohort_sketches} with the number of
+ * sessions behind them. These are the statistics {@link CohortSketchStore#annotate} ranks a subject by.
+ * Cohorts are keyed by {@link #keyOf}, so "Linear Algebra" in one plan and "linear algebra " in another are
+ * compared with each other.
+ *
+ * A subject's values change with every session, so a change is sketched as removing the subject's previous
+ * values and adding its current ones. Deltas of different nodes may reach the table in any order, so a
+ * stored bucket can be briefly negative until the earlier delta arrives.
+ */
+public class CohortSketch {
+
+    private String cohortKey;
+    private long sessions;
+    private QuantileSketch performance = new QuantileSketch();
+    private QuantileSketch duration = new QuantileSketch();
+    private Instant updatedAt;
+
+    // Constructors
+    public CohortSketch() {}
+
+    public CohortSketch(String cohortKey) {
+        this.cohortKey = cohortKey;
+    }
+
+    /**
+     * Cohort key of a subject name: trimmed and lower-cased; null for a missing or blank name
+     */
+    public static String keyOf(String subjectName) {
+        if (subjectName == null || subjectName.isBlank()) {
+            return null;
+        }
+        return subjectName.strip().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * The value a subject is sketched and ranked by in the performance distribution: its recent performance on
+     * the 1 to 10 score scale
+     */
+    public static double performanceValue(SubjectPerformanceMetrics subject) {
+        return Math.max(0, subject.getRecentPerformance() * 10.0);
+    }
+
+    /**
+     * The value a subject is sketched and ranked by in the duration distribution: its average session minutes
+     */
+    public static double durationValue(SubjectPerformanceMetrics subject) {
+        return Math.max(0, subject.getAverageSessionDuration());
+    }
+
+    /**
+     * Counts a subject with the given metrics
+     */
+    public void add(SubjectPerformanceMetrics subject) {
+        count(subject, 1);
+    }
+
+    /**
+     * Takes back a subject counted earlier with exactly these metrics
+     */
+    public void remove(SubjectPerformanceMetrics subject) {
+        count(subject, -1);
+    }
+
+    private void count(SubjectPerformanceMetrics subject, int sign) {
+        sessions += (long) sign * subject.getSessionCount();
+        performance.add(performanceValue(subject), sign);
+        duration.add(durationValue(subject), sign);
+    }
+
+    /**
+     * Merges another sketch of the same cohort into this one
+     */
+    public void merge(CohortSketch other) {
+        sessions += other.sessions;
+        performance.merge(other.performance);
+        duration.merge(other.duration);
+    }
+
+    /** Scored sessions of the cohort's subjects */
+    public long sessionCount() {
+        return sessions;
+    }
+
+    /** Subjects of the cohort with scored sessions */
+    public long subjectCount() {
+        return performance.count();
+    }
+
+    // Getters and Setters
+    public String getCohortKey() { return cohortKey; }
+    public void setCohortKey(String cohortKey) { this.cohortKey = cohortKey; }
+
+    public void setSessionCount(long sessions) { this.sessions = sessions; }
+
+    public QuantileSketch getPerformance() { return performance; }
+    public void setPerformance(QuantileSketch performance) { this.performance = performance; }
+
+    public QuantileSketch getDuration() { return duration; }
+    public void setDuration(QuantileSketch duration) { this.duration = duration; }
+
+    public Instant getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(Instant updatedAt) { this.updatedAt = updatedAt; }
+}
@@ -0,0 +1,432 @@
+package com.grasp.service.metrics;
+
+import com.grasp.repository.SubjectRepository;
+import com.grasp.service.CohortSketchService;
+import com.grasp.service.SubjectAggregatesChangedEvent;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Recent performance and average session duration distributions over the subjects of every subject name, for
+ * placing a subject among all subjects of the same name ({@link #annotate}). Lookups read an in-memory
+ * snapshot and take constant time.
+ *
+ * Each node sketches the subject aggregates it changes once their transaction commits (see
+ * {@link CohortSketch}), and every {@code sync-interval} merges those deltas into
+ * {@code subject_cohort_sketches} and reads back the rows any node changed, so all nodes converge on the
+ * subjects of all nodes within about two intervals. Deltas not yet merged when a node dies are lost;
+ * {@code POST /cohorts/rebuild} recomputes every cohort from {@code subject_session_aggregates}, and is also
+ * how subjects scored before cohorts existed get counted.
+ */
+@Component
+public class CohortSketchStore implements MeterBinder, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(CohortSketchStore.class);
+
+    /** Rows changed this long before the newest one seen are read again, for merges that commit late */
+    private static final Duration REFRESH_OVERLAP = Duration.ofMinutes(1);
+
+    private static final double[] SUMMARY_QUANTILES = {0.1, 0.25, 0.5, 0.75, 0.9};
+
+    private final CohortSketchService cohortSketchService;
+    private final SubjectRepository subjectRepository;
+    private final boolean enabled;
+    private final Duration syncInterval;
+    private volatile ScheduledExecutorService scheduler; // only while enabled and started
+
+    private final Map<String, Cohort> cohorts = new ConcurrentHashMap<>();
+    private volatile Instant newestUpdate; // newest updated_at read back; null until the first full read
+
+    // Guarded by pendingLock: committed deltas not merged into the table yet, by subject id, all of pendingEpoch
+    private final Object pendingLock = new Object();
+    private Map<Long, CohortSketch> pending = new HashMap<>();
+    private long pendingEpoch = Long.MIN_VALUE;
+
+    // Guarded by itself: cohort key by subject id, least recently used first
+    private final LinkedHashMap<Long, String> cohortKeys;
+
+    private final LongAdder sessionsAdded = new LongAdder();
+    private final LongAdder sessionsMerged = new LongAdder();
+    private final LongAdder sessionsDropped = new LongAdder();
+    private final LongAdder syncs = new LongAdder();
+    private final LongAdder failedSyncs = new LongAdder();
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder unknownLookups = new LongAdder();
+
+    public CohortSketchStore(CohortSketchService cohortSketchService,
+                             SubjectRepository subjectRepository,
+                             @Value("${grasp.cohorts.enabled:true}") boolean enabled,
+                             @Value("${grasp.cohorts.sync-interval:10s}") Duration syncInterval,
+                             @Value("${grasp.cohorts.max-cached-names:100000}") int maxCachedNames) {
+        this.cohortSketchService = cohortSketchService;
+        this.subjectRepository = subjectRepository;
+        this.enabled = enabled;
+        this.syncInterval = syncInterval;
+        int maxNames = Math.max(1, maxCachedNames);
+        this.cohortKeys = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, String> eldest) {
+                return size() > maxNames;
+            }
+        };
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (!enabled || scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cohort-sketch-sync");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::sync, 0, syncInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Sketches each changed subject as a delta, its previous values out and its current ones in; the deltas
+     * count once the current transaction commits. The epoch is read here, after the aggregates were written:
+     * a rebuild running meanwhile waits for this transaction and counts it, so the deltas carry the epoch
+     * before it and are dropped; one that committed first has moved the epoch already.
+     */
+    @EventListener
+    public void onSubjectAggregatesChanged(SubjectAggregatesChangedEvent event) {
+        if (!enabled || event.getChanges().isEmpty()) {
+            return;
+        }
+        Map<Long, CohortSketch> bySubject = new HashMap<>();
+        for (SubjectAggregatesChangedEvent.Change change : event.getChanges()) {
+            CohortSketch delta = bySubject.computeIfAbsent(change.getSubjectId(), id -> new CohortSketch());
+            if (change.getPrevious() != null) {
+                delta.remove(change.getPrevious());
+            }
+            if (change.getCurrent() != null) {
+                delta.add(change.getCurrent());
+            }
+        }
+        long epoch = cohortSketchService.currentEpoch();
+        long changedSessions = sessionsOf(bySubject);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            addPending(bySubject, epoch, changedSessions);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                addPending(bySubject, epoch, changedSessions);
+            }
+        });
+    }
+
+    /**
+     * Sets the subject's cohort fields: the number of sessions in its cohort, and where its recent
+     * performance and average session duration rank among the same statistics of every subject of the
+     * cohort (0 to 1, NaN while the cohort is unknown). A value equal to many subjects' ranks in the middle
+     * of them.
+     */
+    public void annotate(String subjectName, SubjectPerformanceMetrics metrics) {
+        Cohort cohort = lookup(subjectName);
+        if (cohort == null) {
+            metrics.setCohortSessions(0);
+            metrics.setCohortPerformancePercentile(Double.NaN);
+            metrics.setCohortDurationPercentile(Double.NaN);
+            return;
+        }
+        metrics.setCohortSessions(cohort.sessions);
+        metrics.setCohortPerformancePercentile(cohort.performance.rank(CohortSketch.performanceValue(metrics)));
+        metrics.setCohortDurationPercentile(cohort.duration.rank(CohortSketch.durationValue(metrics)));
+    }
+
+    /**
+     * The cohort of a subject name, or null if no subject of that name has been merged yet
+     */
+    public Cohort lookup(String subjectName) {
+        lookups.increment();
+        String key = CohortSketch.keyOf(subjectName);
+        Cohort cohort = key != null ? cohorts.get(key) : null;
+        if (cohort == null) {
+            unknownLookups.increment();
+        }
+        return cohort;
+    }
+
+    /**
+     * Rebuilds every cohort from {@code subject_session_aggregates} and reloads them
+     *
+     * @return number of cohorts
+     */
+    public int rebuild() {
+        int rebuilt = cohortSketchService.rebuild();
+        reload();
+        return rebuilt;
+    }
+
+    /**
+     * Merges this node's pending sketches and reads back what changed; never throws, since a failed run of
+     * a fixed-delay task cancels all later runs
+     */
+    void sync() {
+        try {
+            flush();
+            refresh();
+            syncs.increment();
+        } catch (RuntimeException e) {
+            failedSyncs.increment();
+            log.warn("Cohort sketch sync failed; retrying in {}", syncInterval, e);
+        }
+    }
+
+    /**
+     * Keeps deltas of the newest epoch seen only; older ones are in a rebuild already
+     */
+    private void addPending(Map<Long, CohortSketch> bySubject, long epoch, long sessions) {
+        long dropped = 0;
+        synchronized (pendingLock) {
+            if (epoch < pendingEpoch) {
+                dropped = sessions;
+                bySubject = Map.of();
+            } else if (epoch > pendingEpoch) {
+                dropped = sessionsOf(pending);
+                pending = new HashMap<>();
+                pendingEpoch = epoch;
+            }
+            for (Map.Entry<Long, CohortSketch> entry : bySubject.entrySet()) {
+                CohortSketch existing = pending.putIfAbsent(entry.getKey(), entry.getValue());
+                if (existing != null) {
+                    existing.merge(entry.getValue());
+                }
+            }
+        }
+        sessionsAdded.add(sessions);
+        sessionsDropped.add(dropped);
+    }
+
+    /**
+     * Merges the pending deltas into the table, grouped by cohort; on failure they stay pending
+     */
+    private void flush() {
+        Map<Long, CohortSketch> flushing;
+        long epoch;
+        synchronized (pendingLock) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            flushing = pending;
+            epoch = pendingEpoch;
+            pending = new HashMap<>();
+        }
+        try {
+            Map<Long, String> keys = cohortKeysOf(flushing.keySet());
+            Map<String, CohortSketch> byCohort = new HashMap<>();
+            long sessions = 0;
+            for (Map.Entry<Long, CohortSketch> entry : flushing.entrySet()) {
+                String key = keys.get(entry.getKey());
+                if (key == null) {
+                    continue; // Subject deleted meanwhile
+                }
+                byCohort.computeIfAbsent(key, CohortSketch::new).merge(entry.getValue());
+                sessions += entry.getValue().sessionCount();
+            }
+            if (cohortSketchService.merge(byCohort, epoch)) {
+                sessionsMerged.add(sessions);
+            } else {
+                sessionsDropped.add(sessions);
+            }
+        } catch (RuntimeException e) {
+            addPending(flushing, epoch, 0);
+            throw e;
+        }
+    }
+
+    private static long sessionsOf(Map<Long, CohortSketch> deltas) {
+        long sessions = 0;
+        for (CohortSketch delta : deltas.values()) {
+            sessions += delta.sessionCount();
+        }
+        return sessions;
+    }
+
+    private Map<Long, String> cohortKeysOf(Iterable<Long> subjectIds) {
+        Map<Long, String> keys = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        synchronized (cohortKeys) {
+            for (Long subjectId : subjectIds) {
+                String key = cohortKeys.get(subjectId);
+                if (key != null) {
+                    keys.put(subjectId, key);
+                } else {
+                    missing.add(subjectId);
+                }
+            }
+        }
+        if (missing.isEmpty()) {
+            return keys;
+        }
+        Map<Long, String> loaded = new HashMap<>();
+        subjectRepository.findNamesByIds(missing).forEach((subjectId, name) -> {
+            String key = CohortSketch.keyOf(name);
+            if (key != null) {
+                loaded.put(subjectId, key);
+            }
+        });
+        synchronized (cohortKeys) {
+            cohortKeys.putAll(loaded);
+        }
+        keys.putAll(loaded);
+        return keys;
+    }
+
+    /**
+     * Reads back the cohorts changed since the last read, or all of them the first time
+     */
+    private void refresh() {
+        Instant newest = newestUpdate;
+        List<CohortSketch> changed =
+            cohortSketchService.findUpdatedSince(newest != null ? newest.minus(REFRESH_OVERLAP) : null);
+        for (CohortSketch sketch : changed) {
+            cohorts.put(sketch.getCohortKey(), new Cohort(sketch));
+            if (sketch.getUpdatedAt() != null && (newest == null || sketch.getUpdatedAt().isAfter(newest))) {
+                newest = sketch.getUpdatedAt();
+            }
+        }
+        newestUpdate = newest != null ? newest : Instant.EPOCH;
+    }
+
+    /**
+     * Reads every cohort again and drops those that no longer exist
+     */
+    private void reload() {
+        List<CohortSketch> all = cohortSketchService.findUpdatedSince(null);
+        Map<String, Cohort> loaded = new HashMap<>();
+        Instant newest = Instant.EPOCH;
+        for (CohortSketch sketch : all) {
+            loaded.put(sketch.getCohortKey(), new Cohort(sketch));
+            if (sketch.getUpdatedAt() != null && sketch.getUpdatedAt().isAfter(newest)) {
+                newest = sketch.getUpdatedAt();
+            }
+        }
+        cohorts.putAll(loaded);
+        cohorts.keySet().retainAll(loaded.keySet());
+        newestUpdate = newest;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("cohorts", cohorts.size());
+        synchronized (pendingLock) {
+            stats.put("pendingSubjects", pending.size());
+        }
+        stats.put("sessionsAdded", sessionsAdded.sum());
+        stats.put("sessionsMerged", sessionsMerged.sum());
+        stats.put("sessionsDropped", sessionsDropped.sum());
+        stats.put("syncs", syncs.sum());
+        stats.put("failedSyncs", failedSyncs.sum());
+        stats.put("lookups", lookups.sum());
+        stats.put("unknownLookups", unknownLookups.sum());
+        return stats;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("grasp.cohorts.known", cohorts, Map::size)
+            .description("Subject names with a cohort sketch on this node")
+            .register(registry);
+        FunctionCounter.builder("grasp.cohorts.sessions", sessionsAdded, LongAdder::sum)
+            .description("Scored sessions sketched, and merged into the shared table")
+            .tag("stage", "added").register(registry);
+        FunctionCounter.builder("grasp.cohorts.sessions", sessionsMerged, LongAdder::sum)
+            .tag("stage", "merged").register(registry);
+        FunctionCounter.builder("grasp.cohorts.sessions", sessionsDropped, LongAdder::sum)
+            .tag("stage", "dropped").register(registry);
+        FunctionCounter.builder("grasp.cohorts.syncs", syncs, LongAdder::sum)
+            .tag("result", "ok").register(registry);
+        FunctionCounter.builder("grasp.cohorts.syncs", failedSyncs, LongAdder::sum)
+            .tag("result", "failed").register(registry);
+        FunctionCounter.builder("grasp.cohorts.lookups", lookups, LongAdder::sum)
+            .description("Cohort lookups, and those for a name without a cohort")
+            .tag("result", "all").register(registry);
+        FunctionCounter.builder("grasp.cohorts.lookups", unknownLookups, LongAdder::sum)
+            .tag("result", "unknown").register(registry);
+    }
+
+    /**
+     * Merges what is still pending before the node goes away
+     */
+    @Override
+    public void close() {
+        ScheduledExecutorService running = scheduler;
+        if (running == null) {
+            return;
+        }
+        running.shutdownNow();
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.warn("Cohort sketches of recent sessions were not merged at shutdown", e);
+        }
+    }
+
+    /**
+     * Read-only distributions of one cohort
+     */
+    public static final class Cohort {
+        private final String key;
+        private final long sessions;
+        private final QuantileSketch.Snapshot performance;
+        private final QuantileSketch.Snapshot duration;
+
+        private Cohort(CohortSketch sketch) {
+            this.key = sketch.getCohortKey();
+            this.sessions = sketch.sessionCount();
+            this.performance = sketch.getPerformance().snapshot();
+            this.duration = sketch.getDuration().snapshot();
+        }
+
+        public String getKey() { return key; }
+
+        public long getSessions() { return sessions; }
+
+        /** Subjects with scored sessions */
+        public long getSubjects() { return performance.count(); }
+
+        /** Distribution of the subjects' recent performance on the score scale, 1 to 10 */
+        public QuantileSketch.Snapshot getPerformance() { return performance; }
+
+        /** Distribution of the subjects' average session durations in minutes */
+        public QuantileSketch.Snapshot getDuration() { return duration; }
+
+        /** p10, p25, p50, p75 and p90 of a distribution, by name */
+        public static Map<String, Double> summary(QuantileSketch.Snapshot distribution) {
+            Map<String, Double> summary = new LinkedHashMap<>();
+            for (double q : SUMMARY_QUANTILES) {
+                summary.put("p" + Math.round(q * 100), distribution.quantile(q));
+            }
+            return summary;
+        }
+    }
+}
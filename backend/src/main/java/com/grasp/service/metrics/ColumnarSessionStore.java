@@ -0,0 +1,505 @@
+package com.grasp.service.metrics;
+
+import com.grasp.model.StudySession;
+import com.grasp.repository.StudyPlanRepository;
+import com.grasp.repository.StudySessionRepository;
+import com.grasp.service.SessionsLoggedEvent;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Resident copy of the engine-relevant session fields, partitioned by plan and then subject, in primitive
+ * columns: score as a byte, duration as an int, completion as a float and the time in epoch seconds. A
+ * session takes 17 bytes of column data (about 35 with the per-subject arrays) instead of the 170 or so of
+ * a {@link StudySession} with its boxed fields and {@code LocalDateTime}, and scoring a plan is a
+ * sequential scan of a few arrays with no database call.
+ *
+ * Plans are loaded from {@code study_sessions} on first use (or all active plans on startup, with
+ * {@code warm-up}) and kept current from {@link SessionsLoggedEvent}s: sessions are appended once their
+ * transaction commits. A plan whose sessions change while it is being loaded is not cached, because the
+ * load may or may not have seen the change; it is simply loaded again on its next use. Above
+ * {@code max-sessions} resident sessions, further plans are scored from the database without being cached.
+ *
+ * Each resident plan remembers the {@code study_plans.data_version} it reflects: the version read before
+ * loading, plus one per logging transaction appended since. A read at least {@code version-check-interval}
+ * after the last check compares it with the stored version and reloads the plan if they differ, so
+ * sessions logged on other nodes show up within that interval.
+ *
+ * Completion is kept to float precision and times to the second, so metrics can differ slightly from the
+ * exact providers; the trend of sessions logged seconds apart differs most, by up to about 0.05%.
+ */
+@Component
+@ConditionalOnProperty(name = "grasp.recommendations.metrics-provider", havingValue = "columnar")
+public class ColumnarSessionStore implements MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(ColumnarSessionStore.class);
+
+    /** Bytes per resident session: score, duration, completion, epoch seconds */
+    static final int BYTES_PER_SESSION = 1 + 4 + 4 + 8;
+
+    private static final double SECONDS_PER_DAY = 86_400.0;
+
+    private final StudySessionRepository studySessionRepository;
+    private final StudyPlanRepository studyPlanRepository;
+    private final long maxSessions;
+    private final boolean warmUp;
+    private final long versionCheckNanos;
+
+    private final Map<Long, PlanSegment> segments = new ConcurrentHashMap<>();
+    private final AtomicLong residentSessions = new AtomicLong();
+
+    // Guarded by writeLock: uncommitted writes per plan, and the plans being loaded
+    private final Object writeLock = new Object();
+    private final Map<Long, Integer> writesInFlight = new HashMap<>();
+    private final Map<Long, Load> loading = new HashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder uncachedLoads = new LongAdder();
+    private final LongAdder appended = new LongAdder();
+    private final LongAdder staleReloads = new LongAdder();
+
+    public ColumnarSessionStore(StudySessionRepository studySessionRepository,
+                                StudyPlanRepository studyPlanRepository,
+                                @Value("${grasp.sessions.columnar.max-sessions:50000000}") long maxSessions,
+                                @Value("${grasp.sessions.columnar.warm-up:true}") boolean warmUp,
+                                @Value("${grasp.sessions.columnar.version-check-interval:5s}")
+                                Duration versionCheckInterval) {
+        this.studySessionRepository = studySessionRepository;
+        this.studyPlanRepository = studyPlanRepository;
+        this.maxSessions = maxSessions;
+        this.warmUp = warmUp;
+        this.versionCheckNanos = versionCheckInterval.toNanos();
+    }
+
+    /**
+     * Loads every active plan in the background, so the first requests do not pay for it
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!warmUp) {
+            return;
+        }
+        Thread loader = new Thread(() -> {
+            long started = System.nanoTime();
+            try {
+                for (Long planId : studyPlanRepository.findActiveIds()) {
+                    if (residentSessions.get() >= maxSessions) {
+                        log.warn("Columnar session store full at {} sessions; remaining plans load on use",
+                            residentSessions.get());
+                        break;
+                    }
+                    if (!segments.containsKey(planId)) {
+                        load(planId);
+                    }
+                }
+                log.info("Columnar session store warmed up: {} plans, {} sessions, ~{} MB in {} ms",
+                    segments.size(), residentSessions.get(), residentBytes() >> 20,
+                    (System.nanoTime() - started) / 1_000_000);
+            } catch (RuntimeException e) {
+                log.warn("Columnar session store warm-up stopped; remaining plans load on use", e);
+            }
+        }, "columnar-session-warm-up");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    /**
+     * Metrics of every subject of the plan with scored sessions
+     */
+    public Map<Long, SubjectPerformanceMetrics> metricsForPlan(Long planId) {
+        PlanSegment segment = segments.get(planId);
+        if (segment != null && System.nanoTime() - segment.checkedAtNanos() >= versionCheckNanos) {
+            segment = verify(planId, segment);
+        }
+        if (segment != null) {
+            hits.increment();
+        } else {
+            segment = load(planId);
+        }
+        return segment.metrics();
+    }
+
+    /**
+     * The segment if it still reflects the plan's stored data version; otherwise it is dropped and null returned
+     */
+    private PlanSegment verify(Long planId, PlanSegment segment) {
+        long now = System.nanoTime();
+        Optional<Long> version = studyPlanRepository.findDataVersion(planId);
+        if (version.isPresent() && segment.confirm(version.get(), now)) {
+            return segment;
+        }
+        evict(planId, segment);
+        staleReloads.increment();
+        return null;
+    }
+
+    /**
+     * Registers the sessions with the current transaction: they count as in flight for their plans until
+     * it completes, and are appended to resident plans if it commits.
+     */
+    @EventListener
+    public void onSessionsLogged(SessionsLoggedEvent event) {
+        // Every plan of the event, since its transaction bumps each one's data version once
+        Map<Long, List<StudySession>> byPlan = new HashMap<>();
+        for (StudySession session : event.getSessions()) {
+            List<StudySession> scored = byPlan.computeIfAbsent(session.getPlanId(), id -> new ArrayList<>());
+            if (session.getPerformanceScore() != null) {
+                scored.add(session);
+            }
+        }
+        if (byPlan.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            beginWrites(byPlan);
+            completeWrites(byPlan, true);
+            return;
+        }
+        beginWrites(byPlan);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                completeWrites(byPlan, status == STATUS_COMMITTED);
+            }
+        });
+    }
+
+    private void beginWrites(Map<Long, List<StudySession>> byPlan) {
+        synchronized (writeLock) {
+            for (Long planId : byPlan.keySet()) {
+                writesInFlight.merge(planId, 1, Integer::sum);
+                spoilLoad(planId);
+            }
+        }
+    }
+
+    private void completeWrites(Map<Long, List<StudySession>> byPlan, boolean committed) {
+        for (Map.Entry<Long, List<StudySession>> entry : byPlan.entrySet()) {
+            Long planId = entry.getKey();
+            PlanSegment segment;
+            synchronized (writeLock) {
+                writesInFlight.computeIfPresent(planId, (id, count) -> count > 1 ? count - 1 : null);
+                spoilLoad(planId);
+                segment = segments.get(planId);
+            }
+            if (committed && segment != null && segment.appendTransaction(entry.getValue())) {
+                residentSessions.addAndGet(entry.getValue().size());
+                appended.add(entry.getValue().size());
+            }
+        }
+    }
+
+    private void spoilLoad(Long planId) {
+        Load load = loading.get(planId);
+        if (load != null) {
+            load.spoiled = true;
+        }
+    }
+
+    /**
+     * Reads the plan's scored sessions and caches them unless a write to the plan overlapped the read, the
+     * read failed or the plan does not exist
+     */
+    private PlanSegment load(Long planId) {
+        Load load = new Load();
+        boolean cacheable;
+        synchronized (writeLock) {
+            cacheable = !writesInFlight.containsKey(planId) && loading.putIfAbsent(planId, load) == null;
+        }
+        PlanSegment segment = null;
+        try {
+            // Before the sessions: a write committed in between makes the version look stale, never current
+            Optional<Long> version = studyPlanRepository.findDataVersion(planId);
+            PlanSegment filled = new PlanSegment(version.orElse(-1L), System.nanoTime());
+            studySessionRepository.forEachScoredSession(planId, rs -> {
+                Timestamp createdAt = rs.getTimestamp(5);
+                filled.append(rs.getLong(1), rs.getInt(2), rs.getInt(3), rs.getDouble(4),
+                    toEpochSecond(createdAt != null ? createdAt.toLocalDateTime() : null));
+            });
+            cacheable &= version.isPresent();
+            segment = filled;
+        } finally {
+            if (cacheable) {
+                synchronized (writeLock) {
+                    loading.remove(planId);
+                    cacheable = segment != null && !load.spoiled
+                        && residentSessions.get() + segment.size() <= maxSessions;
+                    if (cacheable) {
+                        segment.trim();
+                        residentSessions.addAndGet(segment.size());
+                        segments.put(planId, segment);
+                    }
+                }
+            }
+        }
+        if (cacheable) {
+            loads.increment();
+        } else {
+            uncachedLoads.increment();
+        }
+        return segment;
+    }
+
+    /**
+     * Drops the plan's segment unless another one has replaced it meanwhile
+     */
+    private void evict(Long planId, PlanSegment segment) {
+        if (segments.remove(planId, segment)) {
+            residentSessions.addAndGet(-segment.evict());
+        }
+    }
+
+    /**
+     * Same UTC reading of the stored local time as {@link SessionColumns#toTimestamp}, truncated to seconds
+     */
+    static long toEpochSecond(LocalDateTime createdAt) {
+        return createdAt != null ? createdAt.toEpochSecond(ZoneOffset.UTC) : Long.MIN_VALUE;
+    }
+
+    public long residentBytes() {
+        return residentSessions.get() * BYTES_PER_SESSION;
+    }
+
+    public Map<String, Object> stats() {
+        return Map.of(
+            "plans", segments.size(),
+            "sessions", residentSessions.get(),
+            "approximateBytes", residentBytes(),
+            "maxSessions", maxSessions,
+            "hits", hits.sum(),
+            "loads", loads.sum(),
+            "uncachedLoads", uncachedLoads.sum(),
+            "appended", appended.sum(),
+            "staleReloads", staleReloads.sum()
+        );
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("grasp.sessions.columnar.plans", segments, Map::size)
+            .description("Plans resident in the columnar session store")
+            .register(registry);
+        Gauge.builder("grasp.sessions.columnar.sessions", residentSessions, AtomicLong::get)
+            .register(registry);
+        Gauge.builder("grasp.sessions.columnar.bytes", this, ColumnarSessionStore::residentBytes)
+            .description("Approximate size of the resident session columns")
+            .baseUnit("bytes")
+            .register(registry);
+        FunctionCounter.builder("grasp.sessions.columnar.reads", hits, LongAdder::sum)
+            .tag("source", "resident").register(registry);
+        FunctionCounter.builder("grasp.sessions.columnar.reads", loads, LongAdder::sum)
+            .tag("source", "loaded").register(registry);
+        FunctionCounter.builder("grasp.sessions.columnar.reads", uncachedLoads, LongAdder::sum)
+            .tag("source", "uncached").register(registry);
+        FunctionCounter.builder("grasp.sessions.columnar.stale", staleReloads, LongAdder::sum)
+            .description("Resident plans dropped because their data version had moved on elsewhere")
+            .register(registry);
+    }
+
+    private static final class Load {
+        private boolean spoiled; // guarded by writeLock
+    }
+
+    /**
+     * One plan's sessions, one set of columns per subject, and the plan data version they reflect. Appends
+     * and scans lock the segment; both are short, and a plan is rarely written and read at the same moment.
+     */
+    static final class PlanSegment {
+        private long[] subjectIds = new long[4];
+        private SubjectColumns[] subjects = new SubjectColumns[4];
+        private int subjectCount;
+        private int size;
+        private long version;
+        private boolean evicted;
+        private volatile long checkedAtNanos;
+
+        PlanSegment(long version, long checkedAtNanos) {
+            this.version = version;
+            this.checkedAtNanos = checkedAtNanos;
+        }
+
+        synchronized void append(long subjectId, int score, int durationMinutes, double completionPercent,
+                                 long epochSecond) {
+            columnsFor(subjectId).append(score, durationMinutes, completionPercent, epochSecond);
+            size++;
+        }
+
+        /**
+         * Appends the scored sessions of one committed logging transaction, which bumped the plan's data
+         * version once
+         *
+         * @return false if the segment was evicted meanwhile and the sessions were not kept
+         */
+        synchronized boolean appendTransaction(List<StudySession> sessions) {
+            if (evicted) {
+                return false;
+            }
+            for (StudySession session : sessions) {
+                append(session.getSubjectId(), session.getPerformanceScore(), session.getDurationMinutes(),
+                    session.getCompletionPercent(), toEpochSecond(session.getCreatedAt()));
+            }
+            version++;
+            return true;
+        }
+
+        /**
+         * Records a check at {@code nowNanos} if {@code storedVersion} is the version this segment reflects
+         */
+        synchronized boolean confirm(long storedVersion, long nowNanos) {
+            if (evicted || storedVersion != version) {
+                return false;
+            }
+            checkedAtNanos = nowNanos;
+            return true;
+        }
+
+        /**
+         * Stops further appends
+         *
+         * @return sessions held
+         */
+        synchronized int evict() {
+            evicted = true;
+            return size;
+        }
+
+        long checkedAtNanos() {
+            return checkedAtNanos;
+        }
+
+        synchronized long version() {
+            return version;
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        synchronized void trim() {
+            for (int s = 0; s < subjectCount; s++) {
+                subjects[s].trim();
+            }
+        }
+
+        synchronized Map<Long, SubjectPerformanceMetrics> metrics() {
+            Map<Long, SubjectPerformanceMetrics> metricsMap = new HashMap<>(Math.max(16, subjectCount * 2));
+            for (int s = 0; s < subjectCount; s++) {
+                metricsMap.put(subjectIds[s], subjects[s].metrics());
+            }
+            return metricsMap;
+        }
+
+        private SubjectColumns columnsFor(long subjectId) {
+            // Plans have few subjects, so a linear scan beats hashing a boxed key
+            for (int s = 0; s < subjectCount; s++) {
+                if (subjectIds[s] == subjectId) {
+                    return subjects[s];
+                }
+            }
+            if (subjectCount == subjectIds.length) {
+                subjectIds = Arrays.copyOf(subjectIds, subjectCount * 2);
+                subjects = Arrays.copyOf(subjects, subjectCount * 2);
+            }
+            subjectIds[subjectCount] = subjectId;
+            return subjects[subjectCount++] = new SubjectColumns();
+        }
+    }
+
+    /**
+     * One subject's sessions in arrival order
+     */
+    static final class SubjectColumns {
+        private byte[] scores = new byte[8];
+        private int[] durations = new int[8];
+        private float[] completions = new float[8];
+        private long[] epochSeconds = new long[8];
+        private int size;
+
+        void append(int score, int durationMinutes, double completionPercent, long epochSecond) {
+            if (size == scores.length) {
+                resize(Math.max(size + 1, size + (size >> 1))); // trimmed columns may hold a single session
+            }
+            scores[size] = (byte) score;
+            durations[size] = durationMinutes;
+            completions[size] = (float) completionPercent;
+            epochSeconds[size] = epochSecond;
+            size++;
+        }
+
+        int size() {
+            return size;
+        }
+
+        void trim() {
+            if (size < scores.length) {
+                resize(Math.max(1, size));
+            }
+        }
+
+        /**
+         * Same single pass as {@link SubjectMetricsKernel#computeInto}, over the narrower columns
+         */
+        SubjectPerformanceMetrics metrics() {
+            long scoreSum = 0;
+            long durationSum = 0;
+            double completionSum = 0.0;
+            double completionCompensation = 0.0;
+            DecayedPerformance decayed = new DecayedPerformance();
+
+            for (int i = 0; i < size; i++) {
+                int score = scores[i];
+                scoreSum += score;
+                durationSum += durations[i];
+
+                double y = completions[i] - completionCompensation;
+                double t = completionSum + y;
+                completionCompensation = (t - completionSum) - y;
+                completionSum = t;
+
+                long second = epochSeconds[i];
+                decayed.add(score, second == Long.MIN_VALUE ? Double.NaN : second / SECONDS_PER_DAY);
+            }
+
+            SubjectPerformanceMetrics metrics = new SubjectPerformanceMetrics();
+            metrics.setSessionCount(size);
+            metrics.setAveragePerformance((double) scoreSum / size / 10.0);
+            metrics.setAverageSessionDuration((double) durationSum / size);
+            metrics.setAverageCompletion(completionSum / size);
+            decayed.applyTo(metrics);
+            return metrics;
+        }
+
+        private void resize(int capacity) {
+            scores = Arrays.copyOf(scores, capacity);
+            durations = Arrays.copyOf(durations, capacity);
+            completions = Arrays.copyOf(completions, capacity);
+            epochSeconds = Arrays.copyOf(epochSeconds, capacity);
+        }
+    }
+}
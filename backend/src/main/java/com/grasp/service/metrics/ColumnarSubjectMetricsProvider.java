@@ -0,0 +1,25 @@
+package com.grasp.service.metrics;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Scans the plan's resident columns in {@link ColumnarSessionStore}; no database call once the plan is loaded.
+ */
+@Component
+@ConditionalOnProperty(name = "grasp.recommendations.metrics-provider", havingValue = "columnar")
+public class ColumnarSubjectMetricsProvider implements SubjectMetricsProvider {
+
+    private final ColumnarSessionStore columnarSessionStore;
+
+    public ColumnarSubjectMetricsProvider(ColumnarSessionStore columnarSessionStore) {
+        this.columnarSessionStore = columnarSessionStore;
+    }
+
+    @Override
+    public Map<Long, SubjectPerformanceMetrics> metricsForPlan(Long planId) {
+        return columnarSessionStore.metricsForPlan(planId);
+    }
+}
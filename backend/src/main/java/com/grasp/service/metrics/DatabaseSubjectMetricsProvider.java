@@ -0,0 +1,85 @@
+package com.grasp.service.metrics;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Pushes the whole metrics computation into PostgreSQL so session rows never reach the JVM.
+ *
+ * The query returns each subject's {@link DecayedPerformance} sums directly, anchored at its newest
+ * session, so the decayed metrics match the other providers. The weight exponent is clamped at -700 so
+ * that sessions decades older than the anchor round to zero instead of raising an underflow error. The
+ * query is served by {@code idx_study_sessions_plan_subject_created} without touching the heap.
+ */
+@Component
+@ConditionalOnProperty(name = "grasp.recommendations.metrics-provider", havingValue = "database")
+public class DatabaseSubjectMetricsProvider implements SubjectMetricsProvider {
+
+    private static final String METRICS_SQL =
+        "SELECT subject_id, " +
+        "       count(*) AS session_count, " +
+        "       avg(performance_score) / 10.0 AS average_performance, " +
+        "       avg(duration_minutes) AS average_duration, " +
+        "       avg(completion_percent) AS average_completion, " +
+        "       extract(epoch FROM max(anchor)) / 86400.0 AS anchor_day, " +
+        "       sum(w) AS weight, " +
+        "       sum(w * x) AS score_sum, " +
+        "       sum(w * x * x) AS score_square_sum, " +
+        "       sum(w * t) AS time_sum, " +
+        "       sum(w * t * t) AS time_square_sum, " +
+        "       sum(w * t * x) AS time_score_sum " +
+        "FROM (" +
+        "    SELECT subject_id, performance_score, duration_minutes, completion_percent, anchor, " +
+        "           performance_score::float8 AS x, t, exp(greatest(? * t, -700.0)) AS w " +
+        "    FROM (" +
+        "        SELECT subject_id, performance_score, duration_minutes, completion_percent, anchor, " +
+        "               coalesce(extract(epoch FROM created_at - anchor)::float8 / 86400.0, 0.0) AS t " +
+        "        FROM (" +
+        "            SELECT subject_id, performance_score, duration_minutes, completion_percent, created_at, " +
+        "                   max(created_at) OVER (PARTITION BY subject_id) AS anchor " +
+        "            FROM study_sessions " +
+        "            WHERE plan_id = ? AND performance_score IS NOT NULL" +
+        "        ) anchored" +
+        "    ) aged" +
+        ") s " +
+        "GROUP BY subject_id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public DatabaseSubjectMetricsProvider(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public Map<Long, SubjectPerformanceMetrics> metricsForPlan(Long planId) {
+        Map<Long, SubjectPerformanceMetrics> metricsMap = new HashMap<>();
+        jdbcTemplate.query(METRICS_SQL, rs -> {
+            metricsMap.put(rs.getLong("subject_id"), mapRow(rs));
+        }, DecayedPerformance.DECAY_PER_DAY, planId);
+        return metricsMap;
+    }
+
+    private static SubjectPerformanceMetrics mapRow(ResultSet rs) throws SQLException {
+        SubjectPerformanceMetrics metrics = new SubjectPerformanceMetrics();
+        int sessionCount = rs.getInt("session_count");
+        metrics.setSessionCount(sessionCount);
+        metrics.setAveragePerformance(rs.getDouble("average_performance"));
+        metrics.setAverageSessionDuration(rs.getDouble("average_duration"));
+        metrics.setAverageCompletion(rs.getDouble("average_completion"));
+
+        double anchorDay = rs.getDouble("anchor_day");
+        if (rs.wasNull()) {
+            anchorDay = Double.NaN;
+        }
+        DecayedPerformance.ofSums(anchorDay, rs.getDouble("weight"), rs.getDouble("score_sum"),
+            rs.getDouble("score_square_sum"), rs.getDouble("time_sum"), rs.getDouble("time_square_sum"),
+            rs.getDouble("time_score_sum")).applyTo(metrics);
+        return metrics;
+    }
+}
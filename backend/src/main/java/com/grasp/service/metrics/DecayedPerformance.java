@@ -0,0 +1,202 @@
+package com.grasp.service.metrics;
+
+import java.time.LocalDateTime;
+
+/**
+ * Exponentially time-decayed model of one subject's scores: weighted mean, variance and least-squares
+ * slope over time, where a session's weight halves every {@link #HALF_LIFE_DAYS} days of age.
+ *
+ * The state is seven doubles: the time of the newest session (the anchor) and the weighted sums
+ * sum(w), sum(w*x), sum(w*x^2), sum(w*t), sum(w*t^2) and sum(w*t*x), with x the score, t the session's
+ * age in days relative to the anchor (t <= 0) and w its weight relative to a session at the anchor.
+ * Adding a dated session is O(1) and does not depend on order: an older session just gets a smaller
+ * weight, and a newer one first moves the anchor forward, which rescales and re-centres all sums in
+ * closed form. History that has decayed away costs nothing.
+ *
+ * The half-life is a constant rather than a setting because persisted sums are only meaningful for the
+ * half-life they were accumulated with; after changing it, rebuild the stored aggregates.
+ */
+public final class DecayedPerformance {
+
+    public static final double HALF_LIFE_DAYS = 14.0;
+
+    /** Decay rate per day: w = exp(DECAY_PER_DAY * t) */
+    public static final double DECAY_PER_DAY = Math.log(2.0) / HALF_LIFE_DAYS;
+
+    private static final double SECONDS_PER_DAY = 86_400.0;
+
+    private double anchorDay = Double.NaN;
+    private double weight;
+    private double scoreSum;
+    private double scoreSquareSum;
+    private double timeSum;
+    private double timeSquareSum;
+    private double timeScoreSum;
+
+    public DecayedPerformance() {}
+
+    /**
+     * Restores a model from its persisted sums
+     */
+    public static DecayedPerformance ofSums(double anchorDay, double weight, double scoreSum, double scoreSquareSum,
+                                            double timeSum, double timeSquareSum, double timeScoreSum) {
+        DecayedPerformance model = new DecayedPerformance();
+        model.anchorDay = anchorDay;
+        model.weight = weight;
+        model.scoreSum = scoreSum;
+        model.scoreSquareSum = scoreSquareSum;
+        model.timeSum = timeSum;
+        model.timeSquareSum = timeSquareSum;
+        model.timeScoreSum = timeScoreSum;
+        return model;
+    }
+
+    /**
+     * Folds in one session scored {@code score} (1-10) at {@code day} (days since the epoch, UTC). A NaN day
+     * means the time is unknown; the session then counts as at the newest time seen so far, so the result
+     * depends on arrival order when undated and dated sessions are mixed.
+     */
+    public void add(double score, double day) {
+        if (Double.isNaN(anchorDay)) {
+            anchorDay = day; // may stay NaN until a dated session arrives
+        } else if (day > anchorDay) {
+            moveAnchor(day);
+        }
+        double age = Double.isNaN(day) || Double.isNaN(anchorDay) ? 0.0 : day - anchorDay;
+        double w = Math.exp(DECAY_PER_DAY * age);
+        weight += w;
+        scoreSum += w * score;
+        scoreSquareSum += w * score * score;
+        timeSum += w * age;
+        timeSquareSum += w * age * age;
+        timeScoreSum += w * age * score;
+    }
+
+    /**
+     * Adds another model's sessions to this one
+     */
+    public void merge(DecayedPerformance other) {
+        if (other.weight == 0.0) {
+            return;
+        }
+        if (weight == 0.0) {
+            copyFrom(other);
+            return;
+        }
+        DecayedPerformance aligned = other;
+        if (!Double.isNaN(other.anchorDay) && (Double.isNaN(anchorDay) || other.anchorDay > anchorDay)) {
+            if (Double.isNaN(anchorDay)) {
+                anchorDay = other.anchorDay;
+            } else {
+                moveAnchor(other.anchorDay);
+            }
+        } else if (!Double.isNaN(anchorDay) && !Double.isNaN(other.anchorDay) && other.anchorDay < anchorDay) {
+            aligned = other.copy();
+            aligned.moveAnchor(anchorDay);
+        }
+        weight += aligned.weight;
+        scoreSum += aligned.scoreSum;
+        scoreSquareSum += aligned.scoreSquareSum;
+        timeSum += aligned.timeSum;
+        timeSquareSum += aligned.timeSquareSum;
+        timeScoreSum += aligned.timeScoreSum;
+    }
+
+    /**
+     * Moves the anchor forward to {@code day}: every weight is multiplied by exp(-DECAY_PER_DAY * shift) and
+     * every age shifted by -shift, which expands to closed-form updates of the sums.
+     */
+    private void moveAnchor(double day) {
+        double shift = day - anchorDay;
+        double factor = Math.exp(-DECAY_PER_DAY * shift);
+        timeSquareSum = factor * (timeSquareSum - 2.0 * shift * timeSum + shift * shift * weight);
+        timeScoreSum = factor * (timeScoreSum - shift * scoreSum);
+        timeSum = factor * (timeSum - shift * weight);
+        weight *= factor;
+        scoreSum *= factor;
+        scoreSquareSum *= factor;
+        anchorDay = day;
+    }
+
+    public boolean isEmpty() {
+        return weight == 0.0;
+    }
+
+    /** Decayed mean score (1-10) */
+    public double mean() {
+        return weight == 0.0 ? 0.0 : scoreSum / weight;
+    }
+
+    /** Decayed population variance of the score */
+    public double variance() {
+        if (weight == 0.0) {
+            return 0.0;
+        }
+        double mean = scoreSum / weight;
+        return Math.max(0.0, scoreSquareSum / weight - mean * mean);
+    }
+
+    /** Decayed least-squares slope of the score over time, in score points per day; 0 without spread in time */
+    public double slopePerDay() {
+        if (weight == 0.0) {
+            return 0.0;
+        }
+        double meanTime = timeSum / weight;
+        double timeVariance = timeSquareSum / weight - meanTime * meanTime;
+        if (timeVariance <= 1e-9) {
+            return 0.0;
+        }
+        double covariance = timeScoreSum / weight - meanTime * (scoreSum / weight);
+        return covariance / timeVariance;
+    }
+
+    /**
+     * Sets the decayed metrics on the engine's 0-1 scale: recent performance (decayed mean), consistency
+     * (1 - decayed standard deviation) and trend (fitted change over one half-life)
+     */
+    public void applyTo(SubjectPerformanceMetrics metrics) {
+        metrics.setRecentPerformance(mean() / 10.0);
+        metrics.setConsistencyScore(Math.max(0.0, 1.0 - Math.sqrt(variance()) / 10.0));
+        metrics.setPerformanceTrend(slopePerDay() * HALF_LIFE_DAYS / 10.0);
+    }
+
+    /**
+     * Converts a session time to days since the epoch (UTC), NaN when unknown. Goes through the
+     * {@link SessionColumns} encoding so every path rounds identically.
+     */
+    public static double toDay(LocalDateTime time) {
+        return toDay(SessionColumns.toTimestamp(time));
+    }
+
+    /**
+     * Converts a {@link SessionColumns} timestamp (epoch nanos, {@code Long.MIN_VALUE} when unknown) to days
+     */
+    public static double toDay(long epochNanos) {
+        return epochNanos == Long.MIN_VALUE ? Double.NaN : epochNanos / 1e9 / SECONDS_PER_DAY;
+    }
+
+    private DecayedPerformance copy() {
+        DecayedPerformance copy = new DecayedPerformance();
+        copy.copyFrom(this);
+        return copy;
+    }
+
+    private void copyFrom(DecayedPerformance other) {
+        anchorDay = other.anchorDay;
+        weight = other.weight;
+        scoreSum = other.scoreSum;
+        scoreSquareSum = other.scoreSquareSum;
+        timeSum = other.timeSum;
+        timeSquareSum = other.timeSquareSum;
+        timeScoreSum = other.timeScoreSum;
+    }
+
+    // Getters
+    public double getAnchorDay() { return anchorDay; }
+    public double getWeight() { return weight; }
+    public double getScoreSum() { return scoreSum; }
+    public double getScoreSquareSum() { return scoreSquareSum; }
+    public double getTimeSum() { return timeSum; }
+    public double getTimeSquareSum() { return timeSquareSum; }
+    public double getTimeScoreSum() { return timeScoreSum; }
+}
@@ -0,0 +1,26 @@
+package com.grasp.service.metrics;
+
+import com.grasp.repository.StudySessionRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Computes metrics in the JVM from the projected session columns; matches the client-upload path exactly.
+ */
+@Component
+@ConditionalOnProperty(name = "grasp.recommendations.metrics-provider", havingValue = "in-memory", matchIfMissing = true)
+public class InMemorySubjectMetricsProvider implements SubjectMetricsProvider {
+
+    private final StudySessionRepository studySessionRepository;
+
+    public InMemorySubjectMetricsProvider(StudySessionRepository studySessionRepository) {
+        this.studySessionRepository = studySessionRepository;
+    }
+
+    @Override
+    public Map<Long, SubjectPerformanceMetrics> metricsForPlan(Long planId) {
+        return SubjectMetricsKernel.compute(studySessionRepository.loadEngineColumns(planId));
+    }
+}
@@ -0,0 +1,142 @@
+package com.grasp.service.metrics;
+
+import com.grasp.model.StudySession;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Running totals and study-day streaks of one plan's sessions, persisted in {@code plan_session_stats}
+ * next to the per-subject {@link SubjectAggregate}s.
+ *
+ * Totals cover every session, scored or not. Streaks count consecutive calendar days with at least one
+ * session; they can only be extended in O(1) by sessions on or after the last study day, so a session dated
+ * earlier makes {@link #add} report that the study days must be recounted from the table.
+ */
+public class PlanSessionStats {
+
+    private Long planId;
+    private long sessionCount;
+    private long totalMinutes;
+    private double completionSum;
+    private long scoredCount;
+    private long scoreSum;
+    private LocalDateTime firstSessionAt;
+    private LocalDateTime lastSessionAt;
+    private int studyDays;
+    private LocalDate lastStudyDay;
+    private int currentStreakDays;
+    private int longestStreakDays;
+
+    // Constructors
+    public PlanSessionStats() {}
+
+    public PlanSessionStats(Long planId) {
+        this.planId = planId;
+    }
+
+    /**
+     * Folds one session into the totals and, if it is not older than the last study day, the streaks
+     *
+     * @return false if the session predates the last study day and the streaks are now stale
+     */
+    public boolean add(StudySession session) {
+        sessionCount++;
+        totalMinutes += session.getDurationMinutes() != null ? session.getDurationMinutes() : 0;
+        completionSum += session.getCompletionPercent() != null ? session.getCompletionPercent() : 0;
+        if (session.getPerformanceScore() != null) {
+            scoredCount++;
+            scoreSum += session.getPerformanceScore();
+        }
+        LocalDateTime createdAt = session.getCreatedAt();
+        if (firstSessionAt == null || createdAt.isBefore(firstSessionAt)) {
+            firstSessionAt = createdAt;
+        }
+        if (lastSessionAt == null || createdAt.isAfter(lastSessionAt)) {
+            lastSessionAt = createdAt;
+        }
+
+        LocalDate day = createdAt.toLocalDate();
+        if (lastStudyDay == null) {
+            studyDays = 1;
+            currentStreakDays = 1;
+        } else if (day.isBefore(lastStudyDay)) {
+            return false;
+        } else if (day.isAfter(lastStudyDay)) {
+            studyDays++;
+            currentStreakDays = day.equals(lastStudyDay.plusDays(1)) ? currentStreakDays + 1 : 1;
+        }
+        lastStudyDay = day;
+        longestStreakDays = Math.max(longestStreakDays, currentStreakDays);
+        return true;
+    }
+
+    /**
+     * Starts a recount of the study days; feed every run of consecutive days to {@link #addStudyRun} in
+     * date order afterwards
+     */
+    public void resetStudyDays() {
+        studyDays = 0;
+        lastStudyDay = null;
+        currentStreakDays = 0;
+        longestStreakDays = 0;
+    }
+
+    /**
+     * @param lastDay last day of a run of {@code days} consecutive study days, later than any run before
+     */
+    public void addStudyRun(LocalDate lastDay, int days) {
+        studyDays += days;
+        lastStudyDay = lastDay;
+        currentStreakDays = days;
+        longestStreakDays = Math.max(longestStreakDays, days);
+    }
+
+    /**
+     * The stored streak is the run ending on the last study day; it is still current only if that was
+     * today or yesterday
+     */
+    public int currentStreakOn(LocalDate today) {
+        if (lastStudyDay == null || lastStudyDay.isBefore(today.minusDays(1))) {
+            return 0;
+        }
+        return currentStreakDays;
+    }
+
+    // Getters and Setters
+    public Long getPlanId() { return planId; }
+    public void setPlanId(Long planId) { this.planId = planId; }
+
+    public long getSessionCount() { return sessionCount; }
+    public void setSessionCount(long sessionCount) { this.sessionCount = sessionCount; }
+
+    public long getTotalMinutes() { return totalMinutes; }
+    public void setTotalMinutes(long totalMinutes) { this.totalMinutes = totalMinutes; }
+
+    public double getCompletionSum() { return completionSum; }
+    public void setCompletionSum(double completionSum) { this.completionSum = completionSum; }
+
+    public long getScoredCount() { return scoredCount; }
+    public void setScoredCount(long scoredCount) { this.scoredCount = scoredCount; }
+
+    public long getScoreSum() { return scoreSum; }
+    public void setScoreSum(long scoreSum) { this.scoreSum = scoreSum; }
+
+    public LocalDateTime getFirstSessionAt() { return firstSessionAt; }
+    public void setFirstSessionAt(LocalDateTime firstSessionAt) { this.firstSessionAt = firstSessionAt; }
+
+    public LocalDateTime getLastSessionAt() { return lastSessionAt; }
+    public void setLastSessionAt(LocalDateTime lastSessionAt) { this.lastSessionAt = lastSessionAt; }
+
+    public int getStudyDays() { return studyDays; }
+    public void setStudyDays(int studyDays) { this.studyDays = studyDays; }
+
+    public LocalDate getLastStudyDay() { return lastStudyDay; }
+    public void setLastStudyDay(LocalDate lastStudyDay) { this.lastStudyDay = lastStudyDay; }
+
+    public int getCurrentStreakDays() { return currentStreakDays; }
+    public void setCurrentStreakDays(int currentStreakDays) { this.currentStreakDays = currentStreakDays; }
+
+    public int getLongestStreakDays() { return longestStreakDays; }
+    public void setLongestStreakDays(int longestStreakDays) { this.longestStreakDays = longestStreakDays; }
+}
@@ -0,0 +1,274 @@
+package com.grasp.service.metrics;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Mergeable quantile sketch of non-negative values with a fixed relative error, in the style of DDSketch:
+ * a value v is counted in bucket {@code ceil(log(v) / log(gamma))}, with {@code gamma = (1 + a) / (1 - a)}
+ * for {@link #RELATIVE_ACCURACY} a, and zero in a bucket of its own. Any quantile read back is within 1%
+ * of a value that was added, and since buckets are the same everywhere, merging two sketches is adding
+ * their counts; the result is exactly the sketch of both inputs.
+ *
+ * Whole numbers below about 50 each get a bucket to themselves, so performance scores (1 to 10) are
+ * counted exactly. Durations from a minute to a day take about 360 buckets, and the serialized form
+ * ({@link #toBytes}) spends one byte on an empty bucket, so a sketch stays well under a kilobyte.
+ *
+ * Not thread safe; readers take a {@link #snapshot()}.
+ */
+public final class QuantileSketch {
+
+    public static final double RELATIVE_ACCURACY = 0.01;
+
+    private static final double GAMMA = (1 + RELATIVE_ACCURACY) / (1 - RELATIVE_ACCURACY);
+    private static final double INVERSE_LOG_GAMMA = 1 / Math.log(GAMMA);
+
+    /** Buckets beyond these hold everything smaller or larger, about 1e-18 and 1e18 */
+    private static final int MIN_INDEX = -2048;
+    private static final int MAX_INDEX = 2048;
+
+    private static final byte FORMAT_VERSION = 1;
+
+    private long zeroCount;
+    private long[] counts = new long[0];
+    private int offset; // bucket index of counts[0]
+
+    public void add(double value) {
+        add(value, 1);
+    }
+
+    /**
+     * Adds {@code value} {@code count} times; a negative count takes back values added earlier
+     */
+    public void add(double value, long count) {
+        if (!(value >= 0)) {
+            throw new IllegalArgumentException("Value must be non-negative: " + value);
+        }
+        if (value == 0) {
+            zeroCount += count;
+            return;
+        }
+        int index = index(value);
+        ensureRange(index, index);
+        counts[index - offset] += count;
+    }
+
+    /**
+     * Adds every value of {@code other} to this sketch
+     */
+    public void merge(QuantileSketch other) {
+        zeroCount += other.zeroCount;
+        if (other.counts.length == 0) {
+            return;
+        }
+        ensureRange(other.offset, other.offset + other.counts.length - 1);
+        for (int i = 0; i < other.counts.length; i++) {
+            counts[other.offset + i - offset] += other.counts[i];
+        }
+    }
+
+    public long count() {
+        long total = zeroCount;
+        for (long c : counts) {
+            total += c;
+        }
+        return total;
+    }
+
+    public boolean isEmpty() {
+        return count() == 0;
+    }
+
+    /**
+     * Read-only copy with cumulative counts, for constant-time rank queries. Buckets taken below zero by
+     * removals that arrived before the matching additions count as empty.
+     */
+    public Snapshot snapshot() {
+        long[] cumulative = new long[counts.length + 1];
+        for (int i = 0; i < counts.length; i++) {
+            cumulative[i + 1] = cumulative[i] + Math.max(0, counts[i]);
+        }
+        return new Snapshot(Math.max(0, zeroCount), offset, cumulative);
+    }
+
+    /**
+     * Version byte, then as unsigned varints the zero count and the number of buckets, the first bucket
+     * index zigzag encoded, and one count per bucket (a negative count, as two's complement, takes ten bytes)
+     */
+    public byte[] toBytes() {
+        int first = 0;
+        int last = counts.length - 1;
+        while (first <= last && counts[first] == 0) {
+            first++;
+        }
+        while (last >= first && counts[last] == 0) {
+            last--;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(16 + Math.max(0, last - first + 1));
+        out.write(FORMAT_VERSION);
+        writeVarLong(out, zeroCount);
+        writeVarLong(out, last - first + 1);
+        if (last >= first) {
+            int firstIndex = offset + first;
+            writeVarLong(out, (firstIndex << 1) ^ (firstIndex >> 31));
+            for (int i = first; i <= last; i++) {
+                writeVarLong(out, counts[i]);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * @throws IllegalArgumentException if {@code bytes} was not written by {@link #toBytes}
+     */
+    public static QuantileSketch fromBytes(byte[] bytes) {
+        QuantileSketch sketch = new QuantileSketch();
+        if (bytes == null || bytes.length == 0) {
+            return sketch;
+        }
+        ByteBuffer in = ByteBuffer.wrap(bytes);
+        if (in.get() != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unknown sketch format " + bytes[0]);
+        }
+        try {
+            sketch.zeroCount = readVarLong(in);
+            long buckets = readVarLong(in);
+            if (buckets < 0 || buckets > MAX_INDEX - MIN_INDEX + 1) {
+                throw new IllegalArgumentException("Corrupt sketch: " + buckets + " buckets");
+            }
+            if (buckets > 0) {
+                int zigzag = (int) readVarLong(in);
+                sketch.offset = (zigzag >>> 1) ^ -(zigzag & 1);
+                sketch.counts = new long[(int) buckets];
+                for (int i = 0; i < buckets; i++) {
+                    sketch.counts[i] = readVarLong(in);
+                }
+            }
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Corrupt sketch: truncated", e);
+        }
+        return sketch;
+    }
+
+    private static int index(double value) {
+        double index = Math.ceil(Math.log(value) * INVERSE_LOG_GAMMA);
+        return (int) Math.max(MIN_INDEX, Math.min(MAX_INDEX, index));
+    }
+
+    /** Midpoint of the bucket in relative terms, so within {@link #RELATIVE_ACCURACY} of all its values */
+    private static double value(int index) {
+        return 2 * Math.pow(GAMMA, index) / (GAMMA + 1);
+    }
+
+    private void ensureRange(int low, int high) {
+        if (counts.length == 0) {
+            counts = new long[high - low + 1];
+            offset = low;
+            return;
+        }
+        int currentHigh = offset + counts.length - 1;
+        if (low >= offset && high <= currentHigh) {
+            return;
+        }
+        int newLow = Math.min(low, offset);
+        int newHigh = Math.max(high, currentHigh);
+        long[] grown = new long[newHigh - newLow + 1];
+        System.arraycopy(counts, 0, grown, offset - newLow, counts.length);
+        counts = grown;
+        offset = newLow;
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Corrupt sketch: varint too long");
+    }
+
+    /**
+     * Immutable view of a sketch. {@link #rank} is two array reads; {@link #quantile} a binary search over
+     * the few hundred buckets at most. Neither depends on how many values were added.
+     */
+    public static final class Snapshot {
+        private final long zeroCount;
+        private final int offset;
+        private final long[] cumulative; // cumulative[i]: values in buckets offset .. offset + i - 1
+        private final long total;
+
+        private Snapshot(long zeroCount, int offset, long[] cumulative) {
+            this.zeroCount = zeroCount;
+            this.offset = offset;
+            this.cumulative = cumulative;
+            this.total = zeroCount + cumulative[cumulative.length - 1];
+        }
+
+        public long count() {
+            return total;
+        }
+
+        /**
+         * Fraction of values below {@code value}, counting values in its bucket as half below: 0.5 for the
+         * median, and for a score every other session also scored, the share of those scored lower plus
+         * half of those scored the same. NaN if the sketch is empty.
+         */
+        public double rank(double value) {
+            if (total == 0 || Double.isNaN(value)) {
+                return Double.NaN;
+            }
+            if (value <= 0) {
+                return value < 0 ? 0.0 : zeroCount / 2.0 / total;
+            }
+            int buckets = cumulative.length - 1;
+            int i = index(value) - offset;
+            if (i < 0) {
+                return (double) zeroCount / total;
+            }
+            if (i >= buckets) {
+                return 1.0;
+            }
+            long below = zeroCount + cumulative[i];
+            long at = cumulative[i + 1] - cumulative[i];
+            return (below + at / 2.0) / total;
+        }
+
+        /**
+         * Value at quantile {@code q} in [0, 1], within 1% of a value that was added; NaN if the sketch is empty
+         */
+        public double quantile(double q) {
+            if (total == 0) {
+                return Double.NaN;
+            }
+            long target = (long) Math.floor(Math.max(0, Math.min(1, q)) * (total - 1));
+            if (target < zeroCount) {
+                return 0.0;
+            }
+            long inBuckets = target - zeroCount;
+            // First bucket whose cumulative count passes the target
+            int low = 0;
+            int high = cumulative.length - 2;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (cumulative[mid + 1] > inBuckets) {
+                    high = mid;
+                } else {
+                    low = mid + 1;
+                }
+            }
+            return value(offset + low);
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.grasp.service.metrics;
+
+import com.grasp.model.StudySession;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Column-oriented copy of the session fields the recommendation engine reads, grouped by subject.
+ *
+ * Rows of subject {@code g} occupy {@code [groupStart(g), groupEnd(g))} in every column and keep
+ * their original encounter order.
+ */
+public final class SessionColumns {
+
+    private final Long[] subjectKeys;
+    private final int[] groupOffsets;
+    private final int[] scores;
+    private final int[] durations;
+    private final double[] completions;
+    private final long[] timestamps;
+
+    private SessionColumns(Long[] subjectKeys, int[] groupOffsets,
+                           int[] scores, int[] durations, double[] completions, long[] timestamps) {
+        this.subjectKeys = subjectKeys;
+        this.groupOffsets = groupOffsets;
+        this.scores = scores;
+        this.durations = durations;
+        this.completions = completions;
+        this.timestamps = timestamps;
+    }
+
+    /**
+     * Copies the engine-relevant fields of {@code sessions} into primitive columns.
+     */
+    public static SessionColumns fromSessions(List<StudySession> sessions) {
+        Builder builder = new Builder(sessions.size());
+        for (int i = 0, n = sessions.size(); i < n; i++) {
+            StudySession session = sessions.get(i);
+            int score = session.getPerformanceScore();
+            int duration = session.getDurationMinutes();
+            double completion = session.getCompletionPercent();
+            builder.add(session.getSubjectId(), score, duration, completion, toTimestamp(session.getCreatedAt()));
+        }
+        return builder.build();
+    }
+
+    /**
+     * Encodes a session timestamp as UTC epoch nanoseconds; {@code null} becomes {@code Long.MIN_VALUE}.
+     */
+    public static long toTimestamp(LocalDateTime createdAt) {
+        if (createdAt == null) {
+            return Long.MIN_VALUE;
+        }
+        return createdAt.toEpochSecond(ZoneOffset.UTC) * 1_000_000_000L + createdAt.getNano();
+    }
+
+    public int groupCount() { return subjectKeys.length; }
+
+    public Long subjectId(int group) { return subjectKeys[group]; }
+
+    public int groupStart(int group) { return groupOffsets[group]; }
+
+    public int groupEnd(int group) { return groupOffsets[group + 1]; }
+
+    public int size() { return scores.length; }
+
+    int[] scores() { return scores; }
+
+    int[] durations() { return durations; }
+
+    double[] completions() { return completions; }
+
+    long[] timestamps() { return timestamps; }
+
+    /**
+     * Appends rows in any order and groups them by subject on {@link #build()}.
+     */
+    public static final class Builder {
+        private final Map<Long, Integer> slots = new HashMap<>();
+        private Long[] keys = new Long[8];
+        private int[] slotCounts = new int[8];
+        private int[] rowSlots;
+        private int[] scores;
+        private int[] durations;
+        private double[] completions;
+        private long[] timestamps;
+        private int size;
+        private int lastSlot = -1;
+        private long lastSubjectId;
+        private boolean lastSubjectIdValid;
+        private boolean contiguous = true;
+
+        public Builder(int expectedRows) {
+            int capacity = Math.max(16, expectedRows);
+            rowSlots = new int[capacity];
+            scores = new int[capacity];
+            durations = new int[capacity];
+            completions = new double[capacity];
+            timestamps = new long[capacity];
+        }
+
+        public Builder add(Long subjectId, int score, int durationMinutes, double completionPercent, long timestamp) {
+            if (subjectId != null) {
+                return add(subjectId.longValue(), score, durationMinutes, completionPercent, timestamp);
+            }
+            lastSubjectIdValid = false;
+            return append(slotFor(null), score, durationMinutes, completionPercent, timestamp);
+        }
+
+        /**
+         * Primitive variant for row-by-row readers; consecutive rows of the same subject skip the
+         * slot lookup and never box the id.
+         */
+        public Builder add(long subjectId, int score, int durationMinutes, double completionPercent, long timestamp) {
+            int slot = lastSubjectIdValid && subjectId == lastSubjectId ? lastSlot : slotFor(subjectId);
+            lastSubjectId = subjectId;
+            lastSubjectIdValid = true;
+            return append(slot, score, durationMinutes, completionPercent, timestamp);
+        }
+
+        private Builder append(int slot, int score, int durationMinutes, double completionPercent, long timestamp) {
+            if (size == scores.length) {
+                grow();
+            }
+            if (slot != lastSlot) {
+                if (slotCounts[slot] > 0) {
+                    contiguous = false;
+                }
+                lastSlot = slot;
+            }
+            slotCounts[slot]++;
+            rowSlots[size] = slot;
+            scores[size] = score;
+            durations[size] = durationMinutes;
+            completions[size] = completionPercent;
+            timestamps[size] = timestamp;
+            size++;
+            return this;
+        }
+
+        public SessionColumns build() {
+            int groups = slots.size();
+            int[] offsets = new int[groups + 1];
+            for (int g = 0; g < groups; g++) {
+                offsets[g + 1] = offsets[g] + slotCounts[g];
+            }
+            Long[] subjectKeys = Arrays.copyOf(keys, groups);
+
+            if (contiguous) {
+                // Rows already arrive grouped (e.g. ORDER BY subject_id); slots were assigned in order
+                return new SessionColumns(subjectKeys, offsets,
+                    Arrays.copyOf(scores, size), Arrays.copyOf(durations, size),
+                    Arrays.copyOf(completions, size), Arrays.copyOf(timestamps, size));
+            }
+
+            // Stable counting sort by subject slot
+            int[] cursor = Arrays.copyOf(offsets, groups);
+            int[] groupedScores = new int[size];
+            int[] groupedDurations = new int[size];
+            double[] groupedCompletions = new double[size];
+            long[] groupedTimestamps = new long[size];
+            for (int i = 0; i < size; i++) {
+                int target = cursor[rowSlots[i]]++;
+                groupedScores[target] = scores[i];
+                groupedDurations[target] = durations[i];
+                groupedCompletions[target] = completions[i];
+                groupedTimestamps[target] = timestamps[i];
+            }
+            return new SessionColumns(subjectKeys, offsets,
+                groupedScores, groupedDurations, groupedCompletions, groupedTimestamps);
+        }
+
+        private int slotFor(Long subjectId) {
+            Integer slot = slots.get(subjectId);
+            if (slot != null) {
+                return slot;
+            }
+            int next = slots.size();
+            if (next == keys.length) {
+                keys = Arrays.copyOf(keys, next * 2);
+                slotCounts = Arrays.copyOf(slotCounts, next * 2);
+            }
+            keys[next] = subjectId;
+            slots.put(subjectId, next);
+            return next;
+        }
+
+        private void grow() {
+            int capacity = scores.length * 2;
+            rowSlots = Arrays.copyOf(rowSlots, capacity);
+            scores = Arrays.copyOf(scores, capacity);
+            durations = Arrays.copyOf(durations, capacity);
+            completions = Arrays.copyOf(completions, capacity);
+            timestamps = Arrays.copyOf(timestamps, capacity);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.grasp.service.metrics;
+
+/**
+ * Mergeable running aggregate of one subject's sessions, persisted in {@code subject_session_aggregates}.
+ *
+ * Counts and integer sums are exact, and the completion sum is compensated (Kahan) the same way as in
+ * {@link SubjectMetricsKernel}, so means match a full recomputation. Recent performance, consistency and
+ * trend come from a {@link DecayedPerformance}, which takes sessions in any order in O(1) each.
+ */
+public class SubjectAggregate {
+
+    private Long subjectId;
+    private Long planId;
+    private long sessionCount;
+    private long scoreSum;
+    private long scoreSquareSum;
+    private long durationSum;
+    private double completionSum;
+    private double completionCompensation; // not persisted; only the sessions folded in since loading use it
+    private DecayedPerformance decayed = new DecayedPerformance();
+
+    // Constructors
+    public SubjectAggregate() {}
+
+    public SubjectAggregate(Long subjectId, Long planId) {
+        this.subjectId = subjectId;
+        this.planId = planId;
+    }
+
+    /**
+     * Folds one session into the aggregate; {@code day} is its time as {@link DecayedPerformance#toDay}
+     */
+    public void add(int performanceScore, int durationMinutes, double completionPercent, double day) {
+        sessionCount++;
+        scoreSum += performanceScore;
+        scoreSquareSum += (long) performanceScore * performanceScore;
+        durationSum += durationMinutes;
+        addCompletion(completionPercent);
+        decayed.add(performanceScore, day);
+    }
+
+    /**
+     * Merges another aggregate of the same subject into this one
+     */
+    public void merge(SubjectAggregate other) {
+        if (other.sessionCount == 0) {
+            return;
+        }
+        sessionCount += other.sessionCount;
+        scoreSum += other.scoreSum;
+        scoreSquareSum += other.scoreSquareSum;
+        durationSum += other.durationSum;
+        addCompletion(other.completionSum - other.completionCompensation);
+        decayed.merge(other.decayed);
+    }
+
+    private void addCompletion(double completion) {
+        double y = completion - completionCompensation;
+        double t = completionSum + y;
+        completionCompensation = (t - completionSum) - y;
+        completionSum = t;
+    }
+
+    /**
+     * Derives the same metrics the engine computes from raw sessions.
+     */
+    public SubjectPerformanceMetrics toMetrics() {
+        SubjectPerformanceMetrics metrics = new SubjectPerformanceMetrics();
+        long n = sessionCount;
+        metrics.setSessionCount((int) Math.min(Integer.MAX_VALUE, n));
+        if (n == 0) {
+            return metrics;
+        }
+        metrics.setAveragePerformance((double) scoreSum / n / 10.0);
+        metrics.setAverageSessionDuration((double) durationSum / n);
+        metrics.setAverageCompletion(completionSum / n);
+        decayed.applyTo(metrics);
+        return metrics;
+    }
+
+    /**
+     * True when both aggregates hold the same totals; used to detect drift during a rebuild.
+     */
+    public boolean sameTotals(SubjectAggregate other) {
+        return sessionCount == other.sessionCount
+            && scoreSum == other.scoreSum
+            && scoreSquareSum == other.scoreSquareSum
+            && durationSum == other.durationSum
+            && Math.abs(completionSum - other.completionSum) < 1e-6;
+    }
+
+    // Getters and Setters
+    public Long getSubjectId() { return subjectId; }
+    public void setSubjectId(Long subjectId) { this.subjectId = subjectId; }
+
+    public Long getPlanId() { return planId; }
+    public void setPlanId(Long planId) { this.planId = planId; }
+
+    public long getSessionCount() { return sessionCount; }
+    public void setSessionCount(long sessionCount) { this.sessionCount = sessionCount; }
+
+    public long getScoreSum() { return scoreSum; }
+    public void setScoreSum(long scoreSum) { this.scoreSum = scoreSum; }
+
+    public long getScoreSquareSum() { return scoreSquareSum; }
+    public void setScoreSquareSum(long scoreSquareSum) { this.scoreSquareSum = scoreSquareSum; }
+
+    public long getDurationSum() { return durationSum; }
+    public void setDurationSum(long durationSum) { this.durationSum = durationSum; }
+
+    public double getCompletionSum() { return completionSum; }
+    public void setCompletionSum(double completionSum) {
+        this.completionSum = completionSum;
+        this.completionCompensation = 0.0;
+    }
+
+    public DecayedPerformance getDecayed() { return decayed; }
+    public void setDecayed(DecayedPerformance decayed) { this.decayed = decayed; }
+}
@@ -0,0 +1,70 @@
+package com.grasp.service.metrics;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Computes {@link SubjectPerformanceMetrics} for every subject in a single pass over {@link SessionColumns}.
+ *
+ * Means come from exact integer sums; recent performance, consistency and trend from a
+ * {@link DecayedPerformance} fed in the same pass. The decayed model does not depend on row order, so
+ * unsorted sessions need no extra work.
+ */
+public final class SubjectMetricsKernel {
+
+    private SubjectMetricsKernel() {}
+
+    public static Map<Long, SubjectPerformanceMetrics> compute(SessionColumns columns) {
+        int groups = columns.groupCount();
+        Map<Long, SubjectPerformanceMetrics> metricsMap = new HashMap<>(Math.max(16, groups * 2));
+
+        for (int g = 0; g < groups; g++) {
+            int from = columns.groupStart(g);
+            int to = columns.groupEnd(g);
+            if (from == to) {
+                continue;
+            }
+            SubjectPerformanceMetrics metrics = new SubjectPerformanceMetrics();
+            computeInto(columns, from, to, metrics);
+            metricsMap.put(columns.subjectId(g), metrics);
+        }
+        return metricsMap;
+    }
+
+    /**
+     * Fills {@code metrics} from rows {@code [from, to)}
+     */
+    static void computeInto(SessionColumns columns, int from, int to, SubjectPerformanceMetrics metrics) {
+        int[] scores = columns.scores();
+        int[] durations = columns.durations();
+        double[] completions = columns.completions();
+        long[] timestamps = columns.timestamps();
+
+        int n = to - from;
+        long scoreSum = 0;
+        long durationSum = 0;
+        double completionSum = 0.0;
+        double completionCompensation = 0.0;
+        DecayedPerformance decayed = new DecayedPerformance();
+
+        for (int i = from; i < to; i++) {
+            int score = scores[i];
+            scoreSum += score;
+            durationSum += durations[i];
+
+            // Kahan summation keeps the completion mean as accurate as DoubleStream.average()
+            double y = completions[i] - completionCompensation;
+            double t = completionSum + y;
+            completionCompensation = (t - completionSum) - y;
+            completionSum = t;
+
+            decayed.add(score, DecayedPerformance.toDay(timestamps[i]));
+        }
+
+        metrics.setSessionCount(n);
+        metrics.setAveragePerformance((double) scoreSum / n / 10.0);
+        metrics.setAverageSessionDuration((double) durationSum / n);
+        metrics.setAverageCompletion(completionSum / n);
+        decayed.applyTo(metrics);
+    }
+}
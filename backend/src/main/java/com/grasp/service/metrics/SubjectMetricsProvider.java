@@ -0,0 +1,19 @@
+package com.grasp.service.metrics;
+
+import java.util.Map;
+
+/**
+ * Source of per-subject metrics for plans stored in the database.
+ *
+ * Selected with {@code grasp.recommendations.metrics-provider}: {@code in-memory} (default) reads projected
+ * session rows and runs {@link SubjectMetricsKernel}, {@code aggregate} reads {@code subject_session_aggregates},
+ * {@code database} lets PostgreSQL compute one row per subject, and {@code columnar} scans sessions kept
+ * resident in {@link ColumnarSessionStore}.
+ */
+public interface SubjectMetricsProvider {
+
+    /**
+     * @return metrics keyed by subject id; subjects without scored sessions have no entry
+     */
+    Map<Long, SubjectPerformanceMetrics> metricsForPlan(Long planId);
+}
@@ -0,0 +1,63 @@
+package com.grasp.service.metrics;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * Performance metrics for a single subject, as consumed by the recommendation rules.
+ *
+ * Counts and averages cover the whole history. Recent performance, consistency and trend come from the
+ * time-decayed model ({@link DecayedPerformance}), so they follow the latest sessions. The cohort fields
+ * place the subject among all scored subjects with the same name ({@link CohortSketchStore});
+ * they are only filled in by the engine, and the percentiles are NaN while the cohort is unknown.
+ */
+public class SubjectPerformanceMetrics {
+    private int sessionCount;
+    private double averagePerformance;
+    private double recentPerformance;
+    private double averageSessionDuration;
+    private double averageCompletion;
+    private double performanceTrend;
+    private double consistencyScore;
+    private long cohortSessions;
+    private double cohortPerformancePercentile = Double.NaN;
+    private double cohortDurationPercentile = Double.NaN;
+
+    // Getters and Setters
+    public int getSessionCount() { return sessionCount; }
+    public void setSessionCount(int sessionCount) { this.sessionCount = sessionCount; }
+
+    public double getAveragePerformance() { return averagePerformance; }
+    public void setAveragePerformance(double averagePerformance) { this.averagePerformance = averagePerformance; }
+
+    public double getRecentPerformance() { return recentPerformance; }
+    public void setRecentPerformance(double recentPerformance) { this.recentPerformance = recentPerformance; }
+
+    public double getAverageSessionDuration() { return averageSessionDuration; }
+    public void setAverageSessionDuration(double averageSessionDuration) { this.averageSessionDuration = averageSessionDuration; }
+
+    public double getAverageCompletion() { return averageCompletion; }
+    public void setAverageCompletion(double averageCompletion) { this.averageCompletion = averageCompletion; }
+
+    public double getPerformanceTrend() { return performanceTrend; }
+    public void setPerformanceTrend(double performanceTrend) { this.performanceTrend = performanceTrend; }
+
+    public double getConsistencyScore() { return consistencyScore; }
+    public void setConsistencyScore(double consistencyScore) { this.consistencyScore = consistencyScore; }
+
+    // Cohort fields are engine input only; the dashboard serializes these metrics without them
+    @JsonIgnore
+    public long getCohortSessions() { return cohortSessions; }
+    public void setCohortSessions(long cohortSessions) { this.cohortSessions = cohortSessions; }
+
+    @JsonIgnore
+    public double getCohortPerformancePercentile() { return cohortPerformancePercentile; }
+    public void setCohortPerformancePercentile(double cohortPerformancePercentile) {
+        this.cohortPerformancePercentile = cohortPerformancePercentile;
+    }
+
+    @JsonIgnore
+    public double getCohortDurationPercentile() { return cohortDurationPercentile; }
+    public void setCohortDurationPercentile(double cohortDurationPercentile) {
+        this.cohortDurationPercentile = cohortDurationPercentile;
+    }
+}
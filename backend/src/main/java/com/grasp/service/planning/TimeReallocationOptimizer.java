@@ -0,0 +1,344 @@
+package com.grasp.service.planning;
+
+import com.grasp.model.Recommendation;
+import com.grasp.model.StudyPlan;
+import com.grasp.model.Subject;
+import com.grasp.service.metrics.SubjectPerformanceMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Redistributes a plan's study minutes across all of its subjects at once, instead of scaling each
+ * struggling subject on its own.
+ *
+ * Each subject with metrics gets the weight {@code minutes * need}, where need grows as recent performance
+ * falls below {@code target-performance} and shrinks above it, and may move between {@code min-scale} and
+ * {@code max-scale} times its current minutes. Subjects without metrics keep their minutes. The solver
+ * maximises {@code sum(weight * log(minutes))} subject to
+ * - the plan total: minutes are only moved between subjects, never added;
+ * - the deadline: the unfinished part of every subject ({@code minutes * (1 - progress)}) has to fit into
+ *   {@code daily-minutes} per day left until {@code StudyPlan.deadline}, deadline day included.
+ * With one binding limit the optimum is a water-filling, {@code clamp(weight / (nu * cost))} with a
+ * single multiplier {@code nu} found by bisection. When both bind, a second bisection prices the deadline
+ * against the total. All of it is a few thousand multiplications for a 200-subject plan.
+ *
+ * The recommendations of one call are consistent as a set: applying all of them yields the plan total (or
+ * the deadline capacity) exactly, up to changes smaller than {@code min-change} that are not suggested.
+ */
+@Component
+public class TimeReallocationOptimizer {
+
+    public static final String RULE_ID = "time-reallocation";
+    /** Rule id when the deadline, not the plan total, limited the solution */
+    public static final String DEADLINE_RULE_ID = "time-reallocation-deadline";
+
+    static final String TEMPLATE = "Rebalanced across the plan's {planMinutes:0} min: recent performance "
+        + "{recentPerformance:pct1}% against a {targetPerformance:pct0}% target. Change study time from "
+        + "{currentMinutes:0} to {recommendedMinutes:0} min.";
+    static final String DEADLINE_TEMPLATE = "Rebalanced to fit the {capacityMinutes:0} min left before the "
+        + "deadline: recent performance {recentPerformance:pct1}% against a {targetPerformance:pct0}% target. "
+        + "Change study time from {currentMinutes:0} to {recommendedMinutes:0} min.";
+
+    private static final int BISECTION_STEPS = 50;
+
+    private final boolean enabled;
+    private final int dailyMinutes;
+    private final double targetPerformance;
+    private final double sensitivity;
+    private final double minScale;
+    private final double maxScale;
+    private final int minChange;
+
+    public TimeReallocationOptimizer(@Value("${grasp.recommendations.reallocation.enabled:true}") boolean enabled,
+                                     @Value("${grasp.recommendations.reallocation.daily-minutes:240}") int dailyMinutes,
+                                     @Value("${grasp.recommendations.reallocation.target-performance:0.75}") double targetPerformance,
+                                     @Value("${grasp.recommendations.reallocation.sensitivity:2.0}") double sensitivity,
+                                     @Value("${grasp.recommendations.reallocation.min-scale:0.5}") double minScale,
+                                     @Value("${grasp.recommendations.reallocation.max-scale:2.0}") double maxScale,
+                                     @Value("${grasp.recommendations.reallocation.min-change:15}") int minChange) {
+        if (minScale <= 0 || minScale > 1 || maxScale < 1) {
+            throw new IllegalArgumentException("reallocation min-scale must be in (0, 1] and max-scale at least 1");
+        }
+        this.enabled = enabled;
+        this.dailyMinutes = Math.max(0, dailyMinutes);
+        this.targetPerformance = targetPerformance;
+        this.sensitivity = Math.max(0, sensitivity);
+        this.minScale = minScale;
+        this.maxScale = maxScale;
+        this.minChange = Math.max(1, minChange);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Appends a {@code TIME_ADJUSTMENT} recommendation for every subject whose optimal minutes differ from
+     * its current ones by at least {@code min-change}
+     *
+     * @param today start of the deadline window
+     */
+    public void optimize(StudyPlan plan, Map<Long, SubjectPerformanceMetrics> subjectMetrics, LocalDate today,
+                         List<Recommendation> out) {
+        List<Subject> subjects = plan.getSubjects();
+        int n = subjects.size();
+        double[] current = new double[n];
+        double[] weight = new double[n];
+        double[] remaining = new double[n];
+        double[] lo = new double[n];
+        double[] hi = new double[n];
+        double[] performance = new double[n];
+        boolean[] free = new boolean[n];
+        double total = 0;
+        int freeCount = 0;
+        for (int i = 0; i < n; i++) {
+            Subject subject = subjects.get(i);
+            double minutes = subject.getTimeAllocationMinutes() != null ? subject.getTimeAllocationMinutes() : 0;
+            double progress = subject.getCurrentProgressPercent() != null ? subject.getCurrentProgressPercent() : 0;
+            current[i] = minutes;
+            remaining[i] = 1 - Math.min(1, Math.max(0, progress / 100));
+            total += minutes;
+            SubjectPerformanceMetrics metrics = subjectMetrics.get(subject.getId());
+            if (metrics == null || minutes <= 0) {
+                lo[i] = minutes;
+                hi[i] = minutes;
+                continue;
+            }
+            double need = 1 + sensitivity * (targetPerformance - metrics.getRecentPerformance());
+            performance[i] = metrics.getRecentPerformance();
+            weight[i] = minutes * Math.min(maxScale, Math.max(minScale, need));
+            lo[i] = minutes * minScale;
+            hi[i] = minutes * maxScale;
+            free[i] = true;
+            freeCount++;
+        }
+        if (freeCount == 0) {
+            return;
+        }
+
+        double[] ones = new double[n];
+        Arrays.fill(ones, 1);
+        double[] target = new double[n];
+        fill(weight, ones, ones, lo, hi, free, total, target);
+
+        double capacity = capacity(plan.getDeadline(), today);
+        boolean deadlineBound = capacity >= 0 && dot(remaining, target) > capacity;
+        if (deadlineBound) {
+            fill(weight, remaining, remaining, lo, hi, free, capacity, target);
+            if (sum(target) > total) {
+                balance(weight, remaining, lo, hi, free, total, capacity, target);
+            }
+        }
+
+        double planMinutes = total;
+        double prefix = 0;
+        long roundedPrefix = 0;
+        for (int i = 0; i < n; i++) {
+            // Rounding running sums keeps the total exact; each subject moves by less than one minute
+            prefix += target[i];
+            long rounded = Math.round(prefix);
+            int recommended = (int) (rounded - roundedPrefix);
+            roundedPrefix = rounded;
+            if (!free[i] || Math.abs(recommended - current[i]) < minChange) {
+                continue;
+            }
+            Recommendation recommendation = new Recommendation(Recommendation.RecommendationType.TIME_ADJUSTMENT,
+                subjects.get(i).getId(), null, null);
+            recommendation.setNumericValue(recommended);
+            recommendation.setRuleId(deadlineBound ? DEADLINE_RULE_ID : RULE_ID);
+            recommendation.setReasoningSource(new Reasoning(deadlineBound, performance[i], targetPerformance,
+                current[i], recommended, planMinutes, capacity));
+            out.add(recommendation);
+        }
+    }
+
+    /**
+     * Reasoning templates by rule id, in the syntax of the rule file
+     */
+    public Map<String, String> templates() {
+        Map<String, String> templates = new LinkedHashMap<>();
+        templates.put(RULE_ID, TEMPLATE);
+        templates.put(DEADLINE_RULE_ID, DEADLINE_TEMPLATE);
+        return templates;
+    }
+
+    /**
+     * Minutes available before the deadline, or -1 without a deadline or once it has passed
+     */
+    private double capacity(LocalDate deadline, LocalDate today) {
+        if (deadline == null || deadline.isBefore(today)) {
+            return -1;
+        }
+        return (ChronoUnit.DAYS.between(today, deadline) + 1) * (double) dailyMinutes;
+    }
+
+    /**
+     * Sets {@code x[i] = clamp(w[i] / (nu * a[i]), lo[i], hi[i])} for the free subjects, with {@code nu}
+     * such that {@code sum(s * x) = budget} over all subjects. Fixed subjects keep {@code lo}. If even the
+     * bounds cannot meet the budget, every free subject ends at the nearer bound.
+     */
+    static void fill(double[] w, double[] a, double[] s, double[] lo, double[] hi, boolean[] free,
+                     double budget, double[] x) {
+        double atLo = 0;
+        double atHi = 0;
+        double nuLow = Double.POSITIVE_INFINITY; // at or below it every free subject sits at hi
+        double nuHigh = 0; // at or above it every free subject sits at lo
+        for (int i = 0; i < w.length; i++) {
+            atLo += s[i] * lo[i];
+            atHi += s[i] * (free[i] ? hi[i] : lo[i]);
+            if (free[i] && a[i] > 0) {
+                nuLow = Math.min(nuLow, w[i] / (a[i] * hi[i]));
+                nuHigh = Math.max(nuHigh, w[i] / (a[i] * lo[i]));
+            }
+        }
+        if (budget <= atLo || budget >= atHi || nuHigh == 0) {
+            boolean low = budget <= atLo;
+            for (int i = 0; i < w.length; i++) {
+                x[i] = free[i] && !low ? hi[i] : lo[i];
+            }
+            return;
+        }
+        // sum(s * x) falls as nu grows; bisect on log(nu) since weights span orders of magnitude
+        double logLow = Math.log(nuLow);
+        double logHigh = Math.log(nuHigh);
+        for (int step = 0; step < BISECTION_STEPS; step++) {
+            double logMid = (logLow + logHigh) / 2;
+            if (allocate(w, a, s, lo, hi, free, Math.exp(logMid), x) > budget) {
+                logLow = logMid;
+            } else {
+                logHigh = logMid;
+            }
+        }
+        allocate(w, a, s, lo, hi, free, Math.exp(logHigh), x);
+    }
+
+    private static double allocate(double[] w, double[] a, double[] s, double[] lo, double[] hi, boolean[] free,
+                                   double nu, double[] x) {
+        double used = 0;
+        for (int i = 0; i < w.length; i++) {
+            double value = lo[i];
+            if (free[i]) {
+                value = a[i] > 0 ? Math.min(hi[i], Math.max(lo[i], w[i] / (nu * a[i]))) : hi[i];
+            }
+            x[i] = value;
+            used += s[i] * value;
+        }
+        return used;
+    }
+
+    /**
+     * Both limits bind: the marginal value of a minute is {@code lambda + mu * remaining}. For a price ratio
+     * {@code rho = mu / lambda} the plan total is met with costs {@code 1 + rho * remaining}; {@code rho} is
+     * raised until the unfinished work fits the capacity.
+     */
+    private static void balance(double[] w, double[] remaining, double[] lo, double[] hi, boolean[] free,
+                                double total, double capacity, double[] x) {
+        int n = w.length;
+        double[] ones = new double[n];
+        Arrays.fill(ones, 1);
+        double[] cost = new double[n];
+        double rhoLow = 0;
+        double rhoHigh = 1;
+        while (rhoHigh < 1e12 && !fitsCapacity(w, remaining, lo, hi, free, total, capacity, rhoHigh, cost, ones, x)) {
+            rhoLow = rhoHigh;
+            rhoHigh *= 16;
+        }
+        for (int step = 0; step < BISECTION_STEPS; step++) {
+            double rho = (rhoLow + rhoHigh) / 2;
+            if (fitsCapacity(w, remaining, lo, hi, free, total, capacity, rho, cost, ones, x)) {
+                rhoHigh = rho;
+            } else {
+                rhoLow = rho;
+            }
+        }
+        fitsCapacity(w, remaining, lo, hi, free, total, capacity, rhoHigh, cost, ones, x);
+    }
+
+    private static boolean fitsCapacity(double[] w, double[] remaining, double[] lo, double[] hi, boolean[] free,
+                                        double total, double capacity, double rho, double[] cost, double[] ones,
+                                        double[] x) {
+        for (int i = 0; i < w.length; i++) {
+            cost[i] = 1 + rho * remaining[i];
+        }
+        fill(w, cost, ones, lo, hi, free, total, x);
+        return dot(remaining, x) <= capacity;
+    }
+
+    private static double dot(double[] a, double[] b) {
+        double result = 0;
+        for (int i = 0; i < a.length; i++) {
+            result += a[i] * b[i];
+        }
+        return result;
+    }
+
+    private static double sum(double[] values) {
+        double result = 0;
+        for (double value : values) {
+            result += value;
+        }
+        return result;
+    }
+
+    /**
+     * Same digits as the rule templates: half-up rounding of the shortest decimal representation
+     */
+    private static String format(double value, int digits, boolean percent) {
+        return BigDecimal.valueOf(percent ? value * 100 : value).setScale(digits, RoundingMode.HALF_UP).toPlainString();
+    }
+
+    private static final class Reasoning implements Recommendation.ReasoningSource {
+        private final boolean deadline;
+        private final double recentPerformance;
+        private final double targetPerformance;
+        private final double currentMinutes;
+        private final int recommendedMinutes;
+        private final double planMinutes;
+        private final double capacityMinutes;
+
+        private Reasoning(boolean deadline, double recentPerformance, double targetPerformance,
+                          double currentMinutes, int recommendedMinutes, double planMinutes, double capacityMinutes) {
+            this.deadline = deadline;
+            this.recentPerformance = recentPerformance;
+            this.targetPerformance = targetPerformance;
+            this.currentMinutes = currentMinutes;
+            this.recommendedMinutes = recommendedMinutes;
+            this.planMinutes = planMinutes;
+            this.capacityMinutes = capacityMinutes;
+        }
+
+        @Override
+        public String render() {
+            String limit = deadline
+                ? "Rebalanced to fit the " + format(capacityMinutes, 0, false) + " min left before the deadline: "
+                : "Rebalanced across the plan's " + format(planMinutes, 0, false) + " min: ";
+            return limit + "recent performance " + format(recentPerformance, 1, true) + "% against a "
+                + format(targetPerformance, 0, true) + "% target. Change study time from "
+                + format(currentMinutes, 0, false) + " to " + recommendedMinutes + " min.";
+        }
+
+        @Override
+        public Map<String, Double> params() {
+            Map<String, Double> params = new LinkedHashMap<>();
+            if (deadline) {
+                params.put("capacityMinutes", capacityMinutes);
+            } else {
+                params.put("planMinutes", planMinutes);
+            }
+            params.put("recentPerformance", recentPerformance);
+            params.put("targetPerformance", targetPerformance);
+            params.put("currentMinutes", currentMinutes);
+            params.put("recommendedMinutes", (double) recommendedMinutes);
+            return params;
+        }
+    }
+}
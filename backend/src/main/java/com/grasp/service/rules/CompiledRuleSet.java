@@ -0,0 +1,281 @@
+package com.grasp.service.rules;
+
+import com.grasp.model.Recommendation;
+import com.grasp.model.Subject;
+import com.grasp.service.metrics.SubjectPerformanceMetrics;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A {@link RuleSetDefinition} compiled into flat arrays. Conditions of rule {@code r} occupy
+ * {@code [conditionStart[r], conditionStart[r + 1])}, and each is a metric ordinal, an operator code and a
+ * limit, so evaluating a subject is one read of its metrics followed by a scan over primitive arrays.
+ * Reasoning is not rendered here at all: a recommendation carries its rule id and the captured metric
+ * values, and the text is built only if a response or the store asks for it.
+ *
+ * Immutable, so one instance is shared by all request threads and replaced as a whole on reload.
+ */
+public final class CompiledRuleSet {
+
+    private static final Pattern CONDITION =
+        Pattern.compile("\\s*([A-Za-z]+)\\s*(<=|>=|==|!=|<|>)\\s*(-?[0-9]+(?:\\.[0-9]+)?)\\s*");
+
+    private static final byte LT = 0;
+    private static final byte LE = 1;
+    private static final byte GT = 2;
+    private static final byte GE = 3;
+    private static final byte EQ = 4;
+    private static final byte NE = 5;
+
+    private static final byte SCALE_TIME = 0;
+    private static final byte NEXT_DIFFICULTY = 1;
+    private static final byte FIXED = 2;
+
+    private final boolean firstMatch;
+    private final String[] ruleIds;
+    private final Recommendation.RecommendationType[] types;
+    private final int[] conditionStart;
+    private final int[] conditionMetric;
+    private final byte[] conditionOperator;
+    private final double[] conditionLimit;
+    private final byte[] actionKind;
+    private final double[] actionFactor;
+    private final String[] actionValue;
+    private final ReasoningTemplate[] reasoning;
+
+    private CompiledRuleSet(boolean firstMatch, String[] ruleIds, Recommendation.RecommendationType[] types,
+                            int[] conditionStart, int[] conditionMetric, byte[] conditionOperator,
+                            double[] conditionLimit, byte[] actionKind, double[] actionFactor,
+                            String[] actionValue, ReasoningTemplate[] reasoning) {
+        this.firstMatch = firstMatch;
+        this.ruleIds = ruleIds;
+        this.types = types;
+        this.conditionStart = conditionStart;
+        this.conditionMetric = conditionMetric;
+        this.conditionOperator = conditionOperator;
+        this.conditionLimit = conditionLimit;
+        this.actionKind = actionKind;
+        this.actionFactor = actionFactor;
+        this.actionValue = actionValue;
+        this.reasoning = reasoning;
+    }
+
+    /**
+     * @throws IllegalArgumentException naming the offending rule if the definition is invalid
+     */
+    public static CompiledRuleSet compile(RuleSetDefinition definition) {
+        if (definition.getMode() == null || definition.getRules() == null) {
+            throw new IllegalArgumentException("Rule set needs a mode and a rules list");
+        }
+        List<RuleSetDefinition.Rule> rules = definition.getRules();
+        int ruleCount = rules.size();
+        int conditionCount = 0;
+        for (RuleSetDefinition.Rule rule : rules) {
+            conditionCount += rule.getWhen() == null ? 0 : rule.getWhen().size();
+        }
+
+        String[] ruleIds = new String[ruleCount];
+        Recommendation.RecommendationType[] types = new Recommendation.RecommendationType[ruleCount];
+        int[] conditionStart = new int[ruleCount + 1];
+        int[] conditionMetric = new int[conditionCount];
+        byte[] conditionOperator = new byte[conditionCount];
+        double[] conditionLimit = new double[conditionCount];
+        byte[] actionKind = new byte[ruleCount];
+        double[] actionFactor = new double[ruleCount];
+        String[] actionValue = new String[ruleCount];
+        ReasoningTemplate[] reasoning = new ReasoningTemplate[ruleCount];
+
+        Set<String> seenIds = new HashSet<>();
+        int c = 0;
+        for (int r = 0; r < ruleCount; r++) {
+            RuleSetDefinition.Rule rule = rules.get(r);
+            String id = rule.getId() == null ? "#" + r : rule.getId();
+            try {
+                if (!seenIds.add(id)) {
+                    throw new IllegalArgumentException("duplicate id");
+                }
+                if (rule.getType() == null || rule.getAction() == null || rule.getAction().getKind() == null) {
+                    throw new IllegalArgumentException("type and action.kind are required");
+                }
+                ruleIds[r] = id;
+                types[r] = rule.getType();
+                conditionStart[r] = c;
+
+                Map<String, Double> constants = new HashMap<>();
+                if (rule.getWhen() != null) {
+                    for (String condition : rule.getWhen()) {
+                        Matcher m = CONDITION.matcher(condition == null ? "" : condition);
+                        if (!m.matches()) {
+                            throw new IllegalArgumentException("bad condition '" + condition + "'");
+                        }
+                        SubjectMetric metric = SubjectMetric.fromKey(m.group(1));
+                        conditionMetric[c] = metric.ordinal();
+                        conditionOperator[c] = operator(m.group(2));
+                        conditionLimit[c] = Double.parseDouble(m.group(3));
+                        constants.putIfAbsent("limit." + metric.key(), conditionLimit[c]);
+                        c++;
+                    }
+                }
+
+                RuleSetDefinition.Action action = rule.getAction();
+                switch (action.getKind()) {
+                    case SCALE_TIME -> {
+                        actionKind[r] = SCALE_TIME;
+                        actionFactor[r] = action.getFactor();
+                        constants.put("factor", action.getFactor());
+                        // decimal subtraction, so a factor of 1.2 gives a change of 0.2 rather than 0.19999999999999996
+                        constants.put("change",
+                            BigDecimal.valueOf(action.getFactor()).subtract(BigDecimal.ONE).doubleValue());
+                    }
+                    case NEXT_DIFFICULTY -> actionKind[r] = NEXT_DIFFICULTY;
+                    case FIXED -> {
+                        if (action.getValue() == null) {
+                            throw new IllegalArgumentException("FIXED action needs a value");
+                        }
+                        actionKind[r] = FIXED;
+                        actionValue[r] = action.getValue();
+                    }
+                }
+                reasoning[r] = ReasoningTemplate.compile(rule.getReasoning() == null ? "" : rule.getReasoning(), constants);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Rule " + id + ": " + e.getMessage(), e);
+            }
+        }
+        conditionStart[ruleCount] = c;
+
+        return new CompiledRuleSet(definition.getMode() == RuleSetDefinition.Mode.FIRST_MATCH, ruleIds, types,
+            conditionStart, conditionMetric, conditionOperator, conditionLimit, actionKind, actionFactor,
+            actionValue, reasoning);
+    }
+
+    /**
+     * Scratch array for {@link #evaluate}; one per calling thread and call
+     */
+    public static double[] newScratch() {
+        return new double[SubjectMetric.count()];
+    }
+
+    /**
+     * Appends the recommendations the rules produce for one subject to {@code out}
+     *
+     * @param values scratch array from {@link #newScratch()}, overwritten
+     */
+    public void evaluate(Subject subject, SubjectPerformanceMetrics metrics, double[] values, List<Recommendation> out) {
+        SubjectMetric.readAll(metrics, values);
+        int ruleCount = types.length;
+        for (int r = 0; r < ruleCount; r++) {
+            if (!matches(r, values)) {
+                continue;
+            }
+            Recommendation recommendation = new Recommendation(types[r], subject.getId(), null, null);
+            if (actionKind[r] == SCALE_TIME) {
+                recommendation.setNumericValue((int) (subject.getTimeAllocationMinutes() * actionFactor[r]));
+            } else {
+                String value = actionKind[r] == NEXT_DIFFICULTY
+                    ? nextDifficulty(subject.getDifficultyLevel()) : actionValue[r];
+                if (value == null) {
+                    continue; // Action does not apply to this subject
+                }
+                recommendation.setValue(value);
+            }
+            recommendation.setRuleId(ruleIds[r]);
+            recommendation.setReasoningSource(new DeferredReasoning(reasoning[r], reasoning[r].capture(values)));
+            out.add(recommendation);
+            if (firstMatch) {
+                return;
+            }
+        }
+    }
+
+    private boolean matches(int rule, double[] values) {
+        for (int c = conditionStart[rule], end = conditionStart[rule + 1]; c < end; c++) {
+            double value = values[conditionMetric[c]];
+            double limit = conditionLimit[c];
+            boolean holds = switch (conditionOperator[c]) {
+                case LT -> value < limit;
+                case LE -> value <= limit;
+                case GT -> value > limit;
+                case GE -> value >= limit;
+                case EQ -> value == limit;
+                default -> value != limit;
+            };
+            if (!holds) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String nextDifficulty(Subject.DifficultyLevel level) {
+        if (level == null) {
+            return null;
+        }
+        return switch (level) {
+            case BEGINNER -> "INTERMEDIATE";
+            case INTERMEDIATE -> "ADVANCED";
+            case ADVANCED -> null; // Already at highest level
+        };
+    }
+
+    private static byte operator(String symbol) {
+        return switch (symbol) {
+            case "<" -> LT;
+            case "<=" -> LE;
+            case ">" -> GT;
+            case ">=" -> GE;
+            case "==" -> EQ;
+            default -> NE;
+        };
+    }
+
+    public boolean isFirstMatch() {
+        return firstMatch;
+    }
+
+    public List<String> ruleIds() {
+        return List.of(ruleIds);
+    }
+
+    public int conditionCount() {
+        return conditionMetric.length;
+    }
+
+    /**
+     * Reasoning template source of every rule, for clients that render compact responses themselves
+     */
+    public Map<String, String> reasoningTemplates() {
+        Map<String, String> templates = new LinkedHashMap<>();
+        for (int r = 0; r < ruleIds.length; r++) {
+            templates.put(ruleIds[r], reasoning[r].source());
+        }
+        return templates;
+    }
+
+    private static final class DeferredReasoning implements Recommendation.ReasoningSource {
+        private final ReasoningTemplate template;
+        private final double[] captured;
+
+        private DeferredReasoning(ReasoningTemplate template, double[] captured) {
+            this.template = template;
+            this.captured = captured;
+        }
+
+        @Override
+        public String render() {
+            return template.render(captured);
+        }
+
+        @Override
+        public Map<String, Double> params() {
+            return template.params(captured);
+        }
+    }
+}
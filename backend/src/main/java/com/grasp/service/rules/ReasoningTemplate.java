@@ -0,0 +1,163 @@
+package com.grasp.service.rules;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reasoning text with {@code {name}}, {@code {name:N}} or {@code {name:pctN}} placeholders, parsed once.
+ *
+ * A placeholder prints a subject metric, or a rule constant such as a condition limit, with N decimals
+ * (1 by default); {@code pct} multiplies by 100 first. Constants are printed into the literal text at
+ * compile time, so rendering only appends literals and the metric values that remain. Evaluation copies
+ * just those metric values ({@link #capture}) and leaves rendering to whoever asks for the text.
+ */
+final class ReasoningTemplate {
+
+    private final String source;
+    private final String[] literals;
+    private final int[] metrics;
+    private final String[] metricNames;
+    private final int[] decimals;
+    private final boolean[] percent;
+    private final Map<String, Double> constants;
+    private final int literalLength;
+
+    private ReasoningTemplate(String source, String[] literals, int[] metrics, String[] metricNames, int[] decimals,
+                              boolean[] percent, Map<String, Double> constants) {
+        this.source = source;
+        this.literals = literals;
+        this.metrics = metrics;
+        this.metricNames = metricNames;
+        this.decimals = decimals;
+        this.percent = percent;
+        this.constants = constants;
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.literalLength = length;
+    }
+
+    /**
+     * @param constants values for placeholders that are not metrics
+     * @throws IllegalArgumentException if a placeholder is malformed or names nothing known
+     */
+    static ReasoningTemplate compile(String source, Map<String, Double> constants) {
+        List<String> literals = new ArrayList<>();
+        List<int[]> placeholders = new ArrayList<>(); // {metric ordinal, decimals, percent}
+        Map<String, Double> usedConstants = new LinkedHashMap<>();
+        StringBuilder literal = new StringBuilder();
+        int i = 0;
+        while (i < source.length()) {
+            char c = source.charAt(i);
+            if (c != '{') {
+                literal.append(c);
+                i++;
+                continue;
+            }
+            int close = source.indexOf('}', i);
+            if (close < 0) {
+                throw new IllegalArgumentException("Unclosed placeholder in reasoning: " + source);
+            }
+            String body = source.substring(i + 1, close);
+            i = close + 1;
+
+            int colon = body.indexOf(':');
+            String name = colon < 0 ? body : body.substring(0, colon);
+            String format = colon < 0 ? "1" : body.substring(colon + 1);
+            boolean isPercent = format.startsWith("pct");
+            int digits;
+            try {
+                digits = Integer.parseInt(isPercent ? format.substring(3) : format);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Bad format '" + format + "' in placeholder {" + body + "}");
+            }
+            if (digits < 0 || digits > 6) {
+                throw new IllegalArgumentException("Decimals must be 0-6 in placeholder {" + body + "}");
+            }
+
+            Double constant = constants.get(name);
+            if (constant != null) {
+                literal.append(format(constant, digits, isPercent));
+                usedConstants.put(name, constant);
+            } else {
+                literals.add(literal.toString());
+                literal.setLength(0);
+                placeholders.add(new int[] {SubjectMetric.fromKey(name).ordinal(), digits, isPercent ? 1 : 0});
+            }
+        }
+        literals.add(literal.toString());
+
+        int n = placeholders.size();
+        int[] metrics = new int[n];
+        String[] metricNames = new String[n];
+        int[] decimals = new int[n];
+        boolean[] percent = new boolean[n];
+        for (int p = 0; p < n; p++) {
+            metrics[p] = placeholders.get(p)[0];
+            metricNames[p] = SubjectMetric.values()[metrics[p]].key();
+            decimals[p] = placeholders.get(p)[1];
+            percent[p] = placeholders.get(p)[2] == 1;
+        }
+        return new ReasoningTemplate(source, literals.toArray(new String[0]), metrics, metricNames, decimals, percent,
+            Map.copyOf(usedConstants));
+    }
+
+    /**
+     * Copies the metric values this template prints out of the evaluation scratch array
+     *
+     * @param values metric values indexed by {@link SubjectMetric} ordinal
+     */
+    double[] capture(double[] values) {
+        double[] captured = new double[metrics.length];
+        for (int p = 0; p < metrics.length; p++) {
+            captured[p] = values[metrics[p]];
+        }
+        return captured;
+    }
+
+    /**
+     * @param captured values from {@link #capture}
+     */
+    String render(double[] captured) {
+        if (metrics.length == 0) {
+            return literals[0];
+        }
+        StringBuilder text = new StringBuilder(literalLength + metrics.length * 8);
+        for (int p = 0; p < metrics.length; p++) {
+            text.append(literals[p]).append(format(captured[p], decimals[p], percent[p]));
+        }
+        return text.append(literals[metrics.length]).toString();
+    }
+
+    /**
+     * Every placeholder's value by name: the constants plus the captured metrics, enough for a client to
+     * render {@link #source()} itself
+     */
+    Map<String, Double> params(double[] captured) {
+        Map<String, Double> params = new LinkedHashMap<>(constants);
+        for (int p = 0; p < metrics.length; p++) {
+            params.put(metricNames[p], captured[p]);
+        }
+        return params;
+    }
+
+    String source() {
+        return source;
+    }
+
+    /**
+     * Same digits as {@code String.format("%.Nf")}: half-up rounding of the shortest decimal representation
+     */
+    static String format(double value, int digits, boolean percent) {
+        double scaled = percent ? value * 100 : value;
+        if (Double.isNaN(scaled) || Double.isInfinite(scaled)) {
+            return String.valueOf(scaled);
+        }
+        return BigDecimal.valueOf(scaled).setScale(digits, RoundingMode.HALF_UP).toPlainString();
+    }
+}
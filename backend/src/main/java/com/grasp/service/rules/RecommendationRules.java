@@ -0,0 +1,133 @@
+package com.grasp.service.rules;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Holds the active {@link CompiledRuleSet}, loaded from {@code grasp.recommendations.rules.location}.
+ *
+ * Point the location at a file outside the jar to tune policy without redeploying: {@link #reload()}
+ * re-reads and compiles it, then swaps it in with a single volatile write. Requests already evaluating
+ * keep the set they started with. A file that does not compile is rejected and the old set stays active.
+ *
+ * Each set has a {@link #version()}, a digest of the file, and stored recommendations are tagged with the
+ * version they were generated with. A reload therefore needs no coordination between nodes: each node only
+ * serves stored rows of its own active rules and recomputes the rest, so reload every node that reads the file.
+ */
+@Component
+public class RecommendationRules {
+
+    private static final Logger log = LoggerFactory.getLogger(RecommendationRules.class);
+
+    private final ResourceLoader resourceLoader;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final String location;
+
+    private volatile Loaded loaded;
+
+    public RecommendationRules(ResourceLoader resourceLoader,
+                               ObjectMapper objectMapper,
+                               ApplicationEventPublisher eventPublisher,
+                               @Value("${grasp.recommendations.rules.location:classpath:recommendation-rules.json}") String location)
+            throws IOException {
+        this.resourceLoader = resourceLoader;
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+        this.location = location;
+        this.loaded = load();
+    }
+
+    public CompiledRuleSet active() {
+        return loaded.rules;
+    }
+
+    /**
+     * Digest of the active rule file; equal on every node that loaded the same file
+     */
+    public String version() {
+        return loaded.version;
+    }
+
+    /**
+     * Compiles the rule file again and makes it active; this node's cached recommendations are invalidated, and
+     * stored ones are no longer served by this node unless the file is unchanged
+     *
+     * @throws IOException if the file cannot be read or is not valid JSON
+     * @throws IllegalArgumentException if the rules do not compile
+     */
+    public synchronized Map<String, Object> reload() throws IOException {
+        Loaded compiled = load();
+        loaded = compiled;
+        log.info("Loaded {} recommendation rules from {} (version {})", compiled.rules.ruleIds().size(), location,
+            compiled.version);
+        eventPublisher.publishEvent(new RulesReloadedEvent());
+        return describe();
+    }
+
+    public Map<String, Object> describe() {
+        Loaded current = loaded;
+        CompiledRuleSet rules = current.rules;
+        Map<String, Object> description = new LinkedHashMap<>();
+        description.put("location", location);
+        description.put("version", current.version);
+        description.put("loadedAt", current.loadedAt.toString());
+        description.put("mode", rules.isFirstMatch() ? RuleSetDefinition.Mode.FIRST_MATCH : RuleSetDefinition.Mode.ALL);
+        description.put("rules", rules.ruleIds());
+        description.put("conditions", rules.conditionCount());
+        return description;
+    }
+
+    /**
+     * Reasoning template of each active rule, keyed by rule id
+     */
+    public Map<String, String> templates() {
+        return loaded.rules.reasoningTemplates();
+    }
+
+    private Loaded load() throws IOException {
+        Resource resource = resourceLoader.getResource(location);
+        byte[] bytes;
+        try (InputStream in = resource.getInputStream()) {
+            bytes = in.readAllBytes();
+        }
+        CompiledRuleSet rules = CompiledRuleSet.compile(objectMapper.readValue(bytes, RuleSetDefinition.class));
+        return new Loaded(rules, digest(bytes), Instant.now());
+    }
+
+    /** First 16 hex digits of the SHA-256 of the file */
+    private static String digest(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes), 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static final class Loaded {
+        private final CompiledRuleSet rules;
+        private final String version;
+        private final Instant loadedAt;
+
+        private Loaded(CompiledRuleSet rules, String version, Instant loadedAt) {
+            this.rules = rules;
+            this.version = version;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.grasp.service.rules;
+
+import com.grasp.model.Recommendation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Rule file as written by policy authors; {@link CompiledRuleSet#compile} turns it into an evaluation plan.
+ *
+ * <pre>
+ * {"mode": "ALL",
+ *  "rules": [{"id": "low-performance", "type": "TIME_ADJUSTMENT",
+ *             "when": ["recentPerformance &lt; 0.6"],
+ *             "action": {"kind": "SCALE_TIME", "factor": 1.2},
+ *             "reasoning": "Below {limit.recentPerformance:pct0}% ({recentPerformance:pct1}%)"}]}
+ * </pre>
+ */
+public class RuleSetDefinition {
+
+    public enum Mode {
+        /** At most one recommendation per subject: the first rule, in file order, that matches */
+        FIRST_MATCH,
+        /** One recommendation per matching rule */
+        ALL
+    }
+
+    public enum ActionKind {
+        /** Value is the subject's time allocation times {@code factor}, truncated to whole minutes */
+        SCALE_TIME,
+        /** Value is the next difficulty level; the rule does not match at the highest level */
+        NEXT_DIFFICULTY,
+        /** Value is {@code value} as written */
+        FIXED
+    }
+
+    private Mode mode = Mode.ALL;
+    private List<Rule> rules = new ArrayList<>();
+
+    public static class Rule {
+        private String id;
+        private Recommendation.RecommendationType type;
+        private List<String> when = new ArrayList<>();
+        private Action action;
+        private String reasoning = "";
+
+        // Getters and Setters
+        public String getId() { return id; }
+        public void setId(String id) { this.id = id; }
+
+        public Recommendation.RecommendationType getType() { return type; }
+        public void setType(Recommendation.RecommendationType type) { this.type = type; }
+
+        public List<String> getWhen() { return when; }
+        public void setWhen(List<String> when) { this.when = when; }
+
+        public Action getAction() { return action; }
+        public void setAction(Action action) { this.action = action; }
+
+        public String getReasoning() { return reasoning; }
+        public void setReasoning(String reasoning) { this.reasoning = reasoning; }
+    }
+
+    public static class Action {
+        private ActionKind kind;
+        private double factor = 1.0;
+        private String value;
+
+        // Getters and Setters
+        public ActionKind getKind() { return kind; }
+        public void setKind(ActionKind kind) { this.kind = kind; }
+
+        public double getFactor() { return factor; }
+        public void setFactor(double factor) { this.factor = factor; }
+
+        public String getValue() { return value; }
+        public void setValue(String value) { this.value = value; }
+    }
+
+    // Getters and Setters
+    public Mode getMode() { return mode; }
+    public void setMode(Mode mode) { this.mode = mode; }
+
+    public List<Rule> getRules() { return rules; }
+    public void setRules(List<Rule> rules) { this.rules = rules; }
+}
@@ -0,0 +1,8 @@
+package com.grasp.service.rules;
+
+/**
+ * Published after {@link RecommendationRules#reload()} swaps in a new rule set; every recommendation
+ * computed before it may be stale.
+ */
+public class RulesReloadedEvent {
+}
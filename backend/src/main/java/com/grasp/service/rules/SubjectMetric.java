@@ -0,0 +1,61 @@
+package com.grasp.service.rules;
+
+import com.grasp.service.metrics.SubjectPerformanceMetrics;
+
+/**
+ * Subject metrics a rule can test or print, addressed in rule files by {@link #key()}. The cohort
+ * percentiles are NaN while a subject's cohort is unknown, and every comparison but {@code !=} fails on NaN.
+ */
+public enum SubjectMetric {
+    SESSION_COUNT("sessionCount"),
+    AVERAGE_PERFORMANCE("averagePerformance"),
+    RECENT_PERFORMANCE("recentPerformance"),
+    AVERAGE_SESSION_DURATION("averageSessionDuration"),
+    AVERAGE_COMPLETION("averageCompletion"),
+    PERFORMANCE_TREND("performanceTrend"),
+    CONSISTENCY_SCORE("consistencyScore"),
+    COHORT_SESSIONS("cohortSessions"),
+    COHORT_PERFORMANCE_PERCENTILE("cohortPerformancePercentile"),
+    COHORT_DURATION_PERCENTILE("cohortDurationPercentile");
+
+    private static final SubjectMetric[] VALUES = values();
+
+    private final String key;
+
+    SubjectMetric(String key) {
+        this.key = key;
+    }
+
+    public String key() {
+        return key;
+    }
+
+    public static SubjectMetric fromKey(String key) {
+        for (SubjectMetric metric : VALUES) {
+            if (metric.key.equals(key)) {
+                return metric;
+            }
+        }
+        throw new IllegalArgumentException("Unknown metric '" + key + "'");
+    }
+
+    /**
+     * Copies every metric into {@code values}, indexed by ordinal. A constant added above needs a line here.
+     */
+    static void readAll(SubjectPerformanceMetrics metrics, double[] values) {
+        values[SESSION_COUNT.ordinal()] = metrics.getSessionCount();
+        values[AVERAGE_PERFORMANCE.ordinal()] = metrics.getAveragePerformance();
+        values[RECENT_PERFORMANCE.ordinal()] = metrics.getRecentPerformance();
+        values[AVERAGE_SESSION_DURATION.ordinal()] = metrics.getAverageSessionDuration();
+        values[AVERAGE_COMPLETION.ordinal()] = metrics.getAverageCompletion();
+        values[PERFORMANCE_TREND.ordinal()] = metrics.getPerformanceTrend();
+        values[CONSISTENCY_SCORE.ordinal()] = metrics.getConsistencyScore();
+        values[COHORT_SESSIONS.ordinal()] = metrics.getCohortSessions();
+        values[COHORT_PERFORMANCE_PERCENTILE.ordinal()] = metrics.getCohortPerformancePercentile();
+        values[COHORT_DURATION_PERCENTILE.ordinal()] = metrics.getCohortDurationPercentile();
+    }
+
+    static int count() {
+        return VALUES.length;
+    }
+}
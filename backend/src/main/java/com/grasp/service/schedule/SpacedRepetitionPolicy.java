@@ -0,0 +1,73 @@
+package com.grasp.service.schedule;
+
+import com.grasp.service.metrics.DecayedPerformance;
+import com.grasp.service.metrics.SubjectAggregate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+
+/**
+ * When a subject's next session is due. A subject without scored sessions is due at once; otherwise the next
+ * session follows its latest one by an interval that starts at {@code min-interval} and grows by
+ * {@code growth} per scored session, scaled by how far recent performance clears {@code passing-performance}:
+ * at or below it the interval stays at the minimum, at a perfect score it grows fully. Intervals stop at
+ * {@code max-interval}, and no session is planned after the plan's deadline.
+ *
+ * Times are minutes since the epoch, UTC, the same reading of session times as {@link DecayedPerformance#toDay}.
+ */
+@Component
+public class SpacedRepetitionPolicy {
+
+    private static final double MINUTES_PER_DAY = 24 * 60;
+
+    /** Growth steps counted at most, so the power below stays finite; the interval cap binds long before */
+    private static final int MAX_STEPS = 64;
+
+    private final double minIntervalMinutes;
+    private final double maxIntervalMinutes;
+    private final double growth;
+    private final double passingPerformance;
+
+    public SpacedRepetitionPolicy(@Value("${grasp.schedule.min-interval:1d}") Duration minInterval,
+                                  @Value("${grasp.schedule.max-interval:30d}") Duration maxInterval,
+                                  @Value("${grasp.schedule.growth:2.0}") double growth,
+                                  @Value("${grasp.schedule.passing-performance:0.6}") double passingPerformance) {
+        this.minIntervalMinutes = Math.max(1, minInterval.toMinutes());
+        this.maxIntervalMinutes = Math.max(minIntervalMinutes, maxInterval.toMinutes());
+        this.growth = Math.max(1.0, growth);
+        this.passingPerformance = Math.min(0.99, Math.max(0.0, passingPerformance));
+    }
+
+    /**
+     * Minute the subject's next session is due; may lie before {@code nowMinute} when it is overdue
+     */
+    public int dueMinute(SubjectSchedule subject, int nowMinute) {
+        SubjectAggregate aggregate = subject.getAggregate();
+        DecayedPerformance decayed = aggregate != null ? aggregate.getDecayed() : null;
+        if (decayed == null || aggregate.getSessionCount() == 0 || decayed.isEmpty()
+                || Double.isNaN(decayed.getAnchorDay())) {
+            return nowMinute;
+        }
+        double quality = (decayed.mean() / 10.0 - passingPerformance) / (1.0 - passingPerformance);
+        quality = Math.min(1.0, Math.max(0.0, quality));
+        long steps = Math.min(MAX_STEPS, aggregate.getSessionCount() - 1);
+        double interval = minIntervalMinutes * Math.pow(growth, steps * quality);
+        interval = Math.min(maxIntervalMinutes, Math.max(minIntervalMinutes, interval));
+        double due = decayed.getAnchorDay() * MINUTES_PER_DAY + interval;
+        LocalDate deadline = subject.getDeadline();
+        if (deadline != null) {
+            due = Math.min(due, deadline.atStartOfDay().toEpochSecond(ZoneOffset.UTC) / 60.0);
+        }
+        return (int) Math.max(0, Math.min(Integer.MAX_VALUE, Math.ceil(due)));
+    }
+
+    /**
+     * Current time in minutes since the epoch
+     */
+    public static int currentMinute() {
+        return (int) (System.currentTimeMillis() / 60_000);
+    }
+}
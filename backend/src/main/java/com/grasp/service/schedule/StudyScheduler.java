@@ -0,0 +1,357 @@
+package com.grasp.service.schedule;
+
+import com.grasp.dto.DueSubject;
+import com.grasp.model.StudySession;
+import com.grasp.repository.StudyPlanRepository;
+import com.grasp.repository.StudyScheduleRepository;
+import com.grasp.service.SessionsLoggedEvent;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Next due session of every subject of every active plan, held in a {@link TimingWheel} and paged out in
+ * batches by {@link #pollDue}. Due minutes come from {@link SpacedRepetitionPolicy}.
+ *
+ * The wheel is filled from the database at startup and every {@code resync-interval}. Subjects with sessions
+ * committed on this node are re-planned within a {@code tick} by re-reading their aggregates; sessions logged
+ * on other nodes, new subjects and plans that stopped being active are picked up by the next resync, and a
+ * subject of an inactive plan or a deleted subject is dropped when it comes due. Enable it on the node that
+ * dispatches reminders only; every node serves {@link #planSchedule}.
+ */
+@Component
+public class StudyScheduler implements MeterBinder, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(StudyScheduler.class);
+
+    private final StudyScheduleRepository studyScheduleRepository;
+    private final StudyPlanRepository studyPlanRepository;
+    private final SpacedRepetitionPolicy policy;
+    private final boolean enabled;
+    private final Duration tick;
+    private final Duration resyncInterval;
+    private final int remindAgainMinutes;
+    private final int batchSize;
+    private final ScheduledExecutorService scheduler;
+
+    private final TimingWheel wheel; // guarded by itself
+    private final Set<Long> replanPending = ConcurrentHashMap.newKeySet();
+    private volatile boolean loaded;
+    private volatile long lastResyncMillis = -1;
+
+    private final LongAdder replanned = new LongAdder();
+    private final LongAdder dispatched = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder resyncs = new LongAdder();
+    private final LongAdder failedRuns = new LongAdder();
+
+    public StudyScheduler(StudyScheduleRepository studyScheduleRepository,
+                          StudyPlanRepository studyPlanRepository,
+                          SpacedRepetitionPolicy policy,
+                          @Value("${grasp.schedule.enabled:false}") boolean enabled,
+                          @Value("${grasp.schedule.expected-subjects:100000}") int expectedSubjects,
+                          @Value("${grasp.schedule.tick:15s}") Duration tick,
+                          @Value("${grasp.schedule.resync-interval:1h}") Duration resyncInterval,
+                          @Value("${grasp.schedule.remind-again:1d}") Duration remindAgain,
+                          @Value("${grasp.schedule.batch-size:1000}") int batchSize) {
+        this.studyScheduleRepository = studyScheduleRepository;
+        this.studyPlanRepository = studyPlanRepository;
+        this.policy = policy;
+        this.enabled = enabled;
+        this.tick = tick;
+        this.resyncInterval = resyncInterval;
+        this.remindAgainMinutes = (int) Math.max(1, remindAgain.toMinutes());
+        this.batchSize = Math.max(1, batchSize);
+        this.wheel = new TimingWheel(enabled ? expectedSubjects : 0, SpacedRepetitionPolicy.currentMinute());
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "study-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (enabled) {
+            scheduler.scheduleWithFixedDelay(this::resync, 0, resyncInterval.toMillis(), TimeUnit.MILLISECONDS);
+            scheduler.scheduleWithFixedDelay(this::advance, tick.toMillis(), tick.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Marks the subjects of scored sessions for re-planning once the current transaction commits, when their
+     * aggregates include the sessions
+     */
+    @EventListener
+    public void onSessionsLogged(SessionsLoggedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        Set<Long> subjectIds = new HashSet<>();
+        for (StudySession session : event.getSessions()) {
+            if (session.getPerformanceScore() != null) {
+                subjectIds.add(session.getSubjectId());
+            }
+        }
+        if (subjectIds.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            replanPending.addAll(subjectIds);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                replanPending.addAll(subjectIds);
+            }
+        });
+    }
+
+    /**
+     * Unschedules up to {@code limit} subjects that are due now, in the order they came due, and schedules
+     * each again {@code remind-again} from now; logging a session re-plans it sooner or later than that
+     */
+    public List<DueSubject> pollDue(int limit) {
+        if (!enabled || limit <= 0) {
+            return List.of();
+        }
+        long[] ids = new long[limit];
+        int[] dues = new int[limit];
+        int now = SpacedRepetitionPolicy.currentMinute();
+        int polled;
+        synchronized (wheel) {
+            wheel.advanceTo(now);
+            polled = wheel.pollReady(limit, ids, dues);
+        }
+        if (polled == 0) {
+            return List.of();
+        }
+        List<Long> subjectIds = new ArrayList<>(polled);
+        for (int i = 0; i < polled; i++) {
+            subjectIds.add(ids[i]);
+        }
+        Map<Long, SubjectSchedule> active = new HashMap<>();
+        try {
+            for (SubjectSchedule subject : studyScheduleRepository.findBySubjectIds(subjectIds)) {
+                active.put(subject.getSubjectId(), subject);
+            }
+        } catch (RuntimeException e) {
+            synchronized (wheel) {
+                for (int i = 0; i < polled; i++) {
+                    if (wheel.dueMinute(ids[i]) == TimingWheel.NOT_SCHEDULED) {
+                        wheel.schedule(ids[i], dues[i]); // Due again for the next poll
+                    }
+                }
+            }
+            throw e;
+        }
+        List<DueSubject> due = new ArrayList<>(active.size());
+        synchronized (wheel) {
+            for (int i = 0; i < polled; i++) {
+                SubjectSchedule subject = active.get(ids[i]);
+                if (subject == null) {
+                    continue; // Deleted, or its plan is no longer active; already unscheduled
+                }
+                due.add(new DueSubject(ids[i], subject.getPlanId(), toDateTime(dues[i])));
+                if (wheel.dueMinute(ids[i]) == TimingWheel.NOT_SCHEDULED) {
+                    wheel.schedule(ids[i], now + remindAgainMinutes);
+                }
+            }
+        }
+        dispatched.add(due.size());
+        dropped.add(polled - due.size());
+        return due;
+    }
+
+    /**
+     * Next due session of every subject of a plan, computed from the stored aggregates, soonest first; empty
+     * when the plan is not active
+     */
+    public List<DueSubject> planSchedule(Long planId) {
+        List<DueSubject> schedule = new ArrayList<>();
+        int now = SpacedRepetitionPolicy.currentMinute();
+        for (SubjectSchedule subject : studyScheduleRepository.findByPlanIds(List.of(planId))) {
+            schedule.add(new DueSubject(subject.getSubjectId(), planId,
+                toDateTime(policy.dueMinute(subject, now))));
+        }
+        schedule.sort((a, b) -> a.getDueAt().compareTo(b.getDueAt()));
+        return schedule;
+    }
+
+    /**
+     * Re-plans subjects with new sessions and moves the clock; never throws, since a failed run of a
+     * fixed-delay task cancels all later runs
+     */
+    void advance() {
+        try {
+            replanPending();
+            synchronized (wheel) {
+                wheel.advanceTo(SpacedRepetitionPolicy.currentMinute());
+            }
+        } catch (RuntimeException e) {
+            failedRuns.increment();
+            log.warn("Study scheduler tick failed; retrying in {}", tick, e);
+        }
+    }
+
+    /**
+     * Plans every subject of every active plan again, picking up new subjects and sessions logged on other
+     * nodes; never throws
+     */
+    void resync() {
+        try {
+            long start = System.nanoTime();
+            List<Long> planIds = studyPlanRepository.findActiveIds();
+            int subjects = 0;
+            for (int from = 0; from < planIds.size(); from += batchSize) {
+                List<Long> plans = planIds.subList(from, Math.min(planIds.size(), from + batchSize));
+                List<SubjectSchedule> batch = studyScheduleRepository.findByPlanIds(plans);
+                schedule(batch, false);
+                subjects += batch.size();
+            }
+            loaded = true;
+            resyncs.increment();
+            lastResyncMillis = (System.nanoTime() - start) / 1_000_000;
+            log.info("Study scheduler planned {} subjects of {} active plans in {} ms",
+                subjects, planIds.size(), lastResyncMillis);
+        } catch (RuntimeException e) {
+            failedRuns.increment();
+            log.warn("Study scheduler resync failed; retrying in {}", resyncInterval, e);
+        }
+    }
+
+    /**
+     * Re-reads the aggregates of subjects with new sessions, {@code batch-size} at a time; subjects no longer
+     * found are unscheduled, and on failure the batch is retried next tick
+     */
+    private void replanPending() {
+        Iterator<Long> pending = replanPending.iterator();
+        while (pending.hasNext()) {
+            List<Long> batch = new ArrayList<>(Math.min(batchSize, replanPending.size()));
+            while (pending.hasNext() && batch.size() < batchSize) {
+                batch.add(pending.next());
+                pending.remove();
+            }
+            try {
+                List<SubjectSchedule> found = studyScheduleRepository.findBySubjectIds(batch);
+                schedule(found, true);
+                if (found.size() < batch.size()) {
+                    Set<Long> missing = new HashSet<>(batch);
+                    found.forEach(subject -> missing.remove(subject.getSubjectId()));
+                    synchronized (wheel) {
+                        missing.forEach(wheel::remove);
+                    }
+                }
+                replanned.add(batch.size());
+            } catch (RuntimeException e) {
+                replanPending.addAll(batch);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Schedules subjects at their planned minute; unless {@code replan}, subjects already scheduled are only
+     * moved later, so a resync does not bring back subjects paged out and re-armed since they came due
+     */
+    private void schedule(List<SubjectSchedule> subjects, boolean replan) {
+        int now = SpacedRepetitionPolicy.currentMinute();
+        int[] dues = new int[subjects.size()];
+        for (int i = 0; i < dues.length; i++) {
+            dues[i] = policy.dueMinute(subjects.get(i), now);
+        }
+        synchronized (wheel) {
+            for (int i = 0; i < dues.length; i++) {
+                long subjectId = subjects.get(i).getSubjectId();
+                if (replan || dues[i] > wheel.dueMinute(subjectId)) {
+                    wheel.schedule(subjectId, dues[i]);
+                }
+            }
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    private static LocalDateTime toDateTime(int minute) {
+        return LocalDateTime.ofEpochSecond(minute * 60L, 0, ZoneOffset.UTC);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("loaded", loaded);
+        synchronized (wheel) {
+            stats.put("scheduledSubjects", wheel.size());
+            stats.put("dueSubjects", wheel.readyCount());
+            stats.put("memoryBytes", wheel.memoryBytes());
+        }
+        stats.put("pendingReplans", replanPending.size());
+        stats.put("replanned", replanned.sum());
+        stats.put("dispatched", dispatched.sum());
+        stats.put("dropped", dropped.sum());
+        stats.put("resyncs", resyncs.sum());
+        stats.put("lastResyncMillis", lastResyncMillis);
+        stats.put("failedRuns", failedRuns.sum());
+        return stats;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("grasp.schedule.subjects", this, s -> s.wheelCount(false))
+            .description("Subjects scheduled on this node, and those of them due now")
+            .tag("state", "scheduled").register(registry);
+        Gauge.builder("grasp.schedule.subjects", this, s -> s.wheelCount(true))
+            .tag("state", "due").register(registry);
+        FunctionCounter.builder("grasp.schedule.replans", replanned, LongAdder::sum)
+            .description("Subjects re-planned after new sessions")
+            .register(registry);
+        FunctionCounter.builder("grasp.schedule.dispatched", dispatched, LongAdder::sum)
+            .description("Due subjects paged out, and those dropped as deleted or inactive")
+            .tag("result", "dispatched").register(registry);
+        FunctionCounter.builder("grasp.schedule.dispatched", dropped, LongAdder::sum)
+            .tag("result", "dropped").register(registry);
+        FunctionCounter.builder("grasp.schedule.failures", failedRuns, LongAdder::sum)
+            .description("Failed scheduler ticks and resyncs")
+            .register(registry);
+    }
+
+    private double wheelCount(boolean due) {
+        synchronized (wheel) {
+            return due ? wheel.readyCount() : wheel.size();
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,40 @@
+package com.grasp.service.schedule;
+
+import com.grasp.service.metrics.SubjectAggregate;
+
+import java.time.LocalDate;
+
+/**
+ * What the next session of a subject of an active plan is planned from: its plan's deadline and its session
+ * aggregate, which is null until the subject's first scored session
+ */
+public class SubjectSchedule {
+
+    private Long subjectId;
+    private Long planId;
+    private LocalDate deadline;
+    private SubjectAggregate aggregate;
+
+    // Constructors
+    public SubjectSchedule() {}
+
+    public SubjectSchedule(Long subjectId, Long planId, LocalDate deadline, SubjectAggregate aggregate) {
+        this.subjectId = subjectId;
+        this.planId = planId;
+        this.deadline = deadline;
+        this.aggregate = aggregate;
+    }
+
+    // Getters and Setters
+    public Long getSubjectId() { return subjectId; }
+    public void setSubjectId(Long subjectId) { this.subjectId = subjectId; }
+
+    public Long getPlanId() { return planId; }
+    public void setPlanId(Long planId) { this.planId = planId; }
+
+    public LocalDate getDeadline() { return deadline; }
+    public void setDeadline(LocalDate deadline) { this.deadline = deadline; }
+
+    public SubjectAggregate getAggregate() { return aggregate; }
+    public void setAggregate(SubjectAggregate aggregate) { this.aggregate = aggregate; }
+}
@@ -0,0 +1,318 @@
+package com.grasp.service.schedule;
+
+import java.util.Arrays;
+
+/**
+ * Hierarchical timing wheel of subject ids keyed by due minute (minutes since the epoch). Scheduling,
+ * rescheduling and removing a subject take constant time; advancing the clock costs a constant per minute
+ * plus each entry moving down at most once per level, and due entries are paged out in the order they
+ * became due.
+ *
+ * Entries live in parallel primitive arrays linked into doubly linked lists, one per wheel slot plus one of
+ * due entries, and are found by id through an open-addressing table, so an entry takes about 34 bytes and
+ * nothing is allocated per operation. Six levels of 64 slots cover every non-negative int minute: an entry
+ * sits on the level of the highest 6-bit digit in which its due minute differs from the clock, in the slot
+ * of that digit, and moves down a level when the clock enters that slot's period.
+ *
+ * Not thread safe.
+ */
+public final class TimingWheel {
+
+    private static final int BITS = 6;
+    private static final int SLOTS = 1 << BITS;
+    private static final int LEVELS = 6;
+    private static final int READY = LEVELS * SLOTS; // list of due entries, in the order they became due
+    private static final int NONE = -1;
+
+    /** Returned by {@link #dueMinute} for an id that is not scheduled */
+    public static final int NOT_SCHEDULED = -1;
+
+    private final int[] heads = new int[READY + 1];
+    private int readyTail = NONE;
+    private int readyCount;
+
+    // Entry columns; prev is -(list + 1) for the head of a list, free entries are chained through next
+    private long[] ids;
+    private int[] dues;
+    private int[] next;
+    private int[] prev;
+    private int allocated;
+    private int freeHead = NONE;
+    private int size;
+
+    // Entry + 1 by id, 0 for an empty slot; linear probing, at most half full
+    private int[] table;
+
+    private int now;
+
+    public TimingWheel(int expectedEntries, int nowMinute) {
+        if (nowMinute < 0) {
+            throw new IllegalArgumentException("nowMinute must not be negative");
+        }
+        int capacity = Math.max(16, expectedEntries);
+        ids = new long[capacity];
+        dues = new int[capacity];
+        next = new int[capacity];
+        prev = new int[capacity];
+        table = new int[Integer.highestOneBit(Math.max(32, capacity * 2 - 1)) << 1];
+        Arrays.fill(heads, NONE);
+        now = nowMinute;
+    }
+
+    /**
+     * Schedules {@code id} at {@code dueMinute}, replacing its previous due minute if it had one. Minutes at
+     * or before the clock are due at once.
+     */
+    public void schedule(long id, int dueMinute) {
+        int slot = find(id);
+        int entry;
+        if (slot >= 0) {
+            entry = table[slot] - 1;
+            unlink(entry);
+        } else {
+            entry = allocate(id);
+            table[~slot] = entry + 1;
+            size++;
+            if (size > table.length >> 1) {
+                rehash(table.length << 1);
+            }
+        }
+        dues[entry] = Math.max(0, dueMinute);
+        place(entry);
+    }
+
+    /**
+     * Unschedules {@code id}
+     *
+     * @return whether it was scheduled
+     */
+    public boolean remove(long id) {
+        int slot = find(id);
+        if (slot < 0) {
+            return false;
+        }
+        int entry = table[slot] - 1;
+        unlink(entry);
+        release(slot, entry);
+        return true;
+    }
+
+    /**
+     * Due minute of {@code id}, or {@link #NOT_SCHEDULED}
+     */
+    public int dueMinute(long id) {
+        int slot = find(id);
+        return slot >= 0 ? dues[table[slot] - 1] : NOT_SCHEDULED;
+    }
+
+    /**
+     * Moves the clock forward to {@code minute}; entries due by then become ready. Earlier minutes are ignored.
+     */
+    public void advanceTo(int minute) {
+        while (now < minute) {
+            now++;
+            int level = Math.min(LEVELS - 1, Integer.numberOfTrailingZeros(now) / BITS);
+            for (; level > 0; level--) {
+                cascade(level * SLOTS + ((now >>> (level * BITS)) & (SLOTS - 1)));
+            }
+            expire(now & (SLOTS - 1));
+        }
+    }
+
+    /**
+     * Unschedules up to {@code max} due entries, in the order they became due, into {@code ids} and {@code dueMinutes}
+     *
+     * @return number of entries written
+     */
+    public int pollReady(int max, long[] ids, int[] dueMinutes) {
+        int limit = Math.min(max, Math.min(ids.length, dueMinutes.length));
+        int polled = 0;
+        while (polled < limit && heads[READY] != NONE) {
+            int entry = heads[READY];
+            ids[polled] = this.ids[entry];
+            dueMinutes[polled] = dues[entry];
+            polled++;
+            unlink(entry);
+            release(findEntry(entry), entry);
+        }
+        return polled;
+    }
+
+    public int size() { return size; }
+
+    public int readyCount() { return readyCount; }
+
+    public int nowMinute() { return now; }
+
+    /**
+     * Bytes held by the entry columns, the id table and the list heads, unused capacity included
+     */
+    public long memoryBytes() {
+        return (long) ids.length * (Long.BYTES + 3 * Integer.BYTES) + (long) table.length * Integer.BYTES
+            + (long) heads.length * Integer.BYTES;
+    }
+
+    // Entry is due iff its minute is at or before the clock, so that is also how list membership is known
+    private void place(int entry) {
+        int due = dues[entry];
+        if (due <= now) {
+            append(entry);
+            return;
+        }
+        int level = (31 - Integer.numberOfLeadingZeros(due ^ now)) / BITS;
+        push(level * SLOTS + ((due >>> (level * BITS)) & (SLOTS - 1)), entry);
+    }
+
+    private void cascade(int list) {
+        int entry = heads[list];
+        heads[list] = NONE;
+        while (entry != NONE) {
+            int following = next[entry];
+            place(entry);
+            entry = following;
+        }
+    }
+
+    private void expire(int list) {
+        int entry = heads[list];
+        heads[list] = NONE;
+        while (entry != NONE) {
+            int following = next[entry];
+            append(entry);
+            entry = following;
+        }
+    }
+
+    private void push(int list, int entry) {
+        int head = heads[list];
+        next[entry] = head;
+        prev[entry] = -(list + 1);
+        if (head != NONE) {
+            prev[head] = entry;
+        }
+        heads[list] = entry;
+    }
+
+    private void append(int entry) {
+        next[entry] = NONE;
+        if (readyTail == NONE) {
+            prev[entry] = -(READY + 1);
+            heads[READY] = entry;
+        } else {
+            prev[entry] = readyTail;
+            next[readyTail] = entry;
+        }
+        readyTail = entry;
+        readyCount++;
+    }
+
+    private void unlink(int entry) {
+        int before = prev[entry];
+        int after = next[entry];
+        if (before < 0) {
+            heads[-before - 1] = after;
+        } else {
+            next[before] = after;
+        }
+        if (after != NONE) {
+            prev[after] = before;
+        }
+        if (dues[entry] <= now) {
+            if (entry == readyTail) {
+                readyTail = before < 0 ? NONE : before;
+            }
+            readyCount--;
+        }
+    }
+
+    private int allocate(long id) {
+        int entry;
+        if (freeHead != NONE) {
+            entry = freeHead;
+            freeHead = next[entry];
+        } else {
+            if (allocated == ids.length) {
+                int capacity = ids.length + (ids.length >> 1);
+                ids = Arrays.copyOf(ids, capacity);
+                dues = Arrays.copyOf(dues, capacity);
+                next = Arrays.copyOf(next, capacity);
+                prev = Arrays.copyOf(prev, capacity);
+            }
+            entry = allocated++;
+        }
+        ids[entry] = id;
+        return entry;
+    }
+
+    private void release(int slot, int entry) {
+        deleteSlot(slot);
+        next[entry] = freeHead;
+        freeHead = entry;
+        size--;
+    }
+
+    /**
+     * Table slot holding {@code id}, or the complement of the empty slot where it would go
+     */
+    private int find(long id) {
+        int mask = table.length - 1;
+        int slot = hash(id) & mask;
+        int stored;
+        while ((stored = table[slot]) != 0) {
+            if (ids[stored - 1] == id) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return ~slot;
+    }
+
+    private int findEntry(int entry) {
+        int mask = table.length - 1;
+        int slot = hash(ids[entry]) & mask;
+        while (table[slot] != entry + 1) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    // Backward-shift deletion: moves later entries of the probe run into the hole unless that skips their home
+    private void deleteSlot(int hole) {
+        int mask = table.length - 1;
+        int slot = hole;
+        while (true) {
+            slot = (slot + 1) & mask;
+            int stored = table[slot];
+            if (stored == 0) {
+                break;
+            }
+            int home = hash(ids[stored - 1]) & mask;
+            boolean staysPut = hole <= slot ? hole < home && home <= slot : hole < home || home <= slot;
+            if (!staysPut) {
+                table[hole] = stored;
+                hole = slot;
+            }
+        }
+        table[hole] = 0;
+    }
+
+    private void rehash(int length) {
+        int[] old = table;
+        table = new int[length];
+        int mask = length - 1;
+        for (int stored : old) {
+            if (stored != 0) {
+                int slot = hash(ids[stored - 1]) & mask;
+                while (table[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                table[slot] = stored;
+            }
+        }
+    }
+
+    private static int hash(long id) {
+        long h = id * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,195 @@
+package com.grasp.service.scoring;
+
+import com.grasp.model.ScoringPartition;
+import com.grasp.repository.ScoringRunRepository;
+import com.grasp.repository.StudyPlanRepository;
+import com.grasp.service.RecommendationEngineService;
+import com.grasp.service.RecommendationStore;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Worker side of distributed scoring. When enabled, each of {@code threads} loops claims a partition from
+ * {@code scoring_partitions}, scores the active plans in it and stores their PENDING recommendations, until
+ * no open partition is left; then it polls again after {@code poll-interval}. Any number of nodes (or JVMs
+ * on one machine) can run workers against the same database; they coordinate only through the work table.
+ *
+ * A claim is a lease held by one thread, recorded as {@code <worker id>-<thread index>} so threads of one
+ * worker cannot renew or complete each other's partitions. The thread renews it while it scores, and a
+ * partition whose holder died is claimed again once the lease has run out. A worker that finds its lease taken over stops scoring that partition.
+ * Rescoring a plan is idempotent, so a partition scored twice costs time but never corrupts data.
+ */
+@Component
+public class ScoringWorker implements MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(ScoringWorker.class);
+
+    private final ScoringRunRepository scoringRunRepository;
+    private final StudyPlanRepository studyPlanRepository;
+    private final RecommendationEngineService recommendationEngineService;
+    private final RecommendationStore recommendationStore;
+    private final ScheduledExecutorService scheduler;
+    private final boolean enabled;
+    private final int threads;
+    private final Duration pollInterval;
+    private final Duration lease;
+    private final String workerId;
+
+    private final LongAdder partitionsCompleted = new LongAdder();
+    private final LongAdder partitionsLost = new LongAdder();
+    private final LongAdder plansScored = new LongAdder();
+    private final LongAdder plansFailed = new LongAdder();
+
+    public ScoringWorker(ScoringRunRepository scoringRunRepository,
+                         StudyPlanRepository studyPlanRepository,
+                         RecommendationEngineService recommendationEngineService,
+                         RecommendationStore recommendationStore,
+                         @Qualifier("scoringWorkerScheduler") ScheduledExecutorService scheduler,
+                         @Value("${grasp.scoring.worker.enabled:false}") boolean enabled,
+                         @Value("${grasp.scoring.worker.threads:2}") int threads,
+                         @Value("${grasp.scoring.worker.poll-interval:5s}") Duration pollInterval,
+                         @Value("${grasp.scoring.worker.lease:2m}") Duration lease,
+                         @Value("${grasp.scoring.worker.id:}") String workerId) {
+        this.scoringRunRepository = scoringRunRepository;
+        this.studyPlanRepository = studyPlanRepository;
+        this.recommendationEngineService = recommendationEngineService;
+        this.recommendationStore = recommendationStore;
+        this.scheduler = scheduler;
+        this.enabled = enabled;
+        this.threads = Math.max(1, threads);
+        this.pollInterval = pollInterval;
+        this.lease = lease;
+        this.workerId = workerId.isBlank() ? defaultWorkerId() : workerId;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        log.info("Scoring worker {} started with {} threads", workerId, threads);
+        try {
+            for (int i = 0; i < threads; i++) {
+                String holder = workerId + "-" + i;
+                scheduler.scheduleWithFixedDelay(() -> drain(holder), 0, pollInterval.toMillis(),
+                    TimeUnit.MILLISECONDS);
+            }
+        } catch (RejectedExecutionException e) {
+            // Shutting down
+        }
+    }
+
+    /**
+     * Scores partitions until none can be claimed. Never throws, since a failed run of a fixed-delay task
+     * cancels all later runs.
+     */
+    private void drain(String holder) {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                Optional<ScoringPartition> claimed = scoringRunRepository.claim(holder, lease);
+                if (claimed.isEmpty()) {
+                    return;
+                }
+                score(claimed.get(), holder);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Scoring worker {} failed; retrying in {}", holder, pollInterval, e);
+        }
+    }
+
+    private void score(ScoringPartition partition, String holder) {
+        List<Long> planIds =
+            studyPlanRepository.findActiveIdsInUserPartition(partition.getPartitionNo(), partition.getPartitions());
+        long renewEveryNanos = lease.toNanos() / 3;
+        long renewAt = System.nanoTime() + renewEveryNanos;
+        int scored = 0;
+        int failed = 0;
+        for (Long planId : planIds) {
+            if (System.nanoTime() - renewAt >= 0) {
+                if (!scoringRunRepository.renew(partition, holder, lease)) {
+                    lost(partition, holder);
+                    return;
+                }
+                renewAt = System.nanoTime() + renewEveryNanos;
+            }
+            try {
+                recommendationStore.regenerate(planId, recommendationEngineService::generateRecommendationsForPlan);
+                scored++;
+                plansScored.increment();
+            } catch (RuntimeException e) {
+                failed++;
+                plansFailed.increment();
+                log.warn("Scoring failed for plan {} in run {}", planId, partition.getRunId(), e);
+            }
+        }
+        if (scoringRunRepository.complete(partition, holder, scored, failed)) {
+            partitionsCompleted.increment();
+            log.debug("Run {} partition {}: {} plans scored, {} failed",
+                partition.getRunId(), partition.getPartitionNo(), scored, failed);
+        } else {
+            lost(partition, holder);
+        }
+    }
+
+    private void lost(ScoringPartition partition, String holder) {
+        partitionsLost.increment();
+        log.warn("Scoring worker {} lost its lease on run {} partition {}; raise grasp.scoring.worker.lease " +
+            "if partitions take longer than that", holder, partition.getRunId(), partition.getPartitionNo());
+    }
+
+    public Map<String, Object> stats() {
+        return Map.of(
+            "enabled", enabled,
+            "workerId", workerId,
+            "threads", threads,
+            "partitionsCompleted", partitionsCompleted.sum(),
+            "partitionsLost", partitionsLost.sum(),
+            "plansScored", plansScored.sum(),
+            "plansFailed", plansFailed.sum()
+        );
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("grasp.scoring.partitions", partitionsCompleted, LongAdder::sum)
+            .tag("outcome", "completed").register(registry);
+        FunctionCounter.builder("grasp.scoring.partitions", partitionsLost, LongAdder::sum)
+            .tag("outcome", "lost").register(registry);
+        FunctionCounter.builder("grasp.scoring.plans", plansScored, LongAdder::sum)
+            .tag("outcome", "scored").register(registry);
+        FunctionCounter.builder("grasp.scoring.plans", plansFailed, LongAdder::sum)
+            .tag("outcome", "failed").register(registry);
+    }
+
+    /**
+     * Host name and process id, so several JVMs on one machine get distinct ids
+     */
+    private static String defaultWorkerId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "unknown";
+        }
+        return host + ":" + ProcessHandle.current().pid();
+    }
+}
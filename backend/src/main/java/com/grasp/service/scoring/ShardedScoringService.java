@@ -0,0 +1,117 @@
+package com.grasp.service.scoring;
+
+import com.grasp.model.ScoringPartition;
+import com.grasp.repository.ScoringRunRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * Coordinator side of distributed scoring: starts runs and reports their progress. Starting a run only
+ * writes its partitions to the work table; the scoring itself is done by whichever {@link ScoringWorker}s
+ * are running, on this node or others.
+ *
+ * Use many more partitions than workers, so a partition with unusually many plans does not leave the
+ * other workers idle at the end of the run.
+ */
+@Service
+public class ShardedScoringService {
+
+    public static final int MAX_PARTITIONS = 4096;
+
+    private final ScoringRunRepository scoringRunRepository;
+    private final int defaultPartitions;
+
+    public ShardedScoringService(ScoringRunRepository scoringRunRepository,
+                                 @Value("${grasp.scoring.partitions:64}") int defaultPartitions) {
+        this.scoringRunRepository = scoringRunRepository;
+        this.defaultPartitions = defaultPartitions;
+    }
+
+    /**
+     * Opens a run over all active plans split into {@code partitions} user-hash partitions
+     *
+     * @param partitions null for the configured default
+     * @return the new run, as {@link #describeRun} reports it; read in the same transaction on the primary,
+     *         since a replica may not have the run yet
+     */
+    @Transactional
+    public Map<String, Object> startRun(Integer partitions) {
+        int count = partitions != null ? partitions : defaultPartitions;
+        if (count < 1 || count > MAX_PARTITIONS) {
+            throw new IllegalArgumentException("partitions must be between 1 and " + MAX_PARTITIONS);
+        }
+        long runId = scoringRunRepository.createRun(count);
+        return describeRun(runId).orElseThrow();
+    }
+
+    /**
+     * Progress of a run: partitions by status, plans scored, and per worker the partitions and plans it
+     * completed. Elapsed time runs from the first claim to the last completion (or now, while running).
+     */
+    @Transactional(readOnly = true)
+    public Optional<Map<String, Object>> describeRun(long runId) {
+        List<ScoringPartition> partitions = scoringRunRepository.findPartitions(runId);
+        if (partitions.isEmpty()) {
+            return Optional.empty();
+        }
+        Map<String, Integer> byStatus = new LinkedHashMap<>();
+        for (ScoringPartition.PartitionStatus status : ScoringPartition.PartitionStatus.values()) {
+            byStatus.put(status.name(), 0);
+        }
+        Map<String, Map<String, Integer>> workers = new TreeMap<>();
+        long plansScored = 0;
+        long failedPlans = 0;
+        int retried = 0;
+        LocalDateTime firstClaim = null;
+        LocalDateTime lastCompletion = null;
+        for (ScoringPartition partition : partitions) {
+            byStatus.merge(partition.getStatus().name(), 1, Integer::sum);
+            if (partition.getAttempts() > 1) {
+                retried++;
+            }
+            if (partition.getClaimedAt() != null && (firstClaim == null || partition.getClaimedAt().isBefore(firstClaim))) {
+                firstClaim = partition.getClaimedAt();
+            }
+            if (partition.getStatus() != ScoringPartition.PartitionStatus.DONE) {
+                continue;
+            }
+            int scored = partition.getPlansScored() != null ? partition.getPlansScored() : 0;
+            int failed = partition.getFailedPlans() != null ? partition.getFailedPlans() : 0;
+            plansScored += scored;
+            failedPlans += failed;
+            if (lastCompletion == null || partition.getCompletedAt().isAfter(lastCompletion)) {
+                lastCompletion = partition.getCompletedAt();
+            }
+            Map<String, Integer> worker = workers.computeIfAbsent(partition.getClaimedBy(), id -> new LinkedHashMap<>());
+            worker.merge("partitions", 1, Integer::sum);
+            worker.merge("plansScored", scored, Integer::sum);
+        }
+
+        boolean done = byStatus.get(ScoringPartition.PartitionStatus.DONE.name()) == partitions.size();
+        Map<String, Object> run = new LinkedHashMap<>();
+        run.put("runId", runId);
+        run.put("partitions", partitions.size());
+        run.put("status", done ? "DONE" : firstClaim == null ? "PENDING" : "RUNNING");
+        run.put("partitionsByStatus", byStatus);
+        run.put("retriedPartitions", retried);
+        run.put("plansScored", plansScored);
+        run.put("failedPlans", failedPlans);
+        if (firstClaim != null) {
+            LocalDateTime end = done ? lastCompletion : LocalDateTime.now();
+            long elapsedMillis = Math.max(0, Duration.between(firstClaim, end).toMillis());
+            run.put("elapsedMillis", elapsedMillis);
+            run.put("plansPerSecond", elapsedMillis > 0 ? Math.round(plansScored * 10000.0 / elapsedMillis) / 10.0 : 0.0);
+        }
+        run.put("workers", workers);
+        return Optional.of(run);
+    }
+}
@@ -0,0 +1,39 @@
+package com.grasp.dto;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LogSessionRequestTest {
+
+    private final Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+    @Test
+    void completionWithTwoDecimalsIsValid() {
+        assertTrue(validator.validate(request(33.33)).isEmpty());
+        assertTrue(validator.validate(request(100.0)).isEmpty());
+    }
+
+    @Test
+    void completionBeyondTheColumnScaleIsRejected() {
+        Set<ConstraintViolation<LogSessionRequest>> violations = validator.validate(request(33.333));
+        assertEquals(1, violations.size());
+        assertEquals("completionPercent", violations.iterator().next().getPropertyPath().toString());
+    }
+
+    private static LogSessionRequest request(double completionPercent) {
+        LogSessionRequest request = new LogSessionRequest();
+        request.setPlanId(1L);
+        request.setSubjectId(2L);
+        request.setDurationMinutes(30);
+        request.setCompletionPercent(completionPercent);
+        request.setPerformanceScore(7);
+        return request;
+    }
+}
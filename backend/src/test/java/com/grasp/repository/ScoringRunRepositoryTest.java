@@ -0,0 +1,81 @@
+package com.grasp.repository;
+
+import com.grasp.model.ScoringPartition;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The statements behind claiming, renewing and completing a partition, with the database replaced by a
+ * JdbcTemplate that records them: what a worker may claim, and that only the current holder may write
+ */
+class ScoringRunRepositoryTest {
+
+    private final List<String> statements = new ArrayList<>();
+    private final List<List<Object>> arguments = new ArrayList<>();
+    private int updatedRows;
+
+    private final ScoringRunRepository repository = new ScoringRunRepository(new JdbcTemplate() {
+        @Override
+        public <T> List<T> query(String sql, RowMapper<T> rowMapper, Object... args) {
+            record(sql, args);
+            return List.of();
+        }
+
+        @Override
+        public int update(String sql, Object... args) {
+            record(sql, args);
+            return updatedRows;
+        }
+    });
+
+    @Test
+    void claimSkipsRowsOtherWorkersAreClaimingAndTakesExpiredLeases() {
+        assertTrue(repository.claim("node-0", Duration.ofMinutes(2)).isEmpty());
+        String sql = statements.get(0);
+        assertTrue(sql.contains("LIMIT 1 FOR UPDATE SKIP LOCKED"), sql);
+        assertTrue(sql.contains(
+            "WHERE status = 'PENDING' OR (status = 'RUNNING' AND lease_until < CURRENT_TIMESTAMP)"), sql);
+        assertTrue(sql.contains("ORDER BY run_id, partition_no"), sql);
+        assertTrue(sql.contains("attempts = attempts + 1"), sql);
+        assertEquals(List.of("node-0", 120_000L), arguments.get(0));
+    }
+
+    @Test
+    void onlyTheHolderCanRenewOrComplete() {
+        ScoringPartition partition = new ScoringPartition();
+        partition.setRunId(7L);
+        partition.setPartitionNo(3);
+
+        updatedRows = 1;
+        assertTrue(repository.renew(partition, "node-0", Duration.ofSeconds(30)));
+        assertTrue(repository.complete(partition, "node-0", 12, 1));
+        // Reclaimed by another worker: the guarded update matches no row
+        updatedRows = 0;
+        assertFalse(repository.renew(partition, "node-0", Duration.ofSeconds(30)));
+        assertFalse(repository.complete(partition, "node-0", 12, 1));
+
+        for (String sql : statements) {
+            assertTrue(sql.contains(
+                "WHERE run_id = ? AND partition_no = ? AND claimed_by = ? AND status = 'RUNNING'"), sql);
+        }
+        assertTrue(statements.get(1).contains("status = 'DONE'"));
+        assertTrue(statements.get(1).contains("lease_until = NULL"));
+        assertEquals(List.of(30_000L, 7L, 3, "node-0"), arguments.get(0));
+        assertEquals(List.of(12, 1, 7L, 3, "node-0"), arguments.get(1));
+    }
+
+    private void record(String sql, Object[] args) {
+        statements.add(sql);
+        arguments.add(Arrays.asList(args));
+    }
+}
@@ -0,0 +1,67 @@
+package com.grasp.security;
+
+import com.grasp.model.User;
+import io.jsonwebtoken.JwtException;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tokens issued by {@link JwtService} against its own verification
+ */
+class JwtServiceTest {
+
+    private static final String SECRET = "grasp-jwt-secret-key-for-unit-tests-only";
+
+    private final JwtService jwtService = new JwtService(SECRET, 60_000, List.of(" Admin@Example.com ", ""));
+
+    @Test
+    void issuedTokenVerifiesToItsUser() {
+        JwtService.IssuedToken issued = jwtService.issue(user(42L, "student@example.com"));
+        AuthenticatedUser user = jwtService.verify(issued.getToken());
+        assertEquals(42L, user.getId());
+        assertEquals("student@example.com", user.getEmail());
+        assertEquals(issued.getExpiresAt().toEpochMilli(), user.getExpiresAtMillis());
+        assertFalse(user.isAdmin());
+    }
+
+    @Test
+    void adminEmailsMatchIgnoringCase() {
+        AuthenticatedUser user = jwtService.verify(jwtService.issue(user(1L, "admin@example.com")).getToken());
+        assertTrue(user.isAdmin());
+    }
+
+    @Test
+    void tamperedTokenIsRejected() {
+        String token = jwtService.issue(user(42L, "student@example.com")).getToken();
+        int signature = token.lastIndexOf('.') + 1;
+        String tampered = token.substring(0, signature)
+            + (token.charAt(signature) == 'A' ? 'B' : 'A') + token.substring(signature + 1);
+        assertThrows(JwtException.class, () -> jwtService.verify(tampered));
+    }
+
+    @Test
+    void tokenOfAnotherKeyIsRejected() {
+        JwtService other = new JwtService(SECRET + "-other", 60_000, List.of());
+        String token = other.issue(user(42L, "student@example.com")).getToken();
+        assertThrows(JwtException.class, () -> jwtService.verify(token));
+    }
+
+    @Test
+    void expiredTokenIsRejected() {
+        JwtService expired = new JwtService(SECRET, -60_000, List.of());
+        String token = expired.issue(user(42L, "student@example.com")).getToken();
+        assertThrows(JwtException.class, () -> jwtService.verify(token));
+    }
+
+    private static User user(long id, String email) {
+        User user = new User(email, "hash", "First", "Last");
+        user.setId(id);
+        return user;
+    }
+}
@@ -0,0 +1,108 @@
+package com.grasp.security;
+
+import io.jsonwebtoken.JwtException;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Expiry and size bounds of the cache, with a fake verifier and clock in place of {@link JwtService}
+ */
+class VerifiedTokenCacheTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000L);
+    private final Map<String, Long> expiries = new HashMap<>();
+    private final Map<String, Integer> verifications = new HashMap<>();
+
+    @Test
+    void verifiedTokenIsServedFromTheCacheUntilItExpires() {
+        VerifiedTokenCache cache = cache(10);
+        expiries.put("a", now.get() + 1000);
+        AuthenticatedUser first = cache.verify("a");
+        assertSame(first, cache.verify("a"));
+        assertEquals(1, verifications.get("a").intValue());
+
+        now.addAndGet(999);
+        assertSame(first, cache.verify("a"));
+        assertEquals(1, verifications.get("a").intValue());
+
+        // At the expiry the token is verified again, which a real verifier would reject
+        now.addAndGet(1);
+        expiries.put("a", now.get() - 1);
+        assertThrows(JwtException.class, () -> cache.verify("a"));
+        assertEquals(2, verifications.get("a").intValue());
+        assertEquals(0, cache.size());
+        assertEquals(1L, cache.stats().get("expirations"));
+        assertEquals(1L, cache.stats().get("rejected"));
+    }
+
+    @Test
+    void rejectedTokensAreNotCached() {
+        VerifiedTokenCache cache = cache(10);
+        assertThrows(JwtException.class, () -> cache.verify("unknown"));
+        assertThrows(JwtException.class, () -> cache.verify("unknown"));
+        assertEquals(2, verifications.get("unknown").intValue());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void overflowDropsExpiredEntriesFirst() {
+        VerifiedTokenCache cache = cache(10);
+        for (int i = 0; i < 10; i++) {
+            expiries.put("short" + i, now.get() + 10);
+            cache.verify("short" + i);
+        }
+        now.addAndGet(10);
+        expiries.put("long", now.get() + 1000);
+        cache.verify("long");
+        assertEquals(1, cache.size());
+        assertEquals(10L, cache.stats().get("expirations"));
+        assertEquals(0L, cache.stats().get("sizeEvictions"));
+    }
+
+    @Test
+    void overflowDropsTheTokensExpiringSoonest() {
+        VerifiedTokenCache cache = cache(10);
+        for (int i = 10; i >= 0; i--) {
+            expiries.put("t" + i, now.get() + 100 + i);
+            cache.verify("t" + i);
+        }
+        // Down to 90% of the bound: t0 and t1 expire soonest
+        assertEquals(9, cache.size());
+        assertEquals(2L, cache.stats().get("sizeEvictions"));
+        for (int i = 2; i <= 10; i++) {
+            cache.verify("t" + i);
+            assertEquals(1, verifications.get("t" + i).intValue(), "t" + i);
+        }
+        cache.verify("t0");
+        assertEquals(2, verifications.get("t0").intValue());
+    }
+
+    @Test
+    void sizeStaysBoundedUnderManyTokens() {
+        VerifiedTokenCache cache = cache(100);
+        for (int i = 0; i < 10_000; i++) {
+            expiries.put("t" + i, now.get() + 1 + i % 500);
+            cache.verify("t" + i);
+            assertTrue(cache.size() <= 100);
+        }
+    }
+
+    private VerifiedTokenCache cache(int maxSize) {
+        return new VerifiedTokenCache(token -> {
+            verifications.merge(token, 1, Integer::sum);
+            Long expiresAt = expiries.get(token);
+            if (expiresAt == null || expiresAt <= now.get()) {
+                throw new JwtException("expired or unknown");
+            }
+            return new AuthenticatedUser(1L, token + "@example.com", expiresAt, false);
+        }, maxSize, now::get);
+    }
+}
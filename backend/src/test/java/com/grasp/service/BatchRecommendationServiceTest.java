@@ -0,0 +1,82 @@
+package com.grasp.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.grasp.dto.BatchRecommendationResult;
+import com.grasp.model.Recommendation;
+import com.grasp.model.StudyPlan;
+import com.grasp.model.StudySession;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * One result line per input line, on a real pool, with the engine replaced by one that fails for chosen
+ * plans: exceptions and errors thrown while scoring become error lines instead of lost results
+ */
+class BatchRecommendationServiceTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @Test
+    void failingPlansAnswerTheirLinesAndTheBatchFinishes() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            BatchRecommendationService service = new BatchRecommendationService(engine(), executor, objectMapper, 2);
+            StringBuilder input = new StringBuilder();
+            for (long planId = 1; planId <= 6; planId++) {
+                input.append("{\"id\":\"p").append(planId).append("\",\"plan\":{\"id\":").append(planId)
+                    .append("},\"sessions\":[]}\n");
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            long processed = service.process(
+                new ByteArrayInputStream(input.toString().getBytes(StandardCharsets.UTF_8)), out, true);
+
+            assertEquals(6L, processed);
+            List<BatchRecommendationResult> results = new ArrayList<>();
+            for (String line : out.toString(StandardCharsets.UTF_8).split("\n")) {
+                results.add(objectMapper.readValue(line, BatchRecommendationResult.class));
+            }
+            results.sort((a, b) -> Long.compare(a.getIndex(), b.getIndex()));
+            assertEquals(6, results.size());
+            for (BatchRecommendationResult result : results) {
+                long planId = result.getPlanId();
+                assertEquals(planId - 1, result.getIndex());
+                if (planId == 2) {
+                    assertEquals("IllegalStateException: plan 2", result.getError());
+                } else if (planId == 4) {
+                    assertEquals("StackOverflowError: plan 4", result.getError());
+                } else {
+                    assertNull(result.getError());
+                    assertTrue(result.getRecommendations().isEmpty());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static RecommendationEngineService engine() {
+        return new RecommendationEngineService(null, null, null, null, null, null, null, null) {
+            @Override
+            public List<Recommendation> generateRecommendations(List<StudySession> sessions, StudyPlan plan) {
+                if (plan.getId() == 2) {
+                    throw new IllegalStateException("plan 2");
+                }
+                if (plan.getId() == 4) {
+                    throw new StackOverflowError("plan 4");
+                }
+                return List.of();
+            }
+        };
+    }
+}
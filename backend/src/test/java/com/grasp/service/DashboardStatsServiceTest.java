@@ -0,0 +1,105 @@
+package com.grasp.service;
+
+import com.grasp.dto.PlanDashboard;
+import com.grasp.model.StudyPlan;
+import com.grasp.model.StudySession;
+import com.grasp.repository.PlanSessionStatsRepository.PlanDashboardRows;
+import com.grasp.service.metrics.PlanSessionStats;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Study days and streaks on the dashboard, from statistics built session by session as logging builds them,
+ * with the dashboard row replaced by a plan and its statistics
+ */
+class DashboardStatsServiceTest {
+
+    private static final Long PLAN = 1L;
+    private static final LocalDate TODAY = LocalDate.of(2024, 3, 10);
+
+    @Test
+    void gapEndsTheStreakButNotTheLongest() {
+        PlanSessionStats stats = stats(TODAY.minusDays(6), TODAY.minusDays(5), TODAY.minusDays(4),
+            TODAY.minusDays(1), TODAY);
+        PlanDashboard dashboard = dashboard(stats);
+        assertEquals(5, dashboard.getStudyDays());
+        assertEquals(2, dashboard.getCurrentStreakDays());
+        assertEquals(3, dashboard.getLongestStreakDays());
+    }
+
+    @Test
+    void streakEndingYesterdayIsStillCurrent() {
+        PlanSessionStats stats = stats(TODAY.minusDays(2), TODAY.minusDays(1));
+        assertEquals(2, dashboard(stats).getCurrentStreakDays());
+        assertEquals(2, DashboardStatsService.toDashboard(rows(stats), TODAY.minusDays(1)).getCurrentStreakDays());
+        // Two days after the last study day it has lapsed, though the longest streak remains
+        PlanDashboard later = DashboardStatsService.toDashboard(rows(stats), TODAY.plusDays(1));
+        assertEquals(0, later.getCurrentStreakDays());
+        assertEquals(2, later.getLongestStreakDays());
+    }
+
+    @Test
+    void sessionsOnTheSameDayCountOnce() {
+        PlanSessionStats stats = stats(TODAY.minusDays(1), TODAY, TODAY);
+        PlanDashboard dashboard = dashboard(stats);
+        assertEquals(3L, dashboard.getSessionCount());
+        assertEquals(2, dashboard.getStudyDays());
+        assertEquals(2, dashboard.getCurrentStreakDays());
+    }
+
+    @Test
+    void sessionBeforeTheLastStudyDayLeavesTheStreaksToARecount() {
+        PlanSessionStats stats = stats(TODAY);
+        assertFalse(stats.add(session(TODAY.minusDays(1))));
+        assertEquals(2L, stats.getSessionCount());
+        assertEquals(1, stats.getStudyDays());
+    }
+
+    @Test
+    void planWithoutSessionsHasNoStreak() {
+        PlanDashboard dashboard = dashboard(new PlanSessionStats(PLAN));
+        assertEquals(0L, dashboard.getSessionCount());
+        assertEquals(0, dashboard.getStudyDays());
+        assertEquals(0, dashboard.getCurrentStreakDays());
+        assertEquals(0, dashboard.getLongestStreakDays());
+        assertNull(dashboard.getAverageScore());
+        assertNull(dashboard.getLastSessionAt());
+        assertNull(dashboard.getProgressPercent());
+    }
+
+    private static PlanDashboard dashboard(PlanSessionStats stats) {
+        return DashboardStatsService.toDashboard(rows(stats), TODAY);
+    }
+
+    /** Folds one session per day, in the order given, as logging does */
+    private static PlanSessionStats stats(LocalDate... days) {
+        PlanSessionStats stats = new PlanSessionStats(PLAN);
+        for (LocalDate day : days) {
+            stats.add(session(day));
+        }
+        return stats;
+    }
+
+    private static StudySession session(LocalDate day) {
+        StudySession session = new StudySession(PLAN, 10L, 30, 50.0, 7, null);
+        session.setCreatedAt(day.atTime(18, 0));
+        return session;
+    }
+
+    private static PlanDashboardRows rows(PlanSessionStats stats) {
+        StudyPlan plan = new StudyPlan(5L, "Finals", null, TODAY.plusDays(30));
+        plan.setId(PLAN);
+        return new PlanDashboardRows() {
+            @Override
+            public StudyPlan getPlan() { return plan; }
+
+            @Override
+            public PlanSessionStats getStats() { return stats; }
+        };
+    }
+}
@@ -0,0 +1,105 @@
+package com.grasp.service;
+
+import com.grasp.model.Recommendation;
+import com.grasp.repository.StudyPlanRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * When a read is served from memory, when it looks the plan's data version up, and when it computes again,
+ * with the database replaced by a data version per plan
+ */
+class RecommendationCacheTest {
+
+    private static final Long PLAN = 1L;
+
+    private final Map<Long, Long> versions = new HashMap<>();
+    private int versionReads;
+    private int loads;
+
+    @Test
+    void hitsWithinTheIntervalReadNothing() {
+        versions.put(PLAN, 0L);
+        RecommendationCache cache = cache(Duration.ofHours(1));
+        for (int i = 0; i < 5; i++) {
+            assertTrue(cache.getOrCompute(PLAN, this::load).isPresent());
+        }
+        assertEquals(1, loads);
+        assertEquals(1, versionReads);
+        assertEquals(4L, cache.stats().get("hits"));
+    }
+
+    @Test
+    void changesOfOtherNodesAreSeenAfterTheInterval() {
+        versions.put(PLAN, 0L);
+        RecommendationCache cache = cache(Duration.ZERO);
+        cache.getOrCompute(PLAN, this::load);
+        cache.getOrCompute(PLAN, this::load); // version unchanged: still a hit
+        assertEquals(1, loads);
+
+        versions.merge(PLAN, 1L, Long::sum); // written elsewhere, no event on this node
+        cache.getOrCompute(PLAN, this::load);
+        assertEquals(2, loads);
+        assertEquals(3, versionReads);
+        assertEquals(2L, cache.stats().get("versionChecks"));
+    }
+
+    @Test
+    void localWritesAndRuleReloadsDropEntries() {
+        versions.put(PLAN, 0L);
+        RecommendationCache cache = cache(Duration.ofHours(1));
+        cache.getOrCompute(PLAN, this::load);
+        cache.onPlanChanged(new PlanChangedEvent(PLAN));
+        cache.getOrCompute(PLAN, this::load);
+        cache.invalidateAll();
+        cache.getOrCompute(PLAN, this::load);
+        assertEquals(3, loads);
+    }
+
+    @Test
+    void unknownPlanIsNotCached() {
+        RecommendationCache cache = cache(Duration.ofHours(1));
+        assertTrue(cache.getOrCompute(PLAN, id -> Optional.empty()).isEmpty());
+        assertTrue(cache.getOrCompute(PLAN, id -> Optional.empty()).isEmpty());
+        assertEquals(2, versionReads);
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void expiredEntryIsComputedAgain() {
+        versions.put(PLAN, 0L);
+        RecommendationCache cache = new RecommendationCache(plans(), 100, Duration.ZERO, Duration.ofHours(1));
+        cache.getOrCompute(PLAN, this::load);
+        cache.getOrCompute(PLAN, this::load);
+        assertEquals(2, loads);
+        assertEquals(1L, cache.stats().get("expirations"));
+    }
+
+    private Optional<List<Recommendation>> load(Long planId) {
+        loads++;
+        return Optional.of(List.of(new Recommendation(Recommendation.RecommendationType.TIME_ADJUSTMENT, 10L,
+            "60", "load " + loads)));
+    }
+
+    private RecommendationCache cache(Duration versionCheckInterval) {
+        return new RecommendationCache(plans(), 100, Duration.ofHours(1), versionCheckInterval);
+    }
+
+    private StudyPlanRepository plans() {
+        return new StudyPlanRepository(null) {
+            @Override
+            public Optional<Long> findDataVersion(Long planId) {
+                versionReads++;
+                return Optional.ofNullable(versions.get(planId));
+            }
+        };
+    }
+}
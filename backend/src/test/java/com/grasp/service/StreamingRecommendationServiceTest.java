@@ -0,0 +1,188 @@
+package com.grasp.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.grasp.model.Recommendation;
+import com.grasp.model.StudyPlan;
+import com.grasp.model.StudySession;
+import com.grasp.model.Subject;
+import com.grasp.service.metrics.CohortSketchStore;
+import com.grasp.service.planning.TimeReallocationOptimizer;
+import com.grasp.service.rules.RecommendationRules;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The streamed {@code /generate/stream} body against the bound {@code /generate} request
+ */
+class StreamingRecommendationServiceTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 8, 0);
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private RecommendationEngineService engine;
+    private StreamingRecommendationService streaming;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        RecommendationEngineMetrics engineMetrics = new RecommendationEngineMetrics(new SimpleMeterRegistry());
+        RecommendationRules rules = new RecommendationRules(new DefaultResourceLoader(), objectMapper,
+            event -> {}, "classpath:recommendation-rules.json");
+        engine = new RecommendationEngineService(null, null, null, null, engineMetrics, rules,
+            new TimeReallocationOptimizer(true, 240, 0.75, 2.0, 0.5, 2.0, 15),
+            new CohortSketchStore(null, null, false, Duration.ofSeconds(10), 1));
+        streaming = new StreamingRecommendationService(engine, objectMapper, engineMetrics,
+            Validation.buildDefaultValidatorFactory().getValidator());
+    }
+
+    @Test
+    void sameRecommendationsAsTheBoundRequest() throws IOException {
+        Random random = new Random(42L);
+        int recommended = 0;
+        for (int round = 0; round < 100; round++) {
+            StudyPlan plan = plan(1 + random.nextInt(20), random);
+            List<StudySession> sessions = new ArrayList<>();
+            for (int i = 0, n = random.nextInt(500); i < n; i++) {
+                // One in ten of a subject outside the plan, which both endpoints ignore
+                long subjectId = random.nextInt(10) == 0 ? 900L + random.nextInt(3)
+                    : plan.getSubjects().get(random.nextInt(plan.getSubjects().size())).getId();
+                StudySession session = new StudySession(plan.getId(), subjectId, random.nextInt(240),
+                    random.nextInt(10001) / 100.0, 1 + random.nextInt(10), null);
+                session.setCreatedAt(random.nextInt(20) == 0 ? null : START.plusMinutes(random.nextInt(60 * 24 * 90)));
+                sessions.add(session);
+            }
+            List<Recommendation> expected = engine.generateRecommendations(sessions, plan);
+            assertSameRecommendations(expected, streaming.generate(body(plan, sessions, random.nextBoolean())));
+            recommended += expected.size();
+        }
+        assertTrue(recommended > 0);
+    }
+
+    @Test
+    void planWithoutSubjectsGetsNothing() throws IOException {
+        StudyPlan plan = plan(0, new Random(1L));
+        plan.setSubjects(null);
+        assertTrue(streaming.generate(body(plan, List.of(new StudySession(1L, 99L, 30, 50.0, 5, null)), true))
+            .isEmpty());
+    }
+
+    @Test
+    void nonObjectSessionIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> streaming.generate(json(
+            "{\"plan\":{\"id\":1,\"subjects\":[{\"id\":1}]},\"sessions\":[" + sessionJson(1) + ",5," +
+            sessionJson(1) + "]}")));
+    }
+
+    @Test
+    void sessionsOfOtherSubjectsAreIgnored() throws IOException {
+        StudyPlan plan = plan(1, new Random(2L));
+        List<StudySession> sessions = List.of(session(plan.getSubjects().get(0).getId(), 7),
+            session(999L, 2), session(plan.getSubjects().get(0).getId(), 7));
+        List<Recommendation> expected = engine.generateRecommendations(sessions, plan);
+        assertTrue(expected.size() > 0);
+        assertSameRecommendations(expected, streaming.generate(body(plan, sessions, true)));
+        assertSameRecommendations(expected, streaming.generate(body(plan, List.of(sessions.get(0), sessions.get(2)),
+            true)));
+        assertTrue(streaming.generate(body(plan, List.of(session(999L, 2)), true)).isEmpty());
+    }
+
+    @Test
+    void sessionsMayComeBeforeThePlan() throws IOException {
+        StudyPlan plan = plan(3, new Random(3L));
+        List<StudySession> sessions = new ArrayList<>();
+        for (Subject subject : plan.getSubjects()) {
+            sessions.add(session(subject.getId(), 7));
+            sessions.add(session(subject.getId(), 7));
+        }
+        List<Recommendation> expected = engine.generateRecommendations(sessions, plan);
+        assertTrue(expected.size() > 0);
+        assertSameRecommendations(expected, streaming.generate(body(plan, sessions, false)));
+    }
+
+    @Test
+    void missingFieldsFailValidation() {
+        IllegalArgumentException noSessions = assertThrows(IllegalArgumentException.class,
+            () -> streaming.generate(json("{\"plan\":{\"id\":1}}")));
+        assertTrue(noSessions.getMessage().startsWith("sessions: "), noSessions.getMessage());
+        IllegalArgumentException noPlan = assertThrows(IllegalArgumentException.class,
+            () -> streaming.generate(json("{\"plan\":null}")));
+        assertTrue(noPlan.getMessage().contains("plan: "), noPlan.getMessage());
+    }
+
+    private static void assertSameRecommendations(List<Recommendation> expected, List<Recommendation> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Recommendation e = expected.get(i);
+            Recommendation a = actual.get(i);
+            assertEquals(e.getType(), a.getType());
+            assertEquals(e.getSubjectId(), a.getSubjectId());
+            assertEquals(e.getRuleId(), a.getRuleId());
+            assertEquals(e.getValue(), a.getValue());
+            assertEquals(e.getConfidenceScore(), a.getConfidenceScore());
+            assertEquals(e.getReasoning(), a.getReasoning());
+        }
+    }
+
+    private static StudyPlan plan(int subjects, Random random) {
+        StudyPlan plan = new StudyPlan(1L, "Plan", null, LocalDate.now().plusDays(30));
+        plan.setId(1L);
+        List<Subject> list = new ArrayList<>();
+        for (int i = 0; i < subjects; i++) {
+            Subject subject = new Subject(1L, "Subject " + i,
+                Subject.DifficultyLevel.values()[random.nextInt(3)], 30 + random.nextInt(300));
+            subject.setId(100L + i);
+            subject.setCurrentProgressPercent(random.nextInt(100) * 1.0);
+            list.add(subject);
+        }
+        plan.setSubjects(list);
+        return plan;
+    }
+
+    private ByteArrayInputStream body(StudyPlan plan, List<StudySession> sessions, boolean planFirst)
+            throws IOException {
+        Map<String, Object> request = new LinkedHashMap<>();
+        if (planFirst) {
+            request.put("plan", plan);
+        }
+        request.put("sessions", sessions);
+        request.put("plan", plan);
+        return new ByteArrayInputStream(objectMapper.writeValueAsBytes(request));
+    }
+
+    /**
+     * A 20-minute session; at a middling score the default rules suggest longer sessions from the second one
+     * of a subject
+     */
+    private static StudySession session(long subjectId, int score) {
+        StudySession session = new StudySession(1L, subjectId, 20, 40.0, score, null);
+        session.setCreatedAt(START);
+        return session;
+    }
+
+    private static ByteArrayInputStream json(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String sessionJson(long subjectId) {
+        return "{\"subjectId\":" + subjectId + ",\"performanceScore\":5,\"durationMinutes\":30," +
+            "\"completionPercent\":50.0}";
+    }
+}
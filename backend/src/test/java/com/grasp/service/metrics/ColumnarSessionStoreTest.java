@@ -0,0 +1,207 @@
+package com.grasp.service.metrics;
+
+import com.grasp.model.StudySession;
+import com.grasp.repository.StudyPlanRepository;
+import com.grasp.repository.StudySessionRepository;
+import com.grasp.service.SessionsLoggedEvent;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Loading, appending and trimming against the kernel over the same sessions, with the database replaced by
+ * a list of sessions and a data version per plan
+ */
+class ColumnarSessionStoreTest {
+
+    private static final double TOLERANCE = 1e-9;
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 8, 0);
+    private static final Long PLAN = 1L;
+
+    private final List<StudySession> stored = new ArrayList<>();
+    private final Map<Long, Long> versions = new HashMap<>();
+    private int sessionReads;
+
+    @Test
+    void trimmedSingleSessionColumnsGrow() {
+        ColumnarSessionStore.SubjectColumns columns = new ColumnarSessionStore.SubjectColumns();
+        columns.append(5, 30, 50.0, 0L);
+        columns.trim();
+        columns.append(6, 40, 60.0, 60L);
+        columns.append(7, 50, 70.0, 120L);
+        assertEquals(3, columns.size());
+        assertEquals(3, columns.metrics().getSessionCount());
+        assertEquals(0.6, columns.metrics().getAveragePerformance(), TOLERANCE);
+    }
+
+    @Test
+    void loadedPlanMatchesTheKernel() {
+        Random random = new Random(42L);
+        for (int i = 0; i < 500; i++) {
+            stored.add(session(random.nextInt(8), random));
+        }
+        versions.put(PLAN, 3L);
+        ColumnarSessionStore store = store(Duration.ofHours(1));
+        assertMatchesKernel(store.metricsForPlan(PLAN));
+        assertMatchesKernel(store.metricsForPlan(PLAN));
+        assertEquals(1, sessionReads);
+        assertEquals(500L, store.stats().get("sessions"));
+    }
+
+    @Test
+    void loggedSessionsAreAppendedToTrimmedColumns() {
+        // One session per subject, so every subject's columns are trimmed to a single slot
+        Random random = new Random(7L);
+        for (int subject = 0; subject < 5; subject++) {
+            stored.add(session(subject, random));
+        }
+        versions.put(PLAN, 0L);
+        ColumnarSessionStore store = store(Duration.ZERO);
+        store.metricsForPlan(PLAN);
+
+        for (int round = 0; round < 3; round++) {
+            List<StudySession> logged = new ArrayList<>();
+            for (int subject = 0; subject < 5; subject++) {
+                logged.add(session(subject, random));
+            }
+            logged.add(unscored(random));
+            log(store, logged);
+        }
+        assertMatchesKernel(store.metricsForPlan(PLAN));
+        assertEquals(1, sessionReads); // every check found the version the appends reached
+        assertEquals(20L, store.stats().get("sessions"));
+    }
+
+    @Test
+    void writesOfOtherNodesAreSeenAfterTheVersionCheck() {
+        Random random = new Random(3L);
+        stored.add(session(1, random));
+        versions.put(PLAN, 0L);
+        ColumnarSessionStore store = store(Duration.ZERO);
+        store.metricsForPlan(PLAN);
+
+        // Logged elsewhere: in the database and its version, but no event on this node
+        stored.add(session(2, random));
+        versions.merge(PLAN, 1L, Long::sum);
+        assertMatchesKernel(store.metricsForPlan(PLAN));
+        assertEquals(2, sessionReads);
+        assertEquals(1L, store.stats().get("staleReloads"));
+        assertEquals(2L, store.stats().get("sessions"));
+    }
+
+    @Test
+    void versionIsNotCheckedWithinTheInterval() {
+        Random random = new Random(5L);
+        stored.add(session(1, random));
+        versions.put(PLAN, 0L);
+        ColumnarSessionStore store = store(Duration.ofHours(1));
+        store.metricsForPlan(PLAN);
+        stored.add(session(2, random));
+        versions.merge(PLAN, 1L, Long::sum);
+        assertEquals(1, store.metricsForPlan(PLAN).size());
+        assertEquals(1, sessionReads);
+    }
+
+    @Test
+    void missingPlanIsNotCached() {
+        ColumnarSessionStore store = store(Duration.ofHours(1));
+        assertTrue(store.metricsForPlan(PLAN).isEmpty());
+        assertTrue(store.metricsForPlan(PLAN).isEmpty());
+        assertEquals(2, sessionReads);
+        assertEquals(0, store.stats().get("plans"));
+    }
+
+    /** A logging transaction: stored, version bumped once, event published (outside a transaction here) */
+    private void log(ColumnarSessionStore store, List<StudySession> sessions) {
+        stored.addAll(sessions);
+        versions.merge(PLAN, 1L, Long::sum);
+        store.onSessionsLogged(new SessionsLoggedEvent(sessions));
+    }
+
+    private void assertMatchesKernel(Map<Long, SubjectPerformanceMetrics> actual) {
+        List<StudySession> scored = stored.stream().filter(s -> s.getPerformanceScore() != null).toList();
+        Map<Long, SubjectPerformanceMetrics> expected =
+            SubjectMetricsKernel.compute(SessionColumns.fromSessions(scored));
+        assertEquals(expected.keySet(), actual.keySet());
+        for (Map.Entry<Long, SubjectPerformanceMetrics> entry : expected.entrySet()) {
+            SubjectPerformanceMetrics e = entry.getValue();
+            SubjectPerformanceMetrics a = actual.get(entry.getKey());
+            String subject = "subject " + entry.getKey();
+            assertEquals(e.getSessionCount(), a.getSessionCount(), subject);
+            assertEquals(e.getAveragePerformance(), a.getAveragePerformance(), TOLERANCE, subject);
+            assertEquals(e.getAverageSessionDuration(), a.getAverageSessionDuration(), TOLERANCE, subject);
+            assertEquals(e.getAverageCompletion(), a.getAverageCompletion(), TOLERANCE, subject);
+            assertEquals(e.getRecentPerformance(), a.getRecentPerformance(), TOLERANCE, subject);
+            assertEquals(e.getConsistencyScore(), a.getConsistencyScore(), TOLERANCE, subject);
+            assertEquals(e.getPerformanceTrend(), a.getPerformanceTrend(), TOLERANCE, subject);
+        }
+    }
+
+    private ColumnarSessionStore store(Duration versionCheckInterval) {
+        StudySessionRepository sessions = new StudySessionRepository(null) {
+            @Override
+            public void forEachScoredSession(Long planId, RowCallbackHandler handler) {
+                sessionReads++;
+                for (StudySession session : stored) {
+                    if (session.getPlanId().equals(planId) && session.getPerformanceScore() != null) {
+                        try {
+                            handler.processRow(row(session));
+                        } catch (SQLException e) {
+                            throw new IllegalStateException(e);
+                        }
+                    }
+                }
+            }
+        };
+        StudyPlanRepository plans = new StudyPlanRepository(null) {
+            @Override
+            public Optional<Long> findDataVersion(Long planId) {
+                return Optional.ofNullable(versions.get(planId));
+            }
+        };
+        return new ColumnarSessionStore(sessions, plans, 1_000_000, false, versionCheckInterval);
+    }
+
+    /** The columns {@code forEachScoredSession} selects, by index */
+    private static ResultSet row(StudySession session) {
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[] {ResultSet.class},
+            (proxy, method, args) -> switch (method.getName() + args[0]) {
+                case "getLong1" -> session.getSubjectId();
+                case "getInt2" -> session.getPerformanceScore();
+                case "getInt3" -> session.getDurationMinutes();
+                case "getDouble4" -> session.getCompletionPercent();
+                case "getTimestamp5" ->
+                    session.getCreatedAt() != null ? Timestamp.valueOf(session.getCreatedAt()) : null;
+                default -> throw new UnsupportedOperationException(method.getName());
+            });
+    }
+
+    /** Completion in quarters and whole-minute times, which the columns keep exactly */
+    private static StudySession session(long subjectId, Random random) {
+        StudySession session = new StudySession(PLAN, subjectId, random.nextInt(240),
+            random.nextInt(401) / 4.0, 1 + random.nextInt(10), null);
+        session.setCreatedAt(random.nextInt(20) == 0 ? null : START.plusMinutes(random.nextInt(60 * 24 * 90)));
+        return session;
+    }
+
+    private static StudySession unscored(Random random) {
+        StudySession session = new StudySession(PLAN, 0L, random.nextInt(240), 50.0, null, null);
+        session.setCreatedAt(START);
+        return session;
+    }
+}
@@ -0,0 +1,184 @@
+package com.grasp.service.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The running model against the decayed statistics computed directly from every session
+ */
+class DecayedPerformanceTest {
+
+    private static final double TOLERANCE = 1e-9;
+    private static final double DAY = 19_723.0; // 2024-01-01
+
+    @Test
+    void emptyModelHasNeutralMetrics() {
+        DecayedPerformance model = new DecayedPerformance();
+        assertTrue(model.isEmpty());
+        assertTrue(Double.isNaN(model.getAnchorDay()));
+        assertEquals(0.0, model.mean(), 0.0);
+        assertEquals(0.0, model.variance(), 0.0);
+        assertEquals(0.0, model.slopePerDay(), 0.0);
+    }
+
+    @Test
+    void weightHalvesEveryHalfLife() {
+        DecayedPerformance model = new DecayedPerformance();
+        model.add(4, DAY);
+        model.add(10, DAY + DecayedPerformance.HALF_LIFE_DAYS);
+        assertEquals(DAY + DecayedPerformance.HALF_LIFE_DAYS, model.getAnchorDay(), 0.0);
+        assertEquals(1.5, model.getWeight(), TOLERANCE);
+        assertEquals((4 * 0.5 + 10) / 1.5, model.mean(), TOLERANCE);
+    }
+
+    @Test
+    void scoresOnALineGiveItsSlope() {
+        DecayedPerformance model = new DecayedPerformance();
+        for (int i = 0; i < 10; i++) {
+            model.add(2.0 + 0.25 * i, DAY + 3 * i);
+        }
+        assertEquals(0.25 / 3, model.slopePerDay(), TOLERANCE);
+    }
+
+    @Test
+    void anchorMovesToTheNewestSessionInAnyOrder() {
+        Random random = new Random(7L);
+        for (int round = 0; round < 100; round++) {
+            List<double[]> sessions = sessions(random, 1 + random.nextInt(200));
+            double newest = sessions.stream().mapToDouble(s -> s[1]).max().getAsDouble();
+
+            sessions.sort(Comparator.comparingDouble(s -> s[1])); // the anchor moves on every session
+            assertMatchesDirect(sessions, newest, fold(sessions));
+            Collections.reverse(sessions); // the anchor never moves
+            assertMatchesDirect(sessions, newest, fold(sessions));
+            Collections.shuffle(sessions, random);
+            assertMatchesDirect(sessions, newest, fold(sessions));
+        }
+    }
+
+    @Test
+    void undatedSessionsCountAsTheNewestSoFar() {
+        DecayedPerformance model = new DecayedPerformance();
+        model.add(6, Double.NaN);
+        assertTrue(Double.isNaN(model.getAnchorDay()));
+        model.add(8, DAY);
+        model.add(2, Double.NaN);
+        assertEquals(DAY, model.getAnchorDay(), 0.0);
+        assertEquals(3.0, model.getWeight(), TOLERANCE);
+        assertEquals(16.0 / 3, model.mean(), TOLERANCE);
+    }
+
+    @Test
+    void mergeEqualsAddingEverySession() {
+        Random random = new Random(11L);
+        for (int round = 0; round < 200; round++) {
+            List<double[]> sessions = sessions(random, 1 + random.nextInt(200));
+            int split = random.nextInt(sessions.size() + 1);
+            List<double[]> first = sessions.subList(0, split);
+            List<double[]> second = sessions.subList(split, sessions.size());
+            double newest = sessions.stream().mapToDouble(s -> s[1]).max().getAsDouble();
+
+            DecayedPerformance merged = fold(first);
+            merged.merge(fold(second));
+            assertMatchesDirect(sessions, newest, merged);
+
+            DecayedPerformance reversed = fold(second);
+            reversed.merge(fold(first));
+            assertMatchesDirect(sessions, newest, reversed);
+        }
+    }
+
+    @Test
+    void mergeKeepsTheOtherModelUnchanged() {
+        DecayedPerformance older = fold(List.of(new double[] {5, DAY}, new double[] {7, DAY + 1}));
+        DecayedPerformance newer = fold(List.of(new double[] {9, DAY + 30}));
+        double weight = older.getWeight();
+        newer.merge(older);
+        assertEquals(DAY + 1, older.getAnchorDay(), 0.0);
+        assertEquals(weight, older.getWeight(), 0.0);
+        assertEquals(DAY + 30, newer.getAnchorDay(), 0.0);
+    }
+
+    @Test
+    void mergeWithUndatedModels() {
+        DecayedPerformance undated = fold(List.<double[]>of(new double[] {4, Double.NaN}));
+        DecayedPerformance dated = fold(List.<double[]>of(new double[] {8, DAY}));
+        undated.merge(dated);
+        assertEquals(DAY, undated.getAnchorDay(), 0.0);
+        assertEquals(2.0, undated.getWeight(), TOLERANCE);
+        assertEquals(6.0, undated.mean(), TOLERANCE);
+
+        DecayedPerformance empty = new DecayedPerformance();
+        empty.merge(dated);
+        assertEquals(dated.getAnchorDay(), empty.getAnchorDay(), 0.0);
+        assertEquals(dated.getScoreSum(), empty.getScoreSum(), 0.0);
+        dated.merge(new DecayedPerformance());
+        assertEquals(1.0, dated.getWeight(), 0.0);
+    }
+
+    @Test
+    void restoredSumsContinueLikeTheOriginal() {
+        Random random = new Random(3L);
+        List<double[]> sessions = sessions(random, 50);
+        DecayedPerformance original = fold(sessions.subList(0, 25));
+        DecayedPerformance restored = DecayedPerformance.ofSums(original.getAnchorDay(), original.getWeight(),
+            original.getScoreSum(), original.getScoreSquareSum(), original.getTimeSum(),
+            original.getTimeSquareSum(), original.getTimeScoreSum());
+        for (double[] session : sessions.subList(25, 50)) {
+            original.add(session[0], session[1]);
+            restored.add(session[0], session[1]);
+        }
+        assertEquals(original.mean(), restored.mean(), 0.0);
+        assertEquals(original.variance(), restored.variance(), 0.0);
+        assertEquals(original.slopePerDay(), restored.slopePerDay(), 0.0);
+    }
+
+    private static DecayedPerformance fold(List<double[]> sessions) {
+        DecayedPerformance model = new DecayedPerformance();
+        for (double[] session : sessions) {
+            model.add(session[0], session[1]);
+        }
+        return model;
+    }
+
+    /** Dated sessions as {score, day}, spread over a year at second resolution */
+    private static List<double[]> sessions(Random random, int count) {
+        List<double[]> sessions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            sessions.add(new double[] {1 + random.nextInt(10), DAY + random.nextInt(365 * 86_400) / 86_400.0});
+        }
+        return sessions;
+    }
+
+    private static void assertMatchesDirect(List<double[]> sessions, double newest, DecayedPerformance model) {
+        double w = 0, x = 0, xx = 0, t = 0, tt = 0, tx = 0;
+        for (double[] session : sessions) {
+            double age = session[1] - newest;
+            double weight = Math.exp(DecayedPerformance.DECAY_PER_DAY * age);
+            w += weight;
+            x += weight * session[0];
+            xx += weight * session[0] * session[0];
+            t += weight * age;
+            tt += weight * age * age;
+            tx += weight * age * session[0];
+        }
+        double mean = x / w;
+        double meanTime = t / w;
+        double timeVariance = tt / w - meanTime * meanTime;
+        double slope = timeVariance <= 1e-9 ? 0.0 : (tx / w - meanTime * mean) / timeVariance;
+
+        assertEquals(newest, model.getAnchorDay(), 0.0);
+        assertEquals(w, model.getWeight(), TOLERANCE * w);
+        assertEquals(mean, model.mean(), TOLERANCE);
+        assertEquals(Math.max(0.0, xx / w - mean * mean), model.variance(), 1e-7);
+        assertEquals(slope, model.slopePerDay(), 1e-7);
+    }
+}
@@ -0,0 +1,197 @@
+package com.grasp.service.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Merged and deserialized sketches against the sketch of the same values added directly, and quantiles
+ * against the exact ones
+ */
+class QuantileSketchTest {
+
+    private static final double[] QUANTILES = {0.0, 0.01, 0.1, 0.25, 0.5, 0.75, 0.9, 0.99, 1.0};
+
+    @Test
+    void mergeEqualsSketchingTheCombinedInput() {
+        Random random = new Random(42L);
+        for (int round = 0; round < 200; round++) {
+            double[] values = values(random, random.nextInt(2000));
+            QuantileSketch direct = sketch(values, 0, values.length);
+
+            // Split into parts, merged in any order, some of them empty
+            int parts = 1 + random.nextInt(6);
+            List<QuantileSketch> sketches = new ArrayList<>();
+            int start = 0;
+            for (int p = 0; p < parts; p++) {
+                int end = p == parts - 1 ? values.length : start + random.nextInt(values.length - start + 1);
+                sketches.add(sketch(values, start, end));
+                start = end;
+            }
+            Collections.shuffle(sketches, random);
+            QuantileSketch merged = new QuantileSketch();
+            for (QuantileSketch sketch : sketches) {
+                merged.merge(sketch);
+            }
+            assertSameSketch(direct, merged);
+        }
+    }
+
+    @Test
+    void mergeLeavesTheOtherSketchUnchanged() {
+        QuantileSketch other = sketch(new double[] {1, 2, 3}, 0, 3);
+        byte[] before = other.toBytes();
+        QuantileSketch target = sketch(new double[] {1000, 0}, 0, 2);
+        target.merge(other);
+        assertArrayEquals(before, other.toBytes());
+        assertEquals(5L, target.count());
+    }
+
+    @Test
+    void bytesRoundTrip() {
+        Random random = new Random(7L);
+        for (int round = 0; round < 200; round++) {
+            double[] values = values(random, random.nextInt(2000));
+            QuantileSketch sketch = sketch(values, 0, values.length);
+            QuantileSketch restored = QuantileSketch.fromBytes(sketch.toBytes());
+            assertSameSketch(sketch, restored);
+
+            // A restored sketch keeps growing like the original
+            double[] more = values(random, 100);
+            for (double value : more) {
+                sketch.add(value);
+                restored.add(value);
+            }
+            assertSameSketch(sketch, restored);
+        }
+    }
+
+    @Test
+    void emptySketchRoundTrips() {
+        QuantileSketch empty = new QuantileSketch();
+        QuantileSketch restored = QuantileSketch.fromBytes(empty.toBytes());
+        assertTrue(restored.isEmpty());
+        assertTrue(Double.isNaN(restored.snapshot().quantile(0.5)));
+        assertTrue(Double.isNaN(restored.snapshot().rank(1)));
+        assertTrue(QuantileSketch.fromBytes(null).isEmpty());
+        assertTrue(QuantileSketch.fromBytes(new byte[0]).isEmpty());
+    }
+
+    @Test
+    void corruptBytesAreRejected() {
+        byte[] bytes = sketch(new double[] {1, 5, 250}, 0, 3).toBytes();
+        assertThrows(IllegalArgumentException.class,
+            () -> QuantileSketch.fromBytes(Arrays.copyOf(bytes, bytes.length - 1)));
+        byte[] unknownVersion = bytes.clone();
+        unknownVersion[0] = 99;
+        assertThrows(IllegalArgumentException.class, () -> QuantileSketch.fromBytes(unknownVersion));
+    }
+
+    @Test
+    void quantilesAreWithinTheRelativeAccuracy() {
+        Random random = new Random(11L);
+        for (int round = 0; round < 100; round++) {
+            double[] values = values(random, 1 + random.nextInt(5000));
+            QuantileSketch.Snapshot snapshot = sketch(values, 0, values.length).snapshot();
+            double[] sorted = values.clone();
+            Arrays.sort(sorted);
+            for (double q : QUANTILES) {
+                double exact = sorted[(int) Math.floor(q * (sorted.length - 1))];
+                double estimate = snapshot.quantile(q);
+                assertEquals(exact, estimate, exact * QuantileSketch.RELATIVE_ACCURACY * (1 + 1e-9), "q " + q);
+            }
+        }
+    }
+
+    @Test
+    void scoresAreRankedExactly() {
+        QuantileSketch sketch = new QuantileSketch();
+        for (int score = 1; score <= 10; score++) {
+            sketch.add(score, score); // score s added s times
+        }
+        QuantileSketch.Snapshot snapshot = sketch.snapshot();
+        assertEquals(55L, snapshot.count());
+        // Below 4: 1 + 2 + 3, and half of the four 4s
+        assertEquals((6 + 2.0) / 55, snapshot.rank(4), 0.0);
+        assertEquals(0.0, snapshot.rank(-1), 0.0);
+        assertEquals(1.0, snapshot.rank(1e6), 0.0);
+    }
+
+    @Test
+    void deltasInAnyOrderLeaveTheSketchOfTheCurrentValues() {
+        // Each subject's value changes a few times; every change is a delta taking the old value out
+        Random random = new Random(11L);
+        double[] current = new double[300];
+        List<QuantileSketch> deltas = new ArrayList<>();
+        for (int i = 0; i < current.length; i++) {
+            current[i] = random.nextDouble() * 10;
+            deltas.add(sketch(new double[] {current[i]}, 0, 1));
+            for (int change = random.nextInt(4); change > 0; change--) {
+                QuantileSketch delta = new QuantileSketch();
+                delta.add(current[i], -1);
+                current[i] = random.nextDouble() * 10;
+                delta.add(current[i], 1);
+                deltas.add(delta);
+            }
+        }
+        Collections.shuffle(deltas, random);
+        QuantileSketch merged = new QuantileSketch();
+        for (QuantileSketch delta : deltas) {
+            merged = QuantileSketch.fromBytes(merged.toBytes()); // stored between merges, negative buckets too
+            merged.merge(delta);
+            assertTrue(merged.snapshot().rank(5) <= 1.0);
+        }
+        assertSameSketch(sketch(current, 0, current.length), merged);
+    }
+
+    @Test
+    void negativeAndNaNValuesAreRejected() {
+        QuantileSketch sketch = new QuantileSketch();
+        assertThrows(IllegalArgumentException.class, () -> sketch.add(-1));
+        assertThrows(IllegalArgumentException.class, () -> sketch.add(Double.NaN));
+    }
+
+    private static void assertSameSketch(QuantileSketch expected, QuantileSketch actual) {
+        assertArrayEquals(expected.toBytes(), actual.toBytes());
+        assertEquals(expected.count(), actual.count());
+        QuantileSketch.Snapshot e = expected.snapshot();
+        QuantileSketch.Snapshot a = actual.snapshot();
+        for (double q : QUANTILES) {
+            assertEquals(e.quantile(q), a.quantile(q), 0.0);
+        }
+        for (double value : new double[] {0, 1, 5, 30, 45.5, 600, 1e7}) {
+            assertEquals(e.rank(value), a.rank(value), 0.0);
+        }
+    }
+
+    private static QuantileSketch sketch(double[] values, int from, int to) {
+        QuantileSketch sketch = new QuantileSketch();
+        for (int i = from; i < to; i++) {
+            sketch.add(values[i]);
+        }
+        return sketch;
+    }
+
+    /** Zeros, scores, minute durations and values over many orders of magnitude */
+    private static double[] values(Random random, int count) {
+        double[] values = new double[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = switch (random.nextInt(4)) {
+                case 0 -> random.nextInt(20) == 0 ? 0 : 1 + random.nextInt(10);
+                case 1 -> random.nextInt(24 * 60);
+                case 2 -> Math.exp(random.nextDouble() * 40 - 20);
+                default -> random.nextDouble() * 100;
+            };
+        }
+        return values;
+    }
+}
@@ -0,0 +1,107 @@
+package com.grasp.service.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SubjectAggregateTest {
+
+    private static final double TOLERANCE = 1e-9;
+
+    @Test
+    void addKeepsExactSums() {
+        SubjectAggregate aggregate = new SubjectAggregate(1L, 2L);
+        aggregate.add(4, 30, 50.25, 19_000.0);
+        aggregate.add(9, 45, 100.0, 19_001.5);
+
+        assertEquals(2, aggregate.getSessionCount());
+        assertEquals(13, aggregate.getScoreSum());
+        assertEquals(97, aggregate.getScoreSquareSum());
+        assertEquals(75, aggregate.getDurationSum());
+        assertEquals(150.25, aggregate.getCompletionSum(), TOLERANCE);
+        assertEquals(19_001.5, aggregate.getDecayed().getAnchorDay(), TOLERANCE);
+
+        SubjectPerformanceMetrics metrics = aggregate.toMetrics();
+        assertEquals(2, metrics.getSessionCount());
+        assertEquals(0.65, metrics.getAveragePerformance(), TOLERANCE);
+        assertEquals(37.5, metrics.getAverageSessionDuration(), TOLERANCE);
+        assertEquals(75.125, metrics.getAverageCompletion(), TOLERANCE);
+    }
+
+    @Test
+    void emptyAggregateHasZeroMetrics() {
+        SubjectPerformanceMetrics metrics = new SubjectAggregate(1L, 2L).toMetrics();
+        assertEquals(0, metrics.getSessionCount());
+        assertEquals(0.0, metrics.getAveragePerformance());
+    }
+
+    @Test
+    void mergeEqualsAddingEverySession() {
+        Random random = new Random(7L);
+        SubjectAggregate all = new SubjectAggregate(1L, 2L);
+        SubjectAggregate left = new SubjectAggregate(1L, 2L);
+        SubjectAggregate right = new SubjectAggregate(1L, 2L);
+        for (int i = 0; i < 500; i++) {
+            int score = 1 + random.nextInt(10);
+            int duration = random.nextInt(180);
+            double completion = random.nextInt(10001) / 100.0;
+            double day = 19_000.0 + random.nextInt(200) + random.nextDouble();
+            all.add(score, duration, completion, day);
+            (random.nextBoolean() ? left : right).add(score, duration, completion, day);
+        }
+        left.merge(right);
+
+        assertTrue(all.sameTotals(left));
+        SubjectPerformanceMetrics expected = all.toMetrics();
+        SubjectPerformanceMetrics merged = left.toMetrics();
+        assertEquals(expected.getRecentPerformance(), merged.getRecentPerformance(), TOLERANCE);
+        assertEquals(expected.getConsistencyScore(), merged.getConsistencyScore(), TOLERANCE);
+        assertEquals(expected.getPerformanceTrend(), merged.getPerformanceTrend(), TOLERANCE);
+    }
+
+    @Test
+    void mergingAnEmptyAggregateChangesNothing() {
+        SubjectAggregate aggregate = new SubjectAggregate(1L, 2L);
+        aggregate.add(6, 40, 70.0, 19_000.0);
+        SubjectAggregate copy = new SubjectAggregate(1L, 2L);
+        copy.add(6, 40, 70.0, 19_000.0);
+
+        aggregate.merge(new SubjectAggregate(1L, 2L));
+        assertTrue(aggregate.sameTotals(copy));
+
+        SubjectAggregate empty = new SubjectAggregate(1L, 2L);
+        empty.merge(copy);
+        assertTrue(empty.sameTotals(copy));
+        assertEquals(19_000.0, empty.getDecayed().getAnchorDay(), TOLERANCE);
+    }
+
+    @Test
+    void sameTotalsDetectsDrift() {
+        SubjectAggregate stored = new SubjectAggregate(1L, 2L);
+        stored.add(6, 40, 33.33, 19_000.0);
+
+        SubjectAggregate missingSession = new SubjectAggregate(1L, 2L);
+        assertFalse(stored.sameTotals(missingSession));
+
+        SubjectAggregate otherScore = new SubjectAggregate(1L, 2L);
+        otherScore.add(7, 40, 33.33, 19_000.0);
+        assertFalse(stored.sameTotals(otherScore));
+
+        SubjectAggregate otherDuration = new SubjectAggregate(1L, 2L);
+        otherDuration.add(6, 41, 33.33, 19_000.0);
+        assertFalse(stored.sameTotals(otherDuration));
+
+        // NUMERIC(5,2) keeps two decimals, so a rebuild only matches rounded completions
+        SubjectAggregate unrounded = new SubjectAggregate(1L, 2L);
+        unrounded.add(6, 40, 33.333, 19_000.0);
+        assertFalse(stored.sameTotals(unrounded));
+
+        SubjectAggregate rebuilt = new SubjectAggregate(1L, 2L);
+        rebuilt.add(6, 40, 33.33, 19_000.0);
+        assertTrue(stored.sameTotals(rebuilt));
+    }
+}
@@ -0,0 +1,260 @@
+package com.grasp.service.metrics;
+
+import com.grasp.model.StudySession;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The single-pass kernel against hand-computed values, and against a baseline that computes each subject's
+ * means with streams and its decayed statistics directly from every session's weight, in two passes
+ */
+class SubjectMetricsKernelTest {
+
+    private static final double TOLERANCE = 1e-9;
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 8, 0);
+
+    @Test
+    void emptyInputHasNoSubjects() {
+        assertTrue(kernel(List.of()).isEmpty());
+        assertTrue(baseline(List.of()).isEmpty());
+    }
+
+    @Test
+    void handComputedDecayedMetrics() {
+        // Scores 4, 6, 8 two weeks apart: weights 1/4, 1/2, 1 at ages -28, -14, 0 days
+        List<StudySession> sessions = List.of(
+            session(3L, 30, 40.0, 8, START.plusDays(28)),
+            session(3L, 45, 60.0, 4, START),
+            session(3L, 60, 80.0, 6, START.plusDays(14)));
+        assertParity(sessions);
+        SubjectPerformanceMetrics metrics = kernel(sessions).get(3L);
+        assertEquals(3, metrics.getSessionCount());
+        assertEquals(0.6, metrics.getAveragePerformance(), TOLERANCE);
+        assertEquals(45.0, metrics.getAverageSessionDuration(), TOLERANCE);
+        assertEquals(60.0, metrics.getAverageCompletion(), TOLERANCE);
+        // Mean (1 + 3 + 8) / 1.75 = 48/7; variance 86/1.75 - (48/7)^2 = 104/49
+        assertEquals(48.0 / 70, metrics.getRecentPerformance(), TOLERANCE);
+        assertEquals(1 - Math.sqrt(104.0) / 70, metrics.getConsistencyScore(), TOLERANCE);
+        // The scores lie on a line rising 2 points per 14 days, so any weighting fits that slope: 0.2 per half-life
+        assertEquals(0.2, metrics.getPerformanceTrend(), TOLERANCE);
+    }
+
+    @Test
+    void undatedSessionsWeighLikeTheNewestDatedOne() {
+        // The undated 10 counts as at day 14, the newest dated day before it, so weights are 1/2, 1, 1
+        List<StudySession> sessions = List.of(
+            session(5L, 30, 50.0, 4, START),
+            session(5L, 30, 50.0, 7, START.plusDays(14)),
+            session(5L, 30, 50.0, 10, null));
+        assertParity(sessions);
+        SubjectPerformanceMetrics metrics = kernel(sessions).get(5L);
+        // Mean (2 + 7 + 10) / 2.5 = 7.6; variance (8 + 49 + 100) / 2.5 - 7.6^2 = 5.04
+        assertEquals(0.76, metrics.getRecentPerformance(), TOLERANCE);
+        assertEquals(1 - Math.sqrt(5.04) / 10, metrics.getConsistencyScore(), TOLERANCE);
+        // Mean age -14/5; slope (sum w*t*x / 2.5 - mean age * 7.6) / (196/5 - (14/5)^2) = 10.08 / 31.36 per day
+        assertEquals(10.08 / 31.36 * 14 / 10, metrics.getPerformanceTrend(), TOLERANCE);
+    }
+
+    @Test
+    void withoutAnyDateEverySessionWeighsTheSame() {
+        List<StudySession> sessions = List.of(session(6L, 30, 50.0, 4, null), session(6L, 30, 50.0, 8, null));
+        assertParity(sessions);
+        SubjectPerformanceMetrics metrics = kernel(sessions).get(6L);
+        assertEquals(0.6, metrics.getRecentPerformance(), TOLERANCE);
+        assertEquals(0.8, metrics.getConsistencyScore(), TOLERANCE);
+        assertEquals(0.0, metrics.getPerformanceTrend(), TOLERANCE);
+    }
+
+    @Test
+    void singleSession() {
+        List<StudySession> sessions = List.of(session(7L, 45, 80.0, 6, START));
+        assertParity(sessions);
+        SubjectPerformanceMetrics metrics = kernel(sessions).get(7L);
+        assertEquals(1, metrics.getSessionCount());
+        assertEquals(0.6, metrics.getAveragePerformance(), TOLERANCE);
+        assertEquals(0.0, metrics.getPerformanceTrend(), TOLERANCE);
+    }
+
+    @Test
+    void sessionsWithoutTimestamps() {
+        assertParity(List.of(
+            session(1L, 30, 50.0, 4, null),
+            session(1L, 60, 75.5, 9, null),
+            session(2L, 20, 100.0, 10, START)));
+    }
+
+    @Test
+    void tiedTimestamps() {
+        assertParity(List.of(
+            session(1L, 30, 50.0, 2, START),
+            session(1L, 40, 60.0, 9, START),
+            session(1L, 50, 70.0, 5, START)));
+    }
+
+    @Test
+    void nullScoreIsRejectedLikeTheStreamCalculation() {
+        List<StudySession> sessions = List.of(session(1L, 30, 50.0, 5, START), session(1L, 30, 50.0, null, START));
+        assertThrows(NullPointerException.class, () -> baseline(sessions));
+        assertThrows(NullPointerException.class, () -> kernel(sessions));
+    }
+
+    @Test
+    void nullCompletionIsRejectedLikeTheStreamCalculation() {
+        List<StudySession> sessions = List.of(session(1L, 30, null, 5, START));
+        assertThrows(NullPointerException.class, () -> baseline(sessions));
+        assertThrows(NullPointerException.class, () -> kernel(sessions));
+    }
+
+    @Test
+    void randomizedSessionsInAnyOrder() {
+        Random random = new Random(42L);
+        for (int round = 0; round < 200; round++) {
+            int subjects = 1 + random.nextInt(12);
+            int count = random.nextInt(400);
+            List<StudySession> sessions = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                LocalDateTime createdAt = random.nextInt(20) == 0 ? null
+                    : START.plusMinutes(random.nextInt(60 * 24 * 90));
+                sessions.add(session((long) random.nextInt(subjects), random.nextInt(240),
+                    random.nextInt(10001) / 100.0, 1 + random.nextInt(10), createdAt));
+            }
+            assertParity(sessions);
+            if (random.nextBoolean()) {
+                sessions.sort(Comparator.comparing(StudySession::getSubjectId)); // already grouped rows
+            } else {
+                Collections.shuffle(sessions, random);
+            }
+            assertParity(sessions);
+        }
+    }
+
+    private static void assertParity(List<StudySession> sessions) {
+        Map<Long, SubjectPerformanceMetrics> expected = baseline(sessions);
+        Map<Long, SubjectPerformanceMetrics> actual = kernel(sessions);
+        assertEquals(expected.keySet(), actual.keySet());
+        for (Map.Entry<Long, SubjectPerformanceMetrics> entry : expected.entrySet()) {
+            SubjectPerformanceMetrics e = entry.getValue();
+            SubjectPerformanceMetrics a = actual.get(entry.getKey());
+            String subject = "subject " + entry.getKey();
+            assertEquals(e.getSessionCount(), a.getSessionCount(), subject);
+            assertEquals(e.getAveragePerformance(), a.getAveragePerformance(), TOLERANCE, subject);
+            assertEquals(e.getAverageSessionDuration(), a.getAverageSessionDuration(), TOLERANCE, subject);
+            assertEquals(e.getAverageCompletion(), a.getAverageCompletion(), TOLERANCE, subject);
+            assertEquals(e.getRecentPerformance(), a.getRecentPerformance(), TOLERANCE, subject);
+            // The square root turns rounding of a variance near 0 (equal scores) into a difference near 1e-7
+            assertEquals(e.getConsistencyScore(), a.getConsistencyScore(), 1e-7, subject);
+            assertEquals(e.getPerformanceTrend(), a.getPerformanceTrend(), TOLERANCE, subject);
+        }
+    }
+
+    private static Map<Long, SubjectPerformanceMetrics> kernel(List<StudySession> sessions) {
+        return SubjectMetricsKernel.compute(SessionColumns.fromSessions(sessions));
+    }
+
+    private static Map<Long, SubjectPerformanceMetrics> baseline(List<StudySession> sessions) {
+        Map<Long, SubjectPerformanceMetrics> metricsMap = new HashMap<>();
+        Map<Long, List<StudySession>> sessionsBySubject = sessions.stream()
+            .collect(Collectors.groupingBy(StudySession::getSubjectId));
+        for (Map.Entry<Long, List<StudySession>> entry : sessionsBySubject.entrySet()) {
+            List<StudySession> subjectSessions = entry.getValue();
+            SubjectPerformanceMetrics metrics = new SubjectPerformanceMetrics();
+            metrics.setSessionCount(subjectSessions.size());
+            metrics.setAveragePerformance(subjectSessions.stream()
+                .mapToDouble(s -> s.getPerformanceScore() / 10.0).average().orElse(0.0));
+            metrics.setAverageSessionDuration(subjectSessions.stream()
+                .mapToInt(StudySession::getDurationMinutes).average().orElse(0.0));
+            metrics.setAverageCompletion(subjectSessions.stream()
+                .mapToDouble(StudySession::getCompletionPercent).average().orElse(0.0));
+            decayedInto(subjectSessions, metrics);
+            metricsMap.put(entry.getKey(), metrics);
+        }
+        return metricsMap;
+    }
+
+    /**
+     * Weighted mean, population variance and least-squares slope with weight 2^(age / half-life), each from
+     * its definition: ages against the newest session, then means, then deviations from the means
+     */
+    private static void decayedInto(List<StudySession> sessions, SubjectPerformanceMetrics metrics) {
+        int n = sessions.size();
+        double[] days = effectiveDays(sessions);
+        double newest = Double.NEGATIVE_INFINITY;
+        for (double day : days) {
+            newest = Math.max(newest, day);
+        }
+        double[] ages = new double[n];
+        double[] weights = new double[n];
+        double[] scores = new double[n];
+        double weightSum = 0;
+        for (int i = 0; i < n; i++) {
+            ages[i] = days[i] - newest;
+            weights[i] = Math.pow(2.0, ages[i] / DecayedPerformance.HALF_LIFE_DAYS);
+            scores[i] = sessions.get(i).getPerformanceScore();
+            weightSum += weights[i];
+        }
+        double meanScore = 0;
+        double meanAge = 0;
+        for (int i = 0; i < n; i++) {
+            meanScore += weights[i] * scores[i] / weightSum;
+            meanAge += weights[i] * ages[i] / weightSum;
+        }
+        double scoreVariance = 0;
+        double ageVariance = 0;
+        double covariance = 0;
+        for (int i = 0; i < n; i++) {
+            double dx = scores[i] - meanScore;
+            double dt = ages[i] - meanAge;
+            scoreVariance += weights[i] * dx * dx / weightSum;
+            ageVariance += weights[i] * dt * dt / weightSum;
+            covariance += weights[i] * dt * dx / weightSum;
+        }
+        double slopePerDay = ageVariance <= 1e-9 ? 0.0 : covariance / ageVariance;
+        metrics.setRecentPerformance(meanScore / 10.0);
+        metrics.setConsistencyScore(Math.max(0.0, 1.0 - Math.sqrt(scoreVariance) / 10.0));
+        metrics.setPerformanceTrend(slopePerDay * DecayedPerformance.HALF_LIFE_DAYS / 10.0);
+    }
+
+    /**
+     * Day each session counts at: its own, or for an undated one the newest day of the dated sessions before
+     * it, or the first dated session's day if none came before; 0 for all when none is dated
+     */
+    private static double[] effectiveDays(List<StudySession> sessions) {
+        double[] days = new double[sessions.size()];
+        double newest = Double.NaN;
+        double first = Double.NaN;
+        for (int i = 0; i < days.length; i++) {
+            double day = DecayedPerformance.toDay(sessions.get(i).getCreatedAt());
+            if (!Double.isNaN(day)) {
+                newest = Double.isNaN(newest) ? day : Math.max(newest, day);
+                first = Double.isNaN(first) ? day : first;
+            }
+            days[i] = Double.isNaN(day) ? newest : day;
+        }
+        for (int i = 0; i < days.length; i++) {
+            if (Double.isNaN(days[i])) {
+                days[i] = Double.isNaN(first) ? 0.0 : first;
+            }
+        }
+        return days;
+    }
+
+    private static StudySession session(Long subjectId, Integer duration, Double completion, Integer score,
+                                        LocalDateTime createdAt) {
+        StudySession session = new StudySession(1L, subjectId, duration, completion, score, null);
+        session.setCreatedAt(createdAt);
+        return session;
+    }
+}
@@ -0,0 +1,258 @@
+package com.grasp.service.planning;
+
+import com.grasp.model.Recommendation;
+import com.grasp.model.StudyPlan;
+import com.grasp.model.Subject;
+import com.grasp.service.metrics.SubjectPerformanceMetrics;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The applied recommendations of one call against the limits the optimizer promises: the plan total never
+ * grows, the unfinished work fits the deadline whenever it can, and every subject stays within its scale bounds
+ */
+class TimeReallocationOptimizerTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2024, 1, 1);
+    private static final double MIN_SCALE = 0.5;
+    private static final double MAX_SCALE = 2.0;
+
+    /** min-change 1 suggests every change, so applying the recommendations gives the solution itself */
+    private final TimeReallocationOptimizer optimizer =
+        new TimeReallocationOptimizer(true, 60, 0.75, 2.0, MIN_SCALE, MAX_SCALE, 1);
+
+    @Test
+    void withoutDeadlineThePlanTotalIsKeptExactly() {
+        Random random = new Random(42L);
+        for (int round = 0; round < 500; round++) {
+            StudyPlan plan = plan(1 + random.nextInt(40), null, random);
+            Map<Long, SubjectPerformanceMetrics> metrics = metrics(plan, random);
+            List<Recommendation> out = new ArrayList<>();
+            optimizer.optimize(plan, metrics, TODAY, out);
+
+            int[] applied = apply(plan, out);
+            assertEquals(total(plan), sum(applied));
+            assertWithinBounds(plan, metrics, applied);
+            out.forEach(r -> assertEquals(TimeReallocationOptimizer.RULE_ID, r.getRuleId()));
+        }
+    }
+
+    @Test
+    void nearDeadlineTheUnfinishedWorkFitsTheCapacity() {
+        Random random = new Random(7L);
+        int deadlineBound = 0;
+        for (int round = 0; round < 500; round++) {
+            int days = random.nextInt(5);
+            StudyPlan plan = plan(1 + random.nextInt(40), TODAY.plusDays(days), random);
+            Map<Long, SubjectPerformanceMetrics> metrics = metrics(plan, random);
+            List<Recommendation> out = new ArrayList<>();
+            optimizer.optimize(plan, metrics, TODAY, out);
+
+            int[] applied = apply(plan, out);
+            assertTrue(sum(applied) <= total(plan), "round " + round);
+            assertWithinBounds(plan, metrics, applied);
+            if (out.stream().anyMatch(r -> TimeReallocationOptimizer.DEADLINE_RULE_ID.equals(r.getRuleId()))) {
+                deadlineBound++;
+                double capacity = (days + 1) * 60.0;
+                if (minimumUnfinished(plan, metrics) <= capacity) {
+                    // Rounding moves each subject by less than one minute
+                    double slack = plan.getSubjects().size();
+                    assertTrue(unfinished(plan, applied) <= capacity + slack, "round " + round);
+                }
+            }
+        }
+        assertTrue(deadlineBound > 100);
+    }
+
+    @Test
+    void deadlineOutOfReachLeavesEverySubjectAtItsMinimum() {
+        StudyPlan plan = plan(3, TODAY, new Random(1L));
+        Map<Long, SubjectPerformanceMetrics> metrics = new HashMap<>();
+        for (Subject subject : plan.getSubjects()) {
+            subject.setTimeAllocationMinutes(300);
+            subject.setCurrentProgressPercent(0.0);
+            metrics.put(subject.getId(), metrics(0.5));
+        }
+        List<Recommendation> out = new ArrayList<>();
+        optimizer.optimize(plan, metrics, TODAY, out);
+
+        assertEquals(3, out.size());
+        for (Recommendation recommendation : out) {
+            assertEquals(TimeReallocationOptimizer.DEADLINE_RULE_ID, recommendation.getRuleId());
+            assertEquals(150, recommendation.getNumericValue().intValue());
+        }
+    }
+
+    @Test
+    void strugglingSubjectTakesTimeFromTheStrongOne() {
+        StudyPlan plan = plan(2, null, new Random(1L));
+        plan.getSubjects().forEach(s -> s.setTimeAllocationMinutes(120));
+        Map<Long, SubjectPerformanceMetrics> metrics = new HashMap<>();
+        metrics.put(plan.getSubjects().get(0).getId(), metrics(0.4));
+        metrics.put(plan.getSubjects().get(1).getId(), metrics(0.95));
+        List<Recommendation> out = new ArrayList<>();
+        optimizer.optimize(plan, metrics, TODAY, out);
+
+        int[] applied = apply(plan, out);
+        assertTrue(applied[0] > 120 && applied[1] < 120);
+        assertEquals(240, applied[0] + applied[1]);
+    }
+
+    @Test
+    void subjectsWithoutMetricsKeepTheirMinutes() {
+        Random random = new Random(3L);
+        StudyPlan plan = plan(10, null, random);
+        Map<Long, SubjectPerformanceMetrics> metrics = metrics(plan, random);
+        metrics.remove(plan.getSubjects().get(0).getId());
+        metrics.remove(plan.getSubjects().get(5).getId());
+        List<Recommendation> out = new ArrayList<>();
+        optimizer.optimize(plan, metrics, TODAY, out);
+
+        for (Recommendation recommendation : out) {
+            assertTrue(metrics.containsKey(recommendation.getSubjectId()));
+        }
+        List<Recommendation> none = new ArrayList<>();
+        optimizer.optimize(plan, Map.of(), TODAY, none);
+        assertTrue(none.isEmpty());
+    }
+
+    @Test
+    void scaleBoundsMustContainTheCurrentMinutes() {
+        assertThrows(IllegalArgumentException.class, () -> scaled(1.5, 2.0));
+        assertThrows(IllegalArgumentException.class, () -> scaled(0.5, 0.9));
+        assertThrows(IllegalArgumentException.class, () -> scaled(0.0, 2.0));
+    }
+
+    private static TimeReallocationOptimizer scaled(double minScale, double maxScale) {
+        return new TimeReallocationOptimizer(true, 240, 0.75, 2.0, minScale, maxScale, 15);
+    }
+
+    private static void assertWithinBounds(StudyPlan plan, Map<Long, SubjectPerformanceMetrics> metrics,
+                                           int[] applied) {
+        List<Subject> subjects = plan.getSubjects();
+        for (int i = 0; i < subjects.size(); i++) {
+            Subject subject = subjects.get(i);
+            int minutes = subject.getTimeAllocationMinutes();
+            if (!metrics.containsKey(subject.getId())) {
+                assertEquals(minutes, applied[i]);
+                continue;
+            }
+            // Rounding moves each subject by less than one minute
+            assertTrue(applied[i] > minutes * MIN_SCALE - 1, "subject " + subject.getId());
+            assertTrue(applied[i] < minutes * MAX_SCALE + 1, "subject " + subject.getId());
+        }
+    }
+
+    /** Minutes of every subject after applying the recommendations */
+    private static int[] apply(StudyPlan plan, List<Recommendation> out) {
+        List<Subject> subjects = plan.getSubjects();
+        Map<Long, Integer> recommended = new HashMap<>();
+        for (Recommendation recommendation : out) {
+            assertEquals(Recommendation.RecommendationType.TIME_ADJUSTMENT, recommendation.getType());
+            recommended.put(recommendation.getSubjectId(), recommendation.getNumericValue());
+        }
+        int[] applied = new int[subjects.size()];
+        for (int i = 0; i < applied.length; i++) {
+            applied[i] = recommended.getOrDefault(subjects.get(i).getId(), subjects.get(i).getTimeAllocationMinutes());
+        }
+        return applied;
+    }
+
+    /**
+     * The least unfinished work any allocation within the bounds and the plan total can leave: every subject at
+     * its minimum, then the rest of the total (if the minimums fit it at all) to the most finished subjects
+     */
+    private static double minimumUnfinished(StudyPlan plan, Map<Long, SubjectPerformanceMetrics> metrics) {
+        List<Subject> subjects = new ArrayList<>(plan.getSubjects());
+        subjects.sort(Comparator.comparingDouble(TimeReallocationOptimizerTest::remaining));
+        double spare = total(plan);
+        for (Subject subject : subjects) {
+            spare -= minimum(subject, metrics);
+        }
+        double unfinished = 0;
+        for (Subject subject : subjects) {
+            double minutes = minimum(subject, metrics);
+            if (metrics.containsKey(subject.getId())) {
+                double room = subject.getTimeAllocationMinutes() * (MAX_SCALE - MIN_SCALE);
+                double extra = Math.max(0, Math.min(spare, room));
+                minutes += extra;
+                spare -= extra;
+            }
+            unfinished += remaining(subject) * minutes;
+        }
+        return unfinished;
+    }
+
+    private static double minimum(Subject subject, Map<Long, SubjectPerformanceMetrics> metrics) {
+        int minutes = subject.getTimeAllocationMinutes();
+        return metrics.containsKey(subject.getId()) ? minutes * MIN_SCALE : minutes;
+    }
+
+    private static double unfinished(StudyPlan plan, int[] applied) {
+        double unfinished = 0;
+        for (int i = 0; i < applied.length; i++) {
+            unfinished += remaining(plan.getSubjects().get(i)) * applied[i];
+        }
+        return unfinished;
+    }
+
+    private static double remaining(Subject subject) {
+        return 1 - subject.getCurrentProgressPercent() / 100;
+    }
+
+    private static int total(StudyPlan plan) {
+        return plan.getSubjects().stream().mapToInt(Subject::getTimeAllocationMinutes).sum();
+    }
+
+    private static int sum(int[] values) {
+        int sum = 0;
+        for (int value : values) {
+            sum += value;
+        }
+        return sum;
+    }
+
+    private static StudyPlan plan(int subjects, LocalDate deadline, Random random) {
+        StudyPlan plan = new StudyPlan(1L, "Plan", null, deadline);
+        plan.setId(1L);
+        List<Subject> list = new ArrayList<>();
+        for (int i = 0; i < subjects; i++) {
+            Subject subject = new Subject(1L, "Subject " + i,
+                Subject.DifficultyLevel.values()[random.nextInt(3)], 30 + random.nextInt(300));
+            subject.setId(100L + i);
+            subject.setCurrentProgressPercent(random.nextInt(101) * 1.0);
+            list.add(subject);
+        }
+        plan.setSubjects(list);
+        return plan;
+    }
+
+    /** Metrics for about four in five subjects */
+    private static Map<Long, SubjectPerformanceMetrics> metrics(StudyPlan plan, Random random) {
+        Map<Long, SubjectPerformanceMetrics> metrics = new HashMap<>();
+        for (Subject subject : plan.getSubjects()) {
+            if (random.nextInt(5) != 0) {
+                metrics.put(subject.getId(), metrics(random.nextDouble()));
+            }
+        }
+        return metrics;
+    }
+
+    private static SubjectPerformanceMetrics metrics(double recentPerformance) {
+        SubjectPerformanceMetrics metrics = new SubjectPerformanceMetrics();
+        metrics.setSessionCount(3);
+        metrics.setRecentPerformance(recentPerformance);
+        return metrics;
+    }
+}
@@ -0,0 +1,162 @@
+package com.grasp.service.rules;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.grasp.model.Recommendation;
+import com.grasp.model.Subject;
+import com.grasp.service.metrics.SubjectPerformanceMetrics;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Compiled rules against the rules that were hardcoded in {@code RecommendationEngineService} before they
+ * moved to a file, on random metrics and on values exactly at every threshold
+ */
+class CompiledRuleSetTest {
+
+    private static final double PERFORMANCE_THRESHOLD = 0.6;
+    private static final double TIME_ADJUSTMENT_FACTOR = 1.2;
+
+    /** The hardcoded rules as the first rule file wrote them */
+    private static final String PREVIOUS_RULES = """
+        {"mode": "%s", "rules": [
+          {"id": "low-performance", "type": "TIME_ADJUSTMENT", "when": ["recentPerformance < 0.6"],
+           "action": {"kind": "SCALE_TIME", "factor": 1.2},
+           "reasoning": "Recent performance below {limit.recentPerformance:pct0}%% threshold ({recentPerformance:pct1}%%). Increase study time by {change:pct0}%% to improve learning outcomes."},
+          {"id": "ready-for-harder", "type": "DIFFICULTY_CHANGE", "when": ["recentPerformance > 0.85", "sessionCount >= 3"],
+           "action": {"kind": "NEXT_DIFFICULTY"},
+           "reasoning": "Consistently high recent performance ({recentPerformance:pct1}%%) suggests ready for increased difficulty level."},
+          {"id": "short-sessions", "type": "SCHEDULE_MODIFICATION", "when": ["averageSessionDuration < 30", "sessionCount >= 2"],
+           "action": {"kind": "FIXED", "value": "EXTEND_SESSIONS"},
+           "reasoning": "Short session durations (avg {averageSessionDuration:1} min) may impact learning effectiveness. Consider longer, focused sessions."}
+        ]}""";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void firstMatchEqualsThePreviousRules() throws IOException {
+        assertEqualsPrevious(compile(String.format(PREVIOUS_RULES, "FIRST_MATCH")), true);
+    }
+
+    @Test
+    void allEqualsEveryPreviousRuleThatHolds() throws IOException {
+        assertEqualsPrevious(compile(String.format(PREVIOUS_RULES, "ALL")), false);
+    }
+
+    @Test
+    void shippedRulesMatchEveryPreviousRuleThatHoldsWhileTheCohortIsSmall() throws IOException {
+        try (InputStream in = getClass().getResourceAsStream("/recommendation-rules.json")) {
+            assertEqualsPrevious(CompiledRuleSet.compile(objectMapper.readValue(in, RuleSetDefinition.class)), false);
+        }
+    }
+
+    @Test
+    void everyMetricIsReadIntoItsOrdinal() {
+        SubjectPerformanceMetrics metrics = new SubjectPerformanceMetrics();
+        metrics.setSessionCount(1);
+        metrics.setAveragePerformance(2);
+        metrics.setRecentPerformance(3);
+        metrics.setAverageSessionDuration(4);
+        metrics.setAverageCompletion(5);
+        metrics.setPerformanceTrend(6);
+        metrics.setConsistencyScore(7);
+        metrics.setCohortSessions(8);
+        metrics.setCohortPerformancePercentile(9);
+        metrics.setCohortDurationPercentile(10);
+        double[] values = CompiledRuleSet.newScratch();
+        SubjectMetric.readAll(metrics, values);
+        for (SubjectMetric metric : SubjectMetric.values()) {
+            assertEquals(metric.ordinal() + 1.0, values[metric.ordinal()], 0.0, metric.key());
+        }
+    }
+
+    @Test
+    void invalidRulesNameTheRule() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> compile(
+            "{\"mode\": \"ALL\", \"rules\": [{\"id\": \"broken\", \"type\": \"TIME_ADJUSTMENT\", " +
+            "\"when\": [\"noSuchMetric < 1\"], \"action\": {\"kind\": \"SCALE_TIME\", \"factor\": 1.2}}]}"));
+        assertEquals("Rule broken: Unknown metric 'noSuchMetric'", e.getMessage());
+    }
+
+    private CompiledRuleSet compile(String json) throws IOException {
+        return CompiledRuleSet.compile(objectMapper.readValue(json, RuleSetDefinition.class));
+    }
+
+    private static void assertEqualsPrevious(CompiledRuleSet rules, boolean firstMatch) {
+        Random random = new Random(42L);
+        double[] performances = {PERFORMANCE_THRESHOLD, Math.nextDown(PERFORMANCE_THRESHOLD), 0.85,
+            Math.nextUp(0.85), 0.0, 1.0};
+        double[] durations = {30.0, Math.nextDown(30.0), 0.0, 45.0};
+        double[] scratch = CompiledRuleSet.newScratch();
+        for (int i = 0; i < 20_000; i++) {
+            Subject subject = new Subject(1L, "Subject",
+                Subject.DifficultyLevel.values()[random.nextInt(3)], 1 + random.nextInt(600));
+            subject.setId((long) i);
+            SubjectPerformanceMetrics metrics = new SubjectPerformanceMetrics();
+            metrics.setSessionCount(random.nextInt(6));
+            metrics.setRecentPerformance(random.nextBoolean()
+                ? performances[random.nextInt(performances.length)] : random.nextDouble());
+            metrics.setAverageSessionDuration(random.nextBoolean()
+                ? durations[random.nextInt(durations.length)] : random.nextDouble() * 90);
+            metrics.setCohortPerformancePercentile(Double.NaN);
+            metrics.setCohortDurationPercentile(Double.NaN);
+
+            List<Recommendation> expected = previous(subject, metrics, firstMatch);
+            List<Recommendation> actual = new ArrayList<>();
+            rules.evaluate(subject, metrics, scratch, actual);
+            assertEquals(expected.size(), actual.size());
+            for (int r = 0; r < expected.size(); r++) {
+                assertEquals(expected.get(r).getType(), actual.get(r).getType());
+                assertEquals(expected.get(r).getSubjectId(), actual.get(r).getSubjectId());
+                assertEquals(expected.get(r).getValue(), actual.get(r).getValue());
+                assertEquals(expected.get(r).getReasoning(), actual.get(r).getReasoning());
+            }
+        }
+    }
+
+    /** analyzeSubjectPerformance as it was, returning every rule that holds unless {@code firstMatch} */
+    private static List<Recommendation> previous(Subject subject, SubjectPerformanceMetrics metrics,
+                                                 boolean firstMatch) {
+        List<Recommendation> out = new ArrayList<>();
+        if (metrics.getRecentPerformance() < PERFORMANCE_THRESHOLD) {
+            int recommendedTime = (int) (subject.getTimeAllocationMinutes() * TIME_ADJUSTMENT_FACTOR);
+            out.add(new Recommendation(Recommendation.RecommendationType.TIME_ADJUSTMENT, subject.getId(),
+                String.valueOf(recommendedTime),
+                String.format("Recent performance below %.0f%% threshold (%.1f%%). Increase study time by %.0f%% to improve learning outcomes.",
+                    PERFORMANCE_THRESHOLD * 100, metrics.getRecentPerformance() * 100, (TIME_ADJUSTMENT_FACTOR - 1) * 100)));
+            if (firstMatch) {
+                return out;
+            }
+        }
+        if (metrics.getRecentPerformance() > 0.85 && metrics.getSessionCount() >= 3) {
+            String newDifficulty = switch (subject.getDifficultyLevel()) {
+                case BEGINNER -> "INTERMEDIATE";
+                case INTERMEDIATE -> "ADVANCED";
+                case ADVANCED -> null;
+            };
+            if (newDifficulty != null) {
+                out.add(new Recommendation(Recommendation.RecommendationType.DIFFICULTY_CHANGE, subject.getId(),
+                    newDifficulty,
+                    String.format("Consistently high recent performance (%.1f%%) suggests ready for increased difficulty level.",
+                        metrics.getRecentPerformance() * 100)));
+                if (firstMatch) {
+                    return out;
+                }
+            }
+        }
+        if (metrics.getAverageSessionDuration() < 30 && metrics.getSessionCount() >= 2) {
+            out.add(new Recommendation(Recommendation.RecommendationType.SCHEDULE_MODIFICATION, subject.getId(),
+                "EXTEND_SESSIONS",
+                String.format("Short session durations (avg %.1f min) may impact learning effectiveness. Consider longer, focused sessions.",
+                    metrics.getAverageSessionDuration())));
+        }
+        return out;
+    }
+}
@@ -0,0 +1,231 @@
+package com.grasp.service.schedule;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The wheel against a map of id to due minute, and the order in which entries on every level come due
+ */
+class TimingWheelTest {
+
+    private static final int NOW = 29_000_000; // about 2025, far from any digit boundary
+
+    private final long[] polledIds = new long[64];
+    private final int[] polledDues = new int[64];
+
+    @Test
+    void entriesOnEveryLevelComeDueAtTheirMinute() {
+        TimingWheel wheel = new TimingWheel(16, NOW);
+        // Just below and at every level boundary, and one far out on the top level
+        int[] offsets = {1, 2, 63, 64, 65, 4095, 4096, 4097, 262_143, 262_144, 16_777_216, 300_000_000};
+        for (int i = 0; i < offsets.length; i++) {
+            wheel.schedule(i, NOW + offsets[i]);
+        }
+        int next = 0;
+        // Minute by minute up to the boundaries, then in jumps that end exactly on the remaining dues
+        for (int minute = NOW + 1; minute <= NOW + 4097; minute++) {
+            wheel.advanceTo(minute);
+            next = assertPolledAt(wheel, offsets, next, minute);
+        }
+        for (int i = next; i < offsets.length; i++) {
+            wheel.advanceTo(NOW + offsets[i] - 1);
+            assertEquals(0, wheel.pollReady(64, polledIds, polledDues));
+            wheel.advanceTo(NOW + offsets[i]);
+            next = assertPolledAt(wheel, offsets, next, NOW + offsets[i]);
+        }
+        assertEquals(offsets.length, next);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void oneLongAdvancePagesOutInDueOrder() {
+        Random random = new Random(42L);
+        TimingWheel wheel = new TimingWheel(16, NOW);
+        for (long id = 0; id < 5000; id++) {
+            wheel.schedule(id, NOW + random.nextInt(random.nextBoolean() ? 100 : 1_000_000));
+        }
+        wheel.advanceTo(NOW + 1_000_000);
+        assertEquals(5000, wheel.readyCount());
+        int previous = Integer.MIN_VALUE;
+        int total = 0;
+        int polled;
+        while ((polled = wheel.pollReady(64, polledIds, polledDues)) > 0) {
+            for (int i = 0; i < polled; i++) {
+                assertTrue(polledDues[i] >= previous);
+                previous = polledDues[i];
+            }
+            total += polled;
+        }
+        assertEquals(5000, total);
+        assertEquals(0, wheel.readyCount());
+    }
+
+    @Test
+    void pastMinutesAreDueAtOnce() {
+        TimingWheel wheel = new TimingWheel(16, NOW);
+        wheel.schedule(1L, NOW - 5);
+        wheel.schedule(2L, NOW);
+        wheel.schedule(3L, -10);
+        assertEquals(3, wheel.readyCount());
+        assertEquals(0, wheel.dueMinute(3L));
+        assertEquals(3, wheel.pollReady(64, polledIds, polledDues));
+        assertEquals(1L, polledIds[0]);
+        assertEquals(2L, polledIds[1]);
+        assertEquals(3L, polledIds[2]);
+    }
+
+    @Test
+    void rescheduleMovesTheEntry() {
+        TimingWheel wheel = new TimingWheel(16, NOW);
+        wheel.schedule(1L, NOW + 5000);
+        wheel.schedule(1L, NOW + 10);
+        assertEquals(1, wheel.size());
+        assertEquals(NOW + 10, wheel.dueMinute(1L));
+        wheel.advanceTo(NOW + 10);
+        assertEquals(1, wheel.readyCount());
+
+        // Out of the ready list and back into the wheel
+        wheel.schedule(1L, NOW + 20);
+        assertEquals(0, wheel.readyCount());
+        wheel.advanceTo(NOW + 5000);
+        assertEquals(1, wheel.pollReady(64, polledIds, polledDues));
+        assertEquals(NOW + 20, polledDues[0]);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void removeUnschedulesAndKeepsTheReadyOrder() {
+        TimingWheel wheel = new TimingWheel(16, NOW);
+        for (long id = 1; id <= 4; id++) {
+            wheel.schedule(id, NOW - 10 + (int) id);
+        }
+        wheel.schedule(5L, NOW + 100);
+        assertTrue(wheel.remove(2L)); // middle of the ready list
+        assertTrue(wheel.remove(4L)); // its tail
+        assertTrue(wheel.remove(5L)); // in the wheel
+        assertFalse(wheel.remove(5L));
+        assertEquals(TimingWheel.NOT_SCHEDULED, wheel.dueMinute(5L));
+        assertEquals(2, wheel.readyCount());
+
+        wheel.schedule(6L, NOW); // appended after the new tail
+        assertEquals(3, wheel.pollReady(64, polledIds, polledDues));
+        assertEquals(1L, polledIds[0]);
+        assertEquals(3L, polledIds[1]);
+        assertEquals(6L, polledIds[2]);
+        wheel.advanceTo(NOW + 100);
+        assertEquals(0, wheel.pollReady(64, polledIds, polledDues));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void removingFromAProbeRunKeepsTheRestFindable() {
+        // A 16-entry wheel has a 64-slot id table; collect ids whose home slots form runs, one wrapping around
+        Map<Integer, List<Long>> byHome = new HashMap<>();
+        for (long id = 0; byHome.getOrDefault(63, List.of()).size() < 4
+                || byHome.getOrDefault(0, List.of()).size() < 4
+                || byHome.getOrDefault(1, List.of()).size() < 4; id++) {
+            byHome.computeIfAbsent(home(id, 64), h -> new ArrayList<>()).add(id);
+        }
+        List<Long> ids = new ArrayList<>();
+        for (int home : new int[] {63, 0, 1}) {
+            ids.addAll(byHome.get(home).subList(0, 4));
+        }
+        Random random = new Random(3L);
+        for (int round = 0; round < 200; round++) {
+            TimingWheel wheel = new TimingWheel(16, NOW);
+            Map<Long, Integer> model = new HashMap<>();
+            for (long id : ids) {
+                int due = NOW + 1 + random.nextInt(1000);
+                wheel.schedule(id, due);
+                model.put(id, due);
+            }
+            for (int removals = 0; removals < 8; removals++) {
+                long id = ids.get(random.nextInt(ids.size()));
+                assertEquals(model.remove(id) != null, wheel.remove(id));
+                for (long other : ids) {
+                    int due = model.getOrDefault(other, TimingWheel.NOT_SCHEDULED);
+                    assertEquals(due, wheel.dueMinute(other));
+                }
+            }
+            assertEquals(model.size(), wheel.size());
+        }
+    }
+
+    @Test
+    void matchesAMapUnderRandomOperations() {
+        Random random = new Random(7L);
+        int now = NOW;
+        TimingWheel wheel = new TimingWheel(16, now);
+        Map<Long, Integer> model = new HashMap<>();
+        for (int step = 0; step < 300_000; step++) {
+            int op = random.nextInt(10);
+            long id = random.nextInt(5000);
+            if (op < 5) {
+                int due = now + random.nextInt(random.nextBoolean() ? 100 : 200_000) - 10;
+                wheel.schedule(id, due);
+                model.put(id, due);
+            } else if (op < 6) {
+                assertEquals(model.remove(id) != null, wheel.remove(id));
+            } else if (op < 8) {
+                now += random.nextInt(random.nextInt(10) == 0 ? 5000 : 3);
+                wheel.advanceTo(now);
+            } else {
+                int polled = wheel.pollReady(polledIds.length, polledIds, polledDues);
+                for (int i = 0; i < polled; i++) {
+                    Integer due = model.remove(polledIds[i]);
+                    assertEquals(due, Integer.valueOf(polledDues[i]));
+                    assertTrue(due <= now);
+                }
+            }
+            assertEquals(model.size(), wheel.size());
+            if (step % 10_000 == 0) {
+                int current = now;
+                assertEquals(model.values().stream().filter(due -> due <= current).count(), (long) wheel.readyCount());
+                for (Map.Entry<Long, Integer> entry : model.entrySet()) {
+                    assertEquals(entry.getValue().intValue(), wheel.dueMinute(entry.getKey()));
+                }
+            }
+        }
+        wheel.advanceTo(now + 300_000);
+        int total = 0;
+        int polled;
+        while ((polled = wheel.pollReady(polledIds.length, polledIds, polledDues)) > 0) {
+            total += polled;
+        }
+        assertEquals(model.size(), total);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void negativeClockIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new TimingWheel(16, -1));
+    }
+
+    /** Polls and checks the entries due at {@code minute}, which are the next ones in {@code offsets} */
+    private int assertPolledAt(TimingWheel wheel, int[] offsets, int next, int minute) {
+        int polled = wheel.pollReady(64, polledIds, polledDues);
+        for (int i = 0; i < polled; i++) {
+            assertEquals(minute, polledDues[i]);
+            assertEquals((long) next, polledIds[i]);
+            assertEquals(NOW + offsets[next], minute);
+            next++;
+        }
+        return next;
+    }
+
+    /** Home slot of {@code id} in a table of {@code length} slots, as {@code TimingWheel.hash} computes it */
+    private static int home(long id, int length) {
+        long h = id * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & (length - 1);
+    }
+}
@@ -0,0 +1,230 @@
+package com.grasp.service.scoring;
+
+import com.grasp.model.Recommendation;
+import com.grasp.model.ScoringPartition;
+import com.grasp.model.ScoringPartition.PartitionStatus;
+import com.grasp.repository.ScoringRunRepository;
+import com.grasp.repository.StudyPlanRepository;
+import com.grasp.service.RecommendationEngineService;
+import com.grasp.service.RecommendationStore;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Claims, completion and lease expiry as the worker sees them, with the work table replaced by a list of
+ * partitions that follows the repository's statements: claim the first PENDING or expired partition,
+ * renew and complete only while still the holder
+ */
+class ScoringWorkerTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 8, 0);
+    private static final int PLANS_PER_PARTITION = 3;
+
+    private final List<ScoringPartition> table = new ArrayList<>();
+    private final List<Long> scoredPlans = new ArrayList<>();
+    private LocalDateTime now = START;
+    /** Runs after each plan is scored, e.g. to let the lease run out meanwhile */
+    private Runnable afterPlan = () -> {};
+
+    @Test
+    void everyPartitionIsClaimedAndCompletedOnce() {
+        createRun(4);
+        ScoringWorker worker = worker(2, Duration.ofMinutes(2));
+        worker.start();
+
+        for (ScoringPartition partition : table) {
+            assertEquals(PartitionStatus.DONE, partition.getStatus());
+            assertEquals("node-0", partition.getClaimedBy()); // the first thread drained the run alone
+            assertEquals(1, partition.getAttempts());
+            assertEquals(Integer.valueOf(PLANS_PER_PARTITION), partition.getPlansScored());
+            assertNull(partition.getLeaseUntil());
+        }
+        assertEquals(4 * PLANS_PER_PARTITION, scoredPlans.size());
+        assertEquals(4 * PLANS_PER_PARTITION, scoredPlans.stream().distinct().count());
+        assertEquals(4L, worker.stats().get("partitionsCompleted"));
+        assertEquals(0L, worker.stats().get("partitionsLost"));
+    }
+
+    @Test
+    void partitionOfADeadHolderIsClaimedAgainOnceItsLeaseRunsOut() {
+        createRun(2);
+        claimAs(table.get(0), "dead-0", now.plusMinutes(1));
+        ScoringWorker worker = worker(1, Duration.ofMinutes(2));
+        worker.start();
+        assertEquals(PartitionStatus.RUNNING, table.get(0).getStatus()); // lease still running: skipped
+        assertEquals(PartitionStatus.DONE, table.get(1).getStatus());
+
+        now = now.plusMinutes(2);
+        worker.start();
+        assertEquals(PartitionStatus.DONE, table.get(0).getStatus());
+        assertEquals("node-0", table.get(0).getClaimedBy());
+        assertEquals(2, table.get(0).getAttempts());
+        assertEquals(2L, worker.stats().get("partitionsCompleted"));
+    }
+
+    @Test
+    void holderWhoseLeaseWasTakenOverCannotComplete() {
+        createRun(1);
+        ScoringPartition partition = table.get(0);
+        afterPlan = () -> {
+            // The lease ran out while the last plan was scored, and another worker claimed the partition
+            if (scoredPlans.size() == PLANS_PER_PARTITION) {
+                claimAs(partition, "other-0", now.plusMinutes(2));
+            }
+        };
+        ScoringWorker worker = worker(1, Duration.ofMinutes(2));
+        worker.start();
+
+        assertEquals(PartitionStatus.RUNNING, partition.getStatus());
+        assertEquals("other-0", partition.getClaimedBy());
+        assertNull(partition.getPlansScored());
+        assertEquals(0L, worker.stats().get("partitionsCompleted"));
+        assertEquals(1L, worker.stats().get("partitionsLost"));
+    }
+
+    @Test
+    void holderStopsScoringOnceItCannotRenew() {
+        createRun(1);
+        ScoringPartition partition = table.get(0);
+        afterPlan = () -> claimAs(partition, "other-0", now.plusMinutes(2));
+        // A lease this short is renewed before every plan
+        ScoringWorker worker = worker(1, Duration.ofNanos(3));
+        worker.start();
+
+        assertEquals(1, scoredPlans.size());
+        assertEquals("other-0", partition.getClaimedBy());
+        assertEquals(1L, worker.stats().get("partitionsLost"));
+    }
+
+    private void createRun(int partitions) {
+        for (int i = 0; i < partitions; i++) {
+            ScoringPartition partition = new ScoringPartition();
+            partition.setRunId(1L);
+            partition.setPartitionNo(i);
+            partition.setPartitions(partitions);
+            partition.setStatus(PartitionStatus.PENDING);
+            table.add(partition);
+        }
+    }
+
+    private void claimAs(ScoringPartition partition, String holder, LocalDateTime leaseUntil) {
+        partition.setStatus(PartitionStatus.RUNNING);
+        partition.setClaimedBy(holder);
+        partition.setClaimedAt(now);
+        partition.setLeaseUntil(leaseUntil);
+        partition.setAttempts(partition.getAttempts() + 1);
+    }
+
+    private ScoringWorker worker(int threads, Duration lease) {
+        return new ScoringWorker(runs(), plans(), new RecommendationEngineService(null, null, null, null, null,
+            null, null, null), store(), new InlineScheduler(), true, threads, Duration.ofSeconds(5), lease, "node");
+    }
+
+    /** The work table, following the WHERE clauses of ScoringRunRepository */
+    private ScoringRunRepository runs() {
+        return new ScoringRunRepository(null) {
+            @Override
+            public Optional<ScoringPartition> claim(String workerId, Duration lease) {
+                for (ScoringPartition partition : table) {
+                    boolean expired = partition.getStatus() == PartitionStatus.RUNNING
+                        && partition.getLeaseUntil().isBefore(now);
+                    if (partition.getStatus() == PartitionStatus.PENDING || expired) {
+                        claimAs(partition, workerId, now.plus(lease));
+                        return Optional.of(copy(partition));
+                    }
+                }
+                return Optional.empty();
+            }
+
+            @Override
+            public boolean renew(ScoringPartition claimed, String workerId, Duration lease) {
+                ScoringPartition partition = held(claimed, workerId);
+                if (partition == null) {
+                    return false;
+                }
+                partition.setLeaseUntil(now.plus(lease));
+                return true;
+            }
+
+            @Override
+            public boolean complete(ScoringPartition claimed, String workerId, int plansScored, int failedPlans) {
+                ScoringPartition partition = held(claimed, workerId);
+                if (partition == null) {
+                    return false;
+                }
+                partition.setStatus(PartitionStatus.DONE);
+                partition.setCompletedAt(now);
+                partition.setLeaseUntil(null);
+                partition.setPlansScored(plansScored);
+                partition.setFailedPlans(failedPlans);
+                return true;
+            }
+        };
+    }
+
+    private ScoringPartition held(ScoringPartition claimed, String workerId) {
+        ScoringPartition partition = table.get(claimed.getPartitionNo());
+        boolean held = partition.getStatus() == PartitionStatus.RUNNING && workerId.equals(partition.getClaimedBy());
+        return held ? partition : null;
+    }
+
+    private StudyPlanRepository plans() {
+        return new StudyPlanRepository(null) {
+            @Override
+            public List<Long> findActiveIdsInUserPartition(int partitionNo, int partitions) {
+                List<Long> ids = new ArrayList<>();
+                for (int i = 0; i < PLANS_PER_PARTITION; i++) {
+                    ids.add(100L * partitionNo + i);
+                }
+                return ids;
+            }
+        };
+    }
+
+    private RecommendationStore store() {
+        return new RecommendationStore(null, null, null) {
+            @Override
+            public void regenerate(Long planId, Function<Long, Optional<List<Recommendation>>> generator) {
+                scoredPlans.add(planId);
+                afterPlan.run();
+            }
+        };
+    }
+
+    private static ScoringPartition copy(ScoringPartition partition) {
+        ScoringPartition copy = new ScoringPartition();
+        copy.setRunId(partition.getRunId());
+        copy.setPartitionNo(partition.getPartitionNo());
+        copy.setPartitions(partition.getPartitions());
+        copy.setStatus(partition.getStatus());
+        copy.setClaimedBy(partition.getClaimedBy());
+        copy.setAttempts(partition.getAttempts());
+        return copy;
+    }
+
+    /** Runs each worker thread's loop once, on the calling thread */
+    private static final class InlineScheduler extends ScheduledThreadPoolExecutor {
+        private InlineScheduler() {
+            super(1);
+        }
+
+        @Override
+        public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command, long initialDelay, long delay,
+                                                         TimeUnit unit) {
+            command.run();
+            return null;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.grasp.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs the JMH suites with the GC (allocation) profiler and writes a JSON result file.
+ *
+ * <pre>
+ * java -jar target/benchmarks.jar [--out result.json] [--baseline baselines/x.json] [--threshold 0.10] [JMH options]
+ * </pre>
+ *
+ * With {@code --baseline}, every score is compared with the baseline entry of the same benchmark and
+ * parameters, and the process exits with status 2 if any regresses by more than the threshold.
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {}
+
+    public static void main(String[] args) throws Exception {
+        String out = "target/jmh-result.json";
+        String baseline = null;
+        double threshold = 0.10;
+        List<String> jmhArgs = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--out" -> out = args[++i];
+                case "--baseline" -> baseline = args[++i];
+                case "--threshold" -> threshold = Double.parseDouble(args[++i]);
+                default -> jmhArgs.add(args[i]);
+            }
+        }
+
+        Options options = new OptionsBuilder()
+            .parent(new CommandLineOptions(jmhArgs.toArray(new String[0])))
+            .addProfiler(GCProfiler.class)
+            .resultFormat(ResultFormatType.JSON)
+            .result(out)
+            .build();
+        new Runner(options).run();
+
+        if (baseline != null && compare(new File(baseline), new File(out), threshold) > 0) {
+            System.exit(2);
+        }
+    }
+
+    /**
+     * Prints a per-benchmark comparison of primary scores and allocation rates
+     *
+     * @return number of regressions above {@code threshold}
+     */
+    static int compare(File baselineFile, File currentFile, double threshold) throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        Map<String, JsonNode> baseline = index(mapper.readTree(baselineFile));
+        Map<String, JsonNode> current = index(mapper.readTree(currentFile));
+
+        int regressions = 0;
+        System.out.printf("%n%-90s %14s %14s %9s %12s%n", "Benchmark", "Baseline", "Current", "Change", "B/op");
+        for (Map.Entry<String, JsonNode> entry : current.entrySet()) {
+            JsonNode before = baseline.get(entry.getKey());
+            double now = entry.getValue().path("primaryMetric").path("score").asDouble();
+            double allocated = entry.getValue().path("secondaryMetrics").path("gc.alloc.rate.norm").path("score").asDouble();
+            if (before == null) {
+                System.out.printf("%-90s %14s %14.3f %9s %12.0f%n", entry.getKey(), "-", now, "new", allocated);
+                continue;
+            }
+            double then = before.path("primaryMetric").path("score").asDouble();
+            double change = then == 0 ? 0 : (now - then) / then;
+            boolean regressed = change > threshold; // AverageTime: higher is slower
+            if (regressed) {
+                regressions++;
+            }
+            System.out.printf("%-90s %14.3f %14.3f %+8.1f%% %12.0f%s%n",
+                entry.getKey(), then, now, change * 100, allocated, regressed ? "  REGRESSION" : "");
+        }
+        return regressions;
+    }
+
+    private static Map<String, JsonNode> index(JsonNode results) {
+        Map<String, JsonNode> indexed = new LinkedHashMap<>();
+        for (JsonNode result : results) {
+            StringBuilder key = new StringBuilder(result.path("benchmark").asText());
+            JsonNode params = result.path("params");
+            for (Iterator<Map.Entry<String, JsonNode>> it = params.fields(); it.hasNext(); ) {
+                Map.Entry<String, JsonNode> param = it.next();
+                key.append(' ').append(param.getKey()).append('=').append(param.getValue().asText());
+            }
+            indexed.put(key.toString(), result);
+        }
+        return indexed;
+    }
+}
@@ -0,0 +1,105 @@
+package com.grasp.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.grasp.model.Recommendation;
+import com.grasp.model.StudyPlan;
+import com.grasp.model.StudySession;
+import com.grasp.service.RecommendationEngineMetrics;
+import com.grasp.service.RecommendationEngineService;
+import com.grasp.service.metrics.CohortSketchStore;
+import com.grasp.service.metrics.SessionColumns;
+import com.grasp.service.metrics.SubjectMetricsKernel;
+import com.grasp.service.metrics.SubjectPerformanceMetrics;
+import com.grasp.service.planning.TimeReallocationOptimizer;
+import com.grasp.service.rules.RecommendationRules;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end cost of {@link RecommendationEngineService#generateRecommendations(List, StudyPlan)} on
+ * client-uploaded session histories, plus the metrics, rules and time reallocation phases on their own.
+ *
+ * Run a subset with e.g. {@code -p subjects=200 -p sessions=1000000}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class RecommendationEngineBenchmark {
+
+    @Param({"1", "10", "50", "200"})
+    public int subjects;
+
+    @Param({"10", "1000", "100000", "1000000"})
+    public int sessions;
+
+    @Param({"UNIFORM", "SKEWED", "SINGLE_SUBJECT"})
+    public SyntheticPlans.Distribution distribution;
+
+    private RecommendationEngineService engine;
+    private StudyPlan plan;
+    private List<StudySession> history;
+    private Map<Long, SubjectPerformanceMetrics> metrics;
+    private TimeReallocationOptimizer optimizer;
+    private LocalDate deadlineBindingDay;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        // The session-list path needs none of the engine's collaborators; metrics are recorded as in production
+        RecommendationRules rules = new RecommendationRules(new DefaultResourceLoader(), new ObjectMapper(),
+            event -> {}, "classpath:recommendation-rules.json");
+        optimizer = new TimeReallocationOptimizer(true, 240, 0.75, 2.0, 0.5, 2.0, 15);
+        engine = new RecommendationEngineService(null, null, null, null,
+            new RecommendationEngineMetrics(new SimpleMeterRegistry()), rules, optimizer,
+            new CohortSketchStore(null, null, false, Duration.ofSeconds(10), 1));
+        plan = SyntheticPlans.plan(1L, subjects, 42L);
+        history = SyntheticPlans.sessions(plan, sessions, distribution, 7L);
+        metrics = SubjectMetricsKernel.compute(SessionColumns.fromSessions(history));
+        // Leave time for about 70% of the plan before the deadline, so the deadline limits the solution
+        long planMinutes = plan.getSubjects().stream().mapToLong(s -> s.getTimeAllocationMinutes()).sum();
+        deadlineBindingDay = plan.getDeadline().minusDays(Math.max(0, planMinutes * 7 / 10 / 240 - 1));
+    }
+
+    @Benchmark
+    public List<Recommendation> generateRecommendations() {
+        return engine.generateRecommendations(history, plan);
+    }
+
+    /** The compiled rule set alone, on precomputed metrics */
+    @Benchmark
+    public List<Recommendation> applyRules() {
+        return engine.generateRecommendations(plan, metrics);
+    }
+
+    /** The plan-wide optimizer alone, limited by the plan total (the deadline has passed) */
+    @Benchmark
+    public List<Recommendation> reallocateTime() {
+        List<Recommendation> out = new ArrayList<>();
+        optimizer.optimize(plan, metrics, plan.getDeadline().plusDays(1), out);
+        return out;
+    }
+
+    /** The plan-wide optimizer alone, limited by the time left before the deadline */
+    @Benchmark
+    public List<Recommendation> reallocateTimeBeforeDeadline() {
+        List<Recommendation> out = new ArrayList<>();
+        optimizer.optimize(plan, metrics, deadlineBindingDay, out);
+        return out;
+    }
+
+    @Benchmark
+    public Map<Long, SubjectPerformanceMetrics> subjectMetrics() {
+        return SubjectMetricsKernel.compute(SessionColumns.fromSessions(history));
+    }
+}
@@ -0,0 +1,109 @@
+package com.grasp.benchmarks;
+
+import com.grasp.service.metrics.SubjectAggregate;
+import com.grasp.service.schedule.SpacedRepetitionPolicy;
+import com.grasp.service.schedule.SubjectSchedule;
+import com.grasp.service.schedule.TimingWheel;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The study scheduler's wheel on one node: re-planning a subject after a logged session, and one minute of
+ * the clock with every subject coming due paged out and re-armed, with {@code subjects} subjects scheduled
+ * over the next 30 days. Prints the wheel's memory per subject after filling it.
+ *
+ * Run just these with {@code StudySchedulerBenchmark -p subjects=10000000}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class StudySchedulerBenchmark {
+
+    private static final int HORIZON_MINUTES = 30 * 24 * 60;
+    private static final int AGGREGATES = 4096;
+    private static final int POLL_BATCH = 1000;
+
+    @Param({"1000000", "10000000"})
+    public int subjects;
+
+    private SpacedRepetitionPolicy policy;
+    private SubjectSchedule[] sessionsLogged;
+    private TimingWheel wheel;
+    private SplittableRandom random;
+    private int now;
+    private final long[] polledIds = new long[POLL_BATCH];
+    private final int[] polledDues = new int[POLL_BATCH];
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        policy = new SpacedRepetitionPolicy(Duration.ofDays(1), Duration.ofDays(30), 2.0, 0.6);
+        random = new SplittableRandom(42L);
+        now = SpacedRepetitionPolicy.currentMinute();
+        // Subjects whose latest session was just logged, with 1 to 20 sessions and varied recent scores
+        double today = now / (24.0 * 60.0);
+        sessionsLogged = new SubjectSchedule[AGGREGATES];
+        for (int i = 0; i < AGGREGATES; i++) {
+            SubjectAggregate aggregate = new SubjectAggregate((long) i, 1L);
+            int sessions = 1 + random.nextInt(20);
+            int score = 1 + random.nextInt(10);
+            for (int s = 0; s < sessions; s++) {
+                aggregate.add(score, 45, 80.0, today - (sessions - 1 - s) * 2.0);
+            }
+            sessionsLogged[i] = new SubjectSchedule((long) i, 1L, LocalDate.now().plusDays(90), aggregate);
+        }
+        wheel = fill(subjects);
+        System.out.printf("%n%d subjects scheduled, %.1f bytes each%n", wheel.size(),
+            (double) wheel.memoryBytes() / wheel.size());
+    }
+
+    /** Logging a session: plan the subject's next session and move it in the wheel */
+    @Benchmark
+    public int replanAfterSession() {
+        long subjectId = random.nextInt(subjects);
+        SubjectSchedule subject = sessionsLogged[(int) (subjectId & (AGGREGATES - 1))];
+        int due = policy.dueMinute(subject, now);
+        wheel.schedule(subjectId, due);
+        return due;
+    }
+
+    /** One minute of the clock: page out everything coming due and re-arm it within the horizon */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int advanceOneMinuteAndPoll() {
+        wheel.advanceTo(++now);
+        int total = 0;
+        int polled;
+        while ((polled = wheel.pollReady(POLL_BATCH, polledIds, polledDues)) > 0) {
+            for (int i = 0; i < polled; i++) {
+                wheel.schedule(polledIds[i], now + 1 + random.nextInt(HORIZON_MINUTES));
+            }
+            total += polled;
+        }
+        return total;
+    }
+
+    /** Filling an empty wheel with every subject, as at startup */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 3)
+    public TimingWheel fillWheel() {
+        return fill(subjects);
+    }
+
+    private TimingWheel fill(int count) {
+        TimingWheel filled = new TimingWheel(count, now);
+        for (long subjectId = 0; subjectId < count; subjectId++) {
+            filled.schedule(subjectId, now + 1 + random.nextInt(HORIZON_MINUTES));
+        }
+        return filled;
+    }
+}
@@ -0,0 +1,87 @@
+package com.grasp.benchmarks;
+
+import com.grasp.model.StudyPlan;
+import com.grasp.model.StudySession;
+import com.grasp.model.Subject;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic synthetic plans and session histories for the benchmarks.
+ */
+public final class SyntheticPlans {
+
+    public enum Distribution {
+        /** Every subject is equally likely */
+        UNIFORM,
+        /** Power-law: the first few subjects receive most sessions */
+        SKEWED,
+        /** All sessions belong to the first subject */
+        SINGLE_SUBJECT
+    }
+
+    private static final Subject.DifficultyLevel[] LEVELS = Subject.DifficultyLevel.values();
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 8, 0);
+
+    private SyntheticPlans() {}
+
+    public static StudyPlan plan(long planId, int subjectCount, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        StudyPlan plan = new StudyPlan(1L, "Benchmark plan " + planId, null, LocalDate.of(2025, 6, 30));
+        plan.setId(planId);
+        List<Subject> subjects = new ArrayList<>(subjectCount);
+        for (int i = 0; i < subjectCount; i++) {
+            Subject subject = new Subject(planId, "Subject " + i, LEVELS[random.nextInt(LEVELS.length)],
+                300 + random.nextInt(1500));
+            subject.setId(subjectId(planId, i));
+            subjects.add(subject);
+        }
+        plan.setSubjects(subjects);
+        return plan;
+    }
+
+    /**
+     * Sessions in creation order, spread over the plan's subjects according to {@code distribution}.
+     * Each subject gets its own performance level so every recommendation rule fires somewhere.
+     */
+    public static List<StudySession> sessions(StudyPlan plan, int sessionCount, Distribution distribution, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        List<Subject> subjects = plan.getSubjects();
+        int subjectCount = subjects.size();
+        List<StudySession> sessions = new ArrayList<>(sessionCount);
+        LocalDateTime createdAt = START;
+
+        for (int i = 0; i < sessionCount; i++) {
+            int index = pickSubject(random, subjectCount, distribution);
+            int baseScore = 2 + (index * 7) % 9;
+            int score = Math.max(1, Math.min(10, baseScore + random.nextInt(5) - 2));
+            StudySession session = new StudySession(plan.getId(), subjects.get(index).getId(),
+                10 + random.nextInt(110), Math.round(random.nextDouble() * 10000) / 100.0, score, null);
+            createdAt = createdAt.plusMinutes(1 + random.nextInt(240));
+            session.setCreatedAt(createdAt);
+            sessions.add(session);
+        }
+        return sessions;
+    }
+
+    private static int pickSubject(SplittableRandom random, int subjectCount, Distribution distribution) {
+        switch (distribution) {
+            case SKEWED:
+                double u = random.nextDouble();
+                return Math.min(subjectCount - 1, (int) (subjectCount * u * u * u));
+            case SINGLE_SUBJECT:
+                return 0;
+            case UNIFORM:
+            default:
+                return random.nextInt(subjectCount);
+        }
+    }
+
+    private static long subjectId(long planId, int index) {
+        return planId * 1_000L + index + 1;
+    }
+}
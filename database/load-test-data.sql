@@ -0,0 +1,60 @@
+-- Synthetic data for load tests (PostgreSQL), loaded after schema.sql and seed-data.sql
+-- Adds :users users with :plans_per_user active plans each, :subjects_per_plan subjects per plan and
+-- :sessions_per_subject sessions per subject over the last 120 days. Run once on a fresh database; the
+-- random values are seeded, so the same sizes give the same rows and ids.
+--
+-- psql -v ON_ERROR_STOP=1 -v users=200 -v plans_per_user=5 -v subjects_per_plan=6 -v sessions_per_subject=40 \
+--      -f database/load-test-data.sql
+--
+-- Subject aggregates, dashboard statistics and subject cohorts are not filled in here; rebuild them through
+-- the API (POST /dashboard/{planId}/rebuild, POST /cohorts/rebuild) once the backend is up, as
+-- scripts/run-load-test.sh does.
+
+\if :{?users} \else \set users 200 \endif
+\if :{?plans_per_user} \else \set plans_per_user 5 \endif
+\if :{?subjects_per_plan} \else \set subjects_per_plan 6 \endif
+\if :{?sessions_per_subject} \else \set sessions_per_subject 40 \endif
+
+SELECT setseed(0.42);
+
+-- Same password hash as the seed users
+INSERT INTO users (email, password_hash, first_name, last_name)
+SELECT 'load.user' || g || '@example.com', '$2a$10$N.zmdr9k7uOCQb376NoUnuTJ8iAt6Z5EHsM8lE9lBOsl7iKTVEFDi', 'Load', 'User ' || g
+FROM generate_series(1, :users) g;
+
+INSERT INTO study_plans (user_id, title, description, deadline, status)
+SELECT u.id, 'Load test plan ' || p, 'Synthetic plan for load tests', CURRENT_DATE + 30 + floor(random() * 150)::int, 'ACTIVE'
+FROM users u
+CROSS JOIN generate_series(1, :plans_per_user) p
+WHERE u.email LIKE 'load.user%@example.com'
+ORDER BY u.id, p;
+
+INSERT INTO subjects (plan_id, name, difficulty_level, time_allocation_minutes, current_progress_percent)
+SELECT sp.id, 'Subject ' || s,
+       (ARRAY['BEGINNER', 'INTERMEDIATE', 'ADVANCED'])[1 + floor(random() * 3)::int],
+       300 + 60 * floor(random() * 30)::int,
+       round((random() * 100)::numeric, 2)
+FROM study_plans sp
+CROSS JOIN generate_series(1, :subjects_per_plan) s
+WHERE sp.description = 'Synthetic plan for load tests'
+ORDER BY sp.id, s;
+
+-- Each subject gets a skill level, so scores differ between subjects the way the rules expect
+WITH skills AS (
+    SELECT su.id, su.plan_id, 2 + random() * 7 AS skill
+    FROM subjects su
+    JOIN study_plans sp ON sp.id = su.plan_id
+    WHERE sp.description = 'Synthetic plan for load tests'
+    ORDER BY su.id
+)
+INSERT INTO study_sessions (plan_id, subject_id, duration_minutes, completion_percent, performance_score, created_at)
+SELECT k.plan_id, k.id,
+       15 + floor(random() * 106)::int,
+       round((random() * 100)::numeric, 2),
+       greatest(1, least(10, round(k.skill + (random() - 0.5) * 4)::int)),
+       date_trunc('second', LOCALTIMESTAMP - random() * interval '120 days')
+FROM skills k
+CROSS JOIN generate_series(1, :sessions_per_subject) n
+ORDER BY k.id, n;
+
+ANALYZE;
@@ -0,0 +1,12 @@
+-- One-off migration for databases created before study_sessions.created_at was NOT NULL.
+-- Dates undated sessions at their plan's creation (or now), then enforces it. Run it once, after schema.sql:
+--   psql -U grasp_user -d grasp_db -f database/migrate-session-created-at.sql
+-- Rebuild affected plans afterwards (POST /sessions/aggregates/{planId}/rebuild), since undated sessions were
+-- weighted as the newest.
+BEGIN;
+UPDATE study_sessions ss
+   SET created_at = COALESCE((SELECT sp.created_at FROM study_plans sp WHERE sp.id = ss.plan_id), CURRENT_TIMESTAMP)
+ WHERE ss.created_at IS NULL;
+ALTER TABLE study_sessions ALTER COLUMN created_at SET DEFAULT CURRENT_TIMESTAMP;
+ALTER TABLE study_sessions ALTER COLUMN created_at SET NOT NULL;
+COMMIT;
@@ -20,10 +20,20 @@ CREATE TABLE IF NOT EXISTS study_plans (
     description TEXT,
     deadline DATE,
     status VARCHAR(16) NOT NULL DEFAULT 'ACTIVE',
+    data_version BIGINT NOT NULL DEFAULT 0,
+    recommendations_version BIGINT,
+    recommendations_rules VARCHAR(64),
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
 );
+-- data_version is bumped by every transaction that changes the plan's sessions or aggregates; cached and
+-- stored recommendations are tagged with it. recommendations_version is the data_version the plan's PENDING
+-- recommendations were generated for (NULL: none stored, or outdated), recommendations_rules the version of the
+-- rule set they were generated with. Added to existing databases here.
+ALTER TABLE study_plans ADD COLUMN IF NOT EXISTS data_version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE study_plans ADD COLUMN IF NOT EXISTS recommendations_version BIGINT;
+ALTER TABLE study_plans ADD COLUMN IF NOT EXISTS recommendations_rules VARCHAR(64);
 -- enforce allowed values for status
 ALTER TABLE study_plans
   ADD CONSTRAINT chk_study_plans_status CHECK (status IN ('ACTIVE','COMPLETED','PAUSED'));
@@ -53,12 +63,74 @@ CREATE TABLE IF NOT EXISTS study_sessions (
     completion_percent NUMERIC(5,2) NOT NULL,
     performance_score INT CHECK (performance_score >= 1 AND performance_score <= 10),
     notes TEXT,
-    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP, -- NOT NULL: history is paged by (created_at, id)
+    FOREIGN KEY (plan_id) REFERENCES study_plans(id) ON DELETE CASCADE,
+    FOREIGN KEY (subject_id) REFERENCES subjects(id) ON DELETE CASCADE
+);
+-- Databases created before created_at was NOT NULL: run migrate-session-created-at.sql once
+
+-- Per-subject session aggregates, updated incrementally as sessions are logged
+-- decay_* are the time-decayed score sums (14-day half-life) relative to decay_anchor_day, the newest
+-- session's time in days since the epoch (NULL until a dated session arrives)
+CREATE TABLE IF NOT EXISTS subject_session_aggregates (
+    subject_id BIGINT PRIMARY KEY,
+    plan_id BIGINT NOT NULL,
+    session_count BIGINT NOT NULL DEFAULT 0,
+    score_sum BIGINT NOT NULL DEFAULT 0,
+    score_square_sum BIGINT NOT NULL DEFAULT 0,
+    duration_sum BIGINT NOT NULL DEFAULT 0,
+    completion_sum DOUBLE PRECISION NOT NULL DEFAULT 0,
+    decay_anchor_day DOUBLE PRECISION,
+    decay_weight DOUBLE PRECISION NOT NULL DEFAULT 0,
+    decay_score_sum DOUBLE PRECISION NOT NULL DEFAULT 0,
+    decay_score_square_sum DOUBLE PRECISION NOT NULL DEFAULT 0,
+    decay_time_sum DOUBLE PRECISION NOT NULL DEFAULT 0,
+    decay_time_square_sum DOUBLE PRECISION NOT NULL DEFAULT 0,
+    decay_time_score_sum DOUBLE PRECISION NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     FOREIGN KEY (plan_id) REFERENCES study_plans(id) ON DELETE CASCADE,
     FOREIGN KEY (subject_id) REFERENCES subjects(id) ON DELETE CASCADE
 );
 
+-- Per-plan session statistics for the dashboard, updated in the same transaction as session writes
+-- current_streak_days is the run of consecutive study days ending on last_study_day
+CREATE TABLE IF NOT EXISTS plan_session_stats (
+    plan_id BIGINT PRIMARY KEY,
+    session_count BIGINT NOT NULL DEFAULT 0,
+    total_minutes BIGINT NOT NULL DEFAULT 0,
+    completion_sum DOUBLE PRECISION NOT NULL DEFAULT 0,
+    scored_count BIGINT NOT NULL DEFAULT 0,
+    score_sum BIGINT NOT NULL DEFAULT 0,
+    first_session_at TIMESTAMP,
+    last_session_at TIMESTAMP,
+    study_days INT NOT NULL DEFAULT 0,
+    last_study_day DATE,
+    current_streak_days INT NOT NULL DEFAULT 0,
+    longest_streak_days INT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    FOREIGN KEY (plan_id) REFERENCES study_plans(id) ON DELETE CASCADE
+);
+
+-- Recent performance and average session duration sketches (QuantileSketch) over the subjects of every cohort:
+-- the trimmed, lower-cased subject name. session_count is the cohort's scored sessions. Nodes merge the deltas
+-- of the subject aggregates they change; POST /cohorts/rebuild recomputes them from subject_session_aggregates.
+-- updated_at is a TIMESTAMPTZ because nodes compare it with their own reads of the table.
+CREATE TABLE IF NOT EXISTS subject_cohort_sketches (
+    cohort_key VARCHAR(255) PRIMARY KEY,
+    session_count BIGINT NOT NULL DEFAULT 0,
+    performance_sketch BYTEA,
+    duration_sketch BYTEA,
+    updated_at TIMESTAMPTZ NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+-- One row, bumped by every cohort rebuild; deltas of an older epoch are in the rebuilt rows already
+CREATE TABLE IF NOT EXISTS subject_cohort_epoch (
+    id BOOLEAN PRIMARY KEY DEFAULT TRUE CHECK (id),
+    epoch BIGINT NOT NULL DEFAULT 0
+);
+INSERT INTO subject_cohort_epoch (id) VALUES (TRUE) ON CONFLICT DO NOTHING;
+
 -- Recommendations table
+-- rule_id and reasoning_params (placeholder values, JSON) let clients render the reasoning from the rule's template
 CREATE TABLE IF NOT EXISTS recommendations (
     id BIGSERIAL PRIMARY KEY,
     plan_id BIGINT NOT NULL,
@@ -70,6 +142,8 @@ CREATE TABLE IF NOT EXISTS recommendations (
     status VARCHAR(16) NOT NULL DEFAULT 'PENDING',
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    rule_id VARCHAR(64),
+    reasoning_params JSONB,
     FOREIGN KEY (plan_id) REFERENCES study_plans(id) ON DELETE CASCADE,
     FOREIGN KEY (subject_id) REFERENCES subjects(id) ON DELETE SET NULL
 );
@@ -78,6 +152,32 @@ ALTER TABLE recommendations
   ADD CONSTRAINT chk_recommendations_type CHECK (type IN ('TIME_ADJUSTMENT','DIFFICULTY_CHANGE','SCHEDULE_MODIFICATION')),
   ADD CONSTRAINT chk_recommendations_status CHECK (status IN ('PENDING','APPLIED','DISMISSED'));
 
+-- Distributed scoring runs: active plans are split into partitions by a hash of user_id, and worker
+-- nodes claim partitions from scoring_partitions under a lease. Lease times are TIMESTAMPTZ so workers
+-- with different JVM time zones compare them correctly.
+CREATE TABLE IF NOT EXISTS scoring_runs (
+    id BIGSERIAL PRIMARY KEY,
+    partitions INT NOT NULL CHECK (partitions > 0),
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE TABLE IF NOT EXISTS scoring_partitions (
+    run_id BIGINT NOT NULL,
+    partition_no INT NOT NULL,
+    status VARCHAR(16) NOT NULL DEFAULT 'PENDING',
+    claimed_by VARCHAR(255),
+    claimed_at TIMESTAMPTZ,
+    lease_until TIMESTAMPTZ,
+    attempts INT NOT NULL DEFAULT 0,
+    plans_scored INT,
+    failed_plans INT,
+    completed_at TIMESTAMPTZ,
+    PRIMARY KEY (run_id, partition_no),
+    FOREIGN KEY (run_id) REFERENCES scoring_runs(id) ON DELETE CASCADE
+);
+ALTER TABLE scoring_partitions
+  ADD CONSTRAINT chk_scoring_partitions_status CHECK (status IN ('PENDING','RUNNING','DONE'));
+
 -- Indexes for performance
 CREATE INDEX IF NOT EXISTS idx_users_email ON users(email);
 CREATE INDEX IF NOT EXISTS idx_study_plans_user_id ON study_plans(user_id);
@@ -86,5 +186,15 @@ CREATE INDEX IF NOT EXISTS idx_subjects_plan_id ON subjects(plan_id);
 CREATE INDEX IF NOT EXISTS idx_study_sessions_plan_id ON study_sessions(plan_id);
 CREATE INDEX IF NOT EXISTS idx_study_sessions_subject_id ON study_sessions(subject_id);
 CREATE INDEX IF NOT EXISTS idx_study_sessions_created_at ON study_sessions(created_at);
+-- covers the per-plan metrics queries (grouped by subject, ordered by time) as index-only scans
+CREATE INDEX IF NOT EXISTS idx_study_sessions_plan_subject_created ON study_sessions(plan_id, subject_id, created_at, id)
+    INCLUDE (performance_score, duration_minutes, completion_percent);
+-- keyset pages of a plan's history, newest first (subject-filtered pages use the index above)
+CREATE INDEX IF NOT EXISTS idx_study_sessions_plan_created ON study_sessions(plan_id, created_at, id);
+CREATE INDEX IF NOT EXISTS idx_subject_session_aggregates_plan_id ON subject_session_aggregates(plan_id);
+CREATE INDEX IF NOT EXISTS idx_subject_cohort_sketches_updated_at ON subject_cohort_sketches(updated_at);
 CREATE INDEX IF NOT EXISTS idx_recommendations_plan_id ON recommendations(plan_id);
 CREATE INDEX IF NOT EXISTS idx_recommendations_status ON recommendations(status);
+-- keeps the claim query off finished partitions of old runs
+CREATE INDEX IF NOT EXISTS idx_scoring_partitions_open ON scoring_partitions(run_id, partition_no)
+    WHERE status <> 'DONE';
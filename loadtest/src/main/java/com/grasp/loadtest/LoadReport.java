@@ -0,0 +1,132 @@
+package com.grasp.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.HdrHistogram.Histogram;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JSON report of a run and the comparison of two reports.
+ *
+ * <pre>
+ * {
+ *   "run": {"label": ..., "baseUrl": ..., "warmupSeconds": ..., "durationSeconds": ..., "seed": ..., ...},
+ *   "endpoints": {
+ *     "sessions.history": {"targetRate": 50.0, "sent": 3000, "ok": 2998, "errors": {"500": 2}, "dropped": 0,
+ *                          "unfinished": 0, "throughput": 49.97, "errorRate": 0.0007,
+ *                          "latencyMs": {"mean": ..., "p50": ..., "p90": ..., "p99": ..., "p999": ..., "max": ...}},
+ *     ...
+ *   }
+ * }
+ * </pre>
+ *
+ * Throughput counts 2xx responses per second of the measured period; latencies cover 2xx responses only.
+ */
+final class LoadReport {
+
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+    private static final String[] PERCENTILE_NAMES = {"p50", "p90", "p99", "p999"};
+
+    private LoadReport() {}
+
+    static void write(File file, Map<String, Object> run, List<OpenLoopDriver.EndpointResult> results)
+            throws IOException {
+        ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        ObjectNode root = mapper.createObjectNode();
+        root.set("run", mapper.valueToTree(run));
+        ObjectNode endpoints = root.putObject("endpoints");
+        for (OpenLoopDriver.EndpointResult result : results) {
+            ObjectNode node = endpoints.putObject(result.name);
+            node.put("targetRate", result.targetRate);
+            node.put("sent", result.sent);
+            node.put("ok", result.ok);
+            node.set("errors", mapper.valueToTree(result.errors));
+            node.put("dropped", result.dropped);
+            node.put("unfinished", result.unfinished());
+            node.put("throughput", round(result.ok / result.seconds));
+            node.put("errorRate", result.sent == 0 ? 0.0
+                : round((double) (result.sent - result.ok) / result.sent));
+            node.set("latencyMs", mapper.valueToTree(latencyMillis(result.latency)));
+        }
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null) {
+            parent.mkdirs();
+        }
+        mapper.writeValue(file, root);
+    }
+
+    static void print(List<OpenLoopDriver.EndpointResult> results) {
+        System.out.printf("%n%-26s %9s %9s %8s %8s %10s %10s %10s %10s %10s%n",
+            "Endpoint", "Target/s", "OK/s", "Errors", "Dropped", "p50 ms", "p90 ms", "p99 ms", "p999 ms", "max ms");
+        for (OpenLoopDriver.EndpointResult result : results) {
+            Map<String, Double> latency = latencyMillis(result.latency);
+            System.out.printf("%-26s %9.1f %9.1f %8d %8d %10.2f %10.2f %10.2f %10.2f %10.2f%n",
+                result.name, result.targetRate, result.ok / result.seconds, result.errorCount() + result.unfinished(),
+                result.dropped, latency.get("p50"), latency.get("p90"), latency.get("p99"), latency.get("p999"),
+                latency.get("max"));
+        }
+    }
+
+    /**
+     * Prints p99, p999 and throughput of every endpoint in {@code current} next to {@code baseline}. An
+     * endpoint regresses if its p99 grew by more than {@code threshold}, or its share of failed requests grew
+     * by more than one percentage point.
+     *
+     * @return number of regressed endpoints
+     */
+    static int compare(File baselineFile, File currentFile, double threshold) throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        JsonNode baseline = mapper.readTree(baselineFile).path("endpoints");
+        JsonNode current = mapper.readTree(currentFile).path("endpoints");
+
+        int regressions = 0;
+        System.out.printf("%n%-26s %12s %12s %9s %12s %12s %11s %11s %9s%n", "Endpoint",
+            "Base p99", "p99", "Change", "Base p999", "p999", "Base OK/s", "OK/s", "Errors");
+        for (Iterator<Map.Entry<String, JsonNode>> it = current.fields(); it.hasNext(); ) {
+            Map.Entry<String, JsonNode> entry = it.next();
+            JsonNode now = entry.getValue();
+            JsonNode then = baseline.path(entry.getKey());
+            double p99 = now.path("latencyMs").path("p99").asDouble();
+            double p999 = now.path("latencyMs").path("p999").asDouble();
+            double errorRate = now.path("errorRate").asDouble();
+            if (then.isMissingNode()) {
+                System.out.printf("%-26s %12s %12.2f %9s %12s %12.2f %11s %11.1f %8.2f%%%n", entry.getKey(),
+                    "-", p99, "new", "-", p999, "-", now.path("throughput").asDouble(), errorRate * 100);
+                continue;
+            }
+            double baseP99 = then.path("latencyMs").path("p99").asDouble();
+            double change = baseP99 == 0 ? 0 : (p99 - baseP99) / baseP99;
+            boolean regressed = change > threshold || errorRate > then.path("errorRate").asDouble() + 0.01;
+            if (regressed) {
+                regressions++;
+            }
+            System.out.printf("%-26s %12.2f %12.2f %+8.1f%% %12.2f %12.2f %11.1f %11.1f %8.2f%%%s%n", entry.getKey(),
+                baseP99, p99, change * 100, then.path("latencyMs").path("p999").asDouble(), p999,
+                then.path("throughput").asDouble(), now.path("throughput").asDouble(), errorRate * 100,
+                regressed ? "  REGRESSION" : "");
+        }
+        return regressions;
+    }
+
+    private static Map<String, Double> latencyMillis(Histogram histogram) {
+        Map<String, Double> latency = new LinkedHashMap<>();
+        latency.put("mean", round(histogram.getMean() / 1000.0));
+        for (int i = 0; i < PERCENTILES.length; i++) {
+            latency.put(PERCENTILE_NAMES[i], round(histogram.getValueAtPercentile(PERCENTILES[i]) / 1000.0));
+        }
+        latency.put("max", round(histogram.getMaxValue() / 1000.0));
+        return latency;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+}
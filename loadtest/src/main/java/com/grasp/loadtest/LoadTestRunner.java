@@ -0,0 +1,189 @@
+package com.grasp.loadtest;
+
+import org.HdrHistogram.HistogramLogWriter;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Drives open-model traffic at a running backend and writes a JSON report with latency percentiles and
+ * throughput per endpoint, plus the raw interval histograms as an HdrHistogram log.
+ *
+ * <pre>
+ * java -jar target/loadtest.jar [--base-url http://localhost:8080/api] [--targets targets.csv]
+ *     [--rate health=20,recommendations.generate=50,...] [--warmup 15s] [--duration 60s] [--seed 42]
+ *     [--max-in-flight 2000] [--timeout 10s] [--payload-subjects 20] [--payload-sessions 500]
+ *     [--out target/load-report.json] [--label name] [--baseline baselines/x.json] [--threshold 0.10]
+ * java -jar target/loadtest.jar --compare baseline.json current.json [--threshold 0.10]
+ * </pre>
+ *
+ * {@code --rate} overrides the default rate of the endpoints it names; a rate of 0 leaves an endpoint out.
+ * With {@code --baseline}, the process exits with status 2 if any endpoint regresses (see
+ * {@link LoadReport#compare}).
+ */
+public final class LoadTestRunner {
+
+    private LoadTestRunner() {}
+
+    public static void main(String[] args) throws Exception {
+        URI baseUrl = URI.create("http://localhost:8080/api");
+        String targetsFile = null;
+        Map<String, Double> rates = new LinkedHashMap<>(Workload.DEFAULT_RATES);
+        Duration warmup = Duration.ofSeconds(15);
+        Duration duration = Duration.ofSeconds(60);
+        Duration timeout = Duration.ofSeconds(10);
+        long seed = 42;
+        int maxInFlight = 2000;
+        int payloadSubjects = 20;
+        int payloadSessions = 500;
+        String out = "target/load-report.json";
+        String label = null;
+        String baseline = null;
+        double threshold = 0.10;
+        List<String> compare = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--base-url" -> baseUrl = URI.create(stripTrailingSlash(args[++i]));
+                case "--targets" -> targetsFile = args[++i];
+                case "--rate" -> rates.putAll(parseRates(args[++i]));
+                case "--warmup" -> warmup = parseDuration(args[++i]);
+                case "--duration" -> duration = parseDuration(args[++i]);
+                case "--timeout" -> timeout = parseDuration(args[++i]);
+                case "--seed" -> seed = Long.parseLong(args[++i]);
+                case "--max-in-flight" -> maxInFlight = Integer.parseInt(args[++i]);
+                case "--payload-subjects" -> payloadSubjects = Integer.parseInt(args[++i]);
+                case "--payload-sessions" -> payloadSessions = Integer.parseInt(args[++i]);
+                case "--out" -> out = args[++i];
+                case "--label" -> label = args[++i];
+                case "--baseline" -> baseline = args[++i];
+                case "--threshold" -> threshold = Double.parseDouble(args[++i]);
+                case "--compare" -> {
+                    compare.add(args[++i]);
+                    compare.add(args[++i]);
+                }
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        if (!compare.isEmpty()) {
+            int regressions = LoadReport.compare(new File(compare.get(0)), new File(compare.get(1)), threshold);
+            System.exit(regressions > 0 ? 2 : 0);
+        }
+
+        List<long[]> targets = targetsFile != null ? Workload.readTargets(Path.of(targetsFile)) : List.of();
+        if (targetsFile == null) {
+            // Without seeded data only the endpoints that need none can run
+            rates.replaceAll((name, rate) ->
+                name.equals("health") || name.equals("recommendations.generate") ? rate : 0.0);
+        }
+        Workload workload = new Workload(baseUrl, timeout, targets, payloadSubjects, payloadSessions, seed);
+        List<Workload.Endpoint> endpoints = workload.endpoints(rates);
+        if (endpoints.isEmpty()) {
+            throw new IllegalArgumentException("No endpoint has a positive rate");
+        }
+
+        HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(timeout)
+            .build();
+        checkReachable(client, baseUrl, timeout);
+
+        Map<String, Object> run = new LinkedHashMap<>();
+        run.put("label", label);
+        run.put("startedAt", Instant.now().toString());
+        run.put("baseUrl", baseUrl.toString());
+        run.put("warmupSeconds", warmup.toMillis() / 1000.0);
+        run.put("durationSeconds", duration.toMillis() / 1000.0);
+        run.put("seed", seed);
+        run.put("maxInFlight", maxInFlight);
+        run.put("timeoutSeconds", timeout.toMillis() / 1000.0);
+        run.put("targets", targets.size());
+        run.put("payloadSubjects", payloadSubjects);
+        run.put("payloadSessions", payloadSessions);
+        run.put("javaVersion", System.getProperty("java.version"));
+        run.put("processors", Runtime.getRuntime().availableProcessors());
+
+        System.out.printf("Load test against %s: %d endpoints, %.0f req/s in total, %ds warm-up, %ds measured%n",
+            baseUrl, endpoints.size(), endpoints.stream().mapToDouble(Workload.Endpoint::rate).sum(),
+            warmup.toSeconds(), duration.toSeconds());
+
+        File report = new File(out);
+        File histogramLog = new File(out.replaceFirst("\\.json$", "") + ".hlog");
+        List<OpenLoopDriver.EndpointResult> results;
+        if (report.getAbsoluteFile().getParentFile() != null) {
+            report.getAbsoluteFile().getParentFile().mkdirs();
+        }
+        try (PrintStream logStream = new PrintStream(histogramLog)) {
+            results = new OpenLoopDriver(client, endpoints, seed, maxInFlight)
+                .run(warmup, duration, Duration.ofSeconds(5), timeout, new HistogramLogWriter(logStream));
+        }
+        LoadReport.write(report, run, results);
+        LoadReport.print(results);
+        System.out.println("\nReport written to " + report + ", interval histograms to " + histogramLog);
+
+        if (baseline != null && LoadReport.compare(new File(baseline), report, threshold) > 0) {
+            System.exit(2);
+        }
+        System.exit(0);
+    }
+
+    private static void checkReachable(HttpClient client, URI baseUrl, Duration timeout) throws InterruptedException {
+        URI health = URI.create(baseUrl + "/api/health");
+        try {
+            HttpResponse<Void> response = client.send(
+                HttpRequest.newBuilder(health).timeout(timeout).GET().build(), HttpResponse.BodyHandlers.discarding());
+            if (response.statusCode() != 200) {
+                System.out.println("Warning: " + health + " answered " + response.statusCode());
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Backend not reachable at " + health + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * {@code name=rate,name=rate}
+     */
+    static Map<String, Double> parseRates(String spec) {
+        Map<String, Double> rates = new LinkedHashMap<>();
+        for (String entry : spec.split(",")) {
+            String[] parts = entry.split("=", 2);
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Expected name=rate, got " + entry);
+            }
+            rates.put(parts[0].trim(), Double.parseDouble(parts[1].trim()));
+        }
+        return rates;
+    }
+
+    /**
+     * {@code 500ms}, {@code 30s}, {@code 5m}, or a plain number of seconds
+     */
+    static Duration parseDuration(String value) {
+        if (value.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(value.substring(0, value.length() - 2)));
+        }
+        if (value.endsWith("s")) {
+            return Duration.ofSeconds(Long.parseLong(value.substring(0, value.length() - 1)));
+        }
+        if (value.endsWith("m")) {
+            return Duration.ofMinutes(Long.parseLong(value.substring(0, value.length() - 1)));
+        }
+        return Duration.ofSeconds(Long.parseLong(value));
+    }
+
+    private static String stripTrailingSlash(String url) {
+        return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    }
+}
@@ -0,0 +1,243 @@
+package com.grasp.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+import org.HdrHistogram.Recorder;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sends requests on a fixed schedule of Poisson arrivals, whether or not earlier requests have answered
+ * (an open model: users keep arriving while the server is slow, as in production).
+ *
+ * Latency is measured from the scheduled send time rather than the actual one, so time a request spent
+ * waiting because the generator or the server fell behind is counted instead of hidden (coordinated
+ * omission). Requests beyond {@code maxInFlight} are not sent and are reported as dropped; a run with drops
+ * overloaded the client or the server and its percentiles understate the real latency.
+ */
+final class OpenLoopDriver {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(5);
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private final HttpClient client;
+    private final List<Workload.Endpoint> endpoints;
+    private final long seed;
+    private final int maxInFlight;
+
+    OpenLoopDriver(HttpClient client, List<Workload.Endpoint> endpoints, long seed, int maxInFlight) {
+        this.client = client;
+        this.endpoints = endpoints;
+        this.seed = seed;
+        this.maxInFlight = maxInFlight;
+    }
+
+    /**
+     * Runs the warm-up and then the measured period, printing a line per endpoint every {@code reportInterval}
+     * and writing every interval histogram to {@code log} (if not null), tagged with the endpoint name
+     *
+     * @return statistics of the measured period, in endpoint order
+     */
+    List<EndpointResult> run(Duration warmup, Duration duration, Duration reportInterval, Duration drainTimeout,
+                             HistogramLogWriter log) throws InterruptedException {
+        List<EndpointStats> stats = new ArrayList<>();
+        double totalRate = 0;
+        double[] cumulativeRates = new double[endpoints.size()];
+        for (int i = 0; i < endpoints.size(); i++) {
+            stats.add(new EndpointStats(endpoints.get(i)));
+            totalRate += endpoints.get(i).rate();
+            cumulativeRates[i] = totalRate;
+        }
+
+        long start = System.nanoTime();
+        long measureStart = start + warmup.toNanos();
+        long end = measureStart + duration.toNanos();
+        long startMillis = System.currentTimeMillis();
+        if (log != null) {
+            log.outputLogFormatVersion();
+            log.outputStartTime(startMillis);
+            log.setBaseTime(startMillis);
+            log.outputLegend();
+        }
+
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "loadtest-reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Nothing is recorded during the warm-up; the first (empty) report at its end starts the first interval
+        reporter.scheduleAtFixedRate(() -> report(stats, start, log),
+            warmup.toNanos(), reportInterval.toNanos(), TimeUnit.NANOSECONDS);
+
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        SplittableRandom random = new SplittableRandom(seed);
+        double meanGapNanos = 1e9 / totalRate;
+        long scheduled = start;
+        while (true) {
+            scheduled += (long) (-Math.log(1 - random.nextDouble()) * meanGapNanos);
+            if (scheduled >= end) {
+                break;
+            }
+            long wait = scheduled - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            double pick = random.nextDouble() * totalRate;
+            int index = 0;
+            while (index < cumulativeRates.length - 1 && pick >= cumulativeRates[index]) {
+                index++;
+            }
+            dispatch(stats.get(index), random, scheduled, scheduled >= measureStart, inFlight);
+        }
+
+        // Let the stragglers finish, so that slow responses are counted instead of cut off
+        if (inFlight.tryAcquire(maxInFlight, drainTimeout.toNanos(), TimeUnit.NANOSECONDS)) {
+            inFlight.release(maxInFlight);
+        }
+        reporter.shutdown();
+        reporter.awaitTermination(10, TimeUnit.SECONDS);
+        report(stats, start, log);
+
+        List<EndpointResult> results = new ArrayList<>();
+        double seconds = duration.toNanos() / 1e9;
+        for (EndpointStats endpointStats : stats) {
+            results.add(endpointStats.result(seconds));
+        }
+        return results;
+    }
+
+    private void dispatch(EndpointStats stats, SplittableRandom random, long scheduled, boolean measured,
+                          Semaphore inFlight) {
+        if (measured) {
+            stats.sent.increment();
+        }
+        if (!inFlight.tryAcquire()) {
+            if (measured) {
+                stats.dropped.increment();
+            }
+            return;
+        }
+        client.sendAsync(stats.endpoint.next(random), HttpResponse.BodyHandlers.discarding())
+            .whenComplete((response, error) -> {
+                long latencyMicros = (System.nanoTime() - scheduled) / 1000;
+                inFlight.release();
+                if (!measured) {
+                    return;
+                }
+                if (error != null) {
+                    Throwable cause = error.getCause() != null ? error.getCause() : error;
+                    stats.error(cause instanceof HttpTimeoutException ? "timeout" : cause.getClass().getSimpleName());
+                } else if (response.statusCode() >= 200 && response.statusCode() < 300) {
+                    stats.ok.increment();
+                    stats.recorder.recordValue(Math.min(latencyMicros, HIGHEST_TRACKABLE_MICROS));
+                } else {
+                    stats.error(String.valueOf(response.statusCode()));
+                }
+            });
+    }
+
+    private static void report(List<EndpointStats> stats, long start, HistogramLogWriter log) {
+        long now = System.nanoTime();
+        for (EndpointStats endpointStats : stats) {
+            Histogram interval = endpointStats.collect();
+            if (interval.getTotalCount() == 0) {
+                continue;
+            }
+            if (log != null) {
+                interval.setTag(endpointStats.endpoint.name());
+                log.outputIntervalHistogram(interval);
+            }
+            double seconds = (interval.getEndTimeStamp() - interval.getStartTimeStamp()) / 1000.0;
+            System.out.printf("%7.1fs %-26s %9.1f req/s  p50 %9.2f ms  p99 %9.2f ms  max %9.2f ms%n",
+                (now - start) / 1e9, endpointStats.endpoint.name(),
+                seconds > 0 ? interval.getTotalCount() / seconds : 0,
+                interval.getValueAtPercentile(50) / 1000.0,
+                interval.getValueAtPercentile(99) / 1000.0,
+                interval.getMaxValue() / 1000.0);
+        }
+    }
+
+    private static final class EndpointStats {
+        private final Workload.Endpoint endpoint;
+        private final Recorder recorder = new Recorder(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+        private final Histogram total = new Histogram(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+        private final LongAdder sent = new LongAdder();
+        private final LongAdder ok = new LongAdder();
+        private final LongAdder dropped = new LongAdder();
+        private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+        private Histogram recycled;
+
+        private EndpointStats(Workload.Endpoint endpoint) {
+            this.endpoint = endpoint;
+        }
+
+        private void error(String kind) {
+            errors.computeIfAbsent(kind, k -> new LongAdder()).increment();
+        }
+
+        /** Latencies recorded since the last call, also added to the run total; only called by one thread at a time */
+        private synchronized Histogram collect() {
+            Histogram interval = recorder.getIntervalHistogram(recycled);
+            total.add(interval);
+            recycled = interval;
+            return interval;
+        }
+
+        private synchronized EndpointResult result(double seconds) {
+            Map<String, Long> errorCounts = new TreeMap<>();
+            errors.forEach((kind, count) -> errorCounts.put(kind, count.sum()));
+            return new EndpointResult(endpoint.name(), endpoint.rate(), seconds, sent.sum(), ok.sum(),
+                dropped.sum(), errorCounts, total.copy());
+        }
+    }
+
+    /**
+     * One endpoint's outcome over the measured period; latencies are in microseconds and cover 2xx responses
+     */
+    static final class EndpointResult {
+        final String name;
+        final double targetRate;
+        final double seconds;
+        final long sent;
+        final long ok;
+        final long dropped;
+        final Map<String, Long> errors;
+        final Histogram latency;
+
+        private EndpointResult(String name, double targetRate, double seconds, long sent, long ok, long dropped,
+                               Map<String, Long> errors, Histogram latency) {
+            this.name = name;
+            this.targetRate = targetRate;
+            this.seconds = seconds;
+            this.sent = sent;
+            this.ok = ok;
+            this.dropped = dropped;
+            this.errors = errors;
+            this.latency = latency;
+        }
+
+        long errorCount() {
+            return errors.values().stream().mapToLong(Long::longValue).sum();
+        }
+
+        /** Requests still unanswered when the drain timeout ran out */
+        long unfinished() {
+            return sent - ok - dropped - errorCount();
+        }
+    }
+}
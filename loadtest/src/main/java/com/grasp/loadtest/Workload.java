@@ -0,0 +1,214 @@
+package com.grasp.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.function.Function;
+
+/**
+ * The endpoints under load and how each builds its next request.
+ *
+ * Endpoints that read or write the database pick a random (plan, subject) pair from a targets file, one
+ * {@code planId,subjectId} line per subject, which {@code scripts/run-load-test.sh} exports after seeding.
+ * {@code recommendations.generate} posts synthetic plans and needs no data. All randomness comes from the
+ * driver's seeded generator, so a run with the same seed and rates sends the same request sequence.
+ */
+final class Workload {
+
+    /** Requests per second by endpoint when no {@code --rate} is given */
+    static final Map<String, Double> DEFAULT_RATES = defaultRates();
+
+    private static final String[] DIFFICULTIES = {"BEGINNER", "INTERMEDIATE", "ADVANCED"};
+    private static final int PAYLOAD_VARIANTS = 32;
+
+    private final URI baseUrl;
+    private final Duration timeout;
+    private final List<long[]> targets;
+    private final List<byte[]> generatePayloads;
+
+    /**
+     * @param baseUrl the backend's context root, e.g. {@code http://localhost:8080/api}
+     * @param targets (planId, subjectId) pairs of seeded subjects; empty disables the database endpoints
+     */
+    Workload(URI baseUrl, Duration timeout, List<long[]> targets, int payloadSubjects, int payloadSessions, long seed) {
+        this.baseUrl = baseUrl;
+        this.timeout = timeout;
+        this.targets = targets;
+        this.generatePayloads = generatePayloads(payloadSubjects, payloadSessions, new SplittableRandom(seed));
+    }
+
+    /**
+     * Endpoints with a positive rate, in a fixed order
+     *
+     * @throws IllegalArgumentException for an unknown endpoint name, or a database endpoint without targets
+     */
+    List<Endpoint> endpoints(Map<String, Double> rates) {
+        Map<String, Function<SplittableRandom, HttpRequest>> builders = new LinkedHashMap<>();
+        builders.put("health", random -> get("/api/health"));
+        builders.put("recommendations.generate", random ->
+            post("/api/recommendations/generate", generatePayloads.get(random.nextInt(generatePayloads.size()))));
+        builders.put("recommendations.plan", random -> get("/api/recommendations/" + target(random)[0]));
+        builders.put("sessions.log", random -> post("/api/sessions", logSessionBody(target(random), random)));
+        builders.put("sessions.history", random -> get("/api/sessions/" + target(random)[0] + "?limit=50"));
+        builders.put("dashboard", random -> get("/api/dashboard/" + target(random)[0]));
+
+        for (String name : rates.keySet()) {
+            if (!builders.containsKey(name)) {
+                throw new IllegalArgumentException("Unknown endpoint " + name + "; known: " + builders.keySet());
+            }
+        }
+        List<Endpoint> endpoints = new ArrayList<>();
+        for (Map.Entry<String, Function<SplittableRandom, HttpRequest>> builder : builders.entrySet()) {
+            double rate = rates.getOrDefault(builder.getKey(), 0.0);
+            if (rate <= 0) {
+                continue;
+            }
+            boolean needsData = !builder.getKey().equals("health") && !builder.getKey().equals("recommendations.generate");
+            if (needsData && targets.isEmpty()) {
+                throw new IllegalArgumentException(builder.getKey() + " needs --targets, or set its rate to 0");
+            }
+            endpoints.add(new Endpoint(builder.getKey(), rate, builder.getValue()));
+        }
+        return endpoints;
+    }
+
+    /**
+     * Reads {@code planId,subjectId} lines; blank lines and lines starting with {@code #} are skipped
+     */
+    static List<long[]> readTargets(Path file) throws IOException {
+        List<long[]> targets = new ArrayList<>();
+        for (String line : Files.readAllLines(file)) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] fields = line.split(",");
+            targets.add(new long[] {Long.parseLong(fields[0].trim()), Long.parseLong(fields[1].trim())});
+        }
+        return targets;
+    }
+
+    private long[] target(SplittableRandom random) {
+        return targets.get(random.nextInt(targets.size()));
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(baseUrl.resolve(baseUrl.getPath() + path))
+            .timeout(timeout)
+            .header("Accept", "application/json")
+            .GET()
+            .build();
+    }
+
+    private HttpRequest post(String path, byte[] body) {
+        return HttpRequest.newBuilder(baseUrl.resolve(baseUrl.getPath() + path))
+            .timeout(timeout)
+            .header("Content-Type", "application/json")
+            .header("Accept", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+            .build();
+    }
+
+    private static byte[] logSessionBody(long[] target, SplittableRandom random) {
+        String json = "{\"planId\":" + target[0] + ",\"subjectId\":" + target[1]
+            + ",\"durationMinutes\":" + (15 + random.nextInt(106))
+            + ",\"completionPercent\":" + random.nextInt(101)
+            + ",\"performanceScore\":" + (1 + random.nextInt(10))
+            + ",\"notes\":\"load test\"}";
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * A few plans with {@code subjects} subjects and {@code sessions} sessions spread over the last 90 days,
+     * serialized once so that building a request costs nothing during the run
+     */
+    private static List<byte[]> generatePayloads(int subjects, int sessions, SplittableRandom random) {
+        ObjectMapper mapper = new ObjectMapper();
+        LocalDateTime now = LocalDateTime.now().withNano(0);
+        List<byte[]> payloads = new ArrayList<>();
+        for (int variant = 0; variant < PAYLOAD_VARIANTS; variant++) {
+            long planId = 1_000_000L + variant;
+            ObjectNode plan = mapper.createObjectNode()
+                .put("id", planId)
+                .put("userId", 1)
+                .put("title", "Load test plan " + variant)
+                .put("status", "ACTIVE")
+                .put("deadline", now.toLocalDate().plusDays(30 + random.nextInt(120)).toString());
+            ArrayNode subjectNodes = plan.putArray("subjects");
+            for (int s = 0; s < subjects; s++) {
+                subjectNodes.addObject()
+                    .put("id", planId * 1000 + s)
+                    .put("planId", planId)
+                    .put("name", "Subject " + s)
+                    .put("difficultyLevel", DIFFICULTIES[random.nextInt(DIFFICULTIES.length)])
+                    .put("timeAllocationMinutes", 300 + 60 * random.nextInt(30))
+                    .put("currentProgressPercent", random.nextInt(100));
+            }
+            ArrayNode sessionNodes = mapper.createArrayNode();
+            for (int i = 0; i < sessions; i++) {
+                sessionNodes.addObject()
+                    .put("planId", planId)
+                    .put("subjectId", planId * 1000 + random.nextInt(Math.max(1, subjects)))
+                    .put("durationMinutes", 15 + random.nextInt(106))
+                    .put("completionPercent", random.nextInt(101))
+                    .put("performanceScore", 1 + random.nextInt(10))
+                    .put("createdAt", now.minusMinutes(random.nextInt(90 * 24 * 60)).toString());
+            }
+            ObjectNode body = mapper.createObjectNode();
+            body.set("plan", plan);
+            body.set("sessions", sessionNodes);
+            try {
+                payloads.add(mapper.writeValueAsBytes(body));
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        return payloads;
+    }
+
+    private static Map<String, Double> defaultRates() {
+        Map<String, Double> rates = new LinkedHashMap<>();
+        rates.put("health", 20.0);
+        rates.put("recommendations.generate", 50.0);
+        rates.put("recommendations.plan", 50.0);
+        rates.put("sessions.log", 20.0);
+        rates.put("sessions.history", 50.0);
+        rates.put("dashboard", 20.0);
+        return rates;
+    }
+
+    /**
+     * One endpoint's share of the arrivals and its request builder
+     */
+    static final class Endpoint {
+        private final String name;
+        private final double rate;
+        private final Function<SplittableRandom, HttpRequest> requests;
+
+        Endpoint(String name, double rate, Function<SplittableRandom, HttpRequest> requests) {
+            this.name = name;
+            this.rate = rate;
+            this.requests = requests;
+        }
+
+        String name() { return name; }
+
+        double rate() { return rate; }
+
+        HttpRequest next(SplittableRandom random) { return requests.apply(random); }
+    }
+}
@@ -0,0 +1,108 @@
+#!/bin/bash
+
+# Grasp Study Planner - Distributed Scoring Scaling Check
+# Builds the backend, then for each worker count starts that many backend JVMs on this machine
+# with the scoring worker enabled, opens a scoring run over all active plans and waits for it to
+# finish. Prints plans per second per worker count, so scaling can be checked against one local
+# PostgreSQL. Needs a running PostgreSQL with the schema and enough plans to be worth splitting,
+# plus `curl` and `jq`.
+#
+# Usage: ./scripts/compare-scoring-workers.sh [worker counts...]   (default: 1 2 4)
+# Environment: PARTITIONS (64), THREADS (2, per worker), POOL_SIZE (4, per worker), BASE_PORT (8081)
+#              JWT_SECRET (random per run), ADMIN_EMAIL, ADMIN_PASSWORD: the account registered (if missing),
+#              made admin and signed in to open the runs
+
+PARTITIONS=${PARTITIONS:-64}
+THREADS=${THREADS:-2}
+POOL_SIZE=${POOL_SIZE:-4}
+BASE_PORT=${BASE_PORT:-8081}
+ADMIN_EMAIL=${ADMIN_EMAIL:-scoring-admin@grasp.local}
+ADMIN_PASSWORD=${ADMIN_PASSWORD:-scoring-admin-password}
+export JWT_SECRET=${JWT_SECRET:-$(head -c 48 /dev/urandom | base64 | tr -d '\n')}
+COUNTS=("$@")
+if [ ${#COUNTS[@]} -eq 0 ]; then
+    COUNTS=(1 2 4)
+fi
+
+for tool in curl jq; do
+    if ! command -v $tool > /dev/null; then
+        echo "❌ $tool is required"
+        exit 1
+    fi
+done
+
+echo "⚖️  Comparing scoring throughput by worker count..."
+
+echo ""
+echo "🔧 Building backend..."
+mvn -q -f backend/pom.xml package -DskipTests
+if [ $? -ne 0 ]; then
+    echo "❌ Backend build failed!"
+    exit 1
+fi
+JAR=$(ls backend/target/*-exec.jar | head -n 1)
+COORDINATOR="http://localhost:$BASE_PORT/api/api/scoring"
+AUTH="http://localhost:$BASE_PORT/api/api/auth"
+RESULTS=$(mktemp)
+
+run_workers() {
+    local count=$1
+    local pids=()
+    echo ""
+    echo "🚀 Starting $count worker(s)..."
+    for i in $(seq 0 $((count - 1))); do
+        local port=$((BASE_PORT + i))
+        java -jar "$JAR" \
+            --server.port="$port" \
+            --grasp.scoring.worker.enabled=true \
+            --grasp.scoring.worker.threads="$THREADS" \
+            --grasp.scoring.worker.poll-interval=1s \
+            --spring.datasource.hikari.maximum-pool-size="$POOL_SIZE" \
+            --grasp.recommendations.pipeline.enabled=false \
+            --grasp.security.admin-emails="$ADMIN_EMAIL" \
+            --logging.level.com.grasp=WARN --logging.level.org.springframework.security=WARN \
+            > "backend/target/scoring-worker-$count-$i.log" 2>&1 &
+        pids+=($!)
+    done
+    for i in $(seq 0 $((count - 1))); do
+        for _ in $(seq 1 60); do
+            curl -sf "http://localhost:$((BASE_PORT + i))/api/actuator/health/readiness" > /dev/null && break
+            sleep 1
+        done
+    done
+
+    local account token run_id status run
+    account=$(jq -n --arg email "$ADMIN_EMAIL" --arg password "$ADMIN_PASSWORD" \
+        '{email: $email, password: $password, firstName: "Scoring", lastName: "Admin"}')
+    curl -s -o /dev/null -X POST -H "Content-Type: application/json" -d "$account" "$AUTH/register"
+    token=$(curl -sf -X POST -H "Content-Type: application/json" -d "$account" "$AUTH/login" | jq -r .token)
+    run_id=$(curl -sf -X POST -H "Authorization: Bearer $token" "$COORDINATOR/runs?partitions=$PARTITIONS" \
+        | jq -r .runId)
+    if [ -z "$run_id" ] || [ "$run_id" = "null" ]; then
+        echo "❌ Could not open a run as $ADMIN_EMAIL; see backend/target/scoring-worker-$count-0.log"
+        kill "${pids[@]}"
+        exit 1
+    fi
+    echo "   run $run_id..."
+    while true; do
+        sleep 2
+        run=$(curl -sf "$COORDINATOR/runs/$run_id")
+        status=$(echo "$run" | jq -r .status)
+        [ "$status" = "DONE" ] && break
+    done
+    echo "$count $(echo "$run" | jq -r '"\(.plansScored) \(.elapsedMillis) \(.plansPerSecond) \(.retriedPartitions)"')" >> "$RESULTS"
+
+    kill "${pids[@]}"
+    wait "${pids[@]}" 2> /dev/null
+}
+
+for count in "${COUNTS[@]}"; do
+    run_workers "$count"
+done
+
+echo ""
+printf "%-8s %12s %12s %12s %10s\n" "Workers" "Plans" "Elapsed ms" "Plans/s" "Retried"
+while read -r count plans elapsed rate retried; do
+    printf "%-8s %12s %12s %12s %10s\n" "$count" "$plans" "$elapsed" "$rate" "$retried"
+done < "$RESULTS"
+rm -f "$RESULTS"
@@ -0,0 +1,94 @@
+#!/bin/bash
+
+# Grasp Study Planner - Thread Mode Load Comparison
+# Builds the backend with the java21 profile, then runs the same load against it once on
+# platform (Tomcat pool) threads and once on virtual threads, and prints throughput and
+# latency side by side. Needs Java 21, a running PostgreSQL with seed data, and `hey`
+# (https://github.com/rakyll/hey).
+#
+# The target is GET /recommendations/{planId} with the cache and background pipeline turned
+# off, so every request runs the engine against the database.
+#
+# Usage: ./scripts/compare-thread-modes.sh [concurrency levels...]   (default: 50 200 1000)
+# Environment: PLAN_ID (1), DURATION (30s), POOL_SIZE (20), TOMCAT_THREADS (200), PORT (8080)
+
+PLAN_ID=${PLAN_ID:-1}
+DURATION=${DURATION:-30s}
+POOL_SIZE=${POOL_SIZE:-20}
+TOMCAT_THREADS=${TOMCAT_THREADS:-200}
+PORT=${PORT:-8080}
+export JWT_SECRET=${JWT_SECRET:-$(head -c 48 /dev/urandom | base64 | tr -d '\n')}
+LEVELS=("$@")
+if [ ${#LEVELS[@]} -eq 0 ]; then
+    LEVELS=(50 200 1000)
+fi
+
+if ! command -v hey > /dev/null; then
+    echo "❌ hey is required: go install github.com/rakyll/hey@latest"
+    exit 1
+fi
+JAVA_MAJOR=$(java -version 2>&1 | head -n 1 | sed -E 's/.*version "([0-9]+).*/\1/')
+if [ "$JAVA_MAJOR" -lt 21 ]; then
+    echo "❌ Java 21+ is required (found $JAVA_MAJOR)"
+    exit 1
+fi
+
+echo "⚖️  Comparing platform and virtual threads..."
+
+echo ""
+echo "🔧 Building backend (-Pjava21)..."
+mvn -q -f backend/pom.xml package -Pjava21 -DskipTests
+if [ $? -ne 0 ]; then
+    echo "❌ Backend build failed!"
+    exit 1
+fi
+JAR=$(ls backend/target/*-exec.jar | head -n 1)
+URL="http://localhost:$PORT/api/api/recommendations/$PLAN_ID"
+RESULTS=$(mktemp)
+
+run_mode() {
+    local mode=$1 virtual=$2
+    echo ""
+    echo "🚀 Starting backend ($mode threads)..."
+    java -jar "$JAR" \
+        --server.port="$PORT" \
+        --spring.threads.virtual.enabled="$virtual" \
+        --server.tomcat.threads.max="$TOMCAT_THREADS" \
+        --spring.datasource.hikari.maximum-pool-size="$POOL_SIZE" \
+        --grasp.recommendations.cache.ttl=0s \
+        --grasp.recommendations.pipeline.enabled=false \
+        --logging.level.com.grasp=WARN --logging.level.org.springframework.security=WARN \
+        > "backend/target/compare-$mode.log" 2>&1 &
+    local pid=$!
+
+    for _ in $(seq 1 60); do
+        curl -sf "http://localhost:$PORT/api/actuator/health/readiness" > /dev/null && break
+        sleep 1
+    done
+
+    hey -z 5s -c 20 "$URL" > /dev/null # warm-up
+    for c in "${LEVELS[@]}"; do
+        echo "   concurrency $c..."
+        local out
+        out=$(hey -z "$DURATION" -c "$c" "$URL")
+        local rps p50 p99 errors
+        rps=$(echo "$out" | awk '/Requests\/sec/ {print $2}')
+        p50=$(echo "$out" | awk '/ 50% in/ {print $3}')
+        p99=$(echo "$out" | awk '/ 99% in/ {print $3}')
+        errors=$(echo "$out" | awk '$1 ~ /^\[[0-9]+\]$/ && $1 != "[200]" {sum += $2} END {print sum + 0}')
+        echo "$mode $c $rps $p50 $p99 $errors" >> "$RESULTS"
+    done
+
+    kill "$pid"
+    wait "$pid" 2> /dev/null
+}
+
+run_mode platform false
+run_mode virtual true
+
+echo ""
+printf "%-10s %12s %12s %12s %12s %8s\n" "Mode" "Concurrency" "Req/s" "p50 (s)" "p99 (s)" "Non-2xx"
+while read -r mode c rps p50 p99 errors; do
+    printf "%-10s %12s %12s %12s %12s %8s\n" "$mode" "$c" "$rps" "$p50" "$p99" "$errors"
+done < "$RESULTS"
+rm -f "$RESULTS"
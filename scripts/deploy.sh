@@ -35,7 +35,7 @@ cd ..
 echo ""
 echo "📦 Creating deployment package..."
 mkdir -p deploy
-cp backend/target/*.jar deploy/
+cp backend/target/*-exec.jar deploy/
 cp -r frontend/build deploy/frontend
 cp docker/docker-compose.yml deploy/
 cp database/schema.sql deploy/
@@ -0,0 +1,56 @@
+#!/bin/bash
+
+# Grasp Study Planner - Benchmark Script
+# Builds the backend and the JMH benchmarks, runs them with allocation profiling and
+# compares the result against the latest saved baseline.
+#
+# Usage: ./scripts/run-benchmarks.sh [--save-baseline] [JMH options, e.g. -p subjects=200 -p sessions=1000000]
+
+SAVE_BASELINE=false
+if [ "$1" == "--save-baseline" ]; then
+    SAVE_BASELINE=true
+    shift
+fi
+
+echo "📊 Running Grasp benchmarks..."
+
+echo ""
+echo "🔧 Installing backend..."
+mvn -q -f backend/pom.xml install -DskipTests
+if [ $? -ne 0 ]; then
+    echo "❌ Backend build failed!"
+    exit 1
+fi
+
+echo ""
+echo "🔧 Building benchmarks..."
+mvn -q -f benchmarks/pom.xml package
+if [ $? -ne 0 ]; then
+    echo "❌ Benchmark build failed!"
+    exit 1
+fi
+
+RESULT="benchmarks/target/jmh-result.json"
+BASELINE=$(ls -1 benchmarks/baselines/*.json 2>/dev/null | sort | tail -n 1)
+
+ARGS=(--out "$RESULT")
+if [ -n "$BASELINE" ]; then
+    echo "📈 Comparing against $BASELINE"
+    ARGS+=(--baseline "$BASELINE")
+fi
+
+java -jar benchmarks/target/benchmarks.jar "${ARGS[@]}" "$@"
+STATUS=$?
+
+if [ "$SAVE_BASELINE" == "true" ] && [ -f "$RESULT" ]; then
+    NAME="$(date +%Y%m%d)-$(git rev-parse --short HEAD).json"
+    cp "$RESULT" "benchmarks/baselines/$NAME"
+    echo "✅ Baseline saved to benchmarks/baselines/$NAME"
+fi
+
+if [ $STATUS -eq 2 ]; then
+    echo "❌ Regression against baseline detected"
+elif [ $STATUS -ne 0 ]; then
+    echo "❌ Benchmarks failed!"
+fi
+exit $STATUS
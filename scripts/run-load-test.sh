@@ -0,0 +1,186 @@
+#!/bin/bash
+
+# Grasp Study Planner - Load Test Script
+# Builds the backend and the load generator, starts a throwaway PostgreSQL cluster under
+# loadtest/target/, loads the schema, the seed data and synthetic plans, starts the backend
+# against it, drives open-model traffic at it and writes a JSON report with per-endpoint
+# p50/p99/p999 latency and throughput. The report is compared against the latest saved baseline.
+# Everything runs on this machine; nothing is downloaded once the Maven dependencies are cached
+# (pass MVN_ARGS=-o to make sure). Needs PostgreSQL server binaries (initdb, pg_ctl), psql and curl.
+#
+# Usage: ./scripts/run-load-test.sh [--save-baseline] [load test options, e.g. --duration 120s --rate sessions.log=100]
+# Environment: USERS (200), PLANS_PER_USER (5), SUBJECTS_PER_PLAN (6), SESSIONS_PER_SUBJECT (40),
+#              PORT (8080), PG_PORT (55432), PG_BIN (directory of initdb/pg_ctl, found if unset), MVN_ARGS
+#              REPLICAS (0): streaming replicas to start on PG_PORT+1.. and route read-only transactions to
+#              DB_URL, DB_USER, DB_PASSWORD: use this already seeded database instead of a throwaway one
+#              (psql then connects through the usual PGHOST/PGPORT/PGUSER/PGPASSWORD/PGDATABASE)
+#              JWT_SECRET (random per run), ADMIN_EMAIL, ADMIN_PASSWORD: the account registered (if missing),
+#              made admin and signed in to call the rebuild endpoints
+
+SAVE_BASELINE=false
+if [ "$1" == "--save-baseline" ]; then
+    SAVE_BASELINE=true
+    shift
+fi
+
+USERS=${USERS:-200}
+PLANS_PER_USER=${PLANS_PER_USER:-5}
+SUBJECTS_PER_PLAN=${SUBJECTS_PER_PLAN:-6}
+SESSIONS_PER_SUBJECT=${SESSIONS_PER_SUBJECT:-40}
+PORT=${PORT:-8080}
+PG_PORT=${PG_PORT:-55432}
+REPLICAS=${REPLICAS:-0}
+ADMIN_EMAIL=${ADMIN_EMAIL:-loadtest-admin@grasp.local}
+ADMIN_PASSWORD=${ADMIN_PASSWORD:-loadtest-admin-password}
+export JWT_SECRET=${JWT_SECRET:-$(head -c 48 /dev/urandom | base64 | tr -d '\n')}
+WORK=loadtest/target
+
+for tool in java psql curl; do
+    if ! command -v $tool > /dev/null; then
+        echo "❌ $tool is required"
+        exit 1
+    fi
+done
+
+echo "🏋️  Running Grasp load test..."
+
+echo ""
+echo "🔧 Building backend and load generator..."
+mvn -q $MVN_ARGS -f backend/pom.xml package -DskipTests && mvn -q $MVN_ARGS -f loadtest/pom.xml package
+if [ $? -ne 0 ]; then
+    echo "❌ Build failed!"
+    exit 1
+fi
+JAR=$(ls backend/target/*-exec.jar | head -n 1)
+mkdir -p "$WORK"
+
+BACKEND_PID=""
+CLUSTERS=()
+REPLICA_URLS=""
+cleanup() {
+    [ -n "$BACKEND_PID" ] && kill "$BACKEND_PID" 2> /dev/null && wait "$BACKEND_PID" 2> /dev/null
+    for cluster in "${CLUSTERS[@]}"; do
+        "$PG_BIN/pg_ctl" -D "$cluster" -m fast stop > /dev/null
+    done
+}
+trap cleanup EXIT
+
+if [ -z "$DB_URL" ]; then
+    if [ -z "$PG_BIN" ]; then
+        if command -v initdb > /dev/null; then
+            PG_BIN=$(dirname "$(command -v initdb)")
+        else
+            PG_BIN=$(ls -d /usr/lib/postgresql/*/bin 2> /dev/null | sort -V | tail -n 1)
+        fi
+    fi
+    if [ ! -x "$PG_BIN/initdb" ]; then
+        echo "❌ PostgreSQL server binaries not found; set PG_BIN, or DB_URL to use an existing database"
+        exit 1
+    fi
+
+    echo ""
+    echo "🗄️  Starting PostgreSQL on port $PG_PORT..."
+    CLUSTER="$WORK/pgdata"
+    rm -rf "$WORK"/pgdata*
+    "$PG_BIN/initdb" -D "$CLUSTER" -U grasp_user --auth=trust > "$WORK/initdb.log" || exit 1
+    "$PG_BIN/pg_ctl" -D "$CLUSTER" -l "$WORK/postgres.log" -w \
+        -o "-p $PG_PORT -k /tmp -c max_connections=200" start > /dev/null || exit 1
+    CLUSTERS+=("$CLUSTER")
+    export PGHOST=localhost PGPORT=$PG_PORT PGUSER=grasp_user PGDATABASE=grasp_loadtest
+    "$PG_BIN/createdb" grasp_loadtest || exit 1
+    DB_URL="jdbc:postgresql://localhost:$PG_PORT/grasp_loadtest?reWriteBatchedInserts=true"
+
+    echo "🌱 Loading schema, seed data and $((USERS * PLANS_PER_USER)) synthetic plans..."
+    psql -q -v ON_ERROR_STOP=1 -f database/schema.sql > /dev/null \
+        && psql -q -v ON_ERROR_STOP=1 -f database/seed-data.sql > /dev/null \
+        && psql -q -v ON_ERROR_STOP=1 -v users="$USERS" -v plans_per_user="$PLANS_PER_USER" \
+            -v subjects_per_plan="$SUBJECTS_PER_PLAN" -v sessions_per_subject="$SESSIONS_PER_SUBJECT" \
+            -f database/load-test-data.sql > /dev/null
+    if [ $? -ne 0 ]; then
+        echo "❌ Loading data failed!"
+        exit 1
+    fi
+    SEEDED=true
+
+    for i in $(seq 1 "$REPLICAS"); do
+        port=$((PG_PORT + i))
+        echo "🪞 Starting streaming replica $i on port $port..."
+        "$PG_BIN/pg_basebackup" -h localhost -p "$PG_PORT" -U grasp_user -D "$CLUSTER-replica$i" -R -X stream || exit 1
+        "$PG_BIN/pg_ctl" -D "$CLUSTER-replica$i" -l "$WORK/postgres-replica$i.log" -w \
+            -o "-p $port -k /tmp -c max_connections=200" start > /dev/null || exit 1
+        CLUSTERS+=("$CLUSTER-replica$i")
+        REPLICA_URLS="${REPLICA_URLS:+$REPLICA_URLS,}jdbc:postgresql://localhost:$port/grasp_loadtest"
+    done
+fi
+
+psql -Atq -c "SELECT plan_id || ',' || id FROM subjects ORDER BY id" > "$WORK/targets.csv" || exit 1
+
+echo ""
+echo "🚀 Starting backend..."
+java -jar "$JAR" \
+    --server.port="$PORT" \
+    --spring.datasource.url="$DB_URL" \
+    --spring.datasource.username="${DB_USER:-grasp_user}" \
+    --spring.datasource.password="${DB_PASSWORD:-grasp_password}" \
+    --grasp.datasource.replica-urls="${REPLICA_URLS:-$GRASP_DB_REPLICA_URLS}" \
+    --grasp.security.admin-emails="$ADMIN_EMAIL" \
+    --logging.level.com.grasp=WARN --logging.level.org.springframework.security=WARN \
+    > "$WORK/backend.log" 2>&1 &
+BACKEND_PID=$!
+for _ in $(seq 1 90); do
+    curl -sf "http://localhost:$PORT/api/actuator/health/readiness" > /dev/null && break
+    sleep 1
+done
+if ! curl -sf "http://localhost:$PORT/api/actuator/health/readiness" > /dev/null; then
+    echo "❌ Backend did not become ready; see $WORK/backend.log"
+    exit 1
+fi
+
+if [ "$SEEDED" == "true" ]; then
+    echo "📊 Building session aggregates, dashboard statistics and subject cohorts..."
+    # The rebuild endpoints need an admin token; the context path /api comes before the controllers' /api/...
+    API="http://localhost:$PORT/api/api"
+    ACCOUNT="{\"email\":\"$ADMIN_EMAIL\",\"password\":\"$ADMIN_PASSWORD\",\"firstName\":\"Load\",\"lastName\":\"Test\"}"
+    curl -s -o /dev/null -X POST -H "Content-Type: application/json" -d "$ACCOUNT" "$API/auth/register"
+    TOKEN=$(curl -sf -X POST -H "Content-Type: application/json" -d "$ACCOUNT" "$API/auth/login" \
+        | sed -n 's/.*"token" *: *"\([^"]*\)".*/\1/p')
+    if [ -z "$TOKEN" ]; then
+        echo "❌ Could not sign in as $ADMIN_EMAIL; see $WORK/backend.log"
+        exit 1
+    fi
+    PLAN_IDS=$(psql -Atq -c "SELECT id FROM study_plans ORDER BY id") || exit 1
+    # xargs exits non-zero if any curl did, and curl -f does on any 4xx/5xx
+    echo "$PLAN_IDS" | xargs -P 4 -I{} \
+        curl -sf -o /dev/null -H "Authorization: Bearer $TOKEN" -X POST "$API/dashboard/{}/rebuild" \
+        && curl -sf -o /dev/null -H "Authorization: Bearer $TOKEN" -X POST "$API/cohorts/rebuild"
+    if [ $? -ne 0 ]; then
+        echo "❌ Rebuilding failed; see $WORK/backend.log"
+        exit 1
+    fi
+fi
+
+RESULT="$WORK/load-report.json"
+BASELINE=$(ls -1 loadtest/baselines/*.json 2>/dev/null | sort | tail -n 1)
+ARGS=(--base-url "http://localhost:$PORT/api" --targets "$WORK/targets.csv" --out "$RESULT"
+      --label "$(git rev-parse --short HEAD 2> /dev/null)")
+if [ -n "$BASELINE" ]; then
+    echo "📈 Comparing against $BASELINE"
+    ARGS+=(--baseline "$BASELINE")
+fi
+
+echo ""
+java -jar loadtest/target/loadtest.jar "${ARGS[@]}" "$@"
+STATUS=$?
+
+if [ "$SAVE_BASELINE" == "true" ] && [ -f "$RESULT" ]; then
+    NAME="$(date +%Y%m%d)-$(git rev-parse --short HEAD).json"
+    cp "$RESULT" "loadtest/baselines/$NAME"
+    echo "✅ Baseline saved to loadtest/baselines/$NAME"
+fi
+
+if [ $STATUS -eq 2 ]; then
+    echo "❌ Regression against baseline detected"
+elif [ $STATUS -ne 0 ]; then
+    echo "❌ Load test failed!"
+fi
+exit $STATUS
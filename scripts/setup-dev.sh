@@ -95,7 +95,7 @@ echo "🎉 Development environment setup complete!"
 echo ""
 echo "📝 Next steps:"
 echo "1. Start MySQL service: sudo service mysql start (Linux) or net start mysql (Windows)"
-echo "2. Start backend: cd backend && mvn spring-boot:run"
+echo "2. Start backend: export JWT_SECRET=\$(openssl rand -base64 48) && cd backend && mvn spring-boot:run"
 echo "3. Start frontend: cd frontend && npm start"
 echo ""
 echo "🌐 Access points:"
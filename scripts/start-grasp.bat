@@ -29,6 +29,10 @@ echo ✅ Database setup complete
 echo.
 
 REM Step 4: Start Backend
+if "%JWT_SECRET%"=="" (
+    echo ❌ Set JWT_SECRET to a random value of at least 32 bytes before starting the backend
+    exit /b 1
+)
 echo 🔧 Starting Spring Boot backend...
 start "Backend Server" cmd /k "cd backend && mvn spring-boot:run"
 echo ✅ Backend startup initiated
@@ -124,6 +124,14 @@ Write-Host "🔧 Starting Spring Boot backend..." -ForegroundColor Cyan
 if (Test-Port -Port 8080) {
     Write-Host "⚠️ Port 8080 is already in use. Backend might already be running." -ForegroundColor Yellow
 } else {
+    # Tokens are signed with JWT_SECRET, which has no default; generate one for this run if unset
+    if (-not $env:JWT_SECRET) {
+        $bytes = New-Object byte[] 48
+        [System.Security.Cryptography.RandomNumberGenerator]::Create().GetBytes($bytes)
+        $env:JWT_SECRET = [Convert]::ToBase64String($bytes)
+        Write-Host "🔑 Generated JWT_SECRET for this run; tokens are invalid after a restart" -ForegroundColor Yellow
+    }
+
     # Start backend in new window
     $backendScript = @"
 cd backend